@@ -1,5 +1,7 @@
 package io.nuls.base.protocol;
 
+import io.nuls.base.RPCUtil;
+
 public interface MessageProcessor {
 
     /**
@@ -17,4 +19,19 @@ public interface MessageProcessor {
      */
     void process(int chainId, String nodeId, String message);
 
+    /**
+     * 消息处理方法，二进制帧传输时消息体为原始字节
+     * 默认转为hex字符串交给{@link #process(int, String, String)}处理，高频消息的处理器应覆盖此方法以避免编解码
+     * Message processing method, the message body is raw bytes when transmitted in binary frame
+     * By default it is converted to hex string and handed over to {@link #process(int, String, String)},
+     * processors of high frequency messages should override it to avoid the extra encoding
+     *
+     * @param chainId
+     * @param nodeId
+     * @param message
+     */
+    default void process(int chainId, String nodeId, byte[] message) {
+        process(chainId, nodeId, RPCUtil.encode(message));
+    }
+
 }
@@ -47,7 +47,7 @@ public final class MessageDispatcher extends BaseCmd {
     @Parameter(parameterName = "chainId", parameterType = "int")
     @Parameter(parameterName = "nodeId", parameterType = "String")
     @Parameter(parameterName = "cmd", parameterType = "String")
-    @Parameter(parameterName = "messageBody", parameterType = "String")
+    @Parameter(parameterName = "messageBody", parameterType = "Object", parameterDes = "消息体, 二进制帧中为byte[], JSON请求中为hex字符串")
     public Response msgProcess(Map params) {
         ObjectUtils.canNotEmpty(params.get(Constants.CHAIN_ID), CommonCodeConstanst.PARAMETER_ERROR.getMsg());
         ObjectUtils.canNotEmpty(params.get("nodeId"), CommonCodeConstanst.PARAMETER_ERROR.getMsg());
@@ -56,10 +56,14 @@ public final class MessageDispatcher extends BaseCmd {
         int chainId = Integer.parseInt(params.get(Constants.CHAIN_ID).toString());
         String nodeId = (String) params.get("nodeId");
         String cmd = (String) params.get("cmd");
-        String msgStr = (String) params.get("messageBody");
+        Object messageBody = params.get("messageBody");
         for (MessageProcessor processor : processors) {
             if (cmd.equals(processor.getCmd())) {
-                processor.process(chainId, nodeId, msgStr);
+                if (messageBody instanceof byte[]) {
+                    processor.process(chainId, nodeId, (byte[]) messageBody);
+                } else {
+                    processor.process(chainId, nodeId, (String) messageBody);
+                }
             }
         }
         return success();
@@ -40,6 +40,17 @@ public class RPCUtil {
         return (src == null) ? null : HexUtil.decode(src);
     }
 
+    /**
+     * 解析RPC参数中的字节数组，二进制帧传输时为byte[]，JSON帧传输时为hex字符串
+     * Parse byte array in RPC parameters, byte[] when transmitted in binary frame, hex string in JSON frame
+     */
+    public static byte[] decodeParam(Object src) {
+        if (src instanceof byte[]) {
+            return (byte[]) src;
+        }
+        return (src == null) ? null : HexUtil.decode(src.toString());
+    }
+
     public static <T> T getInstance(byte[] bytes, Class<? extends BaseNulsData> clazz) {
         if (null == bytes || bytes.length == 0) {
             Log.error("error code-" + CommonCodeConstanst.DESERIALIZE_ERROR);
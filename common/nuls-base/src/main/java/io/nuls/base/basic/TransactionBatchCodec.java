@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package io.nuls.base.basic;
+
+import io.nuls.base.data.Transaction;
+import io.nuls.core.basic.VarInt;
+import io.nuls.core.exception.NulsException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 交易批量二进制编解码, 用于模块间批量传输交易及其校验结果
+ * 交易集合格式：[VarInt交易数]([VarInt交易长度][交易字节])*
+ * 校验结果格式：每笔交易占2位, 按交易顺序从低位开始排列
+ * <p>
+ * Binary codec for transaction batches, used to transfer batches of txs and their validation results between modules
+ * Transactions layout: [VarInt count]([VarInt tx length][tx bytes])*
+ * Results layout: 2 bits per tx, packed from the low bits in tx order
+ */
+public class TransactionBatchCodec {
+
+    public static final int RESULT_SUCCESS = 0;
+    public static final int RESULT_ORPHAN = 1;
+    public static final int RESULT_FAIL = 2;
+
+    private static final int RESULT_BITS = 2;
+    private static final int RESULTS_PER_BYTE = 8 / RESULT_BITS;
+    private static final int RESULT_MASK = (1 << RESULT_BITS) - 1;
+
+    /**
+     * 将已序列化的交易拼接为一个二进制块
+     * Join serialized transactions into one binary blob
+     */
+    public static byte[] encodeTxs(List<byte[]> txBytesList) {
+        int size = VarInt.sizeOf(txBytesList.size());
+        for (byte[] txBytes : txBytesList) {
+            size += VarInt.sizeOf(txBytes.length) + txBytes.length;
+        }
+        byte[] blob = new byte[size];
+        int offset = writeVarInt(blob, 0, txBytesList.size());
+        for (byte[] txBytes : txBytesList) {
+            offset = writeVarInt(blob, offset, txBytes.length);
+            System.arraycopy(txBytes, 0, blob, offset, txBytes.length);
+            offset += txBytes.length;
+        }
+        return blob;
+    }
+
+    /**
+     * 解析二进制块中的交易
+     * Parse the transactions in the binary blob
+     */
+    public static List<Transaction> decodeTxs(byte[] blob) throws NulsException {
+        NulsByteBuffer buffer = new NulsByteBuffer(blob);
+        int count = (int) buffer.readVarInt();
+        List<Transaction> txList = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = (int) buffer.readVarInt();
+            int end = buffer.getCursor() + length;
+            Transaction tx = new Transaction();
+            tx.parse(buffer);
+            if (buffer.getCursor() != end) {
+                throw new NulsException(new IllegalArgumentException("Transaction length mismatch at index " + i));
+            }
+            txList.add(tx);
+        }
+        return txList;
+    }
+
+    public static byte[] newResults(int count) {
+        return new byte[(count + RESULTS_PER_BYTE - 1) / RESULTS_PER_BYTE];
+    }
+
+    public static void setResult(byte[] results, int index, int result) {
+        int shift = (index % RESULTS_PER_BYTE) * RESULT_BITS;
+        int i = index / RESULTS_PER_BYTE;
+        results[i] = (byte) ((results[i] & ~(RESULT_MASK << shift)) | ((result & RESULT_MASK) << shift));
+    }
+
+    public static int getResult(byte[] results, int index) {
+        int shift = (index % RESULTS_PER_BYTE) * RESULT_BITS;
+        return (results[index / RESULTS_PER_BYTE] >> shift) & RESULT_MASK;
+    }
+
+    private static int writeVarInt(byte[] blob, int offset, long value) {
+        byte[] bytes = new VarInt(value).encode();
+        System.arraycopy(bytes, 0, blob, offset, bytes.length);
+        return offset + bytes.length;
+    }
+}
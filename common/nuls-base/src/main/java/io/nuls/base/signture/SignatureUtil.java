@@ -36,6 +36,7 @@ import io.nuls.base.script.ScriptOpCodes;
 import io.nuls.core.constant.BaseConstant;
 import io.nuls.core.constant.TxType;
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.crypto.ECBatchVerifier;
 import io.nuls.core.crypto.ECKey;
 import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.exception.NulsException;
@@ -82,7 +83,7 @@ public class SignatureUtil {
                 if (forked) {
                     //这里用硬分叉后的新逻辑
                     for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()) {
-                        if (!ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+                        if (!verify(tx.getHash().getBytes(), signature)) {
                             throw new NulsException(new Exception("Transaction signature error !"));
                         }
                     }
@@ -90,7 +91,7 @@ public class SignatureUtil {
                     int signCount = tx.getCoinDataInstance().getFromAddressCount();
                     int passCount = 0;
                     for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()) {
-                        if (!ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+                        if (!verify(tx.getHash().getBytes(), signature)) {
                             throw new NulsException(new Exception("Transaction signature error !"));
                         }
                         passCount++;
@@ -108,7 +109,7 @@ public class SignatureUtil {
                 List<P2PHKSignature> validSignatures = transactionSignature.getValidSignature();
                 int validCount = 0;
                 for (P2PHKSignature signature : validSignatures) {
-                    if (ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+                    if (verify(tx.getHash().getBytes(), signature)) {
                         validCount++;
                     }
                     if (!forked && validCount >= transactionSignature.getM()) {
@@ -146,7 +147,7 @@ public class SignatureUtil {
         int passCount = 0;
         String signAddress;
         for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()) {
-            if (!ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+            if (!verify(tx.getHash().getBytes(), signature)) {
                 throw new NulsException(new Exception("Transaction signature error !"));
             }
             signAddress = AddressTool.getStringAddressByBytes(AddressTool.getAddress(signature.getPublicKey(), chainId));
@@ -180,7 +181,7 @@ public class SignatureUtil {
         TransactionSignature transactionSignature = new TransactionSignature();
         transactionSignature.parse(tx.getTransactionSignature(), 0);
         for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()) {
-            if (!ECKey.verify(tx.getHash().getBytes(), signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+            if (!verify(tx.getHash().getBytes(), signature)) {
                 throw new NulsException(new Exception("Transaction signature error !"));
             }
         }
@@ -199,10 +200,84 @@ public class SignatureUtil {
         if (null == p2PHKSignature) {
             throw new NulsException(new Exception("P2PHKSignature is null!"));
         }
-        if (ECKey.verify(digestBytes, p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())) {
+        return verify(digestBytes, p2PHKSignature);
+    }
+
+    /**
+     * 验证签名, 先查已验证签名缓存, 未命中再做椭圆曲线验证, 验证通过的结果写入缓存
+     * Verify a signature, checking the verified signature cache first and caching successful results
+     */
+    private static boolean verify(byte[] digestBytes, P2PHKSignature signature) {
+        byte[] signBytes = signature.getSignData().getSignBytes();
+        byte[] publicKey = signature.getPublicKey();
+        if (VerifiedSignatureCache.contains(digestBytes, signBytes, publicKey)) {
             return true;
         }
-        return false;
+        if (!ECBatchVerifier.verify(digestBytes, signBytes, publicKey)) {
+            return false;
+        }
+        VerifiedSignatureCache.add(digestBytes, signBytes, publicKey);
+        return true;
+    }
+
+    /**
+     * 批量预验证交易签名, 验证通过的签名写入已验证签名缓存, 之后逐笔校验交易时直接命中缓存
+     * 这里只做签名本身的验证, 签名数量、多签M值等规则仍由逐笔校验完成; 验证失败的签名不缓存, 逐笔校验时会重新验证并报错
+     * <p>
+     * Pre-verify the signatures of a batch of txs and put the verified ones into the verified signature cache,
+     * so the per-tx validation afterwards hits the cache.
+     * Only the signatures themselves are checked here, rules such as signature count or multi-sign M are still
+     * checked per tx; failed signatures are not cached and fail again in the per-tx validation
+     *
+     * @param txList 交易列表 / transactions
+     */
+    public static void batchVerifySignatures(List<Transaction> txList) {
+        List<byte[]> digestList = new ArrayList<>();
+        List<byte[]> signList = new ArrayList<>();
+        List<byte[]> pubKeyList = new ArrayList<>();
+        for (Transaction tx : txList) {
+            if (tx.getTransactionSignature() == null || tx.getTransactionSignature().length == 0) {
+                continue;
+            }
+            List<P2PHKSignature> signatures;
+            try {
+                if (tx.isMultiSignTx()) {
+                    MultiSignTxSignature transactionSignature = new MultiSignTxSignature();
+                    transactionSignature.parse(tx.getTransactionSignature(), 0);
+                    signatures = transactionSignature.getValidSignature();
+                } else {
+                    TransactionSignature transactionSignature = new TransactionSignature();
+                    transactionSignature.parse(tx.getTransactionSignature(), 0);
+                    signatures = transactionSignature.getP2PHKSignatures();
+                }
+            } catch (NulsException e) {
+                //解析失败的交易留给逐笔校验处理
+                continue;
+            }
+            if (signatures == null) {
+                continue;
+            }
+            byte[] digest = tx.getHash().getBytes();
+            for (P2PHKSignature signature : signatures) {
+                if (signature.getSignData() == null) {
+                    continue;
+                }
+                byte[] signBytes = signature.getSignData().getSignBytes();
+                byte[] publicKey = signature.getPublicKey();
+                if (VerifiedSignatureCache.contains(digest, signBytes, publicKey)) {
+                    continue;
+                }
+                digestList.add(digest);
+                signList.add(signBytes);
+                pubKeyList.add(publicKey);
+            }
+        }
+        boolean[] results = ECBatchVerifier.verify(digestList, signList, pubKeyList);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i]) {
+                VerifiedSignatureCache.add(digestList.get(i), signList.get(i), pubKeyList.get(i));
+            }
+        }
     }
 
     /**
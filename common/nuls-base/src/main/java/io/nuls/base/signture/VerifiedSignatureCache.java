@@ -0,0 +1,219 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.base.signture;
+
+import io.nuls.core.model.ByteArrayWrapper;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已验证签名缓存, 交易进入内存池时验证通过的签名在打包和区块验证时不再重复做椭圆曲线验证
+ * 以被签名的摘要(交易hash)为key, 记录验证通过的(签名字节, 公钥)组合, 只有完全相同的组合才会命中, 不会误判;
+ * 只缓存验证通过的结果。容量按组合数固定, 单个摘要的组合数也有上限, 分两代存放, 当前代写满后丢弃上一代并轮换; 交易确认或回滚时按交易hash主动清除
+ * <p>
+ * Cache of verified signatures, so signatures checked when a tx enters the mempool are not verified
+ * on the curve again when packing and validating blocks
+ * Keyed by the signed digest (tx hash), it records the (signature bytes, public key) pairs that passed,
+ * only an identical pair hits so there are no false positives; only successful results are cached.
+ * The capacity counts pairs and the pairs per digest are capped, it is bounded by two generations, when the current one is full the previous one is dropped and rotated;
+ * entries are evicted by tx hash when the tx is confirmed or rolled back
+ */
+public class VerifiedSignatureCache {
+
+    /**
+     * 缓存的(签名, 公钥)组合数量上限
+     * Max number of cached (signature, public key) pairs
+     */
+    private static final int MAX_SIZE = 200000;
+
+    /**
+     * 单个摘要最多缓存的组合数, 超出的签名不缓存, 每次重新验证
+     * Max pairs cached under one digest, further signatures are not cached and are verified every time
+     */
+    private static final int MAX_PAIRS_PER_DIGEST = 128;
+
+    private static final int GENERATION_SIZE = MAX_SIZE / 2;
+
+    private static final int PAIR_HEADER = 2;
+    private static final int MAX_SIGN_LENGTH = 0xFFFF;
+
+    private static volatile Generations generations = new Generations(new Generation(), new Generation());
+
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+
+    /**
+     * 该签名是否已对该摘要验证通过
+     * Whether the signature has already been verified against the digest
+     */
+    public static boolean contains(byte[] digest, byte[] signBytes, byte[] publicKey) {
+        if (digest == null || signBytes == null || publicKey == null) {
+            return false;
+        }
+        ByteArrayWrapper key = new ByteArrayWrapper(digest);
+        Generations gens = generations;
+        if (matches(gens.current.map.get(key), signBytes, publicKey) || matches(gens.previous.map.get(key), signBytes, publicKey)) {
+            HITS.increment();
+            return true;
+        }
+        MISSES.increment();
+        return false;
+    }
+
+    /**
+     * 记录验证通过的签名, 验证失败的签名不能调用
+     * Record a verified signature, must not be called for failed ones
+     */
+    public static void add(byte[] digest, byte[] signBytes, byte[] publicKey) {
+        if (digest == null || signBytes == null || publicKey == null || signBytes.length > MAX_SIGN_LENGTH) {
+            return;
+        }
+        ByteArrayWrapper key = new ByteArrayWrapper(digest);
+        byte[] pair = pair(signBytes, publicKey);
+        Generations gens = generations;
+        Generation current = gens.current;
+        boolean[] added = new boolean[1];
+        current.map.compute(key, (k, pairs) -> {
+            if (pairs == null) {
+                added[0] = true;
+                return new byte[][]{pair};
+            }
+            if (pairs.length >= MAX_PAIRS_PER_DIGEST) {
+                return pairs;
+            }
+            for (byte[] p : pairs) {
+                if (Arrays.equals(p, pair)) {
+                    return pairs;
+                }
+            }
+            added[0] = true;
+            byte[][] newPairs = Arrays.copyOf(pairs, pairs.length + 1);
+            newPairs[pairs.length] = pair;
+            return newPairs;
+        });
+        //按组合计数, 同一摘要下的多个签名同样占用容量
+        if (added[0] && current.count.incrementAndGet() == GENERATION_SIZE) {
+            rotate(gens);
+        }
+    }
+
+    /**
+     * 交易确认或回滚后清除该交易hash的缓存
+     * Evict the entries of a tx hash after the tx is confirmed or rolled back
+     */
+    public static void evict(byte[] digest) {
+        ByteArrayWrapper key = new ByteArrayWrapper(digest);
+        Generations gens = generations;
+        gens.current.map.remove(key);
+        gens.previous.map.remove(key);
+    }
+
+    public static void clear() {
+        generations = new Generations(new Generation(), new Generation());
+    }
+
+    public static int size() {
+        Generations gens = generations;
+        return gens.current.map.size() + gens.previous.map.size();
+    }
+
+    /**
+     * 缓存命中率
+     * Cache hit rate
+     */
+    public static double getHitRate() {
+        long hits = HITS.sum();
+        long total = hits + MISSES.sum();
+        return total == 0 ? 0D : (double) hits / total;
+    }
+
+    public static String stats() {
+        return "VerifiedSignatureCache{size=" + size() + ", hits=" + HITS.sum() + ", misses=" + MISSES.sum()
+                + ", hitRate=" + String.format("%.4f", getHitRate()) + "}";
+    }
+
+    /**
+     * 只有使当前代计数恰好达到上限的线程执行轮换
+     * Only the thread whose insert makes the count reach the limit rotates
+     */
+    private static synchronized void rotate(Generations gens) {
+        if (generations != gens) {
+            return;
+        }
+        generations = new Generations(new Generation(), gens.current);
+    }
+
+    private static boolean matches(byte[][] pairs, byte[] signBytes, byte[] publicKey) {
+        if (pairs == null) {
+            return false;
+        }
+        int signEnd = PAIR_HEADER + signBytes.length;
+        for (byte[] pair : pairs) {
+            if (pair.length == signEnd + publicKey.length
+                    && signLength(pair) == signBytes.length
+                    && Arrays.equals(pair, PAIR_HEADER, signEnd, signBytes, 0, signBytes.length)
+                    && Arrays.equals(pair, signEnd, pair.length, publicKey, 0, publicKey.length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * [2字节签名长度][签名][公钥], 带上长度避免不同的签名/公钥拆分拼出相同的字节
+     * [2 bytes signature length][signature][public key], the length keeps different splits from matching
+     */
+    private static byte[] pair(byte[] signBytes, byte[] publicKey) {
+        byte[] pair = new byte[PAIR_HEADER + signBytes.length + publicKey.length];
+        pair[0] = (byte) (signBytes.length >>> 8);
+        pair[1] = (byte) signBytes.length;
+        System.arraycopy(signBytes, 0, pair, PAIR_HEADER, signBytes.length);
+        System.arraycopy(publicKey, 0, pair, PAIR_HEADER + signBytes.length, publicKey.length);
+        return pair;
+    }
+
+    private static int signLength(byte[] pair) {
+        return ((pair[0] & 0xFF) << 8) | (pair[1] & 0xFF);
+    }
+
+    private static class Generations {
+        private final Generation current;
+        private final Generation previous;
+
+        Generations(Generation current, Generation previous) {
+            this.current = current;
+            this.previous = previous;
+        }
+    }
+
+    private static class Generation {
+        private final Map<ByteArrayWrapper, byte[][]> map = new ConcurrentHashMap<>();
+        private final AtomicInteger count = new AtomicInteger();
+    }
+}
@@ -0,0 +1,44 @@
+package io.nuls.base.basic;
+
+import io.nuls.base.data.Transaction;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransactionBatchCodecTest {
+
+    @Test
+    public void txsRoundTrip() throws Exception {
+        List<Transaction> txList = new ArrayList<>();
+        List<byte[]> txBytesList = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Transaction tx = new Transaction(2);
+            tx.setTime(1574000000L + i);
+            tx.setRemark(new byte[i % 7]);
+            txList.add(tx);
+            txBytesList.add(tx.serialize());
+        }
+        List<Transaction> decoded = TransactionBatchCodec.decodeTxs(TransactionBatchCodec.encodeTxs(txBytesList));
+        Assert.assertEquals(txList.size(), decoded.size());
+        for (int i = 0; i < txList.size(); i++) {
+            Assert.assertEquals(txList.get(i).getHash(), decoded.get(i).getHash());
+        }
+    }
+
+    @Test
+    public void results() {
+        int count = 1001;
+        byte[] results = TransactionBatchCodec.newResults(count);
+        Assert.assertEquals(251, results.length);
+        for (int i = 0; i < count; i++) {
+            TransactionBatchCodec.setResult(results, i, i % 3);
+        }
+        TransactionBatchCodec.setResult(results, 5, TransactionBatchCodec.RESULT_SUCCESS);
+        for (int i = 0; i < count; i++) {
+            int expected = i == 5 ? TransactionBatchCodec.RESULT_SUCCESS : i % 3;
+            Assert.assertEquals(expected, TransactionBatchCodec.getResult(results, i));
+        }
+    }
+}
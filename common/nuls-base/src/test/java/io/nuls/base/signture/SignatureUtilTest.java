@@ -0,0 +1,117 @@
+package io.nuls.base.signture;
+
+import io.nuls.base.data.CoinData;
+import io.nuls.base.data.CoinFrom;
+import io.nuls.base.data.NulsSignData;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.constant.BaseConstant;
+import io.nuls.core.crypto.ECKey;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 多签交易签名验证, 无法解析的签名必须使交易验证失败
+ */
+public class SignatureUtilTest {
+
+    private static final int CHAIN_ID = 2;
+
+    @Before
+    public void setUp() {
+        VerifiedSignatureCache.clear();
+    }
+
+    @Test
+    public void multiSignValid() throws Exception {
+        List<ECKey> keys = keys(3);
+        Transaction tx = multiSignTx();
+        List<P2PHKSignature> signatures = new ArrayList<>();
+        signatures.add(SignatureUtil.createSignatureByEckey(tx.getHash(), keys.get(0)));
+        signatures.add(SignatureUtil.createSignatureByEckey(tx.getHash(), keys.get(1)));
+        tx.setTransactionSignature(multiSignature(keys, signatures).serialize());
+        assertTrue(SignatureUtil.validateTransactionSignture(CHAIN_ID, tx));
+    }
+
+    /**
+     * M个有效签名加一个无法解析的签名, 与ECKey.verify一样抛出异常, 不能跳过该签名后判定通过
+     */
+    @Test
+    public void multiSignMalformedSignature() throws Exception {
+        List<ECKey> keys = keys(3);
+        Transaction tx = multiSignTx();
+        List<P2PHKSignature> signatures = new ArrayList<>();
+        signatures.add(SignatureUtil.createSignatureByEckey(tx.getHash(), keys.get(0)));
+        signatures.add(SignatureUtil.createSignatureByEckey(tx.getHash(), keys.get(1)));
+        P2PHKSignature malformed = new P2PHKSignature();
+        NulsSignData signData = new NulsSignData();
+        signData.setSignBytes(new byte[]{0x30, 0x01, 0x00});
+        malformed.setSignData(signData);
+        malformed.setPublicKey(keys.get(2).getPubKey());
+        signatures.add(malformed);
+        tx.setTransactionSignature(multiSignature(keys, signatures).serialize());
+        try {
+            SignatureUtil.validateTransactionSignture(CHAIN_ID, tx);
+            fail("malformed signature accepted");
+        } catch (RuntimeException e) {
+            //expected
+        }
+        //批量预验证不抛出异常, 也不缓存无法解析的签名
+        List<Transaction> txList = new ArrayList<>();
+        txList.add(tx);
+        SignatureUtil.batchVerifySignatures(txList);
+        byte[] digest = tx.getHash().getBytes();
+        assertTrue(VerifiedSignatureCache.contains(digest, signatures.get(0).getSignData().getSignBytes(), keys.get(0).getPubKey()));
+        assertTrue(VerifiedSignatureCache.contains(digest, signatures.get(1).getSignData().getSignBytes(), keys.get(1).getPubKey()));
+        assertFalse(VerifiedSignatureCache.contains(digest, signData.getSignBytes(), keys.get(2).getPubKey()));
+        try {
+            SignatureUtil.validateTransactionSignture(CHAIN_ID, tx);
+            fail("malformed signature accepted");
+        } catch (RuntimeException e) {
+            //expected
+        }
+    }
+
+    private static List<ECKey> keys(int count) {
+        List<ECKey> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(new ECKey());
+        }
+        return keys;
+    }
+
+    private static MultiSignTxSignature multiSignature(List<ECKey> keys, List<P2PHKSignature> signatures) {
+        MultiSignTxSignature signature = new MultiSignTxSignature();
+        signature.setM((byte) 2);
+        List<byte[]> pubKeyList = new ArrayList<>();
+        for (ECKey key : keys) {
+            pubKeyList.add(key.getPubKey());
+        }
+        signature.setPubKeyList(pubKeyList);
+        signature.setP2PHKSignatures(signatures);
+        return signature;
+    }
+
+    private static Transaction multiSignTx() throws Exception {
+        byte[] address = new byte[23];
+        address[0] = CHAIN_ID;
+        address[2] = BaseConstant.P2SH_ADDRESS_TYPE;
+        CoinFrom from = new CoinFrom();
+        from.setAddress(address);
+        from.setAssetsChainId(CHAIN_ID);
+        from.setAssetsId(1);
+        from.setAmount(BigInteger.ONE);
+        from.setNonce(new byte[8]);
+        CoinData coinData = new CoinData();
+        coinData.addFrom(from);
+        Transaction tx = new Transaction(2);
+        tx.setTime(1);
+        tx.setCoinData(coinData.serialize());
+        return tx;
+    }
+}
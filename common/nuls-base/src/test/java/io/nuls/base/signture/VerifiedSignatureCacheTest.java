@@ -0,0 +1,100 @@
+package io.nuls.base.signture;
+
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.crypto.ECKey;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class VerifiedSignatureCacheTest {
+
+    @Before
+    public void setUp() {
+        VerifiedSignatureCache.clear();
+    }
+
+    @Test
+    public void cacheVerifiedSignature() throws Exception {
+        ECKey ecKey = new ECKey();
+        byte[] digest = NulsHash.calcHash(new byte[]{1, 2, 3}).getBytes();
+        P2PHKSignature signature = SignatureUtil.createSignatureByEckey(new NulsHash(digest), ecKey);
+        byte[] signBytes = signature.getSignData().getSignBytes();
+
+        assertFalse(VerifiedSignatureCache.contains(digest, signBytes, ecKey.getPubKey()));
+        assertTrue(SignatureUtil.validateSignture(digest, signature));
+        assertTrue(VerifiedSignatureCache.contains(digest, signBytes, ecKey.getPubKey()));
+
+        //其他公钥不能命中
+        assertFalse(VerifiedSignatureCache.contains(digest, signBytes, new ECKey().getPubKey()));
+
+        VerifiedSignatureCache.evict(digest);
+        assertFalse(VerifiedSignatureCache.contains(digest, signBytes, ecKey.getPubKey()));
+    }
+
+    @Test
+    public void invalidSignatureNotCached() throws Exception {
+        ECKey ecKey = new ECKey();
+        byte[] digest = NulsHash.calcHash(new byte[]{4, 5, 6}).getBytes();
+        P2PHKSignature signature = SignatureUtil.createSignatureByEckey(new NulsHash(digest), ecKey);
+        signature.setPublicKey(new ECKey().getPubKey());
+        assertFalse(SignatureUtil.validateSignture(digest, signature));
+        assertEquals(0, VerifiedSignatureCache.size());
+    }
+
+    @Test
+    public void differentSplitNotMatched() {
+        byte[] digest = new byte[32];
+        byte[] signBytes = {1, 2, 3, 4};
+        byte[] publicKey = {5, 6, 7};
+        VerifiedSignatureCache.add(digest, signBytes, publicKey);
+        assertTrue(VerifiedSignatureCache.contains(digest, signBytes, publicKey));
+        assertFalse(VerifiedSignatureCache.contains(digest, Arrays.copyOf(signBytes, 3), new byte[]{4, 5, 6, 7}));
+    }
+
+    @Test
+    public void bounded() {
+        byte[] signBytes = {1};
+        byte[] publicKey = {2};
+        for (int i = 0; i < 500000; i++) {
+            byte[] digest = new byte[32];
+            digest[0] = (byte) i;
+            digest[1] = (byte) (i >> 8);
+            digest[2] = (byte) (i >> 16);
+            VerifiedSignatureCache.add(digest, signBytes, publicKey);
+        }
+        assertTrue(VerifiedSignatureCache.size() <= 200000);
+    }
+
+    @Test
+    public void pairsPerDigestBounded() {
+        byte[] digest = new byte[32];
+        byte[] publicKey = {2};
+        for (int i = 0; i < 100000; i++) {
+            VerifiedSignatureCache.add(digest, new byte[]{(byte) i, (byte) (i >> 8), (byte) (i >> 16)}, publicKey);
+        }
+        assertTrue(VerifiedSignatureCache.contains(digest, new byte[]{0, 0, 0}, publicKey));
+        //超出单个摘要上限的签名不缓存
+        assertFalse(VerifiedSignatureCache.contains(digest, new byte[]{(byte) 99999, (byte) (99999 >> 8), (byte) (99999 >> 16)}, publicKey));
+    }
+
+    @Test
+    public void pairsCountTowardsSize() {
+        byte[] publicKey = {2};
+        byte[] first = new byte[32];
+        first[31] = 1;
+        VerifiedSignatureCache.add(first, new byte[]{1}, publicKey);
+        //每个摘要100个签名, 按组合计数时第一个摘要会被轮换出去
+        for (int i = 0; i < 3000; i++) {
+            byte[] digest = new byte[32];
+            digest[0] = (byte) i;
+            digest[1] = (byte) (i >> 8);
+            for (int j = 0; j < 100; j++) {
+                VerifiedSignatureCache.add(digest, new byte[]{(byte) j}, publicKey);
+            }
+        }
+        assertFalse(VerifiedSignatureCache.contains(first, new byte[]{1}, publicKey));
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.manager;
+
+import io.nuls.core.rockdb.service.DBSnapshot;
+import io.nuls.core.rockdb.service.RocksDBService;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 每条链最新区块高度的数据库快照.
+ * 写入方在区块保存或回滚完成后(仍持有写锁时)发布新快照, 只读查询取得快照后无需加锁即可读到一致的数据;
+ * 旧快照在被替换且所有读取方关闭后释放
+ * <p>
+ * Latest snapshot per chain. Writers publish after committing a block, readers acquire, read and close without locks.
+ */
+public class DBSnapshotManager {
+
+    private static final Map<Integer, DBSnapshot> LATEST = new ConcurrentHashMap<>();
+
+    /**
+     * 发布指定高度的快照, 替换原来的快照
+     *
+     * @param chainId 链Id/chain id
+     * @param height  快照对应的区块高度
+     */
+    public static void publish(int chainId, long height) {
+        DBSnapshot old = LATEST.put(chainId, RocksDBService.createSnapshot(height));
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    /**
+     * 取得最新快照, 用完需调用close
+     *
+     * @param chainId 链Id/chain id
+     * @return 没有发布过快照时返回null
+     */
+    public static DBSnapshot acquire(int chainId) {
+        for (; ; ) {
+            DBSnapshot snapshot = LATEST.get(chainId);
+            if (snapshot == null) {
+                return null;
+            }
+            //取到后被替换并释放时重新取
+            if (snapshot.retain()) {
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * 移除链的快照
+     *
+     * @param chainId 链Id/chain id
+     */
+    public static void clear(int chainId) {
+        DBSnapshot old = LATEST.remove(chainId);
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    /**
+     * 移除所有快照, 关闭数据库前调用
+     */
+    public static void clear() {
+        for (Integer chainId : LATEST.keySet()) {
+            clear(chainId);
+        }
+    }
+}
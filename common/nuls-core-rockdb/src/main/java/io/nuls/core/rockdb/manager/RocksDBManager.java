@@ -25,9 +25,9 @@ import io.nuls.core.rockdb.constant.DBErrorCode;
 import io.nuls.core.rockdb.model.Entry;
 import io.nuls.core.rockdb.util.DBUtils;
 import org.rocksdb.*;
-import org.rocksdb.util.SizeUnit;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
@@ -47,11 +47,26 @@ public class RocksDBManager {
      */
     private static final ConcurrentHashMap<String, RocksDB> TABLES = new ConcurrentHashMap<>();
 
+    /**
+     * 数据表对应的列族, 每个表单独一个数据库时为该数据库的默认列族.
+     */
+    private static final ConcurrentHashMap<String, ColumnFamilyHandle> COLUMN_FAMILIES = new ConcurrentHashMap<>();
+
     /**
      * 数据表基础文件夹名.
      */
     private static final String BASE_DB_NAME = "rocksdb";
 
+    /**
+     * 列族模式下所有数据表共用的数据库文件夹名.
+     */
+    public static final String COLUMN_FAMILY_DB_NAME = "column_family";
+
+    /**
+     * 列族模式下所有数据表共用的数据库, 为null时每个数据表单独一个数据库.
+     */
+    private static RocksDB columnFamilyDB;
+
     /**
      * 数据操作同步锁.
      */
@@ -70,11 +85,45 @@ public class RocksDBManager {
      * @throws Exception 数据库打开连接异常
      */
     public static void init(final String path) throws Exception {
+        init(path, false);
+    }
+
+    /**
+     * 根据传入的数据库路径打开数据库.
+     * 数据目录下已有列族数据库时总是以列族模式打开, 否则由columnFamily决定新建表的存储方式
+     *
+     * @param path         数据库地址
+     * @param columnFamily 是否将所有数据表作为列族存放在同一个数据库中
+     * @throws Exception 数据库打开连接异常
+     */
+    public static void init(final String path, final boolean columnFamily) throws Exception {
         synchronized (RocksDBManager.class) {
             File dir = DBUtils.loadDataPath(path);
             dataPath = dir.getPath();
             Log.info("RocksDBManager dataPath is " + dataPath);
+            File columnFamilyDir = new File(dataPath + File.separator + COLUMN_FAMILY_DB_NAME);
             File[] tableFiles = dir.listFiles();
+            boolean columnFamilyExists = new File(columnFamilyDir, "CURRENT").exists();
+            if (columnFamily || columnFamilyExists) {
+                List<String> legacyTables = new ArrayList<>();
+                for (File tableFile : tableFiles) {
+                    if (new File(tableFile.getPath() + File.separator + BASE_DB_NAME + File.separator + "CURRENT").exists()) {
+                        legacyTables.add(tableFile.getName());
+                    }
+                }
+                //未迁移的数据表不能以列族模式打开, 否则会建出同名的空表
+                if (!columnFamilyExists && !legacyTables.isEmpty()) {
+                    throw new Exception("column family mode requested but tables " + legacyTables + " are not migrated, run RocksDBMigrationTool first");
+                }
+                initColumnFamilyDB(columnFamilyDir.getPath());
+                for (String table : legacyTables) {
+                    //已迁移的旧数据表文件夹可以删除, 不再提示
+                    if (!TABLES.containsKey(table)) {
+                        Log.warn("table " + table + " is not loaded in column family mode, migrate it with RocksDBMigrationTool");
+                    }
+                }
+                return;
+            }
             RocksDB db;
             String dbPath = null;
             for (File tableFile : tableFiles) {
@@ -84,9 +133,10 @@ public class RocksDBManager {
                 }
                 try {
                     dbPath = tableFile.getPath() + File.separator + BASE_DB_NAME;
-                    db = initOpenDB(dbPath);
+                    db = initOpenDB(tableFile.getName(), dbPath);
                     if (db != null) {
                         TABLES.put(tableFile.getName(), db);
+                        COLUMN_FAMILIES.put(tableFile.getName(), db.getDefaultColumnFamily());
                     }
                 } catch (Exception e) {
                     Log.warn("load table failed, tableName: " + tableFile.getName() + ", dbPath: " + dbPath, e);
@@ -98,17 +148,67 @@ public class RocksDBManager {
     }
 
     /**
+     * 打开列族数据库, 每个列族对应一个数据表.
+     *
      * @param dbPath 数据库地址
+     * @throws RocksDBException 数据库连接异常
+     */
+    private static void initColumnFamilyDB(final String dbPath) throws RocksDBException {
+        if (columnFamilyDB != null) {
+            return;
+        }
+        File dir = new File(dbPath);
+        if (!dir.exists()) {
+            dir.mkdir();
+        }
+        List<byte[]> names;
+        if (new File(dir, "CURRENT").exists()) {
+            try (Options options = new Options()) {
+                names = RocksDB.listColumnFamilies(options, dbPath);
+            }
+        } else {
+            names = Collections.singletonList(RocksDB.DEFAULT_COLUMN_FAMILY);
+        }
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>(names.size());
+        for (byte[] name : names) {
+            descriptors.add(new ColumnFamilyDescriptor(name, getColumnFamilyOptions(new String(name, StandardCharsets.UTF_8))));
+        }
+        List<ColumnFamilyHandle> handles = new ArrayList<>(names.size());
+        RocksDB db = RocksDB.open(getDBOptions(), dbPath, descriptors, handles);
+        for (int i = 0; i < names.size(); i++) {
+            if (Arrays.equals(names.get(i), RocksDB.DEFAULT_COLUMN_FAMILY)) {
+                continue;
+            }
+            String tableName = new String(names.get(i), StandardCharsets.UTF_8);
+            TABLES.put(tableName, db);
+            COLUMN_FAMILIES.put(tableName, handles.get(i));
+        }
+        columnFamilyDB = db;
+        Log.info("RocksDBManager column family mode, tables: " + (names.size() - 1));
+    }
+
+    /**
+     * 是否为列族模式.
+     *
+     * @return 所有数据表存放在同一个数据库中时返回true
+     */
+    public static boolean isColumnFamilyMode() {
+        return columnFamilyDB != null;
+    }
+
+    /**
+     * @param tableName 数据库表名称
+     * @param dbPath    数据库地址
      * @return RocksDB 数据库连接对象
      * @throws RocksDBException 数据库连接异常
      */
-    private static RocksDB initOpenDB(final String dbPath) throws RocksDBException {
+    private static RocksDB initOpenDB(final String tableName, final String dbPath) throws RocksDBException {
         File checkFile = new File(dbPath + File.separator + "CURRENT");
         if (!checkFile.exists()) {
             return null;
         }
 
-        Options options = getCommonOptions(false);
+        Options options = RocksDBTuning.options(tableName, false);
         return RocksDB.open(options, dbPath);
     }
 
@@ -116,13 +216,14 @@ public class RocksDBManager {
      * 装载数据库.
      * load database
      *
+     * @param tableName       数据库表名称
      * @param dbPath          数据库地址
      * @param createIfMissing 数据库不存在时是否默认创建
      * @return RocksDB
      * @throws RocksDBException 数据库连接异常
      */
-    private static RocksDB openDB(final String dbPath, final boolean createIfMissing) throws RocksDBException {
-        Options options = getCommonOptions(createIfMissing);
+    private static RocksDB openDB(final String tableName, final String dbPath, final boolean createIfMissing) throws RocksDBException {
+        Options options = RocksDBTuning.options(tableName, createIfMissing);
         return RocksDB.open(options, dbPath);
     }
 
@@ -146,13 +247,24 @@ public class RocksDBManager {
                 throw new Exception(DBErrorCode.DB_TABLE_CREATE_PATH_ERROR);
             }
             try {
+                if (columnFamilyDB != null) {
+                    if (tableName.equals(new String(RocksDB.DEFAULT_COLUMN_FAMILY, StandardCharsets.UTF_8))) {
+                        throw new Exception(DBErrorCode.DB_TABLE_CREATE_PATH_ERROR);
+                    }
+                    ColumnFamilyHandle handle = columnFamilyDB.createColumnFamily(
+                            new ColumnFamilyDescriptor(tableName.getBytes(StandardCharsets.UTF_8), getColumnFamilyOptions(tableName)));
+                    COLUMN_FAMILIES.put(tableName, handle);
+                    TABLES.put(tableName, columnFamilyDB);
+                    return true;
+                }
                 File dir = new File(dataPath + File.separator + tableName);
                 if (!dir.exists()) {
                     dir.mkdir();
                 }
                 String filePath = dataPath + File.separator + tableName + File.separator + BASE_DB_NAME;
-                RocksDB db = openDB(filePath, true);
+                RocksDB db = openDB(tableName, filePath, true);
                 TABLES.put(tableName, db);
+                COLUMN_FAMILIES.put(tableName, db.getDefaultColumnFamily());
             } catch (Exception e) {
                 Log.error("error create table: " + tableName, e);
                 throw new Exception(DBErrorCode.DB_TABLE_CREATE_ERROR);
@@ -174,6 +286,17 @@ public class RocksDBManager {
         return TABLES.get(tableName);
     }
 
+    /**
+     * 根据名称获得数据表对应的列族.
+     * Get the column family of a table by name
+     *
+     * @param tableName 数据库表名称
+     * @return ColumnFamilyHandle
+     */
+    public static ColumnFamilyHandle getColumnFamily(final String tableName) {
+        return COLUMN_FAMILIES.get(tableName);
+    }
+
     /**
      * 根据名称删除对应的数据库.
      * Delete database by name
@@ -190,6 +313,12 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.remove(tableName);
+            ColumnFamilyHandle handle = COLUMN_FAMILIES.remove(tableName);
+            if (db == columnFamilyDB) {
+                db.dropColumnFamily(handle);
+                handle.close();
+                return true;
+            }
             db.close();
             File dir = new File(dataPath + File.separator + tableName);
             if (!dir.exists()) {
@@ -220,15 +349,26 @@ public class RocksDBManager {
      * close all table
      */
     public static void close() {
+        //快照需在数据库关闭前释放
+        DBSnapshotManager.clear();
         Set<Map.Entry<String, RocksDB>> entries = TABLES.entrySet();
         for (Map.Entry<String, RocksDB> entry : entries) {
             try {
                 TABLES.remove(entry.getKey());
-                entry.getValue().close();
+                ColumnFamilyHandle handle = COLUMN_FAMILIES.remove(entry.getKey());
+                if (entry.getValue() == columnFamilyDB) {
+                    handle.close();
+                } else {
+                    entry.getValue().close();
+                }
             } catch (Exception e) {
                 Log.warn("close rocksdb error", e);
             }
         }
+        if (columnFamilyDB != null) {
+            columnFamilyDB.close();
+            columnFamilyDB = null;
+        }
     }
 
     /**
@@ -240,7 +380,12 @@ public class RocksDBManager {
     public static void closeTable(final String tableName) {
         try {
             RocksDB db = TABLES.remove(tableName);
-            db.close();
+            ColumnFamilyHandle handle = COLUMN_FAMILIES.remove(tableName);
+            if (db == columnFamilyDB) {
+                handle.close();
+            } else {
+                db.close();
+            }
         } catch (Exception e) {
             Log.warn("close rocksdb tableName error:" + tableName, e);
         }
@@ -298,8 +443,10 @@ public class RocksDBManager {
             throw new Exception(DBErrorCode.NULL_PARAMETER);
         }
         try {
+            long start = RocksDBStats.start();
             RocksDB db = TABLES.get(table);
-            db.put(key, value);
+            db.put(COLUMN_FAMILIES.get(table), key, value);
+            RocksDBStats.record(table, RocksDBStats.Op.PUT, start, 0, key.length + value.length);
             return true;
         } catch (Exception e) {
             Log.error(e);
@@ -323,8 +470,10 @@ public class RocksDBManager {
             throw new Exception(DBErrorCode.NULL_PARAMETER);
         }
         try {
+            long start = RocksDBStats.start();
             RocksDB db = TABLES.get(table);
-            db.delete(key);
+            db.delete(COLUMN_FAMILIES.get(table), key);
+            RocksDBStats.record(table, RocksDBStats.Op.DELETE, start, 0, key.length);
             return true;
         } catch (Exception e) {
             Log.error(e);
@@ -348,11 +497,14 @@ public class RocksDBManager {
             throw new Exception(DBErrorCode.NULL_PARAMETER);
         }
         try (WriteBatch writeBatch = new WriteBatch()) {
+            long start = RocksDBStats.start();
             RocksDB db = TABLES.get(table);
+            ColumnFamilyHandle handle = COLUMN_FAMILIES.get(table);
             for (Map.Entry<byte[], byte[]> entry : kvs.entrySet()) {
-                writeBatch.put(entry.getKey(), entry.getValue());
+                writeBatch.put(handle, entry.getKey(), entry.getValue());
             }
             db.write(new WriteOptions(), writeBatch);
+            RocksDBStats.record(table, RocksDBStats.Op.BATCH, start, 0, writeBatch.getDataSize());
             return true;
         } catch (Exception ex) {
             Log.error(ex);
@@ -376,11 +528,14 @@ public class RocksDBManager {
             throw new Exception(DBErrorCode.NULL_PARAMETER);
         }
         try (WriteBatch writeBatch = new WriteBatch()) {
+            long start = RocksDBStats.start();
             RocksDB db = TABLES.get(table);
+            ColumnFamilyHandle handle = COLUMN_FAMILIES.get(table);
             for (byte[] key : keys) {
-                writeBatch.delete(key);
+                writeBatch.delete(handle, key);
             }
             db.write(new WriteOptions(), writeBatch);
+            RocksDBStats.record(table, RocksDBStats.Op.BATCH, start, 0, writeBatch.getDataSize());
             return true;
         } catch (Exception ex) {
             Log.error(ex);
@@ -405,8 +560,11 @@ public class RocksDBManager {
             return null;
         }
         try {
+            long start = RocksDBStats.start();
             RocksDB db = TABLES.get(table);
-            return db.get(key);
+            byte[] value = db.get(COLUMN_FAMILIES.get(table), key);
+            RocksDBStats.record(table, RocksDBStats.Op.GET, start, value == null ? 0 : value.length, 0);
+            return value;
         } catch (Exception e) {
             Log.error("get table={}: error",table);
             Log.error(e);
@@ -431,8 +589,9 @@ public class RocksDBManager {
         }
         try {
             RocksDB db = TABLES.get(table);
-            boolean rs = db.keyMayExist(key, new StringBuilder());
-            return rs && (db.get(key) != null);
+            ColumnFamilyHandle handle = COLUMN_FAMILIES.get(table);
+            boolean rs = db.keyMayExist(handle, key, new StringBuilder());
+            return rs && (db.get(handle, key) != null);
         } catch (Exception e) {
             Log.error("keyMayExist table={}: error",table);
             Log.error(e);
@@ -457,8 +616,11 @@ public class RocksDBManager {
             return null;
         }
         try {
+            long start = RocksDBStats.start();
             RocksDB db = TABLES.get(table);
-            return db.multiGet(keys);
+            Map<byte[], byte[]> map = db.multiGet(columnFamilies(table, keys.size()), keys);
+            RocksDBStats.record(table, RocksDBStats.Op.MULTI_GET, start, valueBytes(map.values()), 0);
+            return map;
         } catch (Exception ex) {
             Log.error("multiGet table={}: error",table);
             Log.error(ex);
@@ -480,9 +642,11 @@ public class RocksDBManager {
             return null;
         }
         try {
+            long start = RocksDBStats.start();
             RocksDB db = TABLES.get(table);
             //该方法获取的结果包含查不到的key, 将以null 值放入返回的list中,因此需要把空值去除.
-            List<byte[]> list = db.multiGetAsList(keys);
+            List<byte[]> list = db.multiGetAsList(columnFamilies(table, keys.size()), keys);
+            RocksDBStats.record(table, RocksDBStats.Op.MULTI_GET, start, valueBytes(list), 0);
             List<byte[]> rs = new ArrayList<>();
             for(byte[] tx : list){
                 if(null != tx){
@@ -513,8 +677,10 @@ public class RocksDBManager {
             return list;
         }
         try {
+            long start = RocksDBStats.start();
             RocksDB db = TABLES.get(table);
-            Map<byte[], byte[]> map = db.multiGet(keys);
+            Map<byte[], byte[]> map = db.multiGet(columnFamilies(table, keys.size()), keys);
+            RocksDBStats.record(table, RocksDBStats.Op.MULTI_GET, start, valueBytes(map.values()), 0);
             if (map != null && map.size() > 0) {
                 list.addAll(map.values());
             }
@@ -544,8 +710,10 @@ public class RocksDBManager {
             return list;
         }
         try {
+            long start = RocksDBStats.start();
             RocksDB db = TABLES.get(table);
-            Map<byte[], byte[]> map = db.multiGet(keys);
+            Map<byte[], byte[]> map = db.multiGet(columnFamilies(table, keys.size()), keys);
+            RocksDBStats.record(table, RocksDBStats.Op.MULTI_GET, start, valueBytes(map.values()), 0);
             if (map != null && map.size() > 0) {
                 list.addAll(map.keySet());
             }
@@ -571,12 +739,17 @@ public class RocksDBManager {
         }
         List<byte[]> list = new ArrayList<>();
         try {
+            long start = RocksDBStats.start();
+            long bytes = 0;
             RocksDB db = TABLES.get(table);
-            try (RocksIterator iterator = db.newIterator()) {
+            try (RocksIterator iterator = db.newIterator(COLUMN_FAMILIES.get(table))) {
                 for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
-                    list.add(iterator.key());
+                    byte[] key = iterator.key();
+                    bytes += key.length;
+                    list.add(key);
                 }
             }
+            RocksDBStats.record(table, RocksDBStats.Op.SCAN, start, bytes, 0);
             return list;
         } catch (Exception ex) {
             Log.error("keyList table={}: error",table);
@@ -599,12 +772,17 @@ public class RocksDBManager {
         }
         List<byte[]> list = new ArrayList<>();
         try {
+            long start = RocksDBStats.start();
+            long bytes = 0;
             RocksDB db = TABLES.get(table);
-            try (RocksIterator iterator = db.newIterator()) {
+            try (RocksIterator iterator = db.newIterator(COLUMN_FAMILIES.get(table))) {
                 for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
-                    list.add(iterator.value());
+                    byte[] value = iterator.value();
+                    bytes += value.length;
+                    list.add(value);
                 }
             }
+            RocksDBStats.record(table, RocksDBStats.Op.SCAN, start, bytes, 0);
             return list;
         } catch (Exception ex) {
             Log.error("valueList table={}: error",table);
@@ -627,12 +805,18 @@ public class RocksDBManager {
         }
         List<Entry<byte[], byte[]>> entryList = new ArrayList<>();
         try {
+            long start = RocksDBStats.start();
+            long bytes = 0;
             RocksDB db = TABLES.get(table);
-            try (RocksIterator iterator = db.newIterator()) {
+            try (RocksIterator iterator = db.newIterator(COLUMN_FAMILIES.get(table))) {
                 for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
-                    entryList.add(new Entry(iterator.key(), iterator.value()));
+                    byte[] key = iterator.key();
+                    byte[] value = iterator.value();
+                    bytes += key.length + value.length;
+                    entryList.add(new Entry(key, value));
                 }
             }
+            RocksDBStats.record(table, RocksDBStats.Op.SCAN, start, bytes, 0);
             return entryList;
         } catch (Exception ex) {
             Log.error("entryList table={}: error",table);
@@ -642,35 +826,42 @@ public class RocksDBManager {
     }
 
     /**
-     * 获得公共的数据库连接属性.
-     *
-     * @param createIfMissing 是否默认表
-     * @return 数据库连接属性
+     * 查询结果的总字节数, 用于读写统计.
      */
-    private static synchronized Options getCommonOptions(final boolean createIfMissing) {
-        Options options = new Options();
-
-        options.setCreateIfMissing(createIfMissing);
-        /**
-         * 优化读取性能方案
-         */
-        options.setAllowMmapReads(true);
-        options.setCompressionType(CompressionType.NO_COMPRESSION);
-        options.setMaxOpenFiles(-1);
-        BlockBasedTableConfig tableOption = new BlockBasedTableConfig();
-        tableOption.setNoBlockCache(true);
-        tableOption.setBlockRestartInterval(4);
-        tableOption.setFilterPolicy(new BloomFilter(10, true));
-        options.setTableFormatConfig(tableOption);
+    private static long valueBytes(final Collection<byte[]> values) {
+        long bytes = 0;
+        for (byte[] value : values) {
+            if (value != null) {
+                bytes += value.length;
+            }
+        }
+        return bytes;
+    }
 
-        options.setMaxBackgroundCompactions(16);
-        options.setNewTableReaderForCompactionInputs(true);
-        //为压缩的输入，打开RocksDB层的预读取
-        options.setCompactionReadaheadSize(128 * SizeUnit.KB);
-        options.setNewTableReaderForCompactionInputs(true);
+    /**
+     * multiGet按key一一对应的列族.
+     */
+    private static List<ColumnFamilyHandle> columnFamilies(final String table, final int size) {
+        return Collections.nCopies(size, COLUMN_FAMILIES.get(table));
+    }
 
-        return options;
+    /**
+     * 列族模式下数据库级别的属性.
+     *
+     * @return 数据库属性
+     */
+    public static DBOptions getDBOptions() {
+        return RocksDBTuning.dbOptions();
     }
 
+    /**
+     * 数据表的属性, 按数据表注册的调优方案生成.
+     *
+     * @param tableName 数据库表名称
+     * @return 列族属性
+     */
+    public static ColumnFamilyOptions getColumnFamilyOptions(final String tableName) {
+        return RocksDBTuning.columnFamilyOptions(tableName);
+    }
 
 }
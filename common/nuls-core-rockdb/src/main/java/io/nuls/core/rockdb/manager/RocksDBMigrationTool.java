@@ -0,0 +1,136 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.manager;
+
+import io.nuls.core.log.Log;
+import io.nuls.core.rockdb.util.DBUtils;
+import org.rocksdb.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将每个数据表单独一个数据库的存储方式迁移为列族模式.
+ * 需在模块停止时执行, 原数据表文件夹保持不变, 确认无误后可手动删除;
+ * 迁移完成前写入临时文件夹, 全部完成后再改名, 中途失败不会被当作列族数据库打开
+ * <p>
+ * Migrate the one-DB-per-table layout into a single column family database. Run it while the module is stopped.
+ * The old table folders are left untouched.
+ */
+public class RocksDBMigrationTool {
+
+    private static final String BASE_DB_NAME = "rocksdb";
+
+    private static final String TEMP_SUFFIX = "_migrating";
+
+    /**
+     * 单个WriteBatch的最大字节数
+     */
+    private static final long BATCH_SIZE = 4 * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.out.println("usage: RocksDBMigrationTool <dataPath>");
+            return;
+        }
+        RocksDB.loadLibrary();
+        migrate(args[0]);
+    }
+
+    /**
+     * 迁移数据目录下的所有数据表
+     *
+     * @param path 数据库地址, 与RocksDBService.init的参数相同
+     * @return 迁移的数据表数量
+     */
+    public static int migrate(String path) throws Exception {
+        File dir = DBUtils.loadDataPath(path);
+        File target = new File(dir, RocksDBManager.COLUMN_FAMILY_DB_NAME);
+        if (new File(target, "CURRENT").exists()) {
+            throw new Exception("column family database already exists: " + target.getPath());
+        }
+        File temp = new File(dir, RocksDBManager.COLUMN_FAMILY_DB_NAME + TEMP_SUFFIX);
+        if (temp.exists()) {
+            RocksDB.destroyDB(temp.getPath(), new Options());
+        }
+        temp.mkdir();
+        List<File> tableDirs = new ArrayList<>();
+        File[] files = dir.listFiles();
+        for (File file : files) {
+            if (new File(file.getPath() + File.separator + BASE_DB_NAME + File.separator + "CURRENT").exists()) {
+                tableDirs.add(file);
+            }
+        }
+        List<ColumnFamilyDescriptor> descriptors = new ArrayList<>();
+        descriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, RocksDBManager.getColumnFamilyOptions(null)));
+        List<ColumnFamilyHandle> handles = new ArrayList<>();
+        try (RocksDB targetDB = RocksDB.open(RocksDBManager.getDBOptions(), temp.getPath(), descriptors, handles);
+             WriteOptions writeOptions = new WriteOptions().setDisableWAL(true);
+             FlushOptions flushOptions = new FlushOptions().setWaitForFlush(true)) {
+            for (File tableDir : tableDirs) {
+                String tableName = tableDir.getName();
+                ColumnFamilyHandle handle = targetDB.createColumnFamily(
+                        new ColumnFamilyDescriptor(tableName.getBytes(StandardCharsets.UTF_8), RocksDBManager.getColumnFamilyOptions(tableName)));
+                handles.add(handle);
+                long count = copyTable(tableDir.getPath() + File.separator + BASE_DB_NAME, targetDB, handle, writeOptions);
+                //迁移时不写WAL, 每个表复制完立即落盘
+                targetDB.flush(flushOptions, handle);
+                Log.info("migrate table " + tableName + " finished, entries: " + count);
+            }
+        } finally {
+            for (ColumnFamilyHandle handle : handles) {
+                handle.close();
+            }
+        }
+        if (!temp.renameTo(target)) {
+            throw new Exception("rename " + temp.getPath() + " to " + target.getPath() + " failed");
+        }
+        Log.info("migrate " + tableDirs.size() + " tables to " + target.getPath() + ", the old table folders can be removed");
+        return tableDirs.size();
+    }
+
+    private static long copyTable(String dbPath, RocksDB targetDB, ColumnFamilyHandle handle, WriteOptions writeOptions) throws RocksDBException {
+        long count = 0;
+        try (Options options = new Options();
+             RocksDB sourceDB = RocksDB.openReadOnly(options, dbPath);
+             RocksIterator iterator = sourceDB.newIterator()) {
+            WriteBatch batch = new WriteBatch();
+            try {
+                for (iterator.seekToFirst(); iterator.isValid(); iterator.next()) {
+                    batch.put(handle, iterator.key(), iterator.value());
+                    count++;
+                    if (batch.getDataSize() >= BATCH_SIZE) {
+                        targetDB.write(writeOptions, batch);
+                        batch.close();
+                        batch = new WriteBatch();
+                    }
+                }
+                if (batch.count() > 0) {
+                    targetDB.write(writeOptions, batch);
+                }
+            } finally {
+                batch.close();
+            }
+        }
+        return count;
+    }
+}
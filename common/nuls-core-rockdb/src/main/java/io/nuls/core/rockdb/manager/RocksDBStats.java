@@ -0,0 +1,258 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.manager;
+
+import io.nuls.core.log.Log;
+import io.nuls.core.model.LatencyHistogram;
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.thread.CommandContext;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+import org.rocksdb.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据库读写统计: 每个数据表各类操作的次数和耗时直方图(单位微秒)、读写字节数, 超过阈值的慢操作采样(含调用的RPC命令),
+ * 以及RocksDB自身的压缩、写停顿等统计(需开启nativeStatistics, 有少量性能损耗)
+ * <p>
+ * Per-table operation counters and latency histograms in microseconds, bytes read and written, sampled slow operations,
+ * and native compaction and stall statistics when enabled.
+ */
+public class RocksDBStats {
+
+    public enum Op {
+        GET, MULTI_GET, PUT, DELETE, BATCH, SCAN
+    }
+
+    /**
+     * 最后一个桶统计33秒以上的耗时
+     */
+    private static final int BUCKETS = 26;
+
+    /**
+     * 保留的慢操作条数
+     */
+    private static final int SLOW_SAMPLES = 100;
+
+    private static final String[] TABLE_PROPERTIES = {
+            "rocksdb.estimate-num-keys",
+            "rocksdb.total-sst-files-size",
+            "rocksdb.cur-size-all-mem-tables",
+            "rocksdb.estimate-pending-compaction-bytes",
+            "rocksdb.num-running-compactions",
+            "rocksdb.actual-delayed-write-rate",
+            "rocksdb.is-write-stopped"
+    };
+
+    private static final TickerType[] TICKERS = {
+            TickerType.BYTES_READ,
+            TickerType.BYTES_WRITTEN,
+            TickerType.BLOCK_CACHE_HIT,
+            TickerType.BLOCK_CACHE_MISS,
+            TickerType.BLOOM_FILTER_USEFUL,
+            TickerType.COMPACT_READ_BYTES,
+            TickerType.COMPACT_WRITE_BYTES,
+            TickerType.FLUSH_WRITE_BYTES,
+            TickerType.STALL_MICROS,
+            TickerType.WAL_FILE_BYTES
+    };
+
+    /**
+     * 默认不统计, 需要的模块通过RocksDBService.configureStats开启
+     */
+    private static volatile boolean enable = false;
+
+    /**
+     * 慢操作阈值(微秒)
+     */
+    private static volatile long slowMicros = 100000;
+
+    private static final Map<String, TableStats> TABLE_STATS = new ConcurrentHashMap<>();
+
+    private static final Deque<Map<String, Object>> SLOW_OPS = new ArrayDeque<>();
+
+    private static Statistics statistics;
+
+    private static ScheduledThreadPoolExecutor dumpExecutor;
+
+    /**
+     * 设置统计参数, nativeStatistics须在打开数据库前设置
+     *
+     * @param enableStats      是否统计各数据表的读写
+     * @param nativeStatistics 是否开启RocksDB自身的统计
+     * @param slowMillis       慢操作阈值(毫秒)
+     */
+    public static synchronized void configure(boolean enableStats, boolean nativeStatistics, long slowMillis) {
+        enable = enableStats;
+        slowMicros = slowMillis * 1000;
+        if (nativeStatistics && statistics == null) {
+            statistics = new Statistics();
+        }
+    }
+
+    /**
+     * 数据库打开时使用的统计对象, 未开启时为null
+     */
+    static synchronized Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * 操作开始, 未开启统计时返回0
+     *
+     * @return 开始时间(纳秒)
+     */
+    public static long start() {
+        return enable ? System.nanoTime() : 0;
+    }
+
+    /**
+     * 记录一次操作
+     *
+     * @param table        数据表名称
+     * @param op           操作类型
+     * @param start        start()的返回值
+     * @param bytesRead    读取的字节数
+     * @param bytesWritten 写入的字节数
+     */
+    public static void record(String table, Op op, long start, long bytesRead, long bytesWritten) {
+        if (start == 0 || table == null) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        TableStats stats = TABLE_STATS.computeIfAbsent(table, t -> new TableStats());
+        stats.histograms[op.ordinal()].record(elapsedNanos);
+        if (bytesRead > 0) {
+            stats.bytesRead.addAndGet(bytesRead);
+        }
+        if (bytesWritten > 0) {
+            stats.bytesWritten.addAndGet(bytesWritten);
+        }
+        long micros = elapsedNanos / 1000;
+        if (micros >= slowMicros) {
+            Map<String, Object> sample = new LinkedHashMap<>();
+            sample.put("time", System.currentTimeMillis());
+            sample.put("table", table);
+            sample.put("op", op.name());
+            sample.put("micros", micros);
+            sample.put("bytes", bytesRead + bytesWritten);
+            sample.put("cmd", CommandContext.get());
+            sample.put("thread", Thread.currentThread().getName());
+            synchronized (SLOW_OPS) {
+                if (SLOW_OPS.size() >= SLOW_SAMPLES) {
+                    SLOW_OPS.pollFirst();
+                }
+                SLOW_OPS.addLast(sample);
+            }
+        }
+    }
+
+    /**
+     * 取得所有统计, 供RPC接口返回
+     *
+     * @return tables: 每个数据表的统计和RocksDB属性; engine: RocksDB自身统计; slowOps: 最近的慢操作
+     */
+    public static Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Object> tables = new TreeMap<>();
+        for (String table : RocksDBManager.listTable()) {
+            Map<String, Object> tableMap = new LinkedHashMap<>();
+            TableStats stats = TABLE_STATS.get(table);
+            if (stats != null) {
+                tableMap.put("bytesRead", stats.bytesRead.get());
+                tableMap.put("bytesWritten", stats.bytesWritten.get());
+                for (Op op : Op.values()) {
+                    LatencyHistogram histogram = stats.histograms[op.ordinal()];
+                    if (histogram.getCount() > 0) {
+                        tableMap.put(op.name(), histogram.snapshot());
+                    }
+                }
+            }
+            tableMap.put("properties", getProperties(table));
+            tables.put(table, tableMap);
+        }
+        result.put("tables", tables);
+        Statistics stats = getStatistics();
+        if (stats != null) {
+            Map<String, Long> engine = new LinkedHashMap<>();
+            for (TickerType ticker : TICKERS) {
+                engine.put(ticker.name(), stats.getTickerCount(ticker));
+            }
+            result.put("engine", engine);
+        }
+        synchronized (SLOW_OPS) {
+            result.put("slowOps", new ArrayList<>(SLOW_OPS));
+        }
+        return result;
+    }
+
+    private static Map<String, Long> getProperties(String table) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        RocksDB db = RocksDBManager.getTable(table);
+        ColumnFamilyHandle handle = RocksDBManager.getColumnFamily(table);
+        if (db == null || handle == null) {
+            return map;
+        }
+        for (String property : TABLE_PROPERTIES) {
+            try {
+                map.put(property.substring("rocksdb.".length()), db.getLongProperty(handle, property));
+            } catch (RocksDBException e) {
+                //旧版本不支持的属性
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 定时把统计写入日志
+     *
+     * @param intervalSeconds 间隔(秒), 0表示不输出
+     */
+    public static synchronized void startDump(int intervalSeconds) {
+        if (intervalSeconds <= 0 || dumpExecutor != null) {
+            return;
+        }
+        dumpExecutor = ThreadUtils.createScheduledThreadPool(1, new NulsThreadFactory("rocksdb-stats"));
+        dumpExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                Log.info("rocksdb stats: " + JSONUtils.obj2json(getStats()));
+            } catch (Exception e) {
+                Log.error(e);
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private static class TableStats {
+        private final LatencyHistogram[] histograms = new LatencyHistogram[Op.values().length];
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong bytesWritten = new AtomicLong();
+
+        TableStats() {
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new LatencyHistogram(TimeUnit.MICROSECONDS, BUCKETS);
+            }
+        }
+    }
+}
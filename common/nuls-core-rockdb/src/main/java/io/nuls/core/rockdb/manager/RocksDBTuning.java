@@ -0,0 +1,217 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.manager;
+
+import io.nuls.core.log.Log;
+import io.nuls.core.rockdb.model.TableProfile;
+import org.rocksdb.*;
+import org.rocksdb.util.SizeUnit;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 数据库调优配置: 进程内共享的LRU块缓存、写缓冲管理器和按表名前缀注册的调优方案.
+ * 未设置块缓存时与原来的配置一致(不使用块缓存, mmap读取)
+ * <p>
+ * Process-wide block cache, write buffer manager and per-table profiles.
+ * Without a block cache the options are the same as before.
+ */
+public class RocksDBTuning {
+
+    /**
+     * 共享块缓存大小(字节), 0表示不使用块缓存
+     */
+    private static long blockCacheSize;
+
+    /**
+     * 所有写缓冲(memtable)的内存上限(字节), 计入共享块缓存, 0表示不限制
+     */
+    private static long writeBufferSize;
+
+    /**
+     * 表名前缀对应的调优方案, 最长前缀优先
+     */
+    private static final Map<String, TableProfile> PROFILES = new ConcurrentHashMap<>();
+
+    private static Cache blockCache;
+
+    private static WriteBufferManager writeBufferManager;
+
+    /**
+     * 设置共享块缓存和写缓冲上限, 须在打开数据库前调用
+     *
+     * @param cacheSize  块缓存大小(字节), 0表示不使用块缓存
+     * @param bufferSize 写缓冲上限(字节), 0表示不限制, 只在使用块缓存时生效
+     */
+    public static synchronized void configure(long cacheSize, long bufferSize) {
+        if (blockCache != null) {
+            Log.warn("RocksDB block cache already created, configure ignored");
+            return;
+        }
+        blockCacheSize = Math.max(0, cacheSize);
+        writeBufferSize = Math.max(0, bufferSize);
+    }
+
+    /**
+     * 为表名以prefix开头的数据表设置调优方案
+     *
+     * @param prefix  表名前缀
+     * @param profile 调优方案
+     */
+    public static void setProfile(String prefix, TableProfile profile) {
+        PROFILES.put(prefix, profile);
+    }
+
+    /**
+     * 取数据表的调优方案
+     *
+     * @param table 数据表名称
+     * @return 没有注册时为DEFAULT
+     */
+    public static TableProfile getProfile(String table) {
+        TableProfile profile = TableProfile.DEFAULT;
+        int length = -1;
+        for (Map.Entry<String, TableProfile> entry : PROFILES.entrySet()) {
+            if (table.startsWith(entry.getKey()) && entry.getKey().length() > length) {
+                profile = entry.getValue();
+                length = entry.getKey().length();
+            }
+        }
+        return profile;
+    }
+
+    private static synchronized Cache getBlockCache() {
+        if (blockCache == null && blockCacheSize > 0) {
+            //索引和过滤器块高优先级, 不会被大范围遍历挤出
+            blockCache = new LRUCache(blockCacheSize, -1, false, 0.1);
+            if (writeBufferSize > 0) {
+                writeBufferManager = new WriteBufferManager(writeBufferSize, blockCache);
+            }
+            Log.info("RocksDB shared block cache: " + blockCacheSize + ", write buffer limit: " + writeBufferSize);
+        }
+        return blockCache;
+    }
+
+    /**
+     * 数据库级别的属性
+     *
+     * @return 数据库属性
+     */
+    static DBOptions dbOptions() {
+        DBOptions options = new DBOptions();
+        options.setCreateIfMissing(true);
+        options.setCreateMissingColumnFamilies(true);
+        Cache cache = getBlockCache();
+        //mmap读取不经过块缓存, 使用共享块缓存时关闭
+        options.setAllowMmapReads(cache == null);
+        if (writeBufferManager != null) {
+            options.setWriteBufferManager(writeBufferManager);
+        }
+        Statistics statistics = RocksDBStats.getStatistics();
+        if (statistics != null) {
+            options.setStatistics(statistics);
+        }
+        options.setMaxOpenFiles(-1);
+        options.setMaxBackgroundCompactions(16);
+        options.setNewTableReaderForCompactionInputs(true);
+        //为压缩的输入，打开RocksDB层的预读取
+        options.setCompactionReadaheadSize(128 * SizeUnit.KB);
+        return options;
+    }
+
+    /**
+     * 数据表的属性
+     *
+     * @param table 数据表名称
+     * @return 数据表属性
+     */
+    static ColumnFamilyOptions columnFamilyOptions(String table) {
+        TableProfile profile = table == null ? TableProfile.DEFAULT : getProfile(table);
+        Cache cache = getBlockCache();
+        ColumnFamilyOptions options = new ColumnFamilyOptions();
+        BlockBasedTableConfig tableOption = new BlockBasedTableConfig();
+        if (cache == null) {
+            tableOption.setNoBlockCache(true);
+        } else {
+            tableOption.setBlockCache(cache);
+            tableOption.setCacheIndexAndFilterBlocks(true);
+            tableOption.setCacheIndexAndFilterBlocksWithHighPriority(true);
+            tableOption.setPinL0FilterAndIndexBlocksInCache(true);
+        }
+        switch (profile) {
+            case POINT_LOOKUP:
+                tableOption.setFilterPolicy(new BloomFilter(10, false));
+                tableOption.setDataBlockIndexType(DataBlockIndexType.kDataBlockBinaryAndHash);
+                setColdCompression(options);
+                break;
+            case SEQUENTIAL:
+                tableOption.setFilterPolicy(new BloomFilter(10, false));
+                tableOption.setBlockSize(16 * SizeUnit.KB);
+                options.setWriteBufferSize(64 * SizeUnit.MB);
+                setColdCompression(options);
+                break;
+            case SMALL_HOT:
+                tableOption.setFilterPolicy(new BloomFilter(10, false));
+                tableOption.setBlockRestartInterval(4);
+                options.setWriteBufferSize(4 * SizeUnit.MB);
+                options.setCompressionType(CompressionType.NO_COMPRESSION);
+                break;
+            default:
+                tableOption.setFilterPolicy(new BloomFilter(10, true));
+                tableOption.setBlockRestartInterval(4);
+                options.setCompressionType(CompressionType.NO_COMPRESSION);
+        }
+        options.setTableFormatConfig(tableOption);
+        return options;
+    }
+
+    /**
+     * 每个数据表单独一个数据库时的属性
+     *
+     * @param table           数据表名称
+     * @param createIfMissing 不存在时是否创建
+     * @return 数据库连接属性
+     */
+    static Options options(String table, boolean createIfMissing) {
+        Options options = new Options(dbOptions(), columnFamilyOptions(table));
+        options.setCreateIfMissing(createIfMissing);
+        return options;
+    }
+
+    /**
+     * L0、L1写入频繁且很快被合并, 不压缩; 其余层用LZ4, 最底层数据最冷, 用压缩率更高的ZSTD.
+     * 压缩方式按文件记录, 已有的未压缩文件在合并时逐步改写
+     */
+    private static void setColdCompression(ColumnFamilyOptions options) {
+        List<CompressionType> levels = Arrays.asList(
+                CompressionType.NO_COMPRESSION,
+                CompressionType.NO_COMPRESSION,
+                CompressionType.LZ4_COMPRESSION,
+                CompressionType.LZ4_COMPRESSION,
+                CompressionType.LZ4_COMPRESSION,
+                CompressionType.LZ4_COMPRESSION,
+                CompressionType.LZ4_COMPRESSION);
+        options.setCompressionPerLevel(levels);
+        options.setBottommostCompressionType(CompressionType.ZSTD_COMPRESSION);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.model;
+
+import org.rocksdb.Snapshot;
+
+/**
+ * 范围查询条件
+ * 键按字节序比较, from包含、to不包含, 为空表示不限; 设置prefix时只返回以prefix开头的键
+ * <p>
+ * Range scan condition. Keys are compared bytewise, from is inclusive and to is exclusive, null means unbounded.
+ */
+public class ScanOption {
+
+    /**
+     * 起始键(包含)
+     */
+    private byte[] from;
+
+    /**
+     * 结束键(不包含)
+     */
+    private byte[] to;
+
+    /**
+     * 键前缀, 与from/to同时设置时取交集
+     */
+    private byte[] prefix;
+
+    /**
+     * 是否从大到小遍历
+     */
+    private boolean reverse;
+
+    /**
+     * 读取的快照, 为空时使用创建游标时的数据
+     */
+    private Snapshot snapshot;
+
+    /**
+     * 遍历的数据是否放入块缓存, 大范围遍历时关闭以免挤出热点数据
+     */
+    private boolean fillCache = true;
+
+    public byte[] getFrom() {
+        return from;
+    }
+
+    public void setFrom(byte[] from) {
+        this.from = from;
+    }
+
+    public byte[] getTo() {
+        return to;
+    }
+
+    public void setTo(byte[] to) {
+        this.to = to;
+    }
+
+    public byte[] getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(byte[] prefix) {
+        this.prefix = prefix;
+    }
+
+    public boolean isReverse() {
+        return reverse;
+    }
+
+    public void setReverse(boolean reverse) {
+        this.reverse = reverse;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public boolean isFillCache() {
+        return fillCache;
+    }
+
+    public void setFillCache(boolean fillCache) {
+        this.fillCache = fillCache;
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.model;
+
+/**
+ * 数据表调优方案, 按表名前缀注册, 须在打开数据库前设置
+ * <p>
+ * Tuning profile of a table, registered by table name prefix before the database is opened.
+ */
+public enum TableProfile {
+
+    /**
+     * 与原来一致: 不压缩, 块内布隆过滤器
+     */
+    DEFAULT,
+
+    /**
+     * 随机点查为主, 如账户状态、nonce: 全键布隆过滤器 + 数据块内哈希索引, 索引和过滤器放入共享块缓存, 冷数据压缩
+     */
+    POINT_LOOKUP,
+
+    /**
+     * 按高度顺序追加、按hash查询, 如区块、交易: 较大的数据块和写缓冲, 冷数据压缩
+     */
+    SEQUENTIAL,
+
+    /**
+     * 数据量小、读写频繁, 如配置、最新高度: 较小的写缓冲, 不压缩
+     */
+    SMALL_HOT
+}
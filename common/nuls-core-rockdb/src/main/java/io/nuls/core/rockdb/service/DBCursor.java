@@ -0,0 +1,59 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.service;
+
+import io.nuls.core.rockdb.model.Entry;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 数据表游标, 逐条读取, 内存占用与数据量无关
+ * 游标持有底层迭代器, 用完必须关闭, 且需在数据表关闭前关闭
+ * <p>
+ * Cursor over a table. It holds a native iterator and must be closed before the table is closed.
+ */
+public interface DBCursor extends Iterator<Entry<byte[], byte[]>>, AutoCloseable {
+
+    /**
+     * 读取下一批数据
+     * Read the next batch of entries
+     *
+     * @param batchSize 最大条数
+     * @return 没有数据时返回空列表
+     */
+    List<Entry<byte[], byte[]>> nextBatch(int batchSize);
+
+    /**
+     * 转为Stream, 关闭Stream时关闭游标
+     * Convert to a stream, closing the stream closes the cursor
+     *
+     * @return Stream
+     */
+    Stream<Entry<byte[], byte[]>> stream();
+
+    /**
+     * 释放底层迭代器
+     * Release the native iterator
+     */
+    @Override
+    void close();
+}
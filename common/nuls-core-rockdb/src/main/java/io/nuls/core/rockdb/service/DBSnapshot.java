@@ -0,0 +1,154 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.service;
+
+import io.nuls.core.log.Log;
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.manager.RocksDBStats;
+import io.nuls.core.rockdb.model.ScanOption;
+import org.rocksdb.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 数据库快照, 对应某个区块高度时所有数据表的数据.
+ * 列族模式下是同一个数据库的快照; 每个数据表单独一个数据库时是各数据库的快照, 需在没有写入时创建(如持有写锁)才能保证一致.
+ * 快照按引用计数释放, 创建者和每次取得快照的调用方都要调用close, 且要在数据库关闭前释放
+ * <p>
+ * Point-in-time view of all tables tied to a block height. It is reference counted and must be closed by every holder.
+ */
+public class DBSnapshot implements AutoCloseable {
+
+    private final long height;
+
+    private final Map<RocksDB, Snapshot> snapshots;
+
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    DBSnapshot(long height, Map<RocksDB, Snapshot> snapshots) {
+        this.height = height;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * 快照对应的区块高度
+     */
+    public long getHeight() {
+        return height;
+    }
+
+    /**
+     * 增加引用, 快照已释放时返回false
+     *
+     * @return 是否成功
+     */
+    public boolean retain() {
+        for (; ; ) {
+            int count = refCount.get();
+            if (count <= 0) {
+                return false;
+            }
+            if (refCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 查询快照中的数据, 数据表在快照之后创建时返回null
+     *
+     * @param table 数据库表名称
+     * @param key   数据键
+     * @return 数据值
+     */
+    public byte[] get(String table, byte[] key) {
+        RocksDB db = RocksDBManager.getTable(table);
+        Snapshot snapshot = db == null ? null : snapshots.get(db);
+        if (snapshot == null || key == null) {
+            return null;
+        }
+        try (ReadOptions readOptions = new ReadOptions().setSnapshot(snapshot)) {
+            long start = RocksDBStats.start();
+            byte[] value = db.get(RocksDBManager.getColumnFamily(table), readOptions, key);
+            RocksDBStats.record(table, RocksDBStats.Op.GET, start, value == null ? 0 : value.length, 0);
+            return value;
+        } catch (Exception e) {
+            Log.error("snapshot get table={}: error", table);
+            Log.error(e);
+            return null;
+        }
+    }
+
+    /**
+     * 批量查询快照中的数据, 结果与keys一一对应, 查不到的key为null
+     *
+     * @param table 数据库表名称
+     * @param keys  数据键
+     * @return 数据值
+     */
+    public List<byte[]> multiGetAsList(String table, List<byte[]> keys) {
+        RocksDB db = RocksDBManager.getTable(table);
+        Snapshot snapshot = db == null ? null : snapshots.get(db);
+        if (snapshot == null || keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try (ReadOptions readOptions = new ReadOptions().setSnapshot(snapshot)) {
+            return db.multiGetAsList(readOptions, Collections.nCopies(keys.size(), RocksDBManager.getColumnFamily(table)), keys);
+        } catch (Exception e) {
+            Log.error("snapshot multiGet table={}: error", table);
+            Log.error(e);
+            return new ArrayList<>(Collections.nCopies(keys.size(), null));
+        }
+    }
+
+    /**
+     * 遍历快照中的数据, 游标需在快照close前关闭
+     *
+     * @param table  数据库表名称
+     * @param option 查询条件, 其中的snapshot会被替换
+     * @return 数据表在快照之后创建时返回null
+     */
+    public DBCursor scan(String table, ScanOption option) {
+        RocksDB db = RocksDBManager.getTable(table);
+        Snapshot snapshot = db == null ? null : snapshots.get(db);
+        if (snapshot == null) {
+            return null;
+        }
+        option.setSnapshot(snapshot);
+        return new RocksDBCursor(table, db, RocksDBManager.getColumnFamily(table), option);
+    }
+
+    /**
+     * 减少引用, 没有引用时释放快照
+     */
+    @Override
+    public void close() {
+        if (refCount.decrementAndGet() != 0) {
+            return;
+        }
+        for (Map.Entry<RocksDB, Snapshot> entry : snapshots.entrySet()) {
+            entry.getKey().releaseSnapshot(entry.getValue());
+        }
+    }
+}
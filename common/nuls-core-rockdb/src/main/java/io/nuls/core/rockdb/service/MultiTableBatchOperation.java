@@ -0,0 +1,59 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.service;
+
+/**
+ * 跨数据表的批量操作
+ * 列族模式下所有数据表在同一个数据库中, 一次写入, 全部成功或全部失败;
+ * 每个数据表单独一个数据库时按表依次写入, 不保证原子性
+ * <p>
+ * Batch operation across tables. Atomic in column family mode, written table by table otherwise.
+ */
+public interface MultiTableBatchOperation {
+
+    /**
+     * 增加或者更新操作
+     * Add or update operations.
+     *
+     * @param table 数据库表名称
+     * @param key
+     * @param value
+     * @return
+     */
+    boolean put(String table, byte[] key, byte[] value) throws Exception;
+
+    /**
+     * 删除操作
+     * Delete operation
+     *
+     * @param table 数据库表名称
+     * @param key
+     * @return
+     */
+    boolean delete(String table, byte[] key) throws Exception;
+
+    /**
+     * 执行批量操作
+     * Perform batch operation
+     *
+     * @return
+     */
+    boolean executeBatch() throws Exception;
+}
@@ -21,7 +21,9 @@ package io.nuls.core.rockdb.service;
 
 import io.nuls.core.rockdb.constant.DBErrorCode;
 import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.manager.RocksDBStats;
 import io.nuls.core.log.Log;
+import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDB;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
@@ -30,13 +32,15 @@ public class RocksDBBatchOperation implements BatchOperation {
 
     private String table;
     private RocksDB db;
+    private ColumnFamilyHandle handle;
     private WriteBatch batch;
     private volatile boolean isClose = false;
 
     RocksDBBatchOperation(String table) {
         this.table = table;
         db = RocksDBManager.getTable(table);
-        if (db != null) {
+        handle = RocksDBManager.getColumnFamily(table);
+        if (db != null && handle != null) {
             batch = new WriteBatch();
         }
     }
@@ -56,7 +60,7 @@ public class RocksDBBatchOperation implements BatchOperation {
         if (key == null || value == null) {
             throw new Exception(DBErrorCode.NULL_PARAMETER);
         }
-        batch.put(key, value);
+        batch.put(handle, key, value);
         return true;
     }
 
@@ -65,7 +69,7 @@ public class RocksDBBatchOperation implements BatchOperation {
         if (key == null) {
             throw new Exception(DBErrorCode.NULL_PARAMETER);
         }
-        batch.delete(key);
+        batch.delete(handle, key);
         return true;
     }
 
@@ -84,7 +88,9 @@ public class RocksDBBatchOperation implements BatchOperation {
             throw new Exception(DBErrorCode.DB_TABLE_FAILED_BATCH_CLOSE);
         }
         try {
+            long start = RocksDBStats.start();
             db.write(new WriteOptions(), batch);
+            RocksDBStats.record(table, RocksDBStats.Op.BATCH, start, 0, batch.getDataSize());
         } catch (Exception e) {
             Log.error(e);
             throw new Exception(DBErrorCode.DB_UNKOWN_EXCEPTION);
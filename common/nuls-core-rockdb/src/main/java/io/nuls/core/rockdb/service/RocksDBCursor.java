@@ -0,0 +1,190 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.service;
+
+import io.nuls.core.rockdb.manager.RocksDBStats;
+import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.model.ScanOption;
+import org.rocksdb.*;
+
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于RocksIterator的游标, 上下界通过ReadOptions下推
+ */
+public class RocksDBCursor implements DBCursor {
+
+    private final ReadOptions readOptions;
+    private final List<Slice> bounds = new ArrayList<>(2);
+    private final RocksIterator iterator;
+    private final byte[] lower;
+    private final byte[] upper;
+    private final boolean reverse;
+    private final String table;
+    private final long start;
+    private long bytesRead;
+    private boolean closed;
+
+    RocksDBCursor(String table, RocksDB db, ColumnFamilyHandle handle, ScanOption option) {
+        this.table = table;
+        this.start = RocksDBStats.start();
+        this.reverse = option.isReverse();
+        byte[] from = option.getFrom();
+        byte[] to = option.getTo();
+        byte[] prefix = option.getPrefix();
+        if (prefix != null) {
+            if (from == null || compare(from, prefix) < 0) {
+                from = prefix;
+            }
+            byte[] next = nextPrefix(prefix);
+            if (next != null && (to == null || compare(next, to) < 0)) {
+                to = next;
+            }
+        }
+        this.lower = from;
+        this.upper = to;
+        this.readOptions = new ReadOptions();
+        readOptions.setFillCache(option.isFillCache());
+        if (option.getSnapshot() != null) {
+            readOptions.setSnapshot(option.getSnapshot());
+        }
+        //上下界交给RocksDB, 越界后不再读取后面的数据块和删除标记
+        if (lower != null) {
+            Slice slice = new Slice(lower);
+            bounds.add(slice);
+            readOptions.setIterateLowerBound(slice);
+        }
+        if (upper != null) {
+            Slice slice = new Slice(upper);
+            bounds.add(slice);
+            readOptions.setIterateUpperBound(slice);
+        }
+        this.iterator = db.newIterator(handle, readOptions);
+        if (reverse) {
+            if (upper == null) {
+                iterator.seekToLast();
+            } else {
+                iterator.seekForPrev(upper);
+                if (iterator.isValid() && compare(iterator.key(), upper) >= 0) {
+                    iterator.prev();
+                }
+            }
+        } else if (lower == null) {
+            iterator.seekToFirst();
+        } else {
+            iterator.seek(lower);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!iterator.isValid()) {
+            try {
+                iterator.status();
+            } catch (RocksDBException e) {
+                throw new IllegalStateException(e);
+            }
+            return false;
+        }
+        byte[] key = iterator.key();
+        if (reverse) {
+            return lower == null || compare(key, lower) >= 0;
+        }
+        return upper == null || compare(key, upper) < 0;
+    }
+
+    @Override
+    public Entry<byte[], byte[]> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Entry<byte[], byte[]> entry = new Entry<>(iterator.key(), iterator.value());
+        bytesRead += entry.getKey().length + entry.getValue().length;
+        if (reverse) {
+            iterator.prev();
+        } else {
+            iterator.next();
+        }
+        return entry;
+    }
+
+    @Override
+    public List<Entry<byte[], byte[]>> nextBatch(int batchSize) {
+        List<Entry<byte[], byte[]>> list = new ArrayList<>(Math.min(batchSize, 1024));
+        while (list.size() < batchSize && hasNext()) {
+            list.add(next());
+        }
+        return list;
+    }
+
+    @Override
+    public Stream<Entry<byte[], byte[]>> stream() {
+        Spliterator<Entry<byte[], byte[]>> spliterator = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        //按游标从打开到关闭记录一次遍历
+        RocksDBStats.record(table, RocksDBStats.Op.SCAN, start, bytesRead, 0);
+        iterator.close();
+        readOptions.close();
+        for (Slice slice : bounds) {
+            slice.close();
+        }
+    }
+
+    /**
+     * 与RocksDB默认比较器一致的无符号字节序比较
+     */
+    static int compare(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * 大于所有以prefix开头的键的最小键, prefix全为0xFF时返回null(不小于prefix的键都以prefix开头)
+     */
+    static byte[] nextPrefix(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xFF) {
+                byte[] next = Arrays.copyOf(prefix, i + 1);
+                next[i]++;
+                return next;
+            }
+        }
+        return null;
+    }
+}
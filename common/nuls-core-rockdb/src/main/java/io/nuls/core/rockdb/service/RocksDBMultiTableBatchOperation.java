@@ -0,0 +1,109 @@
+/**
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.rockdb.service;
+
+import io.nuls.core.log.Log;
+import io.nuls.core.rockdb.constant.DBErrorCode;
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.manager.RocksDBStats;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class RocksDBMultiTableBatchOperation implements MultiTableBatchOperation {
+
+    /**
+     * 按数据库分组的批量操作, 列族模式下只有一个
+     */
+    private final Map<RocksDB, WriteBatch> batches = new LinkedHashMap<>();
+    /**
+     * 每个数据表写入的字节数, 用于读写统计
+     */
+    private final Map<String, Long> tableBytes = new LinkedHashMap<>();
+    private volatile boolean isClose = false;
+
+    RocksDBMultiTableBatchOperation() {
+    }
+
+    @Override
+    public boolean put(String table, byte[] key, byte[] value) throws Exception {
+        if (key == null || value == null) {
+            throw new Exception(DBErrorCode.NULL_PARAMETER);
+        }
+        ColumnFamilyHandle handle = RocksDBManager.getColumnFamily(table);
+        getBatch(table, handle).put(handle, key, value);
+        tableBytes.merge(table, (long) (key.length + value.length), Long::sum);
+        return true;
+    }
+
+    @Override
+    public boolean delete(String table, byte[] key) throws Exception {
+        if (key == null) {
+            throw new Exception(DBErrorCode.NULL_PARAMETER);
+        }
+        ColumnFamilyHandle handle = RocksDBManager.getColumnFamily(table);
+        getBatch(table, handle).delete(handle, key);
+        tableBytes.merge(table, (long) key.length, Long::sum);
+        return true;
+    }
+
+    private WriteBatch getBatch(String table, ColumnFamilyHandle handle) throws Exception {
+        if (isClose) {
+            throw new Exception(DBErrorCode.DB_TABLE_FAILED_BATCH_CLOSE);
+        }
+        RocksDB db = RocksDBManager.getTable(table);
+        if (db == null || handle == null) {
+            throw new Exception(DBErrorCode.DB_TABLE_NOT_EXIST);
+        }
+        return batches.computeIfAbsent(db, d -> new WriteBatch());
+    }
+
+    @Override
+    public boolean executeBatch() throws Exception {
+        // 检查逻辑关闭
+        if (isClose) {
+            throw new Exception(DBErrorCode.DB_TABLE_FAILED_BATCH_CLOSE);
+        }
+        try (WriteOptions writeOptions = new WriteOptions()) {
+            long start = RocksDBStats.start();
+            for (Map.Entry<RocksDB, WriteBatch> entry : batches.entrySet()) {
+                entry.getKey().write(writeOptions, entry.getValue());
+            }
+            //一次写入涉及多个数据表, 每个表都按整次写入的耗时记录
+            for (Map.Entry<String, Long> entry : tableBytes.entrySet()) {
+                RocksDBStats.record(entry.getKey(), RocksDBStats.Op.BATCH, start, 0, entry.getValue());
+            }
+        } catch (Exception e) {
+            Log.error(e);
+            throw new Exception(DBErrorCode.DB_UNKOWN_EXCEPTION);
+        } finally {
+            // 关闭批量操作对象释放资源
+            this.isClose = true;
+            for (WriteBatch batch : batches.values()) {
+                batch.close();
+            }
+        }
+        return true;
+    }
+}
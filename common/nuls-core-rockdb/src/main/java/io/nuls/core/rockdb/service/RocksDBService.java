@@ -22,9 +22,17 @@ package io.nuls.core.rockdb.service;
 import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
 import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.manager.RocksDBStats;
+import io.nuls.core.rockdb.manager.RocksDBTuning;
 import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.model.ScanOption;
+import io.nuls.core.rockdb.model.TableProfile;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.Snapshot;
 
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -38,6 +46,76 @@ public class RocksDBService {
         }
     }
 
+    /**
+     * 初始化, columnFamily为true时所有数据表作为列族存放在同一个数据库中
+     * 数据目录下已有列族数据库时总是以列族模式打开; 要求列族模式但数据表尚未迁移时抛出异常, 模块不能继续启动
+     *
+     * @param path
+     * @param columnFamily
+     * @throws Exception 数据库打开失败或数据表未迁移
+     */
+    public static void init(String path, boolean columnFamily) throws Exception {
+        RocksDBManager.init(path, columnFamily);
+    }
+
+    /**
+     * 设置进程内共享的块缓存和写缓冲上限(字节), 须在init前调用, 0表示不使用块缓存
+     * set the shared block cache and write buffer limit in bytes, must be called before init
+     *
+     * @param blockCacheSize
+     * @param writeBufferSize
+     */
+    public static void configure(long blockCacheSize, long writeBufferSize) {
+        RocksDBTuning.configure(blockCacheSize, writeBufferSize);
+    }
+
+    /**
+     * 为表名以prefix开头的数据表设置调优方案, 须在打开数据表前调用
+     * set the tuning profile of tables whose name starts with prefix
+     *
+     * @param tablePrefix
+     * @param profile
+     */
+    public static void setTableProfile(String tablePrefix, TableProfile profile) {
+        RocksDBTuning.setProfile(tablePrefix, profile);
+    }
+
+    /**
+     * 设置读写统计, 须在init前调用, 默认不统计, nativeStatistics开启RocksDB内部计数(有一定开销)
+     * configure the I/O metrics (off by default), must be called before init
+     *
+     * @param enableStats      是否统计各表读写次数、字节数和耗时
+     * @param nativeStatistics 是否开启RocksDB Statistics
+     * @param slowMillis       超过该耗时(毫秒)的操作记入慢操作列表
+     */
+    public static void configureStats(boolean enableStats, boolean nativeStatistics, long slowMillis) {
+        RocksDBStats.configure(enableStats, nativeStatistics, slowMillis);
+    }
+
+    /**
+     * 各表读写统计、RocksDB内部状态和最近的慢操作
+     * per-table I/O metrics, engine properties and recent slow operations
+     *
+     * @return
+     */
+    public static Map<String, Object> getStats() {
+        return RocksDBStats.getStats();
+    }
+
+    /**
+     * 定时把统计信息写入日志
+     * periodically dump the metrics to the log
+     *
+     * @param intervalSeconds 间隔秒数, 小于等于0不输出
+     */
+    public static void startStatsDump(int intervalSeconds) {
+        RocksDBStats.startDump(intervalSeconds);
+    }
+
+    public static boolean isColumnFamilyMode() {
+        return RocksDBManager.isColumnFamilyMode();
+    }
+
     public static boolean createTable(String tableName) throws Exception {
         if (!RocksDBService.existTable(tableName)) {
             return RocksDBManager.createTable(tableName);
@@ -131,6 +209,54 @@ public class RocksDBService {
         return RocksDBManager.entryList(table);
     }
 
+    /**
+     * 按条件遍历数据表, 数据表不存在时返回null, 游标用完需关闭
+     * scan a table with the given condition, the cursor must be closed
+     *
+     * @param table
+     * @param option
+     * @return
+     */
+    public static DBCursor scan(String table, ScanOption option) {
+        RocksDB db = RocksDBManager.getTable(table);
+        ColumnFamilyHandle handle = RocksDBManager.getColumnFamily(table);
+        if (db == null || handle == null) {
+            Log.error("scan table={}: error", table);
+            return null;
+        }
+        return new RocksDBCursor(table, db, handle, option);
+    }
+
+    /**
+     * 遍历[from, to)区间, 为空表示不限
+     */
+    public static DBCursor scan(String table, byte[] from, byte[] to) {
+        ScanOption option = new ScanOption();
+        option.setFrom(from);
+        option.setTo(to);
+        return scan(table, option);
+    }
+
+    /**
+     * 从大到小遍历[from, to)区间, 为空表示不限
+     */
+    public static DBCursor scanReverse(String table, byte[] from, byte[] to) {
+        ScanOption option = new ScanOption();
+        option.setFrom(from);
+        option.setTo(to);
+        option.setReverse(true);
+        return scan(table, option);
+    }
+
+    /**
+     * 遍历以prefix开头的键
+     */
+    public static DBCursor scanPrefix(String table, byte[] prefix) {
+        ScanOption option = new ScanOption();
+        option.setPrefix(prefix);
+        return scan(table, option);
+    }
+
     public static BatchOperation createWriteBatch(String table) {
         if (StringUtils.isBlank(table)) {
             return null;
@@ -147,4 +273,33 @@ public class RocksDBService {
         }
         return batchOperation;
     }
+
+    /**
+     * 跨数据表的批量操作, 列族模式下原子写入
+     * batch operation across tables, atomic in column family mode
+     *
+     * @return
+     */
+    public static MultiTableBatchOperation createWriteBatch() {
+        return new RocksDBMultiTableBatchOperation();
+    }
+
+    /**
+     * 创建所有已打开数据表的快照, 用完需调用close.
+     * 每个数据表单独一个数据库时, 需在没有写入时调用才能保证各数据表一致
+     * create a snapshot of all open tables
+     *
+     * @param height 快照对应的区块高度
+     * @return
+     */
+    public static DBSnapshot createSnapshot(long height) {
+        Map<RocksDB, Snapshot> snapshots = new IdentityHashMap<>();
+        for (String table : RocksDBManager.listTable()) {
+            RocksDB db = RocksDBManager.getTable(table);
+            if (db != null && !snapshots.containsKey(db)) {
+                snapshots.put(db, db.getSnapshot());
+            }
+        }
+        return new DBSnapshot(height, snapshots);
+    }
 }
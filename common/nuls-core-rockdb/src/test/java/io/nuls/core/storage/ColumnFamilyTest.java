@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.storage;
+
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.manager.RocksDBMigrationTool;
+import io.nuls.core.rockdb.service.MultiTableBatchOperation;
+import io.nuls.core.rockdb.service.RocksDBService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+
+import java.io.File;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 列族模式: 迁移、跨表批量写入、建表删表
+ */
+public class ColumnFamilyTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void close() {
+        RocksDBManager.close();
+    }
+
+    @Test
+    public void migrateAndBatch() throws Exception {
+        RocksDB.loadLibrary();
+        String path = folder.getRoot().getPath();
+        for (String table : new String[]{"table-a", "table-b"}) {
+            File dir = new File(path + File.separator + table + File.separator + "rocksdb");
+            dir.mkdirs();
+            try (Options options = new Options().setCreateIfMissing(true);
+                 RocksDB db = RocksDB.open(options, dir.getPath())) {
+                for (int i = 0; i < 100; i++) {
+                    db.put((table + i).getBytes(UTF_8), ("value" + i).getBytes(UTF_8));
+                }
+            }
+        }
+        Assert.assertEquals(2, RocksDBMigrationTool.migrate(path));
+
+        RocksDBService.init(path);
+        Assert.assertTrue(RocksDBService.isColumnFamilyMode());
+        Assert.assertArrayEquals("value7".getBytes(UTF_8), RocksDBService.get("table-a", "table-a7".getBytes(UTF_8)));
+        Assert.assertArrayEquals("value99".getBytes(UTF_8), RocksDBService.get("table-b", "table-b99".getBytes(UTF_8)));
+        Assert.assertEquals(100, RocksDBService.keyList("table-a").size());
+
+        MultiTableBatchOperation batch = RocksDBService.createWriteBatch();
+        batch.put("table-a", "k".getBytes(UTF_8), "a".getBytes(UTF_8));
+        batch.put("table-b", "k".getBytes(UTF_8), "b".getBytes(UTF_8));
+        batch.delete("table-a", "table-a0".getBytes(UTF_8));
+        Assert.assertTrue(batch.executeBatch());
+        Assert.assertArrayEquals("a".getBytes(UTF_8), RocksDBService.get("table-a", "k".getBytes(UTF_8)));
+        Assert.assertArrayEquals("b".getBytes(UTF_8), RocksDBService.get("table-b", "k".getBytes(UTF_8)));
+        Assert.assertNull(RocksDBService.get("table-a", "table-a0".getBytes(UTF_8)));
+
+        Assert.assertTrue(RocksDBService.createTable("table-c"));
+        RocksDBService.put("table-c", "k".getBytes(UTF_8), "c".getBytes(UTF_8));
+        Assert.assertNull(RocksDBService.get("table-a", "table-c".getBytes(UTF_8)));
+        Assert.assertTrue(RocksDBService.destroyTable("table-c"));
+        Assert.assertFalse(RocksDBService.existTable("table-c"));
+
+        //重新打开后数据仍在
+        RocksDBManager.close();
+        RocksDBService.init(path);
+        Assert.assertArrayEquals("b".getBytes(UTF_8), RocksDBService.get("table-b", "k".getBytes(UTF_8)));
+        Assert.assertEquals(2, RocksDBService.listTable().length);
+    }
+
+    /**
+     * 要求列族模式但数据表尚未迁移时不能启动, 否则会以同名空表运行
+     */
+    @Test
+    public void unmigratedTablesRejected() throws Exception {
+        RocksDB.loadLibrary();
+        String path = folder.getRoot().getPath();
+        File dir = new File(path + File.separator + "table-a" + File.separator + "rocksdb");
+        dir.mkdirs();
+        try (Options options = new Options().setCreateIfMissing(true);
+             RocksDB db = RocksDB.open(options, dir.getPath())) {
+            db.put("k".getBytes(UTF_8), "v".getBytes(UTF_8));
+        }
+        try {
+            RocksDBService.init(path, true);
+            Assert.fail("unmigrated tables opened in column family mode");
+        } catch (Exception e) {
+            Assert.assertFalse(RocksDBService.isColumnFamilyMode());
+        }
+
+        //迁移后可以以列族模式打开
+        RocksDBMigrationTool.migrate(path);
+        RocksDBService.init(path, true);
+        Assert.assertTrue(RocksDBService.isColumnFamilyMode());
+        Assert.assertArrayEquals("v".getBytes(UTF_8), RocksDBService.get("table-a", "k".getBytes(UTF_8)));
+    }
+}
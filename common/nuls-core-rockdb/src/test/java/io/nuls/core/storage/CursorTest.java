@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.storage;
+
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.service.DBCursor;
+import io.nuls.core.rockdb.service.RocksDBService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 范围、前缀、倒序遍历
+ */
+public class CursorTest {
+
+    private static final String TABLE = "cursor-table";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void init() throws Exception {
+        RocksDBService.init(folder.getRoot().getPath());
+        RocksDBService.createTable(TABLE);
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 10; j++) {
+                RocksDBService.put(TABLE, new byte[]{(byte) (0xFE + i), (byte) j}, new byte[]{(byte) j});
+            }
+        }
+    }
+
+    @After
+    public void close() {
+        RocksDBManager.close();
+    }
+
+    @Test
+    public void range() {
+        List<byte[]> keys = keys(RocksDBService.scan(TABLE, new byte[]{(byte) 0xFE, 3}, new byte[]{(byte) 0xFE, 6}));
+        Assert.assertEquals(3, keys.size());
+        Assert.assertArrayEquals(new byte[]{(byte) 0xFE, 3}, keys.get(0));
+        Assert.assertArrayEquals(new byte[]{(byte) 0xFE, 5}, keys.get(2));
+
+        Assert.assertEquals(30, keys(RocksDBService.scan(TABLE, null, null)).size());
+    }
+
+    @Test
+    public void reverse() {
+        List<byte[]> keys = keys(RocksDBService.scanReverse(TABLE, new byte[]{(byte) 0xFE, 8}, new byte[]{(byte) 0xFF, 2}));
+        Assert.assertEquals(4, keys.size());
+        Assert.assertArrayEquals(new byte[]{(byte) 0xFF, 1}, keys.get(0));
+        Assert.assertArrayEquals(new byte[]{(byte) 0xFE, 8}, keys.get(3));
+
+        keys = keys(RocksDBService.scanReverse(TABLE, null, null));
+        Assert.assertEquals(30, keys.size());
+        Assert.assertArrayEquals(new byte[]{(byte) 0xFF, 9}, keys.get(0));
+    }
+
+    @Test
+    public void prefix() {
+        Assert.assertEquals(10, keys(RocksDBService.scanPrefix(TABLE, new byte[]{(byte) 0xFE})).size());
+        Assert.assertEquals(10, keys(RocksDBService.scanPrefix(TABLE, new byte[]{(byte) 0xFF})).size());
+        Assert.assertEquals(1, keys(RocksDBService.scanPrefix(TABLE, new byte[]{(byte) 0xFF, 9})).size());
+        Assert.assertEquals(0, keys(RocksDBService.scanPrefix(TABLE, new byte[]{0x01})).size());
+    }
+
+    @Test
+    public void batchAndStream() {
+        try (DBCursor cursor = RocksDBService.scanPrefix(TABLE, new byte[]{0x00})) {
+            Assert.assertEquals(4, cursor.nextBatch(4).size());
+            Assert.assertEquals(4, cursor.nextBatch(4).size());
+            Assert.assertEquals(2, cursor.nextBatch(4).size());
+            Assert.assertTrue(cursor.nextBatch(4).isEmpty());
+        }
+        try (Stream<Entry<byte[], byte[]>> stream = RocksDBService.scan(TABLE, null, null).stream()) {
+            Assert.assertEquals(45 * 3, stream.mapToInt(e -> e.getValue()[0]).sum());
+        }
+    }
+
+    private static List<byte[]> keys(DBCursor cursor) {
+        List<byte[]> keys = new ArrayList<>();
+        try {
+            while (cursor.hasNext()) {
+                keys.add(cursor.next().getKey());
+            }
+        } finally {
+            cursor.close();
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.storage;
+
+import io.nuls.core.rockdb.manager.DBSnapshotManager;
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.service.DBSnapshot;
+import io.nuls.core.rockdb.service.RocksDBService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 快照读取与按高度发布
+ */
+public class SnapshotTest {
+
+    private static final byte[] KEY = "key".getBytes(UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void init() throws Exception {
+        RocksDBService.init(folder.getRoot().getPath());
+        RocksDBService.createTable("table-a");
+        RocksDBService.createTable("table-b");
+    }
+
+    @After
+    public void close() {
+        RocksDBManager.close();
+    }
+
+    @Test
+    public void pointInTime() throws Exception {
+        RocksDBService.put("table-a", KEY, "a1".getBytes(UTF_8));
+        RocksDBService.put("table-b", KEY, "b1".getBytes(UTF_8));
+        try (DBSnapshot snapshot = RocksDBService.createSnapshot(1)) {
+            RocksDBService.put("table-a", KEY, "a2".getBytes(UTF_8));
+            RocksDBService.delete("table-b", KEY);
+            RocksDBService.createTable("table-c");
+
+            Assert.assertArrayEquals("a1".getBytes(UTF_8), snapshot.get("table-a", KEY));
+            Assert.assertArrayEquals("b1".getBytes(UTF_8), snapshot.get("table-b", KEY));
+            Assert.assertNull(snapshot.get("table-c", KEY));
+            Assert.assertNull(RocksDBService.get("table-b", KEY));
+        }
+    }
+
+    @Test
+    public void publishAndAcquire() throws Exception {
+        Assert.assertNull(DBSnapshotManager.acquire(1));
+        RocksDBService.put("table-a", KEY, "h1".getBytes(UTF_8));
+        DBSnapshotManager.publish(1, 1);
+        DBSnapshot first = DBSnapshotManager.acquire(1);
+        Assert.assertEquals(1, first.getHeight());
+
+        RocksDBService.put("table-a", KEY, "h2".getBytes(UTF_8));
+        DBSnapshotManager.publish(1, 2);
+        //被替换的快照在持有者关闭前仍可读取
+        Assert.assertArrayEquals("h1".getBytes(UTF_8), first.get("table-a", KEY));
+        first.close();
+        Assert.assertFalse(first.retain());
+
+        try (DBSnapshot second = DBSnapshotManager.acquire(1)) {
+            Assert.assertEquals(2, second.getHeight());
+            Assert.assertArrayEquals("h2".getBytes(UTF_8), second.get("table-a", KEY));
+        }
+        DBSnapshotManager.clear(1);
+        Assert.assertNull(DBSnapshotManager.acquire(1));
+    }
+}
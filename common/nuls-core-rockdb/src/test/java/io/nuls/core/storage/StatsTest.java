@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.storage;
+
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.service.DBCursor;
+import io.nuls.core.rockdb.service.RocksDBService;
+import io.nuls.core.thread.CommandContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * 数据表读写统计与慢操作记录
+ */
+public class StatsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void init() throws Exception {
+        //阈值为0, 每个操作都记入慢操作列表
+        RocksDBService.configureStats(true, false, 0);
+        RocksDBService.init(folder.getRoot().getPath());
+        RocksDBService.createTable("stats-table");
+        RocksDBService.createTable("stats-cmd");
+    }
+
+    @After
+    public void close() {
+        RocksDBManager.close();
+        RocksDBService.configureStats(false, false, 100);
+    }
+
+    @Test
+    public void tableStats() throws Exception {
+        RocksDBService.put("stats-table", "k1".getBytes(UTF_8), "v1".getBytes(UTF_8));
+        RocksDBService.put("stats-table", "k2".getBytes(UTF_8), "v2".getBytes(UTF_8));
+        Assert.assertArrayEquals("v1".getBytes(UTF_8), RocksDBService.get("stats-table", "k1".getBytes(UTF_8)));
+        try (DBCursor cursor = RocksDBService.scan("stats-table", null, null)) {
+            while (cursor.hasNext()) {
+                cursor.next();
+            }
+        }
+
+        Map<String, Object> stats = RocksDBService.getStats();
+        Map<String, Object> table = (Map<String, Object>) ((Map<String, Object>) stats.get("tables")).get("stats-table");
+        Assert.assertEquals(2L, ((Map<String, Object>) table.get("PUT")).get("count"));
+        Assert.assertEquals(1L, ((Map<String, Object>) table.get("GET")).get("count"));
+        Assert.assertEquals(1L, ((Map<String, Object>) table.get("SCAN")).get("count"));
+        Assert.assertEquals(8L, table.get("bytesWritten"));
+        //get 2字节, 遍历 8字节
+        Assert.assertEquals(10L, table.get("bytesRead"));
+        Assert.assertTrue(((Map<String, Object>) table.get("properties")).containsKey("estimate-num-keys"));
+    }
+
+    @Test
+    public void slowOpCarriesCommand() throws Exception {
+        CommandContext.set("testCmd");
+        try {
+            RocksDBService.put("stats-cmd", "cmd".getBytes(UTF_8), "value".getBytes(UTF_8));
+        } finally {
+            CommandContext.clear();
+        }
+        List<Map<String, Object>> slowOps = (List<Map<String, Object>>) RocksDBService.getStats().get("slowOps");
+        Map<String, Object> last = slowOps.get(slowOps.size() - 1);
+        Assert.assertEquals("stats-cmd", last.get("table"));
+        Assert.assertEquals("PUT", last.get("op"));
+        Assert.assertEquals("testCmd", last.get("cmd"));
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.storage;
+
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.rockdb.manager.RocksDBManager;
+import io.nuls.core.rockdb.model.TableProfile;
+import io.nuls.core.rockdb.service.RocksDBService;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * 调优方案压测, 每次运行测试一种配置, 例如:
+ * -Dprofile=POINT_LOOKUP -DcacheMB=256 -DbufferMB=128 -Dkeys=1000000 -Dops=2000000
+ * 设置-Dtrace=文件 时按文件回放, 每行一次操作: "G 键hex" 读取, "P 键hex 值长度" 写入;
+ * 否则模拟账本账户状态: 少量热点账户的随机点查加10%更新
+ */
+@Ignore
+public class TableProfileBenchmark {
+
+    private static final String TABLE = "benchmark";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replay() throws Exception {
+        TableProfile profile = TableProfile.valueOf(System.getProperty("profile", "DEFAULT"));
+        long cacheSize = Long.getLong("cacheMB", 0) * 1024 * 1024;
+        long bufferSize = Long.getLong("bufferMB", 0) * 1024 * 1024;
+        int keyCount = Integer.getInteger("keys", 1000000);
+        int ops = Integer.getInteger("ops", 2000000);
+        String trace = System.getProperty("trace");
+
+        RocksDBService.configure(cacheSize, bufferSize);
+        RocksDBService.setTableProfile(TABLE, profile);
+        RocksDBService.init(folder.getRoot().getPath());
+        RocksDBService.createTable(TABLE);
+        try {
+            long begin = System.currentTimeMillis();
+            Map<byte[], byte[]> kvs = new HashMap<>();
+            for (int i = 0; i < keyCount; i++) {
+                kvs.put(key(i), new byte[60]);
+                if (kvs.size() == 10000) {
+                    RocksDBService.batchPut(TABLE, kvs);
+                    kvs.clear();
+                }
+            }
+            if (!kvs.isEmpty()) {
+                RocksDBService.batchPut(TABLE, kvs);
+            }
+            System.out.println("load " + keyCount + " keys: " + (System.currentTimeMillis() - begin) + "ms");
+
+            long[] gets = new long[ops];
+            long[] puts = new long[ops];
+            int getCount = 0;
+            int putCount = 0;
+            begin = System.currentTimeMillis();
+            if (trace != null) {
+                try (BufferedReader reader = new BufferedReader(new FileReader(trace))) {
+                    String line;
+                    while ((line = reader.readLine()) != null && getCount + putCount < ops) {
+                        String[] parts = line.trim().split("\\s+");
+                        if ("G".equals(parts[0])) {
+                            gets[getCount++] = get(HexUtil.decode(parts[1]));
+                        } else if ("P".equals(parts[0])) {
+                            puts[putCount++] = put(HexUtil.decode(parts[1]), new byte[Integer.parseInt(parts[2])]);
+                        }
+                    }
+                }
+            } else {
+                Random random = new Random(1);
+                for (int i = 0; i < ops; i++) {
+                    //热点倾斜: 大部分访问落在少量账户上
+                    byte[] key = key((int) (keyCount * Math.pow(random.nextDouble(), 3)));
+                    if (random.nextInt(10) == 0) {
+                        puts[putCount++] = put(key, new byte[60]);
+                    } else {
+                        gets[getCount++] = get(key);
+                    }
+                }
+            }
+            long elapsed = System.currentTimeMillis() - begin;
+            System.out.println("profile " + profile + ", cache " + cacheSize + ", ops " + (getCount + putCount) + ", " + elapsed + "ms");
+            print("get", gets, getCount);
+            print("put", puts, putCount);
+        } finally {
+            RocksDBManager.close();
+        }
+    }
+
+    private static long get(byte[] key) {
+        long begin = System.nanoTime();
+        RocksDBService.get(TABLE, key);
+        return System.nanoTime() - begin;
+    }
+
+    private static long put(byte[] key, byte[] value) throws Exception {
+        long begin = System.nanoTime();
+        RocksDBService.put(TABLE, key, value);
+        return System.nanoTime() - begin;
+    }
+
+    /**
+     * 与账户状态键长度相近的散列键
+     */
+    private static byte[] key(int i) {
+        long h = i * 0x9E3779B97F4A7C15L;
+        return ByteBuffer.allocate(32).putLong(h).putLong(h ^ (h >>> 31)).putLong(i).array();
+    }
+
+    private static void print(String name, long[] times, int count) {
+        if (count == 0) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(times, count);
+        Arrays.sort(sorted);
+        long sum = 0;
+        for (long t : sorted) {
+            sum += t;
+        }
+        System.out.println(name + " count " + count + ", avg " + sum / count / 1000 + "us, p50 " + sorted[count / 2] / 1000
+                + "us, p99 " + sorted[(int) (count * 0.99)] / 1000 + "us, max " + sorted[count - 1] / 1000 + "us");
+    }
+}
@@ -187,6 +187,20 @@ public class Constants {
 
     public static final String ZERO = "0";
 
+    /**
+     * 握手协议版本，0.2及以上版本支持二进制帧
+     * Handshake protocol version, 0.2 and above support binary frames
+     */
+    public static final String PROTOCOL_VERSION = "0.2";
+    public static final double BINARY_FRAME_MIN_PROTOCOL_VERSION = 0.2;
+
+    /**
+     * 消息帧模式
+     * Message frame mode
+     */
+    public static final String FRAME_MODE_JSON = "json";
+    public static final String FRAME_MODE_BINARY = "binary";
+
     /**
      * 处理待处理消息的线程池
      * Thread pool for processing messages to be processed
@@ -51,6 +51,13 @@ public class NegotiateConnectionResponse {
     @JsonProperty
     private String NegotiationComment;
 
+    /**
+     * 协商后的消息帧模式，json或binary；旧版本节点不返回该字段，按json处理
+     * Negotiated message frame mode, json or binary; old peers omit it and are treated as json
+     */
+    @JsonProperty
+    private String FrameMode;
+
     @JsonIgnore
     public String getRequestID() {
         return RequestID;
@@ -80,4 +87,14 @@ public class NegotiateConnectionResponse {
     public void setNegotiationComment(String NegotiationComment) {
         this.NegotiationComment = NegotiationComment;
     }
+
+    @JsonIgnore
+    public String getFrameMode() {
+        return FrameMode;
+    }
+
+    @JsonIgnore
+    public void setFrameMode(String FrameMode) {
+        this.FrameMode = FrameMode;
+    }
 }
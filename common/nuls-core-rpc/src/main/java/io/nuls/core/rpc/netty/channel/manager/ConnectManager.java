@@ -1,11 +1,14 @@
 package io.nuls.core.rpc.netty.channel.manager;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.nuls.core.core.ioc.ScanUtil;
 import io.nuls.core.core.ioc.SpringLiteContext;
 import io.nuls.core.log.Log;
@@ -24,6 +27,7 @@ import io.nuls.core.rpc.netty.thread.RequestByCountProcessor;
 import io.nuls.core.rpc.netty.thread.RequestByPeriodProcessor;
 import io.nuls.core.rpc.netty.thread.RequestOnlyProcessor;
 import io.nuls.core.rpc.netty.thread.ResponseAutoProcessor;
+import io.nuls.core.rpc.util.BinaryFrameCodec;
 import io.nuls.core.rpc.util.NulsDateUtils;
 import io.nuls.core.rpc.util.SerializeUtil;
 
@@ -141,6 +145,18 @@ public class ConnectManager {
      */
     private static final Map<String, Integer> CMD_CHANGE_COUNT = new ConcurrentHashMap<>();
 
+    /**
+     * 本模块是否支持二进制帧，关闭后所有连接都使用JSON文本帧
+     * Whether this module supports binary frames, all connections use JSON text frames when disabled
+     */
+    public static boolean binaryFrameEnable = true;
+
+    /**
+     * 握手协商为二进制帧模式的链接
+     * Channels negotiated to binary frame mode during handshake
+     */
+    public static final Set<Channel> BINARY_FRAME_CHANNELS = ConcurrentHashMap.newKeySet();
+
     /**
      * 当前正在处理的订阅请求数量
      * Number of subscription requests currently being processed
@@ -691,6 +707,7 @@ public class ConnectManager {
      * Stop or disconnect a connection
      */
     public static void disConnect(SocketChannel channel) {
+        BINARY_FRAME_CHANNELS.remove(channel);
         if (!ROLE_CHANNEL_MAP.values().contains(channel)) {
             return;
         }
@@ -733,10 +750,38 @@ public class ConnectManager {
     }
 
     public static void sendMessage(Channel channel, ByteBuf message) {
+        sendFrame(channel, new TextWebSocketFrame(message));
+    }
+
+    /**
+     * 根据握手协商的帧模式发送消息，对方不支持二进制帧时使用JSON文本帧
+     * Send message in the frame mode negotiated during handshake, JSON text frame is used if the peer does not support binary frames
+     */
+    public static void sendMessage(Channel channel, Message message) throws JsonProcessingException {
+        if (BINARY_FRAME_CHANNELS.contains(channel)) {
+            sendFrame(channel, new BinaryWebSocketFrame(BinaryFrameCodec.encode(message)));
+        } else {
+            sendFrame(channel, new TextWebSocketFrame(SerializeUtil.getBuffer(BinaryFrameCodec.encodeJson(message))));
+        }
+    }
+
+    /**
+     * 对方是否支持二进制帧
+     * Whether the peer supports binary frames
+     */
+    public static boolean isBinaryFrame(Channel channel) {
+        return BINARY_FRAME_CHANNELS.contains(channel);
+    }
+
+    /**
+     * 发送已编码好的消息帧，用于同一消息发给多个链接时共享缓冲区
+     * Send an encoded frame, used to share the buffer when the same message is sent to multiple channels
+     */
+    public static void sendFrame(Channel channel, WebSocketFrame frame) {
 //        Log.debug("发送消息:{}",message);
         try {
             channel.eventLoop().execute(() -> {
-                ChannelFuture cf = channel.writeAndFlush(new TextWebSocketFrame(message));
+                ChannelFuture cf = channel.writeAndFlush(frame);
                 cf.addListener((ChannelFutureListener) future -> {
                     if (!future.isSuccess()) {
                         Log.error(future.cause());
@@ -768,7 +813,7 @@ public class ConnectManager {
 //    }
 
     public static void sendMessage(String moduleAbbr, Message message) throws Exception {
-        sendMessage(getConnectByRole(moduleAbbr), SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        sendMessage(getConnectByRole(moduleAbbr), message);
     }
 
     public static String getRoleByChannel(Channel channel){
@@ -149,6 +149,14 @@ public class TextMessageHandler implements Runnable, Comparable<TextMessageHandl
                     }
                     break;
                 case NegotiateConnectionResponse:
+                    /*
+                    对方同意使用二进制帧，则之后发往该链接的消息都使用二进制帧
+                    If the peer agrees to use binary frames, all subsequent messages to this channel use binary frames
+                     */
+                    if (ConnectManager.binaryFrameEnable
+                            && Constants.FRAME_MODE_BINARY.equals(((Map<String, String>) message.getMessageData()).get("FrameMode"))) {
+                        ConnectManager.BINARY_FRAME_CHANNELS.add(channel);
+                    }
                 case Ack:
                     ResponseContainer resContainer = RequestContainer.getResponseContainer(((Map<String, String>) message.getMessageData()).get("RequestID"));
                     if (resContainer != null && resContainer.getFuture() != null) {
@@ -14,7 +14,7 @@ import io.nuls.core.rpc.model.message.*;
 import io.nuls.core.rpc.netty.channel.ConnectData;
 import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
 import io.nuls.core.rpc.util.NulsDateUtils;
-import io.nuls.core.rpc.util.SerializeUtil;
+import io.nuls.core.thread.CommandContext;
 
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
@@ -44,20 +44,46 @@ public class RequestMessageProcessor {
      * @throws JsonProcessingException JSON解析错误 / JSON parsing error
      */
     public static void negotiateConnectionResponse(Channel channel, Message message) throws JsonProcessingException {
+        NegotiateConnection negotiateConnection = JSONUtils.map2pojo((Map) message.getMessageData(), NegotiateConnection.class);
+        boolean binaryFrame = ConnectManager.binaryFrameEnable && supportBinaryFrame(negotiateConnection.getProtocolVersion());
+
         NegotiateConnectionResponse negotiateConnectionResponse = new NegotiateConnectionResponse();
         negotiateConnectionResponse.setRequestID(message.getMessageID());
         negotiateConnectionResponse.setNegotiationStatus("1");
         negotiateConnectionResponse.setNegotiationComment("Connection true!");
+        negotiateConnectionResponse.setFrameMode(binaryFrame ? Constants.FRAME_MODE_BINARY : Constants.FRAME_MODE_JSON);
 
         Message rspMsg = MessageUtil.basicMessage(MessageType.NegotiateConnectionResponse);
         rspMsg.setMessageData(negotiateConnectionResponse);
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMsg)));
+        ConnectManager.sendMessage(channel, rspMsg);
+
+        /*
+        握手响应以文本帧发出之后，再切换为二进制帧
+        Switch to binary frames only after the handshake response has been sent as a text frame
+         */
+        if (binaryFrame) {
+            ConnectManager.BINARY_FRAME_CHANNELS.add(channel);
+        }
 
         //握手成功之后保存channel与角色的对应信息
-        NegotiateConnection negotiateConnection = JSONUtils.map2pojo((Map) message.getMessageData(), NegotiateConnection.class);
         ConnectManager.cacheConnect(negotiateConnection.getAbbreviation(), channel, false);
     }
 
+    /**
+     * 对方握手协议版本是否支持二进制帧
+     * Whether the handshake protocol version of the peer supports binary frames
+     *
+     * @param protocolVersion 对方握手协议版本 / Handshake protocol version of the peer
+     * @return boolean
+     */
+    public static boolean supportBinaryFrame(String protocolVersion) {
+        try {
+            return protocolVersion != null && Double.parseDouble(protocolVersion) >= Constants.BINARY_FRAME_MIN_PROTOCOL_VERSION;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
 
     /**
      * 确认收到Request
@@ -72,7 +98,7 @@ public class RequestMessageProcessor {
         ack.setRequestId(messageId);
         Message rspMsg = MessageUtil.basicMessage(MessageType.Ack);
         rspMsg.setMessageData(ack);
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMsg)));
+        ConnectManager.sendMessage(channel, rspMsg);
     }
 
     /**
@@ -86,7 +112,7 @@ public class RequestMessageProcessor {
         Response response = MessageUtil.newFailResponse(messageId, "Service not started!");
         Message rspMsg = MessageUtil.basicMessage(MessageType.Response);
         rspMsg.setMessageData(response);
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMsg)));
+        ConnectManager.sendMessage(channel, rspMsg);
     }
 
     /**
@@ -187,7 +213,7 @@ public class RequestMessageProcessor {
                     response.setResponseErrorCode(CommonCodeConstanst.CMD_NOTFOUND.getCode());
                     Message rspMessage = MessageUtil.basicMessage(MessageType.Response);
                     rspMessage.setMessageData(response);
-                    ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+                    ConnectManager.sendMessage(channel, rspMessage);
                     return;
                 }
 
@@ -201,12 +227,12 @@ public class RequestMessageProcessor {
                     response.setResponseErrorCode(CommonCodeConstanst.PARAMETER_ERROR.getCode());
                     Message rspMessage = MessageUtil.basicMessage(MessageType.Response);
                     rspMessage.setMessageData(response);
-                    ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+                    ConnectManager.sendMessage(channel, rspMessage);
                     return;
                 }
 
                 Message rspMessage = execute(cmdDetail, params, messageId);
-                ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+                ConnectManager.sendMessage(channel, rspMessage);
 
                 /*
                 执行成功之后判断该接口是否被订阅过，如果被订阅则改变该接口触发次数
@@ -221,7 +247,7 @@ public class RequestMessageProcessor {
                 response.setResponseErrorCode(CommonCodeConstanst.SYS_UNKOWN_EXCEPTION.getCode());
                 Message rspMessage = MessageUtil.basicMessage(MessageType.Response);
                 rspMessage.setMessageData(response);
-                ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+                ConnectManager.sendMessage(channel, rspMessage);
             }
         }
     }
@@ -266,7 +292,7 @@ public class RequestMessageProcessor {
                     Log.info("Parameter validation error!");
                     return;
                 }
-                invoke(cmdDetail.getInvokeClass(), cmdDetail.getInvokeMethod(), params);
+                invoke(cmdDetail.getMethodName(), cmdDetail.getInvokeClass(), cmdDetail.getInvokeMethod(), params);
             } catch (Exception e) {
                 Log.error(e);
             }
@@ -285,7 +311,7 @@ public class RequestMessageProcessor {
      */
     private static Message execute(CmdDetail cmdDetail, Map params, String messageId) throws Exception {
         long startTimemillis = NulsDateUtils.getCurrentTimeMillis();
-        Response response = invoke(cmdDetail.getInvokeClass(), cmdDetail.getInvokeMethod(), params);
+        Response response = invoke(cmdDetail.getMethodName(), cmdDetail.getInvokeClass(), cmdDetail.getInvokeMethod(), params);
         response.setRequestID(messageId);
         Map<String, Object> responseData = new HashMap<>(1);
         responseData.put(cmdDetail.getMethodName(), response.getResponseData());
@@ -309,7 +335,7 @@ public class RequestMessageProcessor {
         rspMessage.setMessageData(realResponse);
         try {
             Log.debug("responseWithEventCount: " + JSONUtils.obj2json(rspMessage));
-            ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(rspMessage)));
+            ConnectManager.sendMessage(channel, rspMessage);
         } catch (JsonProcessingException e) {
             Log.error(e);
         }
@@ -498,6 +524,7 @@ public class RequestMessageProcessor {
      * 1. If the interface is injected via @Autowired, the injected object is used
      * 2. If the interface has no special annotations, construct a new object by reflection
      *
+     * @param cmd          命令名称 / Command name
      * @param invokeClass  Class
      * @param invokeMethod Method
      * @param params       Parameters of remote method
@@ -505,17 +532,22 @@ public class RequestMessageProcessor {
      * @throws Exception Any exceptions
      */
     @SuppressWarnings("unchecked")
-    private static Response invoke(String invokeClass, String invokeMethod, Map params) throws Exception {
+    private static Response invoke(String cmd, String invokeClass, String invokeMethod, Map params) throws Exception {
         Class<?> clz = classMap.get(invokeClass);
         if (clz == null) {
             clz = Class.forName(invokeClass);
             classMap.put(invokeClass, clz);
         }
         Method method = clz.getDeclaredMethod(invokeMethod, Map.class);
-        BaseCmd cmd = (BaseCmd) handlerMap.get(invokeClass);
-        if (cmd == null) {
+        BaseCmd handler = (BaseCmd) handlerMap.get(invokeClass);
+        if (handler == null) {
             return MessageUtil.newFailResponse("",  CMD_NOT_FOUND);
         }
-        return (Response) method.invoke(cmd, params);
+        CommandContext.set(cmd);
+        try {
+            return (Response) method.invoke(handler, params);
+        } finally {
+            CommandContext.clear();
+        }
     }
 }
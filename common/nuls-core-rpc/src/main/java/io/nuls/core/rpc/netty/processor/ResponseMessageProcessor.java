@@ -1,6 +1,9 @@
 package io.nuls.core.rpc.netty.processor;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.nuls.base.basic.AddressTool;
 import io.nuls.base.data.Address;
 import io.nuls.core.constant.CommonCodeConstanst;
@@ -16,9 +19,14 @@ import io.nuls.core.rpc.model.message.*;
 import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
 import io.nuls.core.rpc.netty.processor.container.RequestContainer;
 import io.nuls.core.rpc.netty.processor.container.ResponseContainer;
+import io.nuls.core.rpc.util.BinaryFrameCodec;
 import io.nuls.core.rpc.util.SerializeUtil;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 
@@ -55,7 +63,7 @@ public class ResponseMessageProcessor {
 
         ResponseContainer responseContainer = RequestContainer.putRequest(message.getMessageID());
 
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        ConnectManager.sendMessage(channel, message);
 
         try {
             return responseContainer.getFuture().get(Constants.TIMEOUT_TIMEMILLIS, TimeUnit.MILLISECONDS) != null;
@@ -85,7 +93,7 @@ public class ResponseMessageProcessor {
 
         ResponseContainer responseContainer = RequestContainer.putRequest(message.getMessageID());
 
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        ConnectManager.sendMessage(channel, message);
 
         try {
             return responseContainer.getFuture().get(Constants.TIMEOUT_TIMEMILLIS, TimeUnit.MILLISECONDS) != null;
@@ -138,7 +146,7 @@ public class ResponseMessageProcessor {
         发送请求
         Send request
         */
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        ConnectManager.sendMessage(channel, message);
 
         /*
         获取返回的数据，放入本地变量
@@ -152,7 +160,7 @@ public class ResponseMessageProcessor {
         while (!response.isSuccess() && tryCount < Constants.TRY_COUNT) {
             Log.info("向核心注册消息发送失败第{}次",tryCount + 1);
             responseContainer = RequestContainer.putRequest(message.getMessageID());
-            ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+            ConnectManager.sendMessage(channel, message);
             response = receiveResponse(responseContainer, REGISTER_API_TIME_OUT);
             tryCount++;
         }
@@ -200,6 +208,27 @@ public class ResponseMessageProcessor {
         return receiveResponse(responseContainer, timeOut);
     }
 
+    /**
+     * 发送Request，不等待Response，返回可获取Response的Future，用于流水线发送多个请求
+     * 超时后Future以TimeoutException结束
+     * Send Request without waiting for the Response, returns a Future of the Response, used to pipeline requests
+     * The Future completes with a TimeoutException after timeOut
+     *
+     * @param role    远程方法所属的角色，The role of remote method
+     * @param cmd     远程方法的命令，Command of the remote method
+     * @param params  远程方法所需的参数，Parameters of the remote method
+     * @param timeOut 超时时间, timeout millis
+     * @return 远程方法返回结果的Future，Future of the response of the remote method
+     * @throws Exception 发送失败，send failed
+     */
+    public static CompletableFuture<Response> requestAsync(String role, String cmd, Map params, long timeOut) throws Exception {
+        Request request = MessageUtil.newRequest(cmd, params, Constants.BOOLEAN_FALSE, Constants.ZERO, Constants.ZERO);
+        request.setTimeOut(String.valueOf(timeOut));
+        ResponseContainer responseContainer = sendRequest(role, request);
+        return responseContainer.getFuture().orTimeout(timeOut, TimeUnit.MILLISECONDS)
+                .whenComplete((response, e) -> RequestContainer.removeResponseContainer(responseContainer.getMessageId()));
+    }
+
     /**
      * 发送Request，并根据返回结果自动调用本地方法
      * Send the Request and automatically call the local method based on the return result
@@ -284,10 +313,65 @@ public class ResponseMessageProcessor {
             Log.info("当前请求堆积过多,等待请求处理");
             return "0";
         }
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        ConnectManager.sendMessage(channel, message);
         return message.getMessageID();
     }
 
+    /**
+     * 发送同一个Request给多个模块，不接收返回
+     * 消息在每种帧模式下只编码一次，所有模块共享同一个缓冲区
+     * Send the same Request to multiple modules without receiving the response
+     * The message is encoded only once per frame mode and the buffer is shared by all modules
+     *
+     * @param roles   远程方法所属的角色集合，The roles of remote method
+     * @param request 远程方法的命令，Command of the remote method
+     * @return 发送失败的角色，Roles that failed to send
+     * @throws Exception JSON格式转换错误 / JSON format conversion error
+     */
+    public static List<String> requestOnly(Collection<String> roles, Request request) throws Exception {
+        Message message = MessageUtil.basicMessage(MessageType.RequestOnly);
+        message.setMessageData(request);
+        List<String> failRoles = new ArrayList<>();
+        ByteBuf binaryBuf = null;
+        ByteBuf jsonBuf = null;
+        try {
+            for (String role : roles) {
+                Channel channel;
+                try {
+                    channel = ConnectManager.getConnectByRole(role);
+                } catch (Exception e) {
+                    Log.error(e);
+                    failRoles.add(role);
+                    continue;
+                }
+                if (!channel.isWritable()) {
+                    Log.info("当前请求堆积过多,等待请求处理");
+                    failRoles.add(role);
+                    continue;
+                }
+                if (ConnectManager.isBinaryFrame(channel)) {
+                    if (binaryBuf == null) {
+                        binaryBuf = BinaryFrameCodec.encode(message);
+                    }
+                    ConnectManager.sendFrame(channel, new BinaryWebSocketFrame(binaryBuf.retainedDuplicate()));
+                } else {
+                    if (jsonBuf == null) {
+                        jsonBuf = SerializeUtil.getBuffer(BinaryFrameCodec.encodeJson(message));
+                    }
+                    ConnectManager.sendFrame(channel, new TextWebSocketFrame(jsonBuf.retainedDuplicate()));
+                }
+            }
+        } finally {
+            if (binaryBuf != null) {
+                binaryBuf.release();
+            }
+            if (jsonBuf != null) {
+                jsonBuf.release();
+            }
+        }
+        return failRoles;
+    }
+
     /**
      * 发送Request，返回该Request的messageId
      * Send Request, return the messageId of the Request
@@ -306,7 +390,7 @@ public class ResponseMessageProcessor {
 
         ResponseContainer responseContainer = RequestContainer.putRequest(message.getMessageID());
 
-        ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+        ConnectManager.sendMessage(channel, message);
         if (ConnectManager.isPureDigital(request.getSubscriptionPeriod())
                 || ConnectManager.isPureDigital(request.getSubscriptionEventCounter())) {
             /*
@@ -342,7 +426,7 @@ public class ResponseMessageProcessor {
          */
         Channel channel = ConnectManager.MSG_ID_KEY_CHANNEL_MAP.get(messageId);
         if (channel != null) {
-            ConnectManager.sendMessage(channel, SerializeUtil.getBuffer(JSONUtils.obj2ByteArray(message)));
+            ConnectManager.sendMessage(channel, message);
             Log.debug("取消订阅：" + JSONUtils.obj2json(message));
             ConnectManager.INVOKE_MAP.remove(messageId);
         }
@@ -0,0 +1,162 @@
+package io.nuls.core.rpc.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.rpc.model.message.Message;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 模块间消息的二进制帧编解码
+ * 帧格式：[1字节版本][4字节头长度][JSON消息头][4字节数据块数量]([4字节数据块长度][数据块])*
+ * 消息中的byte[]参数不做hex/base64编码，在JSON头中以{"@bin":序号}占位，原始字节追加在头之后
+ * <p>
+ * Binary frame codec for inter-module messages
+ * Frame layout: [1 byte version][4 bytes header length][JSON header][4 bytes blob count]([4 bytes blob length][blob])*
+ * byte[] values are not hex/base64 encoded, they are replaced by a {"@bin":index} placeholder in the JSON header
+ * and the raw bytes are appended after the header
+ */
+public class BinaryFrameCodec {
+
+    public static final byte FRAME_VERSION = 1;
+
+    public static final String BLOB_KEY = "@bin";
+
+    private static final ThreadLocal<List<byte[]>> BLOBS = ThreadLocal.withInitial(ArrayList::new);
+
+    /**
+     * 二进制帧模式下，byte[]以占位符写入JSON头
+     * In binary frame mode, byte[] is written to the JSON header as a placeholder
+     */
+    private static final ObjectMapper BINARY_MAPPER = new ObjectMapper();
+
+    /**
+     * JSON帧模式下，byte[]按照RPCUtil的约定编码为hex字符串，兼容旧版本节点
+     * In JSON frame mode, byte[] is encoded as hex string following the RPCUtil convention, compatible with old peers
+     */
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    static {
+        BINARY_MAPPER.registerModule(new AfterburnerModule());
+        BINARY_MAPPER.registerModule(new SimpleModule().addSerializer(byte[].class, new BlobSerializer()));
+        JSON_MAPPER.registerModule(new AfterburnerModule());
+        JSON_MAPPER.registerModule(new SimpleModule().addSerializer(byte[].class, new HexSerializer()));
+    }
+
+    /**
+     * 编码为文本帧内容
+     * Encode as text frame content
+     */
+    public static byte[] encodeJson(Message message) throws JsonProcessingException {
+        return JSON_MAPPER.writeValueAsBytes(message);
+    }
+
+    /**
+     * 编码为二进制帧内容
+     * Encode as binary frame content
+     */
+    public static ByteBuf encode(Message message) throws JsonProcessingException {
+        List<byte[]> blobs = BLOBS.get();
+        blobs.clear();
+        try {
+            byte[] header = BINARY_MAPPER.writeValueAsBytes(message);
+            int size = 1 + 4 + header.length + 4;
+            for (byte[] blob : blobs) {
+                size += 4 + blob.length;
+            }
+            ByteBuf buf = ByteBufAllocator.DEFAULT.buffer(size);
+            buf.writeByte(FRAME_VERSION);
+            buf.writeInt(header.length);
+            buf.writeBytes(header);
+            buf.writeInt(blobs.size());
+            for (byte[] blob : blobs) {
+                buf.writeInt(blob.length);
+                buf.writeBytes(blob);
+            }
+            return buf;
+        } finally {
+            blobs.clear();
+        }
+    }
+
+    /**
+     * 解码二进制帧内容，占位符还原为byte[]
+     * Decode binary frame content, placeholders are restored to byte[]
+     */
+    public static Message decode(ByteBuf buf) throws IOException {
+        byte version = buf.readByte();
+        if (version != FRAME_VERSION) {
+            throw new IOException("Unsupported binary frame version:" + version);
+        }
+        byte[] header = new byte[buf.readInt()];
+        buf.readBytes(header);
+        int blobCount = buf.readInt();
+        byte[][] blobs = new byte[blobCount][];
+        for (int i = 0; i < blobCount; i++) {
+            blobs[i] = new byte[buf.readInt()];
+            buf.readBytes(blobs[i]);
+        }
+        Message message = JSONUtils.byteArray2pojo(header, Message.class);
+        if (blobCount > 0) {
+            message.setMessageData(restore(message.getMessageData(), blobs));
+        }
+        return message;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object restore(Object value, byte[][] blobs) {
+        if (value instanceof Map) {
+            Map<String, Object> map = (Map<String, Object>) value;
+            if (map.size() == 1 && map.get(BLOB_KEY) instanceof Number) {
+                return blobs[((Number) map.get(BLOB_KEY)).intValue()];
+            }
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                entry.setValue(restore(entry.getValue(), blobs));
+            }
+        } else if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+            for (int i = 0; i < list.size(); i++) {
+                list.set(i, restore(list.get(i), blobs));
+            }
+        }
+        return value;
+    }
+
+    private static class BlobSerializer extends StdSerializer<byte[]> {
+        BlobSerializer() {
+            super(byte[].class);
+        }
+
+        @Override
+        public void serialize(byte[] value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            List<byte[]> blobs = BLOBS.get();
+            gen.writeStartObject();
+            gen.writeNumberField(BLOB_KEY, blobs.size());
+            gen.writeEndObject();
+            blobs.add(value);
+        }
+    }
+
+    private static class HexSerializer extends StdSerializer<byte[]> {
+        HexSerializer() {
+            super(byte[].class);
+        }
+
+        @Override
+        public void serialize(byte[] value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeString(HexUtil.encode(value));
+        }
+    }
+}
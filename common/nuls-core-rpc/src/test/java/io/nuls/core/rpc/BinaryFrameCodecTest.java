@@ -0,0 +1,119 @@
+package io.nuls.core.rpc;
+
+import io.netty.buffer.ByteBuf;
+import io.nuls.core.crypto.HexUtil;
+import io.nuls.core.parse.JSONUtils;
+import io.nuls.core.rpc.model.message.Message;
+import io.nuls.core.rpc.model.message.MessageType;
+import io.nuls.core.rpc.model.message.MessageUtil;
+import io.nuls.core.rpc.model.message.Request;
+import io.nuls.core.rpc.util.BinaryFrameCodec;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BinaryFrameCodecTest {
+
+    @Test
+    public void roundTrip() throws Exception {
+        List<byte[]> txList = txList(10, 300);
+        Message message = batchVerifyMessage(txList);
+        ByteBuf buf = BinaryFrameCodec.encode(message);
+        try {
+            Message decoded = BinaryFrameCodec.decode(buf);
+            Request request = JSONUtils.map2pojo((Map) decoded.getMessageData(), Request.class);
+            Map params = (Map) request.getRequestMethods().get("tx_batchVerify");
+            List decodedTxList = (List) params.get("txList");
+            assertEquals(txList.size(), decodedTxList.size());
+            for (int i = 0; i < txList.size(); i++) {
+                assertArrayEquals(txList.get(i), (byte[]) decodedTxList.get(i));
+            }
+            assertArrayEquals(txList.get(0), (byte[]) params.get("preStateRoot"));
+            assertEquals(1, params.get("chainId"));
+            assertEquals(message.getMessageID(), decoded.getMessageID());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void jsonFallbackUsesHex() throws Exception {
+        List<byte[]> txList = txList(2, 50);
+        Message message = batchVerifyMessage(txList);
+        Message decoded = JSONUtils.byteArray2pojo(BinaryFrameCodec.encodeJson(message), Message.class);
+        Request request = JSONUtils.map2pojo((Map) decoded.getMessageData(), Request.class);
+        Map params = (Map) request.getRequestMethods().get("tx_batchVerify");
+        assertEquals(HexUtil.encode(txList.get(1)), ((List) params.get("txList")).get(1));
+    }
+
+    /**
+     * 对比JSON文本帧(hex编码)与二进制帧在tx_batchVerify大小的数据上的编解码耗时和帧大小
+     * Compare JSON text frame (hex encoded) and binary frame on tx_batchVerify sized payloads
+     */
+    public static void main(String[] args) throws Exception {
+        int count = 200;
+        List<byte[]> txList = txList(10000, 300);
+        List<String> hexList = new ArrayList<>(txList.size());
+        for (byte[] tx : txList) {
+            hexList.add(HexUtil.encode(tx));
+        }
+
+        long time = System.nanoTime();
+        int jsonSize = 0;
+        for (int i = 0; i < count; i++) {
+            List<String> list = new ArrayList<>(txList.size());
+            for (byte[] tx : txList) {
+                list.add(HexUtil.encode(tx));
+            }
+            byte[] bytes = BinaryFrameCodec.encodeJson(batchVerifyMessage(list));
+            jsonSize = bytes.length;
+            Message message = JSONUtils.byteArray2pojo(bytes, Message.class);
+            Request request = JSONUtils.map2pojo((Map) message.getMessageData(), Request.class);
+            for (Object hex : (List) ((Map) request.getRequestMethods().get("tx_batchVerify")).get("txList")) {
+                HexUtil.decode((String) hex);
+            }
+        }
+        System.out.println("json frame size : " + jsonSize + ", use time : " + ((System.nanoTime() - time) / 1000000) + " ms");
+
+        time = System.nanoTime();
+        int binarySize = 0;
+        for (int i = 0; i < count; i++) {
+            ByteBuf buf = BinaryFrameCodec.encode(batchVerifyMessage(txList));
+            binarySize = buf.readableBytes();
+            Message message = BinaryFrameCodec.decode(buf);
+            buf.release();
+            JSONUtils.map2pojo((Map) message.getMessageData(), Request.class);
+        }
+        System.out.println("binary frame size : " + binarySize + ", use time : " + ((System.nanoTime() - time) / 1000000) + " ms");
+    }
+
+    private static Message batchVerifyMessage(List<?> txList) {
+        Map<String, Object> params = new HashMap<>(4);
+        params.put("chainId", 1);
+        params.put("txList", txList);
+        if (!txList.isEmpty()) {
+            params.put("preStateRoot", txList.get(0));
+        }
+        Request request = MessageUtil.newRequest("tx_batchVerify", params, "0", "0", "0");
+        Message message = MessageUtil.basicMessage(MessageType.Request);
+        message.setMessageData(request);
+        return message;
+    }
+
+    private static List<byte[]> txList(int count, int size) {
+        Random random = new Random(count);
+        List<byte[]> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] tx = new byte[size];
+            random.nextBytes(tx);
+            list.add(tx);
+        }
+        return list;
+    }
+}
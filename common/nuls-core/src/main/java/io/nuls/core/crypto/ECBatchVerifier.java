@@ -0,0 +1,302 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.core.crypto;
+
+import io.nuls.core.model.ByteArrayWrapper;
+import org.bouncycastle.math.ec.ECAlgorithms;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.math.ec.FixedPointUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * secp256k1签名批量验证引擎, 与{@link ECKey#verify(byte[], byte[], byte[])}的验证结果一致
+ * 1. 解码后的公钥点按公钥字节缓存, 免去每次验证时的点解压;
+ * 2. 同一公钥使用达到阈值(共识出块地址、交易所热钱包等)后为其预计算固定点梳状乘法表, 之后 u2*Q 走查表乘法;
+ * 3. 批量验证拆分到工作窃取线程池上并行执行
+ * 单个验证时格式错误的签名/公钥与ECKey一样抛出异常, 批量验证中记为未通过
+ * <p>
+ * Batch verification engine for secp256k1 signatures, with the same results as {@link ECKey#verify(byte[], byte[], byte[])}
+ * 1. Decoded public key points are cached by their encoding, so the point is not decompressed on every verification;
+ * 2. Once a public key has been used often enough (consensus packers, exchange hot wallets...) a fixed point comb table
+ * is precomputed for it, and u2*Q is computed from the table from then on;
+ * 3. Batches are split across a work-stealing pool
+ * Like ECKey, a single verification throws on malformed signatures or public keys; in a batch they are reported as not verified
+ */
+public class ECBatchVerifier {
+    private static final Logger log = LoggerFactory.getLogger(ECBatchVerifier.class);
+
+    /**
+     * 缓存的公钥数量上限, 分两代存放
+     * Max number of cached public keys, kept in two generations
+     */
+    private static final int MAX_CACHED_KEYS = 20000;
+
+    private static final int GENERATION_SIZE = MAX_CACHED_KEYS / 2;
+
+    /**
+     * 公钥使用次数达到该值后预计算乘法表
+     * Uses of a public key before its multiplication table is precomputed
+     */
+    private static final int HOT_KEY_THRESHOLD = 4;
+
+    /**
+     * 单个并行任务最少验证的签名数
+     * Min signatures verified by one parallel task
+     */
+    private static final int BATCH_SPLIT_THRESHOLD = 32;
+
+    private static final ForkJoinPool VERIFY_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private static final BigInteger N = ECKey.CURVE.getN();
+
+    private static final ECPoint G = ECKey.CURVE.getG();
+
+    private static volatile Generations generations = new Generations(new Generation(), new Generation());
+
+    private static final LongAdder KEY_HITS = new LongAdder();
+    private static final LongAdder KEY_MISSES = new LongAdder();
+    private static final LongAdder PRECOMPUTED = new LongAdder();
+
+    /**
+     * 验证单个签名
+     * Verify one signature
+     *
+     * @param data      被签名的hash / Hash of the signed data
+     * @param signature DER编码的签名 / DER encoded signature
+     * @param pub       公钥 / Public key bytes
+     * @throws RuntimeException 签名或公钥无法解析, 与ECKey.verify一致 / if the signature or public key is unparseable, same as ECKey.verify
+     */
+    public static boolean verify(byte[] data, byte[] signature, byte[] pub) {
+        ECKey.ECDSASignature sig = ECKey.ECDSASignature.decodeFromDER(signature);
+        CachedKey key = publicKey(pub);
+        if (data == null) {
+            //ECKey.verify中bouncy castle的NPE被捕获并返回false
+            return false;
+        }
+        return verify(data, sig.r, sig.s, key);
+    }
+
+    /**
+     * 批量验证签名, 三个列表按下标一一对应
+     * Verify a batch of signatures, the three lists correspond by index
+     * 批量验证只用于预先填充缓存, 无法解析的签名记为未通过, 由逐笔验证时抛出异常
+     * A batch only pre-fills caches, unparseable entries are reported as not verified and throw in the per-tx validation
+     *
+     * @return 每个签名是否验证通过 / Whether every signature was verified
+     */
+    public static boolean[] verify(List<byte[]> dataList, List<byte[]> signatureList, List<byte[]> pubList) {
+        int size = dataList.size();
+        if (signatureList.size() != size || pubList.size() != size) {
+            throw new IllegalArgumentException("Batch lists have different sizes");
+        }
+        boolean[] results = new boolean[size];
+        if (size == 0) {
+            return results;
+        }
+        if (size <= BATCH_SPLIT_THRESHOLD) {
+            new VerifyTask(dataList, signatureList, pubList, results, 0, size).compute();
+        } else {
+            VERIFY_POOL.invoke(new VerifyTask(dataList, signatureList, pubList, results, 0, size));
+        }
+        return results;
+    }
+
+    /**
+     * 与ECDSASigner#verifySignature相同的验证过程, u2*Q对热点公钥使用预计算表
+     * Same steps as ECDSASigner#verifySignature, u2*Q uses the precomputed table for hot keys
+     */
+    private static boolean verify(byte[] data, BigInteger r, BigInteger s, CachedKey key) {
+        if (r.signum() <= 0 || r.compareTo(N) >= 0 || s.signum() <= 0 || s.compareTo(N) >= 0) {
+            return false;
+        }
+        BigInteger e = calculateE(data);
+        BigInteger c = s.modInverse(N);
+        BigInteger u1 = e.multiply(c).mod(N);
+        BigInteger u2 = r.multiply(c).mod(N);
+        ECPoint point;
+        if (key.isHot()) {
+            FixedPointCombMultiplier multiplier = new FixedPointCombMultiplier();
+            point = multiplier.multiply(G, u1).add(multiplier.multiply(key.point, u2));
+        } else {
+            point = ECAlgorithms.sumOfTwoMultiplies(G, u1, key.point, u2);
+        }
+        if (point.isInfinity()) {
+            return false;
+        }
+        BigInteger v = point.normalize().getAffineXCoord().toBigInteger().mod(N);
+        return v.equals(r);
+    }
+
+    private static BigInteger calculateE(byte[] message) {
+        int log2n = N.bitLength();
+        int messageBitLength = message.length * 8;
+        BigInteger e = new BigInteger(1, message);
+        if (log2n < messageBitLength) {
+            e = e.shiftRight(messageBitLength - log2n);
+        }
+        return e;
+    }
+
+    private static CachedKey publicKey(byte[] pub) {
+        ByteArrayWrapper wrapper = new ByteArrayWrapper(pub);
+        Generations gens = generations;
+        CachedKey key = gens.current.keys.get(wrapper);
+        if (key == null) {
+            key = gens.previous.keys.get(wrapper);
+            if (key != null) {
+                //上一代中命中的公钥移入当前代, 保留其预计算表
+                put(gens, wrapper, key);
+            }
+        }
+        if (key != null) {
+            KEY_HITS.increment();
+        } else {
+            KEY_MISSES.increment();
+            ECPoint point = ECKey.CURVE.getCurve().decodePoint(pub).normalize();
+            if (point.isInfinity() || !point.isValid()) {
+                throw new IllegalArgumentException("Invalid public key");
+            }
+            key = new CachedKey(point);
+            put(gens, wrapper, key);
+        }
+        key.use();
+        return key;
+    }
+
+    private static void put(Generations gens, ByteArrayWrapper wrapper, CachedKey key) {
+        Generation current = gens.current;
+        if (current.keys.putIfAbsent(wrapper, key) == null && current.count.incrementAndGet() == GENERATION_SIZE) {
+            rotate(gens);
+        }
+    }
+
+    private static synchronized void rotate(Generations gens) {
+        if (generations != gens) {
+            return;
+        }
+        generations = new Generations(new Generation(), gens.current);
+    }
+
+    public static int cachedKeySize() {
+        Generations gens = generations;
+        return gens.current.keys.size() + gens.previous.keys.size();
+    }
+
+    public static void clear() {
+        generations = new Generations(new Generation(), new Generation());
+    }
+
+    public static String stats() {
+        return "ECBatchVerifier{cachedKeys=" + cachedKeySize() + ", keyHits=" + KEY_HITS.sum()
+                + ", keyMisses=" + KEY_MISSES.sum() + ", precomputed=" + PRECOMPUTED.sum() + "}";
+    }
+
+    private static class CachedKey {
+        private final ECPoint point;
+        private final AtomicInteger uses = new AtomicInteger();
+        private volatile boolean hot;
+
+        CachedKey(ECPoint point) {
+            this.point = point;
+        }
+
+        /**
+         * 只有使次数恰好达到阈值的线程计算乘法表, 表存放在点对象上
+         * Only the thread reaching the threshold builds the table, which is stored on the point itself
+         */
+        void use() {
+            if (!hot && uses.incrementAndGet() == HOT_KEY_THRESHOLD) {
+                FixedPointUtil.precompute(point);
+                PRECOMPUTED.increment();
+                hot = true;
+            }
+        }
+
+        boolean isHot() {
+            return hot;
+        }
+    }
+
+    private static class Generations {
+        private final Generation current;
+        private final Generation previous;
+
+        Generations(Generation current, Generation previous) {
+            this.current = current;
+            this.previous = previous;
+        }
+    }
+
+    private static class Generation {
+        private final Map<ByteArrayWrapper, CachedKey> keys = new ConcurrentHashMap<>();
+        private final AtomicInteger count = new AtomicInteger();
+    }
+
+    private static class VerifyTask extends RecursiveAction {
+        private final List<byte[]> dataList;
+        private final List<byte[]> signatureList;
+        private final List<byte[]> pubList;
+        private final boolean[] results;
+        private final int from;
+        private final int to;
+
+        VerifyTask(List<byte[]> dataList, List<byte[]> signatureList, List<byte[]> pubList, boolean[] results, int from, int to) {
+            this.dataList = dataList;
+            this.signatureList = signatureList;
+            this.pubList = pubList;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    try {
+                        results[i] = ECBatchVerifier.verify(dataList.get(i), signatureList.get(i), pubList.get(i));
+                    } catch (RuntimeException e) {
+                        log.debug("Invalid signature or public key", e);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new VerifyTask(dataList, signatureList, pubList, results, from, middle),
+                    new VerifyTask(dataList, signatureList, pubList, results, middle, to));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2019 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.nuls.core.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 耗时直方图, 按2的幂分桶, 可并发记录
+ * 桶i统计耗时在[2^(i-1), 2^i)个时间单位内的次数, 桶0统计小于1个单位的次数, 最后一个桶统计其余
+ * <p>
+ * Latency histogram with power-of-two buckets, safe for concurrent recording.
+ * Bucket i counts [2^(i-1), 2^i) units, bucket 0 counts less than one unit and the last bucket counts the rest
+ */
+public class LatencyHistogram {
+
+    private final TimeUnit unit;
+
+    /**
+     * 统计结果中时间字段的后缀, 如avgMillis
+     */
+    private final String suffix;
+
+    private final int bucketCount;
+
+    private final AtomicLongArray buckets;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param unit        分桶和输出使用的时间单位, 仅支持毫秒和微秒
+     * @param bucketCount 桶数
+     */
+    public LatencyHistogram(TimeUnit unit, int bucketCount) {
+        if (unit == TimeUnit.MILLISECONDS) {
+            this.suffix = "Millis";
+        } else if (unit == TimeUnit.MICROSECONDS) {
+            this.suffix = "Micros";
+        } else {
+            throw new IllegalArgumentException("unsupported unit: " + unit);
+        }
+        this.unit = unit;
+        this.bucketCount = bucketCount;
+        this.buckets = new AtomicLongArray(bucketCount);
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param elapsedNanos 耗时(纳秒)
+     */
+    public void record(long elapsedNanos) {
+        buckets.incrementAndGet(bucketOf(unit.convert(elapsedNanos, TimeUnit.NANOSECONDS), bucketCount));
+        count.incrementAndGet();
+        totalNanos.addAndGet(elapsedNanos);
+        long max;
+        while (elapsedNanos > (max = maxNanos.get())) {
+            if (maxNanos.compareAndSet(max, elapsedNanos)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * 统计结果: count, avg, max, p50, p90, p99, 以及各非空桶的次数(键为桶上界)
+     */
+    public Map<String, Object> snapshot() {
+        long[] counts = new long[bucketCount];
+        long total = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long nanosPerUnit = unit.toNanos(1);
+        Map<String, Object> map = new LinkedHashMap<>();
+        long c = count.get();
+        map.put("count", c);
+        map.put("avg" + suffix, c == 0 ? 0 : (double) totalNanos.get() / c / nanosPerUnit);
+        map.put("max" + suffix, maxNanos.get() / nanosPerUnit);
+        map.put("p50" + suffix, percentile(0.5, counts, total));
+        map.put("p90" + suffix, percentile(0.9, counts, total));
+        map.put("p99" + suffix, percentile(0.99, counts, total));
+        Map<String, Long> bucketMap = new LinkedHashMap<>();
+        for (int i = 0; i < bucketCount; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            long upper = bucketUpper(i, bucketCount);
+            bucketMap.put(upper == Long.MAX_VALUE ? "inf" : "<" + upper, counts[i]);
+        }
+        map.put("buckets", bucketMap);
+        return map;
+    }
+
+    /**
+     * 按桶上界估算分位数, 结果偏大但不会偏小; 落在最后一个桶时取最大值
+     */
+    private long percentile(double percentile, long[] counts, long total) {
+        if (total == 0) {
+            return 0;
+        }
+        long max = unit.convert(maxNanos.get(), TimeUnit.NANOSECONDS);
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                long upper = bucketUpper(i, bucketCount);
+                return upper == Long.MAX_VALUE ? max : upper;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 耗时所在的桶
+     *
+     * @param elapsed     耗时(时间单位)
+     * @param bucketCount 桶数
+     */
+    static int bucketOf(long elapsed, int bucketCount) {
+        if (elapsed <= 0) {
+            return 0;
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(elapsed);
+        return Math.min(bucket, bucketCount - 1);
+    }
+
+    /**
+     * 桶的上界(时间单位, 不含), 最后一个桶没有上界
+     */
+    static long bucketUpper(int bucket, int bucketCount) {
+        return bucket >= bucketCount - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+}
@@ -0,0 +1,25 @@
+package io.nuls.core.thread;
+
+/**
+ * 当前线程正在处理的RPC命令, 由RPC框架在调用命令方法前后设置, 用于慢操作等日志定位调用来源
+ * The RPC command handled by the current thread, set by the RPC layer around the command invocation
+ */
+public class CommandContext {
+
+    private static final ThreadLocal<String> COMMAND = new ThreadLocal<>();
+
+    public static void set(String cmd) {
+        COMMAND.set(cmd);
+    }
+
+    /**
+     * @return 不在RPC命令中时返回null
+     */
+    public static String get() {
+        return COMMAND.get();
+    }
+
+    public static void clear() {
+        COMMAND.remove();
+    }
+}
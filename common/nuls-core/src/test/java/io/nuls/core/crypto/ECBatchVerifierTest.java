@@ -0,0 +1,157 @@
+package io.nuls.core.crypto;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批量验证引擎与ECKey.verify的结果对比及性能对比
+ * Compare the results and throughput of the batch verification engine and ECKey.verify
+ */
+public class ECBatchVerifierTest {
+
+    @Test
+    public void sameResultsAsECKey() {
+        Batch batch = batch(400, 20, 1);
+        //篡改部分签名数据
+        batch.dataList.set(3, Sha256Hash.hash(new byte[]{1}));
+        batch.pubList.set(7, new ECKey().getPubKey());
+        batch.signatureList.set(11, new byte[]{0x30, 0x01, 0x00});
+        boolean[] results = ECBatchVerifier.verify(batch.dataList, batch.signatureList, batch.pubList);
+        assertBatchMatches(batch, results);
+        assertFalse(results[3]);
+        assertFalse(results[7]);
+        assertFalse(results[11]);
+        //每个公钥都已超过热点阈值, 再验证一次走预计算表
+        results = ECBatchVerifier.verify(batch.dataList, batch.signatureList, batch.pubList);
+        assertBatchMatches(batch, results);
+    }
+
+    @Test
+    public void malformedSignatureThrows() {
+        ECKey ecKey = new ECKey();
+        byte[] hash = Sha256Hash.hash(new byte[]{4});
+        byte[] malformed = {0x30, 0x01, 0x00};
+        assertThrowsLikeECKey(hash, malformed, ecKey.getPubKey());
+        assertThrowsLikeECKey(hash, new byte[0], ecKey.getPubKey());
+    }
+
+    @Test
+    public void nonCanonicalSignature() {
+        ECKey ecKey = new ECKey();
+        byte[] hash = Sha256Hash.hash(new byte[]{2});
+        ECKey.ECDSASignature sig = ECKey.ECDSASignature.decodeFromDER(ecKey.sign(hash));
+        byte[] highS = new ECKey.ECDSASignature(sig.r, ECKey.CURVE.getN().subtract(sig.s)).encodeToDER();
+        assertEquals(ECKey.verify(hash, highS, ecKey.getPubKey()), ECBatchVerifier.verify(hash, highS, ecKey.getPubKey()));
+    }
+
+    @Test
+    public void invalidPublicKey() {
+        byte[] hash = Sha256Hash.hash(new byte[]{3});
+        byte[] signature = new ECKey().sign(hash);
+        byte[] pub = new byte[33];
+        pub[0] = 0x02;
+        assertThrowsLikeECKey(hash, signature, pub);
+        assertThrowsLikeECKey(hash, signature, new byte[]{0x05, 0x01});
+    }
+
+    /**
+     * 批量结果为true当且仅当ECKey.verify返回true, ECKey抛出异常的签名单个验证时也必须抛出异常
+     */
+    private static void assertBatchMatches(Batch batch, boolean[] results) {
+        for (int i = 0; i < results.length; i++) {
+            byte[] data = batch.dataList.get(i);
+            byte[] signature = batch.signatureList.get(i);
+            byte[] pub = batch.pubList.get(i);
+            boolean expected;
+            try {
+                expected = ECKey.verify(data, signature, pub);
+            } catch (RuntimeException e) {
+                assertFalse("index " + i, results[i]);
+                assertThrowsLikeECKey(data, signature, pub);
+                continue;
+            }
+            assertEquals("index " + i, expected, results[i]);
+            assertEquals("index " + i, expected, ECBatchVerifier.verify(data, signature, pub));
+        }
+    }
+
+    private static void assertThrowsLikeECKey(byte[] data, byte[] signature, byte[] pub) {
+        try {
+            ECKey.verify(data, signature, pub);
+            fail("ECKey.verify should throw");
+        } catch (RuntimeException e) {
+            //expected
+        }
+        try {
+            ECBatchVerifier.verify(data, signature, pub);
+            fail("ECBatchVerifier.verify should throw");
+        } catch (RuntimeException e) {
+            //expected
+        }
+    }
+
+    /**
+     * 10000个签名的区块, 100个热点公钥, 对比逐笔ECKey.verify与批量验证的耗时
+     * Blocks of 10000 signatures from 100 hot keys, compare ECKey.verify one by one and the batch engine
+     */
+    public static void main(String[] args) {
+        Batch batch = batch(10000, 100, 7);
+        for (int round = 0; round < 5; round++) {
+            long time = System.nanoTime();
+            int valid = 0;
+            for (int i = 0; i < batch.dataList.size(); i++) {
+                if (ecKeyVerify(batch, i)) {
+                    valid++;
+                }
+            }
+            long use = System.nanoTime() - time;
+            System.out.println("ECKey.verify\t\t" + (use / 1000000) + " ms, valid:" + valid);
+
+            time = System.nanoTime();
+            boolean[] results = ECBatchVerifier.verify(batch.dataList, batch.signatureList, batch.pubList);
+            use = System.nanoTime() - time;
+            valid = 0;
+            for (boolean result : results) {
+                if (result) {
+                    valid++;
+                }
+            }
+            System.out.println("ECBatchVerifier\t\t" + (use / 1000000) + " ms, valid:" + valid);
+            System.out.println(ECBatchVerifier.stats());
+            System.out.println("*****************************************************");
+        }
+    }
+
+    private static boolean ecKeyVerify(Batch batch, int i) {
+        return ECKey.verify(batch.dataList.get(i), batch.signatureList.get(i), batch.pubList.get(i));
+    }
+
+    private static Batch batch(int count, int keyCount, long seed) {
+        Random random = new Random(seed);
+        ECKey[] keys = new ECKey[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = new ECKey();
+        }
+        Batch batch = new Batch();
+        for (int i = 0; i < count; i++) {
+            byte[] data = new byte[32];
+            random.nextBytes(data);
+            ECKey key = keys[i % keyCount];
+            batch.dataList.add(data);
+            batch.signatureList.add(key.sign(data));
+            batch.pubList.add(key.getPubKey());
+        }
+        return batch;
+    }
+
+    private static class Batch {
+        private final List<byte[]> dataList = new ArrayList<>();
+        private final List<byte[]> signatureList = new ArrayList<>();
+        private final List<byte[]> pubList = new ArrayList<>();
+    }
+}
@@ -0,0 +1,36 @@
+package io.nuls.core.model;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketOf() {
+        assertEquals(0, LatencyHistogram.bucketOf(0, 18));
+        assertEquals(1, LatencyHistogram.bucketOf(1, 18));
+        assertEquals(2, LatencyHistogram.bucketOf(2, 18));
+        assertEquals(2, LatencyHistogram.bucketOf(3, 18));
+        assertEquals(3, LatencyHistogram.bucketOf(4, 18));
+        assertEquals(17, LatencyHistogram.bucketOf(Long.MAX_VALUE, 18));
+    }
+
+    @Test
+    public void microsSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram(TimeUnit.MICROSECONDS, 26);
+        histogram.record(500L);
+        histogram.record(5_000L);
+        Map<String, Object> stats = histogram.snapshot();
+        assertEquals(2L, stats.get("count"));
+        assertEquals(5L, stats.get("maxMicros"));
+        assertEquals(1L, stats.get("p50Micros"));
+        assertEquals(8L, stats.get("p99Micros"));
+        Map<String, Long> buckets = (Map<String, Long>) stats.get("buckets");
+        assertEquals(Long.valueOf(1L), buckets.get("<1"));
+        assertEquals(Long.valueOf(1L), buckets.get("<8"));
+    }
+}
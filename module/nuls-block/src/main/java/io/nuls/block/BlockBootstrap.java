@@ -13,6 +13,7 @@ import io.nuls.block.thread.monitor.*;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.Log;
+import io.nuls.core.rockdb.model.TableProfile;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.rpc.info.HostInfo;
 import io.nuls.core.rpc.model.ModuleE;
@@ -104,12 +105,18 @@ public class BlockBootstrap extends RpcModule {
      * Initialization database
      */
     private void initDb() throws Exception {
+        RocksDBService.configure(blockConfig.getDbBlockCacheSize() * 1024L * 1024, blockConfig.getDbWriteBufferSize() * 1024L * 1024);
+        RocksDBService.configureStats(true, blockConfig.isDbNativeStatistics(), blockConfig.getDbSlowMillis());
+        //区块头按高度追加、按hash查询, 最新高度表很小且每个区块都会更新
+        RocksDBService.setTableProfile(BLOCK_HEADER, TableProfile.SEQUENTIAL);
+        RocksDBService.setTableProfile(CHAIN_LATEST_HEIGHT, TableProfile.SMALL_HOT);
         //读取配置文件,数据存储根目录,初始化打开该目录下所有表连接并放入缓存
-        RocksDBService.init(blockConfig.getDataFolder());
+        RocksDBService.init(blockConfig.getDataFolder(), blockConfig.isColumnFamilyEnable());
         RocksDBService.createTable(CHAIN_LATEST_HEIGHT);
         RocksDBService.createTable(CHAIN_PARAMETERS);
         RocksDBService.createTable(PROTOCOL_CONFIG);
         RocksDBService.createTable(ROLLBACK_HEIGHT);
+        RocksDBService.startStatsDump(blockConfig.getDbStatsDumpInterval());
     }
 
     /**
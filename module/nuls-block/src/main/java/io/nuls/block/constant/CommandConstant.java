@@ -144,4 +144,12 @@ public interface CommandConstant {
      * 接收本地节点新打包的区块
      */
     String GET_STATUS = "getStatus";
+    /**
+     * 区块保存各阶段耗时统计
+     */
+    String GET_SAVE_STAGE_STATS = "getSaveStageStats";
+    /**
+     * 数据库各表读写统计及慢操作
+     */
+    String GET_STORAGE_STATS = "getStorageStats";
 }
@@ -70,6 +70,36 @@ public interface Constant {
      */
     int MODULE_WAITING = 0;
 
+    /**
+     * 每个下载区间的目标耗时(毫秒), 按节点实测下载速度计算区间大小
+     */
+    long DOWNLOAD_RANGE_TARGET_MILLIS = 2000L;
+
+    /**
+     * 消费者等待的高度所在区间超过该时间(毫秒)且超过预期耗时3倍仍未下载完成, 就向其他空闲节点重新请求
+     */
+    long DOWNLOAD_STRAGGLER_MIN_MILLIS = 3000L;
+
+    /**
+     * 区块原始字节存储每个分段文件保存的高度数
+     */
+    long BLOCK_BLOB_SEGMENT_BLOCKS = 10000L;
+
+    /**
+     * 区块原始字节存储目录名
+     */
+    String BLOCK_BLOB_FOLDER = "blob";
+
+    /**
+     * 同步时提前做无状态验证(梅克尔哈希、区块头签名、交易签名)的区块数
+     */
+    int PRE_VERIFY_AHEAD = 16;
+
+    /**
+     * 区块保存后跨链通知队列长度, 队列满时保存线程阻塞等待通知线程
+     */
+    int SAVE_NOTICE_QUEUE_SIZE = 64;
+
     /**
      * 区块排序器
      */
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.constant;
+
+/**
+ * 区块保存流水线的各个阶段
+ * Stages of the block save pipeline
+ */
+public enum SaveStageEnum {
+
+    /**
+     * 无状态预验证(梅克尔哈希、区块头签名、交易签名), 同步时在保存前一个区块的同时进行
+     * stateless pre-verification
+     */
+    PRE_VERIFY,
+
+    /**
+     * 分叉验证与共识验证
+     * fork and consensus verification
+     */
+    VERIFY,
+
+    /**
+     * 保存区块头
+     * save block header
+     */
+    HEADER_SAVE,
+
+    /**
+     * 交易模块保存交易
+     * transaction module save
+     */
+    TX_SAVE,
+
+    /**
+     * 通知共识模块
+     * consensus module notice
+     */
+    CS_NOTICE,
+
+    /**
+     * 通知协议升级模块并标记区块头完整
+     * protocol module notice and complete header
+     */
+    PU_NOTICE,
+
+    /**
+     * 保存后通知交易模块最新高度
+     * post-commit height notice to the transaction module
+     */
+    POST_NOTICE,
+
+    /**
+     * 整个区块的保存(含等待锁)
+     * whole block save
+     */
+    TOTAL,
+
+    /**
+     * 区块回滚
+     * block rollback
+     */
+    ROLLBACK;
+
+}
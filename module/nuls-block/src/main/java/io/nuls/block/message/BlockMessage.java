@@ -47,6 +47,11 @@ public class BlockMessage extends BaseBusinessMessage {
      */
     private Block block;
 
+    /**
+     * 区块序列化后的字节, 发送时直接写入, 不需要先反序列化为{@link Block}
+     */
+    private byte[] blockBytes;
+
     /**
      * 是否同步中下载的区块
      */
@@ -74,6 +79,12 @@ public class BlockMessage extends BaseBusinessMessage {
         this.syn = syn;
     }
 
+    public BlockMessage(NulsHash requestHash, byte[] blockBytes, boolean syn) {
+        this.requestHash = requestHash;
+        this.blockBytes = blockBytes;
+        this.syn = syn;
+    }
+
     public boolean isSyn() {
         return syn;
     }
@@ -88,7 +99,11 @@ public class BlockMessage extends BaseBusinessMessage {
     @Override
     public void serializeToStream(NulsOutputStreamBuffer buffer) throws IOException {
         buffer.write(requestHash.getBytes());
-        buffer.writeNulsData(block);
+        if (block == null && blockBytes != null) {
+            buffer.write(blockBytes);
+        } else {
+            buffer.writeNulsData(block);
+        }
         buffer.writeBoolean(syn);
     }
 
@@ -101,7 +116,8 @@ public class BlockMessage extends BaseBusinessMessage {
 
     @Override
     public int size() {
-        return NulsHash.HASH_LENGTH + SerializeUtils.sizeOfNulsData(block) + SerializeUtils.sizeOfBoolean();
+        int blockSize = block == null && blockBytes != null ? blockBytes.length : SerializeUtils.sizeOfNulsData(block);
+        return NulsHash.HASH_LENGTH + blockSize + SerializeUtils.sizeOfBoolean();
     }
 
 }
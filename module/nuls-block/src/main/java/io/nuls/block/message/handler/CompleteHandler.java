@@ -25,6 +25,7 @@ import io.nuls.base.protocol.MessageProcessor;
 import io.nuls.block.constant.NodeEnum;
 import io.nuls.block.manager.ContextManager;
 import io.nuls.block.message.CompleteMessage;
+import io.nuls.block.model.BlockDownloaderParams;
 import io.nuls.block.model.ChainContext;
 import io.nuls.block.model.Node;
 import io.nuls.core.core.annotation.Component;
@@ -56,8 +57,13 @@ public class CompleteHandler implements MessageProcessor {
         ChainContext context = ContextManager.getContext(chainId);
         NulsLogger logger = context.getLogger();
         logger.debug("recieve " + message + " from node-" + nodeId);
-        Node node = context.getDownloaderParams().getNodeMap().get(nodeId);
+        BlockDownloaderParams downloaderParams = context.getDownloaderParams();
+        Node node = downloaderParams.getNodeMap().get(nodeId);
+        if (message.isSuccess() && NodeEnum.WORKING.equals(node.getNodeEnum())) {
+            node.recordThroughput(node.getEndHeight() - node.getStartHeight() + 1, System.currentTimeMillis() - node.getStartTime());
+        }
         node.adjustCredit(message.isSuccess());
         node.setNodeEnum(NodeEnum.IDLE);
+        downloaderParams.signalChanged();
     }
 }
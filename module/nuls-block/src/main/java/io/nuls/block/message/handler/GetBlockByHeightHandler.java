@@ -21,7 +21,6 @@
 package io.nuls.block.message.handler;
 
 import io.nuls.base.RPCUtil;
-import io.nuls.base.data.Block;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.protocol.MessageProcessor;
 import io.nuls.block.manager.ContextManager;
@@ -51,13 +50,8 @@ public class GetBlockByHeightHandler implements MessageProcessor {
     @Autowired
     private BlockService service;
 
-    private void sendBlock(int chainId, Block block, String nodeId, NulsHash requestHash) {
-        BlockMessage message = new BlockMessage();
-        message.setRequestHash(requestHash);
-        if (block != null) {
-            message.setBlock(block);
-        }
-        message.setSyn(false);
+    private void sendBlock(int chainId, byte[] blockBytes, String nodeId, NulsHash requestHash) {
+        BlockMessage message = new BlockMessage(requestHash, blockBytes, false);
         NetworkCall.sendToNode(chainId, message, nodeId, BLOCK_MESSAGE);
     }
 
@@ -75,6 +69,6 @@ public class GetBlockByHeightHandler implements MessageProcessor {
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
         long height = message.getHeight();
         logger.debug("recieve " + message + " from node-" + nodeId + ", height:" + height);
-        sendBlock(chainId, service.getBlock(chainId, height), nodeId, NulsHash.calcHash(ByteUtils.longToBytes(height)));
+        sendBlock(chainId, service.getBlockBytes(chainId, height), nodeId, NulsHash.calcHash(ByteUtils.longToBytes(height)));
     }
 }
\ No newline at end of file
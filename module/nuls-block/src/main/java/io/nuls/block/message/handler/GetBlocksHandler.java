@@ -21,7 +21,6 @@
 package io.nuls.block.message.handler;
 
 import io.nuls.base.RPCUtil;
-import io.nuls.base.data.Block;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.protocol.MessageProcessor;
 import io.nuls.block.manager.ContextManager;
@@ -50,8 +49,8 @@ public class GetBlocksHandler implements MessageProcessor {
     @Autowired
     private BlockService service;
 
-    private void sendBlock(int chainId, Block block, String nodeId, NulsHash requestHash) {
-        BlockMessage blockMessage = new BlockMessage(requestHash, block, true);
+    private void sendBlock(int chainId, byte[] blockBytes, String nodeId, NulsHash requestHash) {
+        BlockMessage blockMessage = new BlockMessage(requestHash, blockBytes, true);
         NetworkCall.sendToNode(chainId, blockMessage, nodeId, BLOCK_MESSAGE);
     }
 
@@ -78,14 +77,15 @@ public class GetBlocksHandler implements MessageProcessor {
         NulsHash requestHash;
         try {
             requestHash = NulsHash.calcHash(message.serialize());
-            Block block;
+            byte[] blockBytes;
             do {
-                block = service.getBlock(chainId, startHeight++);
-                if (block == null) {
+                //优先读取区块原始字节, 不需要调用交易模块组装区块
+                blockBytes = service.getBlockBytes(chainId, startHeight++);
+                if (blockBytes == null) {
                     NetworkCall.sendFail(chainId, requestHash, nodeId);
                     return;
                 }
-                sendBlock(chainId, block, nodeId, requestHash);
+                sendBlock(chainId, blockBytes, nodeId, requestHash);
             } while (endHeight >= startHeight);
             NetworkCall.sendSuccess(chainId, requestHash, nodeId);
         } catch (Exception e) {
@@ -75,6 +75,46 @@ public class BlockConfig extends ChainParameters implements ModuleConfig {
      */
     private int rollbackHeight;
 
+    /**
+     * 是否保存区块原始字节, 开启后向其他节点提供区块时不再调用交易模块
+     */
+    private boolean blockBlobStoreEnable;
+
+    /**
+     * 区块原始字节保留的高度数, 0表示全部保留
+     */
+    private long blockBlobKeepHeights;
+
+    /**
+     * 是否以列族模式打开数据库, 所有数据表共用一个数据库, 已有数据需先用RocksDBMigrationTool迁移
+     */
+    private boolean columnFamilyEnable;
+
+    /**
+     * 数据库共享块缓存大小(MB), 0表示不使用块缓存
+     */
+    private int dbBlockCacheSize;
+
+    /**
+     * 数据库写缓冲上限(MB), 计入共享块缓存
+     */
+    private int dbWriteBufferSize;
+
+    /**
+     * 是否开启RocksDB自身的统计(有一定开销)
+     */
+    private boolean dbNativeStatistics;
+
+    /**
+     * 数据库慢操作阈值(毫秒)
+     */
+    private long dbSlowMillis;
+
+    /**
+     * 数据库统计写入日志的间隔(秒), 0表示不输出
+     */
+    private int dbStatsDumpInterval;
+
     public int getNodesMonitorInterval() {
         return nodesMonitorInterval;
     }
@@ -174,4 +214,68 @@ public class BlockConfig extends ChainParameters implements ModuleConfig {
     public void setRollbackHeight(int rollbackHeight) {
         this.rollbackHeight = rollbackHeight;
     }
+
+    public boolean isBlockBlobStoreEnable() {
+        return blockBlobStoreEnable;
+    }
+
+    public void setBlockBlobStoreEnable(boolean blockBlobStoreEnable) {
+        this.blockBlobStoreEnable = blockBlobStoreEnable;
+    }
+
+    public boolean isColumnFamilyEnable() {
+        return columnFamilyEnable;
+    }
+
+    public void setColumnFamilyEnable(boolean columnFamilyEnable) {
+        this.columnFamilyEnable = columnFamilyEnable;
+    }
+
+    public int getDbBlockCacheSize() {
+        return dbBlockCacheSize;
+    }
+
+    public void setDbBlockCacheSize(int dbBlockCacheSize) {
+        this.dbBlockCacheSize = dbBlockCacheSize;
+    }
+
+    public int getDbWriteBufferSize() {
+        return dbWriteBufferSize;
+    }
+
+    public void setDbWriteBufferSize(int dbWriteBufferSize) {
+        this.dbWriteBufferSize = dbWriteBufferSize;
+    }
+
+    public boolean isDbNativeStatistics() {
+        return dbNativeStatistics;
+    }
+
+    public void setDbNativeStatistics(boolean dbNativeStatistics) {
+        this.dbNativeStatistics = dbNativeStatistics;
+    }
+
+    public long getDbSlowMillis() {
+        return dbSlowMillis;
+    }
+
+    public void setDbSlowMillis(long dbSlowMillis) {
+        this.dbSlowMillis = dbSlowMillis;
+    }
+
+    public int getDbStatsDumpInterval() {
+        return dbStatsDumpInterval;
+    }
+
+    public void setDbStatsDumpInterval(int dbStatsDumpInterval) {
+        this.dbStatsDumpInterval = dbStatsDumpInterval;
+    }
+
+    public long getBlockBlobKeepHeights() {
+        return blockBlobKeepHeights;
+    }
+
+    public void setBlockBlobKeepHeights(long blockBlobKeepHeights) {
+        this.blockBlobKeepHeights = blockBlobKeepHeights;
+    }
 }
@@ -24,6 +24,9 @@ import io.nuls.base.data.NulsHash;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 一次区块下载过程中用到的参数
@@ -62,6 +65,16 @@ public class BlockDownloaderParams {
      * 网络上可用节点数>=nodes.size()
      */
     private int availableNodesCount;
+    /**
+     * 区块消费者等待保存的下一个高度
+     */
+    private volatile long pendingHeight;
+    /**
+     * 下载状态变化(收到区块、节点完成下载区间、消费者保存区块)的版本号, 用于下载器与消费者之间的通知
+     */
+    private long changedVersion;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
 
     public Map<String, Node> getNodeMap() {
         return nodeMap;
@@ -118,4 +131,51 @@ public class BlockDownloaderParams {
     public void setAvailableNodesCount(int availableNodesCount) {
         this.availableNodesCount = availableNodesCount;
     }
+
+    public long getPendingHeight() {
+        return pendingHeight;
+    }
+
+    public void setPendingHeight(long pendingHeight) {
+        this.pendingHeight = pendingHeight;
+    }
+
+    public long getChangedVersion() {
+        lock.lock();
+        try {
+            return changedVersion;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 通知下载状态发生变化
+     * Signal that the download state changed
+     */
+    public void signalChanged() {
+        lock.lock();
+        try {
+            changedVersion++;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待下载状态在version之后发生变化, 最多等待timeoutMillis毫秒
+     * Wait until the download state changes after version, at most timeoutMillis
+     */
+    public void awaitChanged(long version, long timeoutMillis) throws InterruptedException {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (changedVersion == version && nanos > 0) {
+                nanos = changed.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
 }
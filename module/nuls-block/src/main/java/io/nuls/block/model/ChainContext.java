@@ -27,17 +27,24 @@ import io.nuls.base.data.NulsHash;
 import io.nuls.block.constant.StatusEnum;
 import io.nuls.block.manager.BlockChainManager;
 import io.nuls.block.thread.monitor.TxGroupRequestor;
+import io.nuls.block.utils.BlockPreVerifier;
 import io.nuls.block.utils.LoggerUtil;
+import io.nuls.block.utils.SaveStageStats;
 import io.nuls.block.utils.SingleBlockCacher;
 import io.nuls.block.utils.SmallBlockCacher;
 import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.model.CollectionUtils;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.StampedLock;
 
+import static io.nuls.block.constant.Constant.SAVE_NOTICE_QUEUE_SIZE;
+
 /**
  * 每个链ID对应一个{@link ChainContext},维护一些链运行期间的信息,并负责链的初始化、启动、停止、销毁操作
  *
@@ -132,6 +139,15 @@ public class ChainContext {
      */
     private Map<NulsHash, List<String>> orphanBlockRelatedNodes;
 
+    /**
+     * 区块保存、回滚后的跨链高度通知按顺序在该线程执行, 不阻塞下一个区块的保存
+     */
+    private ThreadPoolExecutor noticeExecutor;
+
+    public ThreadPoolExecutor getNoticeExecutor() {
+        return noticeExecutor;
+    }
+
     public Map<NulsHash, List<String>> getOrphanBlockRelatedNodes() {
         return orphanBlockRelatedNodes;
     }
@@ -289,7 +305,13 @@ public class ChainContext {
         systemTransactionType = new ArrayList<>();
         needSyn = true;
         lock = new StampedLock();
+        //重复初始化时沿用已有的通知线程, 保证通知顺序且不遗留线程
+        if (noticeExecutor == null) {
+            noticeExecutor = ThreadUtils.createThreadPool(1, SAVE_NOTICE_QUEUE_SIZE, new NulsThreadFactory("block-notice-" + chainId));
+        }
         //各类缓存初始化
+        SaveStageStats.init(chainId);
+        BlockPreVerifier.init(chainId);
         SmallBlockCacher.init(chainId);
         SingleBlockCacher.init(chainId);
         BlockChainManager.init(chainId);
@@ -305,7 +327,10 @@ public class ChainContext {
     }
 
     public void destroy() {
-
+        if (noticeExecutor != null) {
+            noticeExecutor.shutdown();
+            noticeExecutor = null;
+        }
     }
 
     /**
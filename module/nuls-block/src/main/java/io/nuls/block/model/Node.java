@@ -71,6 +71,10 @@ public class Node {
      * 节点状态
      */
     private NodeEnum nodeEnum;
+    /**
+     * 实测下载速度(区块数/秒), 0表示还没有测量值
+     */
+    private volatile double throughput;
 
     public long getStartHeight() {
         return startHeight;
@@ -170,6 +174,25 @@ public class Node {
         }
     }
 
+    public double getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * 根据完成的下载区间更新实测下载速度(指数移动平均)
+     */
+    public synchronized void recordThroughput(long blocks, long millis) {
+        double rate = blocks * 1000D / Math.max(millis, 1L);
+        throughput = throughput == 0 ? rate : throughput * 0.7 + rate * 0.3;
+    }
+
+    /**
+     * 下载区间超时被转给其他节点时, 实测下载速度减半, 后续分配更小的区间
+     */
+    public synchronized void slowDown() {
+        throughput /= 2;
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", Node.class.getSimpleName() + "[", "]")
@@ -177,6 +200,7 @@ public class Node {
                 .add("height=" + height)
                 .add("hash=" + hash)
                 .add("credit=" + credit)
+                .add("throughput=" + throughput)
                 .add("nodeEnum=" + nodeEnum)
                 .toString();
     }
@@ -30,10 +30,12 @@ import io.nuls.block.constant.BlockErrorCode;
 import io.nuls.block.manager.ContextManager;
 import io.nuls.block.model.ChainContext;
 import io.nuls.block.service.BlockService;
+import io.nuls.block.utils.SaveStageStats;
 import io.nuls.block.utils.SmallBlockCacher;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.rpc.cmd.BaseCmd;
 import io.nuls.core.rpc.info.Constants;
 import io.nuls.core.rpc.model.*;
@@ -646,4 +648,36 @@ public class BlockResource extends BaseCmd {
         }
         return success(responseData);
     }
+
+    /**
+     * 区块保存流水线各阶段耗时统计
+     *
+     * @param map
+     * @return
+     */
+    @CmdAnnotation(cmd = GET_SAVE_STAGE_STATS, version = 1.0, description = "latency histograms of the block save stages")
+    @Parameters({
+            @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链ID")
+    })
+    @ResponseData(name = "返回值", description = "返回一个Map对象, 键为阶段名, 值为该阶段的次数、平均耗时、最大耗时、分位数及直方图", responseType = @TypeDescriptor(value = Map.class))
+    public Response getSaveStageStats(Map map) {
+        int chainId = Integer.parseInt(map.get(Constants.CHAIN_ID).toString());
+        ChainContext context = ContextManager.getContext(chainId);
+        if (context == null) {
+            return success();
+        }
+        return success(SaveStageStats.getStats(chainId));
+    }
+
+    /**
+     * 本模块数据库各表读写统计、RocksDB内部状态和最近的慢操作
+     *
+     * @param map
+     * @return
+     */
+    @CmdAnnotation(cmd = GET_STORAGE_STATS, version = 1.0, description = "per-table I/O metrics and slow operations of the block database")
+    @ResponseData(name = "返回值", description = "返回一个Map对象, tables为各表的读写次数、字节数、耗时直方图及RocksDB属性, engine为RocksDB内部计数, slowOps为最近的慢操作", responseType = @TypeDescriptor(value = Map.class))
+    public Response getStorageStats(Map map) {
+        return success(RocksDBService.getStats());
+    }
 }
@@ -59,15 +59,17 @@ public class ConsensusCall {
      * @param chainId 链Id/chain id
      * @param block
      * @param download 0区块下载中,1接收到最新区块
+     * @param preVerified 梅克尔哈希与区块头签名已由区块模块预验证通过, 共识模块不再重复验证
      * @return
      */
-    public static Result verify(int chainId, Block block, int download) {
+    public static Result verify(int chainId, Block block, int download, boolean preVerified) {
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
         try {
             Map<String, Object> params = new HashMap<>(5);
 //            params.put(Constants.VERSION_KEY_STR, "1.0");
             params.put(Constants.CHAIN_ID, chainId);
             params.put("download", download);
+            params.put("preVerified", preVerified);
             params.put("block", RPCUtil.encode(block.serialize()));
             Response response = ResponseMessageProcessor.requestAndResponse(ModuleE.CS.abbr, "cs_validBlock", params, 10 * 60 * 1000);
             if (response.isSuccess()) {
@@ -145,6 +145,31 @@ public class TransactionCall {
         }
     }
 
+    /**
+     * 请求交易模块预先验证区块交易的签名, 验证通过的签名进入交易模块的已验证签名缓存, 后续tx_batchVerify不再重复验证
+     *
+     * @param chainId 链Id/chain id
+     * @param txs     区块交易
+     * @return 请求是否成功
+     */
+    public static boolean preVerifySign(int chainId, List<Transaction> txs) {
+        NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        try {
+            Map<String, Object> params = new HashMap<>(2);
+            params.put(Constants.CHAIN_ID, chainId);
+            List<String> txList = new ArrayList<>();
+            for (Transaction transaction : txs) {
+                txList.add(RPCUtil.encode(transaction.serialize()));
+            }
+            params.put("txList", txList);
+            Response response = ResponseMessageProcessor.requestAndResponse(ModuleE.TX.abbr, "tx_preVerifySign", params, 60 * 1000);
+            return response.isSuccess();
+        } catch (Exception e) {
+            logger.error("", e);
+            return false;
+        }
+    }
+
     /**
      * 批量回滚交易
      *
@@ -95,6 +95,15 @@ public interface BlockService {
      */
     Block getBlock(int chainId, long height);
 
+    /**
+     * 根据区块高度获取区块序列化后的字节, 优先从区块原始字节存储中读取, 没有时组装区块后序列化
+     *
+     * @param chainId 链Id/chain id
+     * @param height  区块高度
+     * @return
+     */
+    byte[] getBlockBytes(int chainId, long height);
+
     /**
      * 根据区块高度区间获取区块头
      *
@@ -24,6 +24,7 @@ import io.nuls.base.RPCUtil;
 import io.nuls.base.data.*;
 import io.nuls.base.data.po.BlockHeaderPo;
 import io.nuls.block.constant.BlockErrorCode;
+import io.nuls.block.constant.SaveStageEnum;
 import io.nuls.block.manager.BlockChainManager;
 import io.nuls.block.manager.ContextManager;
 import io.nuls.block.message.HashMessage;
@@ -34,11 +35,14 @@ import io.nuls.block.model.ChainParameters;
 import io.nuls.block.model.GenesisBlock;
 import io.nuls.block.rpc.call.*;
 import io.nuls.block.service.BlockService;
+import io.nuls.block.storage.BlockBlobStorageService;
 import io.nuls.block.storage.BlockStorageService;
 import io.nuls.block.storage.ChainStorageService;
+import io.nuls.block.utils.BlockPreVerifier;
 import io.nuls.block.utils.BlockUtil;
 import io.nuls.block.utils.ChainGenerator;
 import io.nuls.block.utils.LoggerUtil;
+import io.nuls.block.utils.SaveStageStats;
 import io.nuls.block.utils.SmallBlockCacher;
 import io.nuls.core.basic.Result;
 import io.nuls.core.constant.TxType;
@@ -51,15 +55,20 @@ import io.nuls.core.log.Log;
 import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.model.StringUtils;
 import io.nuls.core.parse.SerializeUtils;
+import io.nuls.core.rockdb.manager.DBSnapshotManager;
+import io.nuls.core.rockdb.service.DBSnapshot;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.rpc.model.message.MessageUtil;
 import io.nuls.core.rpc.model.message.Response;
 import io.nuls.core.rpc.netty.channel.manager.ConnectManager;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.locks.StampedLock;
 
 import static io.nuls.base.data.BlockHeader.BLOCK_HEADER_COMPARATOR;
@@ -82,6 +91,8 @@ public class BlockServiceImpl implements BlockService {
     private BlockStorageService blockStorageService;
     @Autowired
     private ChainStorageService chainStorageService;
+    @Autowired
+    private BlockBlobStorageService blockBlobStorageService;
 
     @Override
     public Block getGenesisBlock(int chainId) {
@@ -145,11 +156,17 @@ public class BlockServiceImpl implements BlockService {
             return Collections.emptyList();
         }
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        //从最新区块的快照中读取, 不受同时进行的保存、回滚影响; 快照高度不够时直接读取
+        DBSnapshot snapshot = DBSnapshotManager.acquire(chainId);
+        if (snapshot != null && endHeight > snapshot.getHeight()) {
+            snapshot.close();
+            snapshot = null;
+        }
         try {
             int size = (int) (endHeight - startHeight + 1);
             List<BlockHeader> list = new ArrayList<>(size);
             for (long i = startHeight; i <= endHeight; i++) {
-                BlockHeaderPo blockHeaderPo = blockStorageService.query(chainId, i);
+                BlockHeaderPo blockHeaderPo = snapshot == null ? blockStorageService.query(chainId, i) : blockStorageService.query(snapshot, chainId, i);
                 if (blockHeaderPo.getHeight() == endHeight && !blockHeaderPo.isComplete()) {
                     continue;
                 }
@@ -160,6 +177,10 @@ public class BlockServiceImpl implements BlockService {
         } catch (Exception e) {
             logger.error("", e);
             return Collections.emptyList();
+        } finally {
+            if (snapshot != null) {
+                snapshot.close();
+            }
         }
     }
 
@@ -256,6 +277,24 @@ public class BlockServiceImpl implements BlockService {
         }
     }
 
+    @Override
+    public byte[] getBlockBytes(int chainId, long height) {
+        byte[] blockBytes = blockBlobStorageService.get(chainId, height);
+        if (blockBytes != null) {
+            return blockBytes;
+        }
+        Block block = getBlock(chainId, height);
+        if (block == null) {
+            return null;
+        }
+        try {
+            return block.serialize();
+        } catch (IOException e) {
+            ContextManager.getContext(chainId).getLogger().error("", e);
+            return null;
+        }
+    }
+
     @Override
     public List<Block> getBlock(int chainId, long startHeight, long endHeight) {
         NulsLogger logger = ContextManager.getContext(chainId).getLogger();
@@ -299,7 +338,9 @@ public class BlockServiceImpl implements BlockService {
         }
         try {
             //1.验证区块
+            long stageStart = System.nanoTime();
             Result result = verifyBlock(chainId, block, localInit, download);
+            stageStart = recordStage(chainId, SaveStageEnum.VERIFY, stageStart);
             if (result.isFailed()) {
                 logger.debug("verifyBlock fail! height-" + height);
                 return false;
@@ -328,7 +369,13 @@ public class BlockServiceImpl implements BlockService {
             BlockHeaderPo blockHeaderPo = BlockUtil.toBlockHeaderPo(block);
             boolean headerSave;
             boolean txSave = false;
-            if (!(headerSave = blockStorageService.save(chainId, blockHeaderPo)) || !(txSave = TransactionCall.save(chainId, blockHeaderPo, block.getTxs(), localInit, (List) result.getData()))) {
+            headerSave = blockStorageService.save(chainId, blockHeaderPo);
+            stageStart = recordStage(chainId, SaveStageEnum.HEADER_SAVE, stageStart);
+            if (headerSave) {
+                txSave = TransactionCall.save(chainId, blockHeaderPo, block.getTxs(), localInit, (List) result.getData());
+                stageStart = recordStage(chainId, SaveStageEnum.TX_SAVE, stageStart);
+            }
+            if (!headerSave || !txSave) {
                 if (headerSave && !TransactionCall.rollback(chainId, blockHeaderPo)) {
                     throw new NulsRuntimeException(BlockErrorCode.TX_ROLLBACK_ERROR);
                 }
@@ -343,6 +390,7 @@ public class BlockServiceImpl implements BlockService {
             }
             //4.通知共识模块
             boolean csNotice = ConsensusCall.saveNotice(chainId, header, localInit);
+            stageStart = recordStage(chainId, SaveStageEnum.CS_NOTICE, stageStart);
             if (!csNotice) {
                 if (!TransactionCall.rollback(chainId, blockHeaderPo)) {
                     throw new NulsRuntimeException(BlockErrorCode.TX_ROLLBACK_ERROR);
@@ -359,7 +407,9 @@ public class BlockServiceImpl implements BlockService {
 
             //5.通知协议升级模块,完全保存,更新标记
             blockHeaderPo.setComplete(true);
-            if (!ProtocolCall.saveNotice(chainId, header) || !blockStorageService.save(chainId, blockHeaderPo)) {
+            boolean puNotice = ProtocolCall.saveNotice(chainId, header) && blockStorageService.save(chainId, blockHeaderPo);
+            recordStage(chainId, SaveStageEnum.PU_NOTICE, stageStart);
+            if (!puNotice) {
                 if (!ConsensusCall.rollbackNotice(chainId, height)) {
                     throw new NulsRuntimeException(BlockErrorCode.CS_ROLLBACK_ERROR);
                 }
@@ -375,12 +425,32 @@ public class BlockServiceImpl implements BlockService {
                 logger.error("ProtocolCall saveNotice fail! height-" + height);
                 return false;
             }
+            //仍持有写锁, 发布该高度的快照供只读查询使用
+            DBSnapshotManager.publish(chainId, height);
+            //区块已完整保存, 写入原始字节存储, 失败不影响区块保存
+            if (blockBlobStorageService.isEnable()) {
+                try {
+                    blockBlobStorageService.save(chainId, height, block.serialize());
+                } catch (IOException e) {
+                    logger.error("block serialize fail, height-" + height, e);
+                }
+            }
+            //交易模块的最新高度只由该通知更新, 打包依赖它, 必须在保存返回前完成
+            long noticeStart = System.nanoTime();
             try {
                 TransactionCall.heightNotice(chainId, height);
-                CrossChainCall.heightNotice(chainId, height, RPCUtil.encode(block.getHeader().serialize()));
             } catch (Exception e) {
                 LoggerUtil.COMMON_LOG.error(e);
             }
+            recordStage(chainId, SaveStageEnum.POST_NOTICE, noticeStart);
+            //跨链模块的高度通知放到通知线程按顺序执行, 不再阻塞下一个区块的保存
+            submitNotice(context, () -> {
+                try {
+                    CrossChainCall.heightNotice(chainId, height, RPCUtil.encode(header.serialize()));
+                } catch (Exception e) {
+                    LoggerUtil.COMMON_LOG.error(e);
+                }
+            });
 
             //6.如果不是第一次启动,则更新主链属性
             if (!localInit) {
@@ -403,6 +473,7 @@ public class BlockServiceImpl implements BlockService {
             ConnectManager.eventTrigger(LATEST_HEIGHT, response);
             context.setNetworkHeight(height);
             long elapsedNanos = System.nanoTime() - startTime;
+            SaveStageStats.record(chainId, SaveStageEnum.TOTAL, elapsedNanos);
             logger.info("save block success, time-" + (elapsedNanos / 1000000) + "ms, height-" + height + ", txCount-" + blockHeaderPo.getTxCount() + ", hash-" + hash + ", size-" + block.size());
             return true;
         } finally {
@@ -513,12 +584,21 @@ public class BlockServiceImpl implements BlockService {
                 logger.error("rollback setLatestHeight fail! height-" + height);
                 return false;
             }
+            blockBlobStorageService.rollback(chainId, height);
+            DBSnapshotManager.publish(chainId, height - 1);
             try {
                 TransactionCall.heightNotice(chainId, height - 1);
-                CrossChainCall.heightNotice(chainId, height - 1, RPCUtil.encode(blockHeader.serialize()));
             } catch (Exception e) {
                 LoggerUtil.COMMON_LOG.error(e);
             }
+            //与保存区块时的跨链通知走同一个线程, 保证通知顺序与区块保存、回滚顺序一致
+            submitNotice(context, () -> {
+                try {
+                    CrossChainCall.heightNotice(chainId, height - 1, RPCUtil.encode(blockHeader.serialize()));
+                } catch (Exception e) {
+                    LoggerUtil.COMMON_LOG.error(e);
+                }
+            });
             context.setLatestBlock(getBlock(chainId, height - 1));
             Chain masterChain = BlockChainManager.getMasterChain(chainId);
             masterChain.setEndHeight(height - 1);
@@ -529,6 +609,7 @@ public class BlockServiceImpl implements BlockService {
                 hashList.addFirst(getBlockHash(chainId, height - heightRange));
             }
             long elapsedNanos = System.nanoTime() - startTime;
+            SaveStageStats.record(chainId, SaveStageEnum.ROLLBACK, elapsedNanos);
             logger.info("rollback block success, time-" + (elapsedNanos / 1000000) + "ms, height-" + height + ", txCount-" + blockHeaderPo.getTxCount() + ", hash-" + blockHeaderPo.getHash());
             Response response = MessageUtil.newSuccessResponse("");
             Map<String, Long> responseData = new HashMap<>(2);
@@ -563,6 +644,40 @@ public class BlockServiceImpl implements BlockService {
         return broadcast;
     }
 
+    /**
+     * 记录一个保存阶段的耗时
+     *
+     * @param chainId    链Id/chain id
+     * @param stage      阶段
+     * @param stageStart 阶段开始时间(纳秒)
+     * @return 当前时间, 作为下一阶段的开始时间
+     */
+    private long recordStage(int chainId, SaveStageEnum stage, long stageStart) {
+        long now = System.nanoTime();
+        SaveStageStats.record(chainId, stage, now - stageStart);
+        return now;
+    }
+
+    /**
+     * 提交区块保存、回滚后的跨链通知任务, 队列满时保存线程阻塞等待, 以此限制通知落后的区块数, 同时保证通知顺序
+     *
+     * @param context 链上下文
+     * @param notice  通知任务
+     */
+    private void submitNotice(ChainContext context, Runnable notice) {
+        ThreadPoolExecutor executor = context.getNoticeExecutor();
+        try {
+            executor.execute(notice);
+        } catch (RejectedExecutionException e) {
+            try {
+                executor.getQueue().put(notice);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                notice.run();
+            }
+        }
+    }
+
     private Result verifyBlock(int chainId, Block block, boolean localInit, int download) {
         ChainContext context = ContextManager.getContext(chainId);
         NulsLogger logger = context.getLogger();
@@ -584,6 +699,13 @@ public class BlockServiceImpl implements BlockService {
             }
         }
 
+        //下载器已提交后台预验证(梅克尔哈希、区块头签名、交易签名)的区块, 预验证失败时不再调用共识模块,
+        //通过时共识模块跳过梅克尔哈希与区块头签名验证
+        Boolean preVerified = BlockPreVerifier.verify(chainId, block);
+        if (Boolean.FALSE.equals(preVerified)) {
+            return Result.getFailed(BlockErrorCode.BLOCK_VERIFY_ERROR);
+        }
+
         //分叉验证
         boolean forkVerify = BlockUtil.forkVerify(chainId, block);
         if (!forkVerify) {
@@ -591,7 +713,7 @@ public class BlockServiceImpl implements BlockService {
             return Result.getFailed(BlockErrorCode.BLOCK_VERIFY_ERROR);
         }
         //共识验证
-        Result consensusVerify = ConsensusCall.verify(chainId, block, download);
+        Result consensusVerify = ConsensusCall.verify(chainId, block, download, Boolean.TRUE.equals(preVerified));
         if (consensusVerify.isFailed()) {
             logger.error("consensusVerify-" + consensusVerify);
             return Result.getFailed(BlockErrorCode.BLOCK_VERIFY_ERROR);
@@ -640,6 +762,8 @@ public class BlockServiceImpl implements BlockService {
                 latestHeight = latestHeight - 1;
                 blockStorageService.setLatestHeight(chainId, latestHeight);
             }
+            blockBlobStorageService.init(chainId, latestHeight);
+            DBSnapshotManager.publish(chainId, latestHeight);
             //4.latestHeight已经维护成功,上面的步骤保证了latestHeight这个高度的区块数据在本地是完整的,但是区块数据的内容并不一定是正确的,区块同步之前会继续验证latestBlock
             block = getBlock(chainId, latestHeight);
             //5.本地区块维护成功
@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.storage;
+
+/**
+ * 区块原始字节存储服务(可选), 保存主链区块序列化后的原始字节, 向其他节点提供区块时直接读取, 不需要调用交易模块
+ * 只是区块头与交易数据的冗余副本, 读写失败时调用方退回原有的组装方式
+ * <p>
+ * Optional store of the serialized bytes of main chain blocks, read directly when serving blocks to peers
+ * without calling the transaction module. It is only a redundant copy of the headers and txs,
+ * callers fall back to assembling the block on any failure
+ */
+public interface BlockBlobStorageService {
+
+    /**
+     * 是否开启
+     *
+     * @return
+     */
+    boolean isEnable();
+
+    /**
+     * 打开链的存储, 删除高于本地最新高度的记录
+     *
+     * @param chainId      链Id/chain id
+     * @param latestHeight 本地最新高度
+     */
+    void init(int chainId, long latestHeight);
+
+    /**
+     * 保存区块的原始字节, 并按配置裁剪旧区块
+     *
+     * @param chainId    链Id/chain id
+     * @param height     区块高度
+     * @param blockBytes 区块序列化字节
+     * @return
+     */
+    boolean save(int chainId, long height, byte[] blockBytes);
+
+    /**
+     * 查询区块的原始字节, 不存在返回null
+     *
+     * @param chainId 链Id/chain id
+     * @param height  区块高度
+     * @return
+     */
+    byte[] get(int chainId, long height);
+
+    /**
+     * 回滚区块, 删除该高度及以上的记录
+     *
+     * @param chainId 链Id/chain id
+     * @param height  区块高度
+     * @return
+     */
+    boolean rollback(int chainId, long height);
+}
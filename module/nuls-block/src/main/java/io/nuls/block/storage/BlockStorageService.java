@@ -23,6 +23,7 @@ package io.nuls.block.storage;
 import io.nuls.base.data.BlockHeader;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.po.BlockHeaderPo;
+import io.nuls.core.rockdb.service.DBSnapshot;
 
 import java.util.List;
 
@@ -63,6 +64,16 @@ public interface BlockStorageService {
      */
     BlockHeaderPo query(int chainId, NulsHash hash);
 
+    /**
+     * 从数据库快照中根据链ID和高度查询{@link BlockHeaderPo}
+     *
+     * @param snapshot 数据库快照
+     * @param chainId  链Id/chain id
+     * @param height
+     * @return
+     */
+    BlockHeaderPo query(DBSnapshot snapshot, int chainId, long height);
+
     /**
      * 根据链ID和高度区间查询{@link BlockHeaderPo}列表
      *
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.storage.impl;
+
+import io.nuls.block.model.BlockConfig;
+import io.nuls.block.storage.BlockBlobStorageService;
+import io.nuls.core.core.annotation.Autowired;
+import io.nuls.core.core.annotation.Component;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.nuls.block.constant.Constant.BLOCK_BLOB_FOLDER;
+import static io.nuls.block.constant.Constant.BLOCK_BLOB_SEGMENT_BLOCKS;
+import static io.nuls.block.utils.LoggerUtil.COMMON_LOG;
+
+/**
+ * 区块原始字节存储服务实现类, 每条链一个{@link BlockBlobStore}
+ */
+@Component
+public class BlockBlobStorageServiceImpl implements BlockBlobStorageService {
+
+    @Autowired
+    private BlockConfig blockConfig;
+
+    private final Map<Integer, BlockBlobStore> stores = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isEnable() {
+        return blockConfig.isBlockBlobStoreEnable();
+    }
+
+    @Override
+    public void init(int chainId, long latestHeight) {
+        if (!isEnable()) {
+            return;
+        }
+        File folder = new File(blockConfig.getDataFolder() + File.separator + BLOCK_BLOB_FOLDER + File.separator + chainId);
+        BlockBlobStore store = new BlockBlobStore(folder, BLOCK_BLOB_SEGMENT_BLOCKS);
+        try {
+            store.open();
+            store.truncateFrom(latestHeight + 1);
+            BlockBlobStore old = stores.put(chainId, store);
+            if (old != null) {
+                old.close();
+            }
+            COMMON_LOG.info("block blob store opened, chainId-" + chainId + ", " + store);
+        } catch (Exception e) {
+            store.close();
+            COMMON_LOG.error("block blob store open fail, chainId-" + chainId, e);
+        }
+    }
+
+    @Override
+    public boolean save(int chainId, long height, byte[] blockBytes) {
+        BlockBlobStore store = stores.get(chainId);
+        if (store == null) {
+            return false;
+        }
+        try {
+            store.append(height, blockBytes);
+            long keepHeights = blockConfig.getBlockBlobKeepHeights();
+            if (keepHeights > 0 && height % BLOCK_BLOB_SEGMENT_BLOCKS == 0) {
+                store.prune(height - keepHeights);
+            }
+            return true;
+        } catch (Exception e) {
+            COMMON_LOG.error("block blob save fail, chainId-" + chainId + ", height-" + height, e);
+            return false;
+        }
+    }
+
+    @Override
+    public byte[] get(int chainId, long height) {
+        BlockBlobStore store = stores.get(chainId);
+        if (store == null) {
+            return null;
+        }
+        try {
+            return store.get(height);
+        } catch (Exception e) {
+            COMMON_LOG.error("block blob read fail, chainId-" + chainId + ", height-" + height, e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean rollback(int chainId, long height) {
+        BlockBlobStore store = stores.get(chainId);
+        if (store == null) {
+            return true;
+        }
+        try {
+            store.truncateFrom(height);
+            return true;
+        } catch (Exception e) {
+            //截断失败时整条链的记录都不可信, 关闭存储, 之后的请求退回原有方式
+            stores.remove(chainId);
+            store.close();
+            COMMON_LOG.error("block blob rollback fail, chainId-" + chainId + ", height-" + height, e);
+            return false;
+        }
+    }
+}
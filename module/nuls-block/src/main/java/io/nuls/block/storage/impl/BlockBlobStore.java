@@ -0,0 +1,411 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.storage.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 单条链的区块原始字节存储, 只追加写入的分段文件
+ * 每个分段保存 segmentBlocks 个高度, 由两个文件组成:
+ * {start}.blk  区块记录 [int 长度][区块序列化字节]*
+ * {start}.idx  高度索引 [long 分段内第一个高度][long 记录偏移]*
+ * 高度必须连续追加, 回滚时从指定高度截断, 裁剪时整段删除旧分段; 打开时丢弃末尾写了一半的记录
+ * <p>
+ * Append-only segment file store of the raw bytes of one chain's blocks
+ * Every segment holds segmentBlocks heights in two files:
+ * {start}.blk  block records [int length][serialized block]*
+ * {start}.idx  height index [long first height in segment][long record offset]*
+ * Heights are appended contiguously, rollback truncates from a height, pruning deletes whole old segments;
+ * half written records at the tail are dropped when opening
+ */
+public class BlockBlobStore {
+
+    private static final String BLOCK_SUFFIX = ".blk";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int RECORD_HEADER = 4;
+    private static final int INDEX_HEADER = 8;
+    private static final int INDEX_ENTRY = 8;
+
+    private final File folder;
+    private final long segmentBlocks;
+    /**
+     * 分段起始高度 -> 分段
+     */
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public BlockBlobStore(File folder, long segmentBlocks) {
+        this.folder = folder;
+        this.segmentBlocks = segmentBlocks;
+    }
+
+    /**
+     * 打开目录下已有的分段, 校验并截掉末尾不完整的记录, 只保留最新的一段连续高度
+     * Open the existing segments, drop incomplete records at the tail and keep only the latest contiguous heights
+     */
+    public void open() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!folder.exists() && !folder.mkdirs()) {
+                throw new IOException("can't create folder " + folder);
+            }
+            File[] files = folder.listFiles((dir, name) -> name.endsWith(INDEX_SUFFIX));
+            if (files != null) {
+                for (File file : files) {
+                    String name = file.getName();
+                    long start = Long.parseLong(name.substring(0, name.length() - INDEX_SUFFIX.length()));
+                    Segment segment = Segment.open(folder, start);
+                    if (segment == null || segment.count == 0) {
+                        if (segment != null) {
+                            segment.close();
+                        }
+                        deleteFiles(start);
+                    } else {
+                        segments.put(start, segment);
+                    }
+                }
+            }
+            //分段之间出现高度断档时, 断档之前的分段全部丢弃
+            Segment next = null;
+            for (Long start : new ArrayList<>(segments.descendingKeySet())) {
+                Segment segment = segments.get(start);
+                if (next != null && segment.lastHeight() + 1 != next.firstHeight) {
+                    removeSegmentsUpTo(start);
+                    break;
+                }
+                next = segment;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            segments.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 追加一个区块; 高度不与当前最新高度衔接时, 已有更高的记录先截断, 出现断档则清空后重新开始
+     * Append a block; when the height does not follow the latest one, higher records are truncated first,
+     * and a gap clears the store and starts over
+     */
+    public void append(long height, byte[] blockBytes) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!segments.isEmpty()) {
+                long first = firstHeight();
+                long latest = latestHeight();
+                if (height <= latest && height > first) {
+                    truncateFrom(height);
+                } else if (height <= first || height > latest + 1) {
+                    removeSegmentsUpTo(segments.lastKey());
+                }
+            }
+            long start = segmentStart(height);
+            Segment segment = segments.get(start);
+            if (segment == null) {
+                segment = Segment.create(folder, start, height);
+                segments.put(start, segment);
+            }
+            segment.append(blockBytes);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 读取区块的原始字节, 不存在返回null
+     * Read the raw bytes of a block, null if absent
+     */
+    public byte[] get(long height) throws IOException {
+        lock.readLock().lock();
+        try {
+            Segment segment = segments.get(segmentStart(height));
+            if (segment == null || height < segment.firstHeight || height > segment.lastHeight()) {
+                return null;
+            }
+            return segment.read(height - segment.firstHeight);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 删除高度大于等于fromHeight的区块, 用于回滚
+     * Remove the blocks at fromHeight and above, used by rollback
+     */
+    public void truncateFrom(long fromHeight) throws IOException {
+        lock.writeLock().lock();
+        try {
+            while (!segments.isEmpty()) {
+                Segment segment = segments.lastEntry().getValue();
+                if (segment.firstHeight >= fromHeight) {
+                    removeSegment(segments.lastKey());
+                    continue;
+                }
+                if (segment.lastHeight() >= fromHeight) {
+                    segment.truncate(fromHeight - segment.firstHeight);
+                }
+                break;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除所有高度都低于belowHeight的分段, 最新的分段始终保留
+     * Delete the segments whose heights are all below belowHeight, the latest segment is always kept
+     */
+    public int prune(long belowHeight) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            while (segments.size() > 1) {
+                Map.Entry<Long, Segment> entry = segments.firstEntry();
+                if (entry.getValue().lastHeight() >= belowHeight) {
+                    break;
+                }
+                removeSegment(entry.getKey());
+                removed++;
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return 最早的高度, 为空时返回-1 / The first height, -1 if empty
+     */
+    public long firstHeight() {
+        lock.readLock().lock();
+        try {
+            return segments.isEmpty() ? -1 : segments.firstEntry().getValue().firstHeight;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return 最新的高度, 为空时返回-1 / The latest height, -1 if empty
+     */
+    public long latestHeight() {
+        lock.readLock().lock();
+        try {
+            return segments.isEmpty() ? -1 : segments.lastEntry().getValue().lastHeight();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long segmentStart(long height) {
+        return height / segmentBlocks * segmentBlocks;
+    }
+
+    private void removeSegmentsUpTo(long lastStart) {
+        for (Long start : new ArrayList<>(segments.headMap(lastStart, true).keySet())) {
+            removeSegment(start);
+        }
+    }
+
+    private void removeSegment(long start) {
+        Segment segment = segments.remove(start);
+        if (segment != null) {
+            segment.close();
+        }
+        deleteFiles(start);
+    }
+
+    private void deleteFiles(long start) {
+        new File(folder, start + BLOCK_SUFFIX).delete();
+        new File(folder, start + INDEX_SUFFIX).delete();
+    }
+
+    private static class Segment {
+        private final FileChannel blockChannel;
+        private final FileChannel indexChannel;
+        private final long firstHeight;
+        private long count;
+        private long blockSize;
+
+        private Segment(FileChannel blockChannel, FileChannel indexChannel, long firstHeight, long count, long blockSize) {
+            this.blockChannel = blockChannel;
+            this.indexChannel = indexChannel;
+            this.firstHeight = firstHeight;
+            this.count = count;
+            this.blockSize = blockSize;
+        }
+
+        static Segment create(File folder, long start, long firstHeight) throws IOException {
+            FileChannel blockChannel = FileChannel.open(new File(folder, start + BLOCK_SUFFIX).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            FileChannel indexChannel = FileChannel.open(new File(folder, start + INDEX_SUFFIX).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER).putLong(0, firstHeight);
+            writeFully(indexChannel, header, 0);
+            return new Segment(blockChannel, indexChannel, firstHeight, 0, 0);
+        }
+
+        /**
+         * 打开已有分段, 从末尾往前找到第一条完整的记录, 其后的内容截掉; 索引头不完整时返回null
+         * Open an existing segment, truncating everything after the last complete record; null if the index header is incomplete
+         */
+        static Segment open(File folder, long start) throws IOException {
+            File blockFile = new File(folder, start + BLOCK_SUFFIX);
+            File indexFile = new File(folder, start + INDEX_SUFFIX);
+            if (!blockFile.exists() || indexFile.length() < INDEX_HEADER) {
+                return null;
+            }
+            FileChannel blockChannel = FileChannel.open(blockFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileChannel indexChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER);
+            readFully(indexChannel, header, 0);
+            Segment segment = new Segment(blockChannel, indexChannel, header.getLong(0), (indexChannel.size() - INDEX_HEADER) / INDEX_ENTRY, blockChannel.size());
+            long valid = segment.count;
+            long validSize = 0;
+            while (valid > 0) {
+                long offset = segment.offset(valid - 1);
+                long end = segment.recordEnd(offset);
+                if (end > 0) {
+                    validSize = end;
+                    break;
+                }
+                valid--;
+            }
+            segment.count = valid;
+            segment.blockSize = validSize;
+            indexChannel.truncate(INDEX_HEADER + valid * INDEX_ENTRY);
+            blockChannel.truncate(validSize);
+            return segment;
+        }
+
+        long lastHeight() {
+            return firstHeight + count - 1;
+        }
+
+        void append(byte[] blockBytes) throws IOException {
+            ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + blockBytes.length);
+            record.putInt(blockBytes.length).put(blockBytes).flip();
+            writeFully(blockChannel, record, blockSize);
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY).putLong(0, blockSize);
+            writeFully(indexChannel, entry, INDEX_HEADER + count * INDEX_ENTRY);
+            blockSize += RECORD_HEADER + blockBytes.length;
+            count++;
+        }
+
+        byte[] read(long index) throws IOException {
+            long offset = offset(index);
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+            readFully(blockChannel, header, offset);
+            int length = header.getInt(0);
+            if (length < 0 || offset + RECORD_HEADER + length > blockSize) {
+                throw new IOException("broken block record at offset " + offset);
+            }
+            ByteBuffer data = ByteBuffer.allocate(length);
+            readFully(blockChannel, data, offset + RECORD_HEADER);
+            return data.array();
+        }
+
+        void truncate(long keepCount) throws IOException {
+            long offset = offset(keepCount);
+            indexChannel.truncate(INDEX_HEADER + keepCount * INDEX_ENTRY);
+            blockChannel.truncate(offset);
+            count = keepCount;
+            blockSize = offset;
+        }
+
+        private long offset(long index) throws IOException {
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY);
+            readFully(indexChannel, entry, INDEX_HEADER + index * INDEX_ENTRY);
+            return entry.getLong(0);
+        }
+
+        /**
+         * @return 记录完整时返回记录结束的位置, 否则返回-1 / End of the record if it is complete, otherwise -1
+         */
+        private long recordEnd(long offset) throws IOException {
+            if (offset < 0 || offset + RECORD_HEADER > blockSize) {
+                return -1;
+            }
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+            readFully(blockChannel, header, offset);
+            int length = header.getInt(0);
+            long end = offset + RECORD_HEADER + length;
+            return length < 0 || end > blockSize ? -1 : end;
+        }
+
+        void close() {
+            try {
+                blockChannel.close();
+                indexChannel.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("unexpected end of file");
+                }
+                position += read;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BlockBlobStore{folder=" + folder + ", first=" + firstHeight() + ", latest=" + latestHeight()
+                + ", segments=" + segmentCount() + "}";
+    }
+}
@@ -25,10 +25,14 @@ import io.nuls.base.data.BlockHeader;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.po.BlockHeaderPo;
 import io.nuls.block.storage.BlockStorageService;
+import io.nuls.block.utils.BlockUtil;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.model.ByteUtils;
 import io.nuls.core.parse.SerializeUtils;
+import io.nuls.core.rockdb.manager.DBSnapshotManager;
+import io.nuls.core.rockdb.service.DBSnapshot;
+import io.nuls.core.rockdb.service.MultiTableBatchOperation;
 import io.nuls.core.rockdb.service.RocksDBService;
 
 import java.util.ArrayList;
@@ -54,9 +58,11 @@ public class BlockStorageServiceImpl implements BlockStorageService {
         byte[] height = SerializeUtils.uint64ToByteArray(blockHeader.getHeight());
         try {
             byte[] hash = blockHeader.getHash().getBytes();
-            boolean b1 = RocksDBService.put(BLOCK_HEADER_INDEX + chainId, height, hash);
-            boolean b2 = RocksDBService.put(BLOCK_HEADER + chainId, hash, blockHeader.serialize());
-            return b1 && b2;
+            //索引与区块头在同一批次写入, 列族模式下不会出现只写入一半的情况
+            MultiTableBatchOperation batch = RocksDBService.createWriteBatch();
+            batch.put(BLOCK_HEADER_INDEX + chainId, height, hash);
+            batch.put(BLOCK_HEADER + chainId, hash, blockHeader.serialize());
+            return batch.executeBatch();
         } catch (Exception e) {
             COMMON_LOG.error("", e);
             return false;
@@ -84,6 +90,26 @@ public class BlockStorageServiceImpl implements BlockStorageService {
         }
     }
 
+    @Override
+    public BlockHeaderPo query(DBSnapshot snapshot, int chainId, long height) {
+        try {
+            byte[] hash = snapshot.get(BLOCK_HEADER_INDEX + chainId, SerializeUtils.uint64ToByteArray(height));
+            if (hash == null) {
+                return null;
+            }
+            byte[] bytes = snapshot.get(BLOCK_HEADER + chainId, hash);
+            if (bytes == null) {
+                return null;
+            }
+            BlockHeaderPo blockHeader = new BlockHeaderPo();
+            blockHeader.parse(new NulsByteBuffer(bytes));
+            return blockHeader;
+        } catch (Exception e) {
+            COMMON_LOG.error("", e);
+            return null;
+        }
+    }
+
     @Override
     public BlockHeaderPo query(int chainId, NulsHash hash) {
         try {
@@ -102,24 +128,29 @@ public class BlockStorageServiceImpl implements BlockStorageService {
 
     @Override
     public List<BlockHeader> query(int chainId, long startHeight, long endHeight) {
+        //高度键为小端序, 字节序与高度顺序不一致, 不能按范围遍历索引表, 先批量取hash再批量取区块头
         ArrayList<byte []> keys = new ArrayList<>();
         for (long i = startHeight; i <= endHeight; i++) {
             keys.add(SerializeUtils.uint64ToByteArray(i));
         }
-        List<byte[]> valueList = RocksDBService.multiGetValueList(BLOCK_HEADER + chainId, keys);
+        List<byte[]> hashList = RocksDBService.multiGetAsList(BLOCK_HEADER_INDEX + chainId, keys);
+        if (hashList == null || hashList.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<byte[]> valueList = RocksDBService.multiGetAsList(BLOCK_HEADER + chainId, hashList);
         if (valueList == null) {
             return Collections.emptyList();
         }
         List<BlockHeader> blockHeaders = new ArrayList<>();
         for (byte[] bytes : valueList) {
-            BlockHeader header = new BlockHeader();
+            BlockHeaderPo po = new BlockHeaderPo();
             try {
-                header.parse(new NulsByteBuffer(bytes));
+                po.parse(new NulsByteBuffer(bytes));
             } catch (NulsException e) {
                 COMMON_LOG.error("ChainStorageServiceImpl-batch-query-fail", e);
                 return Collections.emptyList();
             }
-            blockHeaders.add(header);
+            blockHeaders.add(BlockUtil.fromBlockHeaderPo(po));
         }
         blockHeaders.sort(BLOCK_HEADER_COMPARATOR);
         return blockHeaders;
@@ -129,9 +160,10 @@ public class BlockStorageServiceImpl implements BlockStorageService {
     public boolean remove(int chainId, long height) {
         try {
             byte[] hash = RocksDBService.get(BLOCK_HEADER_INDEX + chainId, SerializeUtils.uint64ToByteArray(height));
-            boolean b1 = RocksDBService.delete(BLOCK_HEADER_INDEX + chainId, SerializeUtils.uint64ToByteArray(height));
-            boolean b2 = RocksDBService.delete(BLOCK_HEADER + chainId, hash);
-            return b1 && b2;
+            MultiTableBatchOperation batch = RocksDBService.createWriteBatch();
+            batch.delete(BLOCK_HEADER_INDEX + chainId, SerializeUtils.uint64ToByteArray(height));
+            batch.delete(BLOCK_HEADER + chainId, hash);
+            return batch.executeBatch();
         } catch (Exception e) {
             COMMON_LOG.error("", e);
             return false;
@@ -141,6 +173,7 @@ public class BlockStorageServiceImpl implements BlockStorageService {
     @Override
     public boolean destroy(int chainId) {
         try {
+            DBSnapshotManager.clear(chainId);
             boolean b1 = RocksDBService.destroyTable(BLOCK_HEADER + chainId);
             boolean b2 = RocksDBService.destroyTable(BLOCK_HEADER_INDEX + chainId);
             return b1 && b2;
@@ -28,6 +28,7 @@ import io.nuls.block.model.BlockDownloaderParams;
 import io.nuls.block.model.ChainContext;
 import io.nuls.block.model.Node;
 import io.nuls.block.service.BlockService;
+import io.nuls.block.utils.BlockPreVerifier;
 import io.nuls.block.utils.BlockUtil;
 import io.nuls.core.core.ioc.SpringLiteContext;
 import io.nuls.core.exception.NulsException;
@@ -37,6 +38,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
+import static io.nuls.block.constant.Constant.PRE_VERIFY_AHEAD;
+
 /**
  * 消费共享队列中的区块
  *
@@ -66,9 +69,11 @@ public class BlockConsumer implements Callable<Boolean> {
         try {
             long begin = System.nanoTime();
             while (pendingHeight <= netLatestHeight && context.isNeedSyn()) {
+                long version = params.getChangedVersion();
                 block = context.getBlockMap().remove(pendingHeight);
                 if (block != null) {
                     begin = System.nanoTime();
+                    preVerify(pendingHeight, netLatestHeight, context);
                     boolean saveBlock = blockService.saveBlock(chainId, block, true);
                     if (!saveBlock) {
                         logger.error("An exception occurred while saving the downloaded block, height-" + pendingHeight + ", hash-" + block.getHeader().getHash());
@@ -76,13 +81,17 @@ public class BlockConsumer implements Callable<Boolean> {
                         return false;
                     }
                     pendingHeight++;
+                    params.setPendingHeight(pendingHeight);
                     context.getCachedBlockSize().addAndGet(-block.size());
+                    //通知下载器窗口前移
+                    params.signalChanged();
                     continue;
                 }
-                Thread.sleep(10);
+                //等待区块到达的通知
+                params.awaitChanged(version, 100L);
                 long end = System.nanoTime();
-                //超过10秒没有高度更新
-                if ((end - begin) / 1000000 > 5000) {
+                //超过10秒没有高度更新(下载器会提前向其他节点重新请求, 这里是最后的补救)
+                if ((end - begin) / 1000000 > 10000) {
                     updateNodeStatus(context);
                     punishNode(pendingHeight, params.getNodes(), context);
                     retryDownload(pendingHeight, context);
@@ -95,6 +104,25 @@ public class BlockConsumer implements Callable<Boolean> {
             logger.error("BlockConsumer stop work abnormally", e);
             context.setNeedSyn(false);
             return false;
+        } finally {
+            BlockPreVerifier.clear(chainId);
+        }
+    }
+
+    /**
+     * 保存当前区块前, 把已下载的后续区块提交预验证, 与当前区块的保存重叠进行
+     *
+     * @param pendingHeight   正在保存的高度
+     * @param netLatestHeight 网络最新高度
+     * @param context         链上下文
+     */
+    private void preVerify(long pendingHeight, long netLatestHeight, ChainContext context) {
+        long end = Math.min(pendingHeight + PRE_VERIFY_AHEAD, netLatestHeight);
+        for (long height = pendingHeight + 1; height <= end; height++) {
+            Block block = context.getBlockMap().get(height);
+            if (block != null) {
+                BlockPreVerifier.submit(chainId, block);
+            }
         }
     }
 
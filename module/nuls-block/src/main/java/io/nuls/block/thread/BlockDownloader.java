@@ -39,9 +39,17 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.nuls.block.constant.CommandConstant.GET_BLOCKS_BY_HEIGHT_MESSAGE;
+import static io.nuls.block.constant.Constant.DOWNLOAD_RANGE_TARGET_MILLIS;
+import static io.nuls.block.constant.Constant.DOWNLOAD_STRAGGLER_MIN_MILLIS;
 
 /**
  * 区块下载管理器
+ * 以滑动窗口的方式把高度区间分配给多个空闲节点并行下载, 区间大小按节点实测下载速度调整;
+ * 消费者等待的高度所在区间下载过慢时, 提前向其他空闲节点重新请求
+ * <p>
+ * Block download manager
+ * Spreads height ranges over the idle nodes within a sliding window, sizing each range by the node's measured throughput;
+ * re-requests the range the consumer is waiting for from another idle node when it straggles
  *
  * @author captain
  * @version 1.0
@@ -54,13 +62,22 @@ public class BlockDownloader implements Callable<Boolean> {
      */
     private int chainId;
 
+    /**
+     * 消费者开始等待的高度及开始等待的时间
+     */
+    private long stalledHeight = -1;
+    private long stalledSince;
+
     BlockDownloader(int chainId) {
         this.chainId = chainId;
     }
 
     @Override
     public Boolean call() {
-        ChainContext context = ContextManager.getContext(chainId);
+        return download(ContextManager.getContext(chainId));
+    }
+
+    Boolean download(ChainContext context) {
         BlockDownloaderParams downloaderParams = context.getDownloaderParams();
         List<Node> nodes = downloaderParams.getNodes();
         long netLatestHeight = downloaderParams.getNetLatestHeight();
@@ -73,16 +90,24 @@ public class BlockDownloader implements Callable<Boolean> {
             int downloadNumber = chainParameters.getDownloadNumber();
             AtomicInteger cachedBlockSize = context.getCachedBlockSize();
             long limit = context.getParameters().getCachedBlockSizeLimit() * 80 / 100;
-            while (startHeight <= netLatestHeight && context.isNeedSyn()) {
+            //滑动窗口: 已请求但还未被消费的高度数上限
+            long window = (long) downloadNumber * Math.max(2, nodes.size() * 2);
+            //所有区间分配完后继续运行, 直到消费完成, 以便重新请求下载过慢的区间
+            while (downloaderParams.getPendingHeight() <= netLatestHeight && context.isNeedSyn()) {
+                long version = downloaderParams.getChangedVersion();
+                reRequestStraggler(context, startHeight, downloadNumber);
+                if (startHeight > netLatestHeight) {
+                    downloaderParams.awaitChanged(version, 500L);
+                    continue;
+                }
                 int cachedSize = cachedBlockSize.get();
-                while (cachedSize > cachedBlockSizeLimit) {
-                    logger.info("BlockDownloader wait! cached block:" + context.getBlockMap().size() + ", total block size:" + cachedSize);
-                    nodes.forEach(e -> e.setCredit(20));
-                    Thread.sleep(3000L);
-                    cachedSize = cachedBlockSize.get();
-                    if (!context.isNeedSyn()) {
-                        return false;
+                if (cachedSize > cachedBlockSizeLimit || startHeight >= downloaderParams.getPendingHeight() + window) {
+                    if (cachedSize > cachedBlockSizeLimit) {
+                        logger.debug("BlockDownloader wait! cached block:" + context.getBlockMap().size() + ", total block size:" + cachedSize);
+                        nodes.forEach(e -> e.setCredit(20));
                     }
+                    downloaderParams.awaitChanged(version, 200L);
+                    continue;
                 }
                 //下载的区块字节数达到缓存阈值的80%时，降慢下载速度
                 if (cachedSize > limit) {
@@ -90,25 +115,15 @@ public class BlockDownloader implements Callable<Boolean> {
                 }
                 Node node = getNode(nodes);
                 if (node == null) {
-                    Thread.sleep(100L);
+                    downloaderParams.awaitChanged(version, 100L);
                     continue;
                 }
-                int credit = node.getCredit();
-                int size = downloadNumber * credit / 100;
-                size = size <= 0 ? 1 : size;
+                int size = rangeSize(node, downloadNumber);
                 if (startHeight + size > netLatestHeight) {
                     size = (int) (netLatestHeight - startHeight + 1);
                 }
                 long endHeight = startHeight + size - 1;
-                //组装批量获取区块消息
-                HeightRangeMessage message = new HeightRangeMessage(startHeight, endHeight);
-                //发送消息给目标节点
-                boolean b = NetworkCall.sendToNode(chainId, message, node.getId(), GET_BLOCKS_BY_HEIGHT_MESSAGE);
-                if (b) {
-                    node.setNodeEnum(NodeEnum.WORKING);
-                    node.setStartTime(System.currentTimeMillis());
-                    node.setStartHeight(startHeight);
-                    node.setEndHeight(endHeight);
+                if (sendRange(node, startHeight, endHeight)) {
                     startHeight += size;
                 } else {
                     logger.error("BlockDownloader sendToNode failed!");
@@ -122,6 +137,109 @@ public class BlockDownloader implements Callable<Boolean> {
         return context.isNeedSyn();
     }
 
+    /**
+     * 区间大小: 按信用值缩放的下载数量, 有实测下载速度时不超过目标耗时内能下载的区块数
+     */
+    static int rangeSize(Node node, int downloadNumber) {
+        int size = downloadNumber * node.getCredit() / 100;
+        double throughput = node.getThroughput();
+        if (throughput > 0) {
+            size = (int) Math.min(size, throughput * DOWNLOAD_RANGE_TARGET_MILLIS / 1000);
+        }
+        return Math.max(size, 1);
+    }
+
+    /**
+     * 先设置节点状态再发送, 避免节点的完成消息先于状态设置到达
+     */
+    boolean sendRange(Node node, long startHeight, long endHeight) {
+        node.setStartHeight(startHeight);
+        node.setEndHeight(endHeight);
+        node.setStartTime(currentTimeMillis());
+        node.setNodeEnum(NodeEnum.WORKING);
+        //组装批量获取区块消息
+        HeightRangeMessage message = new HeightRangeMessage(startHeight, endHeight);
+        //发送消息给目标节点
+        boolean b = NetworkCall.sendToNode(chainId, message, node.getId(), GET_BLOCKS_BY_HEIGHT_MESSAGE);
+        if (!b) {
+            node.setNodeEnum(NodeEnum.IDLE);
+        }
+        return b;
+    }
+
+    /**
+     * 消费者等待的高度迟迟未到达时, 把该高度起的剩余区间转给一个空闲节点:
+     * 负责该高度的节点下载耗时超过预期, 或者该高度已经分配过但没有节点在下载
+     */
+    void reRequestStraggler(ChainContext context, long startHeight, int downloadNumber) {
+        BlockDownloaderParams downloaderParams = context.getDownloaderParams();
+        long pendingHeight = downloaderParams.getPendingHeight();
+        if (pendingHeight >= startHeight || context.getBlockMap().containsKey(pendingHeight)) {
+            return;
+        }
+        long now = currentTimeMillis();
+        if (pendingHeight != stalledHeight) {
+            stalledHeight = pendingHeight;
+            stalledSince = now;
+            return;
+        }
+        List<Node> nodes = downloaderParams.getNodes();
+        Node owner = null;
+        for (Node node : nodes) {
+            if (NodeEnum.WORKING.equals(node.getNodeEnum()) && node.getStartHeight() <= pendingHeight && pendingHeight <= node.getEndHeight()) {
+                owner = node;
+                break;
+            }
+        }
+        long endHeight;
+        if (owner != null) {
+            if (now - owner.getStartTime() < stragglerMillis(owner) || now - stalledSince < DOWNLOAD_STRAGGLER_MIN_MILLIS) {
+                return;
+            }
+            endHeight = owner.getEndHeight();
+        } else {
+            if (now - stalledSince < DOWNLOAD_STRAGGLER_MIN_MILLIS) {
+                return;
+            }
+            endHeight = startHeight - 1;
+        }
+        Node idle = null;
+        for (Node node : nodes) {
+            if (NodeEnum.IDLE.equals(node.getNodeEnum())) {
+                idle = node;
+                break;
+            }
+        }
+        if (idle == null) {
+            return;
+        }
+        endHeight = Math.min(endHeight, pendingHeight + rangeSize(idle, downloadNumber) - 1);
+        if (sendRange(idle, pendingHeight, endHeight)) {
+            stalledSince = now;
+            if (owner != null) {
+                owner.slowDown();
+            }
+            context.getLogger().info("BlockDownloader re-request " + pendingHeight + "-" + endHeight + " from node-" + idle.getId()
+                    + ", straggling node-" + (owner == null ? null : owner.getId()));
+        }
+    }
+
+    /**
+     * 区间下载超过该时间视为过慢: 预期耗时的3倍, 不少于DOWNLOAD_STRAGGLER_MIN_MILLIS
+     */
+    private static long stragglerMillis(Node node) {
+        double throughput = node.getThroughput();
+        if (throughput <= 0) {
+            return DOWNLOAD_STRAGGLER_MIN_MILLIS;
+        }
+        long expected = (long) ((node.getEndHeight() - node.getStartHeight() + 1) * 1000 / throughput);
+        return Math.max(DOWNLOAD_STRAGGLER_MIN_MILLIS, expected * 3);
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
     private Node getNode(List<Node> nodes) {
         int count = 0;
         for (Node node : nodes) {
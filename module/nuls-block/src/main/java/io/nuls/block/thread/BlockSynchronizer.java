@@ -287,6 +287,7 @@ public class BlockSynchronizer implements Runnable {
         long netLatestHeight = downloaderParams.getNetLatestHeight();
         context.setNetworkHeight(netLatestHeight);
         long startHeight = downloaderParams.getLocalLatestHeight() + 1;
+        downloaderParams.setPendingHeight(startHeight);
         long total = netLatestHeight - startHeight + 1;
         long start = System.currentTimeMillis();
         //5.开启区块下载器BlockDownloader
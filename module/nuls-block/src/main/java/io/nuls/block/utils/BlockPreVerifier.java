@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.utils;
+
+import io.nuls.base.data.Block;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.block.constant.SaveStageEnum;
+import io.nuls.block.manager.ContextManager;
+import io.nuls.block.rpc.call.TransactionCall;
+import io.nuls.core.log.logback.NulsLogger;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * 区块无状态预验证
+ * 梅克尔哈希、区块头签名、交易签名只依赖区块本身, 同步时在保存前一个区块的同时对后续区块提前验证:
+ * 梅克尔哈希与区块头签名在本地验证, 通过后把交易交给交易模块预先验证签名, 结果存入交易模块的已验证签名缓存,
+ * 该区块的tx_batchVerify直接命中缓存。
+ * 保存区块时取预验证结果, 失败的区块不再调用共识模块; 通过的区块告知共识模块已预验证, 共识模块不再重复验证梅克尔哈希与区块头签名。
+ * 只对下载器提前提交过的区块生效, 其余区块仍由共识模块完整验证
+ * <p>
+ * Stateless pre-verification of blocks. During sync the merkle root and the header signature of the next blocks are checked
+ * while the current block is being committed, then their txs are handed to the tx module, which verifies the signatures
+ * into its verified-signature cache. The consensus module is told which blocks passed, and skips those two checks for them.
+ */
+public class BlockPreVerifier {
+
+    private static ExecutorService executor = ThreadUtils.createThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 0, new NulsThreadFactory("block-pre-verify"));
+
+    /**
+     * 已提交的预验证任务
+     */
+    private static Map<Integer, Map<NulsHash, Future<Boolean>>> resultMap = new ConcurrentHashMap<>();
+
+    /**
+     * 初始化
+     *
+     * @param chainId 链Id/chain id
+     */
+    public static void init(int chainId) {
+        resultMap.put(chainId, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * 提交一个区块的预验证任务, 重复提交会被忽略
+     *
+     * @param chainId 链Id/chain id
+     * @param block   区块
+     */
+    public static void submit(int chainId, Block block) {
+        Map<NulsHash, Future<Boolean>> map = resultMap.get(chainId);
+        NulsHash hash = block.getHeader().getHash();
+        if (map.containsKey(hash)) {
+            return;
+        }
+        FutureTask<Boolean> task = new FutureTask<>(() -> timedVerify(chainId, block));
+        if (map.putIfAbsent(hash, task) == null) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                map.remove(hash);
+            }
+        }
+    }
+
+    /**
+     * 取区块的预验证结果
+     *
+     * @param chainId 链Id/chain id
+     * @param block   区块
+     * @return 通过返回true, 失败返回false, 没有提交过或预验证未完成(取消、异常)返回null, 由共识模块完整验证
+     */
+    public static Boolean verify(int chainId, Block block) {
+        Future<Boolean> future = resultMap.get(chainId).remove(block.getHeader().getHash());
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (CancellationException e) {
+            return null;
+        } catch (ExecutionException e) {
+            ContextManager.getContext(chainId).getLogger().error("", e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * 丢弃未取走的预验证结果, 同步结束时调用
+     *
+     * @param chainId 链Id/chain id
+     */
+    public static void clear(int chainId) {
+        Map<NulsHash, Future<Boolean>> map = resultMap.get(chainId);
+        for (Future<Boolean> future : map.values()) {
+            future.cancel(false);
+        }
+        map.clear();
+    }
+
+    private static boolean timedVerify(int chainId, Block block) {
+        long begin = System.nanoTime();
+        boolean result;
+        try {
+            result = statelessVerify(chainId, block);
+        } catch (Exception e) {
+            ContextManager.getContext(chainId).getLogger().error("preVerify fail, height-" + block.getHeader().getHeight(), e);
+            result = false;
+        }
+        SaveStageStats.record(chainId, SaveStageEnum.PRE_VERIFY, System.nanoTime() - begin);
+        return result;
+    }
+
+    /**
+     * 与共识模块BlockValidator中的前两项验证一致, 通过后请求交易模块预先验证交易签名;
+     * 交易签名的预验证只填充缓存, 不影响结果, 签名错误的交易由tx_batchVerify拒绝
+     *
+     * @param chainId 链Id/chain id
+     * @param block   区块
+     * @return 验证结果
+     */
+    static boolean statelessVerify(int chainId, Block block) {
+        NulsLogger logger = ContextManager.getContext(chainId).getLogger();
+        BlockHeader header = block.getHeader();
+        if (header.getMerkleHash() == null || !header.getMerkleHash().equals(NulsHash.calcMerkleHash(block.getTxHashList()))) {
+            logger.error("preVerify fail, merkle hash error! height-" + header.getHeight() + ", hash-" + header.getHash());
+            return false;
+        }
+        if (header.getBlockSignature() == null || header.getBlockSignature().verifySignature(header.getHash()).isFailed()) {
+            logger.error("preVerify fail, block signature error! height-" + header.getHeight() + ", hash-" + header.getHash());
+            return false;
+        }
+        TransactionCall.preVerifySign(chainId, block.getTxs());
+        return true;
+    }
+}
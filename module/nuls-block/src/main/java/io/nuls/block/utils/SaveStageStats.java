@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ * Copyright (c) 2017-2019 nuls.io
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.block.utils;
+
+import io.nuls.block.constant.SaveStageEnum;
+import io.nuls.core.model.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 区块保存各阶段耗时统计, 每个阶段一个按2的幂分桶的直方图(单位毫秒)
+ * Per-stage latency histograms of the block save pipeline, buckets are powers of two in milliseconds
+ */
+public class SaveStageStats {
+
+    /**
+     * 最后一个桶统计131秒以上的耗时
+     */
+    private static final int BUCKETS = 18;
+
+    private static Map<Integer, SaveStageStats> statsMap = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram[] histograms;
+
+    private SaveStageStats() {
+        SaveStageEnum[] stages = SaveStageEnum.values();
+        histograms = new LatencyHistogram[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            histograms[i] = new LatencyHistogram(TimeUnit.MILLISECONDS, BUCKETS);
+        }
+    }
+
+    /**
+     * 初始化
+     *
+     * @param chainId 链Id/chain id
+     */
+    public static void init(int chainId) {
+        statsMap.put(chainId, new SaveStageStats());
+    }
+
+    /**
+     * 记录一次阶段耗时
+     *
+     * @param chainId      链Id/chain id
+     * @param stage        阶段
+     * @param elapsedNanos 耗时(纳秒)
+     */
+    public static void record(int chainId, SaveStageEnum stage, long elapsedNanos) {
+        SaveStageStats stats = statsMap.get(chainId);
+        if (stats == null) {
+            return;
+        }
+        stats.histograms[stage.ordinal()].record(elapsedNanos);
+    }
+
+    /**
+     * 获取各阶段统计, 供RPC接口返回
+     *
+     * @param chainId 链Id/chain id
+     * @return 阶段名-统计信息
+     */
+    public static Map<String, Object> getStats(int chainId) {
+        SaveStageStats stats = statsMap.get(chainId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (stats == null) {
+            return result;
+        }
+        for (SaveStageEnum stage : SaveStageEnum.values()) {
+            result.put(stage.name(), stats.histograms[stage.ordinal()].snapshot());
+        }
+        return result;
+    }
+}
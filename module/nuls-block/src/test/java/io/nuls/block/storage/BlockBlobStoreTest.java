@@ -0,0 +1,104 @@
+package io.nuls.block.storage;
+
+import io.nuls.block.storage.impl.BlockBlobStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BlockBlobStoreTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void appendAndGet() throws Exception {
+        BlockBlobStore store = open(temporaryFolder.getRoot());
+        append(store, 0, 350);
+        for (long height = 0; height <= 350; height++) {
+            assertArrayEquals(block(height), store.get(height));
+        }
+        assertNull(store.get(351));
+        assertEquals(4, store.segmentCount());
+        store.close();
+    }
+
+    @Test
+    public void rollback() throws Exception {
+        BlockBlobStore store = open(temporaryFolder.getRoot());
+        append(store, 0, 350);
+        store.truncateFrom(300);
+        assertEquals(299, store.latestHeight());
+        assertNull(store.get(300));
+        assertEquals(3, store.segmentCount());
+        //分叉切换时直接在较低的高度写入, 更高的记录被截断
+        store.append(240, new byte[]{9});
+        assertEquals(240, store.latestHeight());
+        assertArrayEquals(new byte[]{9}, store.get(240));
+        assertArrayEquals(block(239), store.get(239));
+        store.close();
+    }
+
+    @Test
+    public void prune() throws Exception {
+        BlockBlobStore store = open(temporaryFolder.getRoot());
+        append(store, 0, 350);
+        assertEquals(2, store.prune(250));
+        assertEquals(200, store.firstHeight());
+        assertNull(store.get(199));
+        assertArrayEquals(block(200), store.get(200));
+        store.close();
+    }
+
+    @Test
+    public void recoverBrokenTail() throws Exception {
+        File folder = temporaryFolder.getRoot();
+        BlockBlobStore store = open(folder);
+        append(store, 0, 250);
+        store.close();
+        //模拟写到一半时进程退出
+        try (RandomAccessFile file = new RandomAccessFile(new File(folder, "200.blk"), "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        store = open(folder);
+        assertEquals(249, store.latestHeight());
+        assertArrayEquals(block(249), store.get(249));
+        store.append(250, block(250));
+        assertArrayEquals(block(250), store.get(250));
+        store.close();
+    }
+
+    @Test
+    public void gapRestarts() throws Exception {
+        BlockBlobStore store = open(temporaryFolder.getRoot());
+        append(store, 0, 150);
+        store.append(500, block(500));
+        assertEquals(500, store.firstHeight());
+        assertEquals(500, store.latestHeight());
+        assertEquals(1, store.segmentCount());
+        store.close();
+    }
+
+    private static BlockBlobStore open(File folder) throws Exception {
+        BlockBlobStore store = new BlockBlobStore(folder, 100);
+        store.open();
+        return store;
+    }
+
+    private static void append(BlockBlobStore store, long from, long to) throws Exception {
+        for (long height = from; height <= to; height++) {
+            store.append(height, block(height));
+        }
+    }
+
+    private static byte[] block(long height) {
+        byte[] bytes = new byte[(int) (height % 50) + 1];
+        Arrays.fill(bytes, (byte) height);
+        return bytes;
+    }
+}
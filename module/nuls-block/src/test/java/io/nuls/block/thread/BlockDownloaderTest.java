@@ -20,9 +20,27 @@
 
 package io.nuls.block.thread;
 
+import io.nuls.base.data.Block;
+import io.nuls.block.constant.NodeEnum;
+import io.nuls.block.model.BlockDownloaderParams;
+import io.nuls.block.model.ChainContext;
+import io.nuls.block.model.ChainParameters;
+import io.nuls.block.model.Node;
+import io.nuls.block.utils.LoggerUtil;
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static io.nuls.block.constant.Constant.DOWNLOAD_STRAGGLER_MIN_MILLIS;
+import static org.junit.Assert.*;
 
 public class BlockDownloaderTest {
 
@@ -65,4 +83,305 @@ public class BlockDownloaderTest {
 
         int size = 20 * 100 / 120;
     }
-}
\ No newline at end of file
+
+    @Test
+    public void throughput() {
+        Node node = new Node();
+        node.recordThroughput(100, 1000);
+        assertEquals(100D, node.getThroughput(), 0.001);
+        node.recordThroughput(200, 1000);
+        assertEquals(130D, node.getThroughput(), 0.001);
+        node.slowDown();
+        assertEquals(65D, node.getThroughput(), 0.001);
+    }
+
+    @Test
+    public void signalWakesWaiter() throws Exception {
+        BlockDownloaderParams params = new BlockDownloaderParams();
+        long version = params.getChangedVersion();
+        new Thread(() -> {
+            try {
+                Thread.sleep(50L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            params.signalChanged();
+        }).start();
+        long begin = System.currentTimeMillis();
+        params.awaitChanged(version, 10000L);
+        assertTrue(System.currentTimeMillis() - begin < 5000L);
+        //版本号已变化, 不再等待
+        begin = System.currentTimeMillis();
+        params.awaitChanged(version, 10000L);
+        assertTrue(System.currentTimeMillis() - begin < 100L);
+    }
+
+    /**
+     * 区间大小按信用值缩放, 有实测速度时不超过目标耗时内能下载的区块数, 至少为1
+     */
+    @Test
+    public void rangeSizeByThroughput() {
+        Node unknown = node("unknown", 100, 0);
+        assertEquals(100, BlockDownloader.rangeSize(unknown, 100));
+        unknown.setCredit(50);
+        assertEquals(50, BlockDownloader.rangeSize(unknown, 100));
+        //100块/秒, 2秒内能下载200块, 不超过下载数量
+        assertEquals(100, BlockDownloader.rangeSize(node("fast", 100, 100), 100));
+        //5块/秒, 2秒内只能下载10块
+        assertEquals(10, BlockDownloader.rangeSize(node("slow", 100, 5), 100));
+        assertEquals(1, BlockDownloader.rangeSize(node("stalled", 100, 0.1), 100));
+    }
+
+    /**
+     * 快慢节点同时空闲时, 各自按实测速度分到不同大小的区间
+     */
+    @Test
+    public void rangesFollowNodeSpeed() throws Exception {
+        Node fast = node("fast", 100, 100);
+        Node slow = node("slow", 100, 2);
+        ChainContext context = context(200, 20, fast, slow);
+        RecordingDownloader downloader = new RecordingDownloader(false);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> future = executor.submit(() -> downloader.download(context));
+            waitFor(() -> downloader.rangeCount() >= 2);
+            Thread.sleep(300L);
+            //两个节点都在下载, 不再分配
+            assertEquals(2, downloader.rangeCount());
+            assertRange(downloader.range(0), "fast", 1, 20);
+            assertRange(downloader.range(1), "slow", 21, 24);
+            finish(context, future);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 已请求未消费的高度达到窗口上限时暂停分配, 消费推进后窗口随之前移
+     */
+    @Test
+    public void windowAdvancesWithConsumer() throws Exception {
+        ChainContext context = context(200, 10, node("a", 100, 0), node("b", 100, 0));
+        RecordingDownloader downloader = new RecordingDownloader(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> future = executor.submit(() -> downloader.download(context));
+            //窗口 = 10 * max(2, 2 * 2) = 40
+            waitFor(() -> downloader.maxEndHeight() == 40);
+            Thread.sleep(300L);
+            assertEquals(40, downloader.maxEndHeight());
+            assertEquals(4, downloader.rangeCount());
+
+            BlockDownloaderParams params = context.getDownloaderParams();
+            params.setPendingHeight(21);
+            params.signalChanged();
+            waitFor(() -> downloader.maxEndHeight() == 60);
+            Thread.sleep(300L);
+            assertEquals(60, downloader.maxEndHeight());
+            //区间连续且不重叠
+            long next = 1;
+            for (int i = 0; i < downloader.rangeCount(); i++) {
+                assertEquals(next, downloader.range(i).startHeight);
+                next = downloader.range(i).endHeight + 1;
+            }
+            finish(context, future);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 负责消费者等待高度的节点超过预期耗时, 把剩余区间转给空闲节点, 并降低慢节点的速度估计
+     */
+    @Test
+    public void reRequestSlowOwner() {
+        Node owner = node("owner", 100, 10);
+        Node idle = node("idle", 100, 100);
+        ChainContext context = context(200, 20, owner, idle);
+        RecordingDownloader downloader = new RecordingDownloader(false);
+        downloader.now = 100000L;
+        downloader.sendRange(owner, 1, 20);
+        downloader.ranges.clear();
+
+        //第一次发现等待, 只记录开始等待的时间
+        downloader.now += 100;
+        downloader.reRequestStraggler(context, 21, 20);
+        assertEquals(0, downloader.rangeCount());
+        //20块按10块/秒预期2秒, 3倍即6秒内不算慢
+        downloader.now += 5000;
+        downloader.reRequestStraggler(context, 21, 20);
+        assertEquals(0, downloader.rangeCount());
+
+        downloader.now += 1000;
+        downloader.reRequestStraggler(context, 21, 20);
+        assertEquals(1, downloader.rangeCount());
+        assertRange(downloader.range(0), "idle", 1, 20);
+        assertEquals(5D, owner.getThroughput(), 0.001);
+
+        //刚重新请求过, 不会立即再次请求
+        idle.setNodeEnum(NodeEnum.IDLE);
+        downloader.now += 100;
+        downloader.reRequestStraggler(context, 21, 20);
+        assertEquals(1, downloader.rangeCount());
+    }
+
+    /**
+     * 等待的高度已分配过但没有节点在下载时, 等待超过DOWNLOAD_STRAGGLER_MIN_MILLIS后重新请求, 区间不超过已分配的高度
+     */
+    @Test
+    public void reRequestOrphanedRange() {
+        Node idle = node("idle", 100, 0);
+        ChainContext context = context(200, 20, idle);
+        context.getDownloaderParams().setPendingHeight(11);
+        RecordingDownloader downloader = new RecordingDownloader(false);
+        downloader.now = 100000L;
+
+        downloader.reRequestStraggler(context, 16, 20);
+        downloader.now += DOWNLOAD_STRAGGLER_MIN_MILLIS - 1;
+        downloader.reRequestStraggler(context, 16, 20);
+        assertEquals(0, downloader.rangeCount());
+
+        downloader.now += 1;
+        downloader.reRequestStraggler(context, 16, 20);
+        assertEquals(1, downloader.rangeCount());
+        assertRange(downloader.range(0), "idle", 11, 15);
+    }
+
+    /**
+     * 等待的区块已在缓存中或尚未分配时不重新请求
+     */
+    @Test
+    public void noReRequestWhenNotStalled() {
+        Node owner = node("owner", 100, 10);
+        Node idle = node("idle", 100, 100);
+        ChainContext context = context(200, 20, owner, idle);
+        RecordingDownloader downloader = new RecordingDownloader(false);
+        downloader.now = 100000L;
+        downloader.sendRange(owner, 1, 20);
+        downloader.ranges.clear();
+
+        context.getBlockMap().put(1L, new Block());
+        downloader.reRequestStraggler(context, 21, 20);
+        downloader.now += 60000L;
+        downloader.reRequestStraggler(context, 21, 20);
+        assertEquals(0, downloader.rangeCount());
+
+        context.getBlockMap().clear();
+        downloader.reRequestStraggler(context, 1, 20);
+        downloader.now += 60000L;
+        downloader.reRequestStraggler(context, 1, 20);
+        assertEquals(0, downloader.rangeCount());
+    }
+
+    private static Node node(String id, int credit, double throughput) {
+        Node node = new Node();
+        node.setId(id);
+        node.setCredit(credit);
+        node.setNodeEnum(NodeEnum.IDLE);
+        if (throughput > 0) {
+            //第一次记录直接作为速度估计
+            node.recordThroughput((long) (throughput * 1000), 1000000);
+        }
+        return node;
+    }
+
+    private static ChainContext context(long netLatestHeight, int downloadNumber, Node... nodes) {
+        ChainParameters parameters = new ChainParameters();
+        parameters.setDownloadNumber((byte) downloadNumber);
+        parameters.setCachedBlockSizeLimit(Integer.MAX_VALUE);
+        BlockDownloaderParams params = new BlockDownloaderParams();
+        params.setNetLatestHeight(netLatestHeight);
+        params.setLocalLatestHeight(0);
+        params.setPendingHeight(1);
+        List<Node> nodeList = new ArrayList<>();
+        Collections.addAll(nodeList, nodes);
+        params.setNodes(nodeList);
+        ChainContext context = new ChainContext();
+        context.setParameters(parameters);
+        context.setDownloaderParams(params);
+        context.setCachedBlockSize(new AtomicInteger(0));
+        context.setLogger(LoggerUtil.COMMON_LOG);
+        context.setNeedSyn(true);
+        return context;
+    }
+
+    private static void finish(ChainContext context, Future<Boolean> future) throws Exception {
+        BlockDownloaderParams params = context.getDownloaderParams();
+        params.setPendingHeight(params.getNetLatestHeight() + 1);
+        params.signalChanged();
+        assertTrue(future.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (!condition.getAsBoolean()) {
+            assertTrue("timeout", System.currentTimeMillis() < deadline);
+            Thread.sleep(10L);
+        }
+    }
+
+    private static void assertRange(Range range, String nodeId, long startHeight, long endHeight) {
+        assertEquals(nodeId, range.nodeId);
+        assertEquals(startHeight, range.startHeight);
+        assertEquals(endHeight, range.endHeight);
+    }
+
+    private static class Range {
+        final String nodeId;
+        final long startHeight;
+        final long endHeight;
+
+        Range(String nodeId, long startHeight, long endHeight) {
+            this.nodeId = nodeId;
+            this.startHeight = startHeight;
+            this.endHeight = endHeight;
+        }
+    }
+
+    /**
+     * 不发送网络消息, 只记录分配的区间; completeImmediately为true时节点立即恢复空闲, 模拟下载瞬间完成
+     */
+    private static class RecordingDownloader extends BlockDownloader {
+        final List<Range> ranges = Collections.synchronizedList(new ArrayList<>());
+        final boolean completeImmediately;
+        volatile long now = 1L;
+
+        RecordingDownloader(boolean completeImmediately) {
+            super(2);
+            this.completeImmediately = completeImmediately;
+        }
+
+        @Override
+        boolean sendRange(Node node, long startHeight, long endHeight) {
+            node.setStartHeight(startHeight);
+            node.setEndHeight(endHeight);
+            node.setStartTime(currentTimeMillis());
+            node.setNodeEnum(completeImmediately ? NodeEnum.IDLE : NodeEnum.WORKING);
+            ranges.add(new Range(node.getId(), startHeight, endHeight));
+            return true;
+        }
+
+        @Override
+        long currentTimeMillis() {
+            return now;
+        }
+
+        int rangeCount() {
+            return ranges.size();
+        }
+
+        Range range(int index) {
+            return ranges.get(index);
+        }
+
+        long maxEndHeight() {
+            synchronized (ranges) {
+                long max = 0;
+                for (Range range : ranges) {
+                    max = Math.max(max, range.endHeight);
+                }
+                return max;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package io.nuls.block.utils;
+
+import io.nuls.block.constant.SaveStageEnum;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class SaveStageStatsTest {
+
+    @Test
+    public void percentiles() {
+        int chainId = 99;
+        SaveStageStats.init(chainId);
+        for (int i = 0; i < 90; i++) {
+            SaveStageStats.record(chainId, SaveStageEnum.TX_SAVE, 3_000_000L);
+        }
+        for (int i = 0; i < 10; i++) {
+            SaveStageStats.record(chainId, SaveStageEnum.TX_SAVE, 100_000_000L);
+        }
+        Map<String, Object> stats = (Map<String, Object>) SaveStageStats.getStats(chainId).get(SaveStageEnum.TX_SAVE.name());
+        assertEquals(100L, stats.get("count"));
+        assertEquals(100L, stats.get("maxMillis"));
+        assertEquals(4L, stats.get("p50Millis"));
+        assertEquals(4L, stats.get("p90Millis"));
+        assertEquals(128L, stats.get("p99Millis"));
+        assertEquals(0L, ((Map<String, Object>) SaveStageStats.getStats(chainId).get(SaveStageEnum.VERIFY.name())).get("count"));
+    }
+}
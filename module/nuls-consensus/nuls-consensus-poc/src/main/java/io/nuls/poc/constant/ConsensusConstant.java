@@ -184,6 +184,12 @@ public interface ConsensusConstant {
 
     int ROUND_CACHE_COUNT = 10;
 
+    /**
+     * 缓存的共识状态索引个数
+     * Number of cached consensus state indexes
+     */
+    int ROUND_STATE_CACHE_COUNT = 4;
+
     int RPC_CALL_TRY_COUNT = 5;
 
     byte VALUE_OF_ONE_HUNDRED =100;
@@ -8,7 +8,10 @@ import io.nuls.core.log.Log;
 import io.nuls.core.parse.I18nUtils;
 import io.nuls.poc.model.bo.config.ConfigBean;
 import io.nuls.poc.model.bo.consensus.Evidence;
+import io.nuls.poc.constant.ConsensusConstant;
 import io.nuls.poc.model.bo.round.MeetingRound;
+import io.nuls.poc.model.bo.round.CreditWindow;
+import io.nuls.poc.model.bo.round.RoundStateSnapshot;
 import io.nuls.poc.model.bo.tx.txdata.Agent;
 import io.nuls.poc.model.bo.tx.txdata.Deposit;
 import io.nuls.poc.model.po.PunishLogPo;
@@ -113,6 +116,23 @@ public class Chain {
 
     private final Lock roundLock = new ReentrantLock();
 
+    /**
+     * 最近几个高度的共识状态索引, 同一高度的轮次计算复用
+     * Consensus state indexes of the latest heights, reused by round computation at the same height
+     */
+    private final Map<Long, RoundStateSnapshot> roundStateCache = new LinkedHashMap<Long, RoundStateSnapshot>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, RoundStateSnapshot> eldest) {
+            return size() > ConsensusConstant.ROUND_STATE_CACHE_COUNT;
+        }
+    };
+
+    /**
+     * 信誉值窗口计数器, 随区块头与黄牌缓存增量更新
+     * Credit window counters, updated incrementally with the block header and yellow punish caches
+     */
+    private final CreditWindow creditWindow = new CreditWindow();
+
     private NulsLogger logger;
 
     private boolean cacheLoaded;
@@ -126,9 +146,9 @@ public class Chain {
     public Chain() {
         this.consensusStatus = ConsensusStatus.RUNNING;
         this.canPacking = false;
-        this.agentList = new ArrayList<>();
-        this.depositList = new ArrayList<>();
-        this.yellowPunishList = new ArrayList<>();
+        this.agentList = new VersionedList<>();
+        this.depositList = new VersionedList<>();
+        this.yellowPunishList = new VersionedList<>();
         this.redPunishList = new ArrayList<>();
         this.evidenceMap = new HashMap<>();
         this.redPunishTransactionList = new ArrayList<>();
@@ -277,7 +297,7 @@ public class Chain {
     }
 
     public void setAgentList(List<Agent> agentList) {
-        this.agentList = agentList;
+        this.agentList = toVersionedList(agentList);
     }
 
     public List<Deposit> getDepositList() {
@@ -285,7 +305,7 @@ public class Chain {
     }
 
     public void setDepositList(List<Deposit> depositList) {
-        this.depositList = depositList;
+        this.depositList = toVersionedList(depositList);
     }
 
     public List<PunishLogPo> getYellowPunishList() {
@@ -293,7 +313,7 @@ public class Chain {
     }
 
     public void setYellowPunishList(List<PunishLogPo> yellowPunishList) {
-        this.yellowPunishList = yellowPunishList;
+        this.yellowPunishList = toVersionedList(yellowPunishList);
     }
 
     public List<PunishLogPo> getRedPunishList() {
@@ -341,7 +361,7 @@ public class Chain {
     }
 
     public void setBlockHeaderList(List<BlockHeader> blockHeaderList) {
-        this.blockHeaderList = blockHeaderList;
+        this.blockHeaderList = toVersionedList(blockHeaderList);
     }
 
     public ScheduledThreadPoolExecutor getScheduledThreadPoolExecutor() {
@@ -352,6 +372,21 @@ public class Chain {
         this.scheduledThreadPoolExecutor = scheduledThreadPoolExecutor;
     }
 
+    public Map<Long, RoundStateSnapshot> getRoundStateCache() {
+        return roundStateCache;
+    }
+
+    public CreditWindow getCreditWindow() {
+        return creditWindow;
+    }
+
+    private static <E> List<E> toVersionedList(List<E> list) {
+        if (list == null || list instanceof VersionedList) {
+            return list;
+        }
+        return new VersionedList<>(list);
+    }
+
     public Lock getRoundLock() {
         return roundLock;
     }
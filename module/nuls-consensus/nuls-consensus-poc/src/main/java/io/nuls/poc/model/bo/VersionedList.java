@@ -0,0 +1,67 @@
+/*
+ * *
+ *  * MIT License
+ *  *
+ *  * Copyright (c) 2017-2019 nuls.io
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package io.nuls.poc.model.bo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * 记录修改版本的列表, 链上的节点、委托、黄牌、区块头缓存使用该列表, 轮次计算的索引据此判断缓存是否失效
+ * List that records a modification version, used by the agent, deposit, punish and block header caches of a chain
+ * so that round computation can tell whether its index is still valid
+ */
+public class VersionedList<E> extends ArrayList<E> {
+
+    /**
+     * set次数, ArrayList的set不增加modCount, 单独计数以免影响迭代器的并发修改检查
+     */
+    private int setCount;
+
+    public VersionedList() {
+        super();
+    }
+
+    public VersionedList(Collection<? extends E> c) {
+        super(c);
+    }
+
+    /**
+     * 结构性修改(增删、排序)与set都会改变版本
+     * Structural modifications, sort and set all change the version
+     *
+     * @return 当前版本/current version
+     */
+    public int getVersion() {
+        return modCount + setCount;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        E old = super.set(index, element);
+        setCount++;
+        return old;
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * *
+ *  * MIT License
+ *  *
+ *  * Copyright (c) 2017-2019 nuls.io
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package io.nuls.poc.model.bo.round;
+
+import io.nuls.base.data.BlockHeader;
+import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.poc.model.bo.Chain;
+import io.nuls.poc.model.bo.VersionedList;
+import io.nuls.poc.model.po.PunishLogPo;
+
+import java.util.*;
+
+/**
+ * 信誉值窗口计数器
+ * 按轮次记录各打包地址的出块数与各地址的黄牌数, 区块头与黄牌缓存增删时增量更新,
+ * 相邻轮次的信誉值窗口(RANGE_OF_CAPACITY_COEFFICIENT轮)只移入移出边界轮次, 不再遍历整个缓存
+ * <p>
+ * Sliding credit window counters. Block counts per packing address and yellow punish counts per address are
+ * kept per round and updated as the block header and yellow punish caches change, so moving the credit window
+ * (RANGE_OF_CAPACITY_COEFFICIENT rounds) to an adjacent round only touches the rounds entering and leaving it.
+ */
+public class CreditWindow {
+
+    private final RoundCounter<BlockHeader> blockCounter;
+
+    private final RoundCounter<PunishLogPo> punishCounter;
+
+    public CreditWindow() {
+        this.blockCounter = new RoundCounter<BlockHeader>() {
+            @Override
+            long roundOf(BlockHeader header) {
+                return header.getExtendsData().getRoundIndex();
+            }
+
+            @Override
+            ByteArrayWrapper keyOf(BlockHeader header, int chainId) {
+                return new ByteArrayWrapper(header.getPackingAddress(chainId));
+            }
+        };
+        this.punishCounter = new RoundCounter<PunishLogPo>() {
+            @Override
+            long roundOf(PunishLogPo po) {
+                return po.getRoundIndex();
+            }
+
+            @Override
+            ByteArrayWrapper keyOf(PunishLogPo po, int chainId) {
+                return new ByteArrayWrapper(po.getAddress());
+            }
+        };
+    }
+
+    /**
+     * 修改区块头缓存前取得的标记, 修改后连同增删的区块头传给headersChanged
+     * Mark taken before the block header cache is modified, passed to headersChanged afterwards
+     */
+    public int headerMark(Chain chain) {
+        return versionOf(chain.getBlockHeaderList());
+    }
+
+    public void headersChanged(Chain chain, int mark, List<BlockHeader> added, List<BlockHeader> removed) {
+        blockCounter.changed(chain.getConfig().getChainId(), chain.getBlockHeaderList(), mark, added, removed);
+    }
+
+    public int punishMark(Chain chain) {
+        return versionOf(chain.getYellowPunishList());
+    }
+
+    public void punishesChanged(Chain chain, int mark, List<PunishLogPo> added, List<PunishLogPo> removed) {
+        punishCounter.changed(chain.getConfig().getChainId(), chain.getYellowPunishList(), mark, added, removed);
+    }
+
+    /**
+     * 窗口内各打包地址的出块数, 区块头缓存不是按轮次排列时返回null, 由调用方逐个扫描
+     * Block counts per packing address inside [roundStart, roundEnd], or null when the cache is not ordered by round
+     */
+    public Map<ByteArrayWrapper, Long> getBlockCounts(Chain chain, long roundStart, long roundEnd) {
+        return blockCounter.window(chain.getConfig().getChainId(), chain.getBlockHeaderList(), roundStart, roundEnd);
+    }
+
+    /**
+     * 窗口内各地址的黄牌数, 黄牌缓存不是按轮次排列时返回null
+     * Yellow punish counts per address inside [roundStart, roundEnd], or null when the cache is not ordered by round
+     */
+    public Map<ByteArrayWrapper, Long> getYellowPunishCounts(Chain chain, long roundStart, long roundEnd) {
+        return punishCounter.window(chain.getConfig().getChainId(), chain.getYellowPunishList(), roundStart, roundEnd);
+    }
+
+    static int versionOf(List<?> list) {
+        if (list instanceof VersionedList) {
+            return ((VersionedList<?>) list).getVersion();
+        }
+        return -1;
+    }
+
+    /**
+     * 单个缓存列表的按轮次计数
+     * 列表按轮次非递减排列时, 窗口内计数与从尾部倒序扫描的结果一致;
+     * 计数只在列表版本与上次同步时一致的情况下增量更新, 否则下次查询时重建
+     */
+    abstract static class RoundCounter<E> {
+
+        private final TreeMap<Long, Map<ByteArrayWrapper, Long>> roundMap = new TreeMap<>();
+
+        private final Map<ByteArrayWrapper, Long> windowMap = new HashMap<>();
+
+        private long windowStart = 0L;
+
+        private long windowEnd = -1L;
+
+        private List<E> list;
+
+        private int version = -1;
+
+        private int size;
+
+        private boolean ordered;
+
+        private int chainId;
+
+        abstract long roundOf(E e);
+
+        abstract ByteArrayWrapper keyOf(E e, int chainId);
+
+        synchronized void changed(int chainId, List<E> current, int mark, List<E> added, List<E> removed) {
+            this.chainId = chainId;
+            if (!ordered || current != list || mark < 0 || mark != version
+                    || current.size() != size + added.size() - removed.size()) {
+                invalidate();
+                return;
+            }
+            for (E e : removed) {
+                add(e, -1L);
+            }
+            for (E e : added) {
+                //追加的轮次小于已有最大轮次时列表不再有序
+                if (!roundMap.isEmpty() && roundOf(e) < roundMap.lastKey()) {
+                    invalidate();
+                    return;
+                }
+                add(e, 1L);
+            }
+            version = versionOf(current);
+            size = current.size();
+        }
+
+        synchronized Map<ByteArrayWrapper, Long> window(int chainId, List<E> current, long roundStart, long roundEnd) {
+            this.chainId = chainId;
+            int currentVersion = versionOf(current);
+            if (current != list || currentVersion < 0 || currentVersion != version) {
+                rebuild(current);
+            }
+            if (!ordered) {
+                return null;
+            }
+            slide(roundStart, roundEnd);
+            return new HashMap<>(windowMap);
+        }
+
+        private void invalidate() {
+            version = -1;
+        }
+
+        private void rebuild(List<E> current) {
+            roundMap.clear();
+            windowMap.clear();
+            windowStart = 0L;
+            windowEnd = -1L;
+            list = current;
+            version = versionOf(current);
+            size = current.size();
+            ordered = true;
+            long lastRound = Long.MIN_VALUE;
+            for (E e : current) {
+                long round = roundOf(e);
+                if (round < lastRound) {
+                    ordered = false;
+                    roundMap.clear();
+                    return;
+                }
+                lastRound = round;
+                add(e, 1L);
+            }
+        }
+
+        private void add(E e, long delta) {
+            long round = roundOf(e);
+            ByteArrayWrapper key = keyOf(e, chainId);
+            Map<ByteArrayWrapper, Long> countMap = roundMap.computeIfAbsent(round, k -> new HashMap<>());
+            merge(countMap, key, delta);
+            if (countMap.isEmpty()) {
+                roundMap.remove(round);
+            }
+            if (round >= windowStart && round <= windowEnd) {
+                merge(windowMap, key, delta);
+            }
+        }
+
+        /**
+         * 窗口移到[roundStart, roundEnd], 重叠时只处理移入移出的轮次
+         */
+        private void slide(long roundStart, long roundEnd) {
+            if (roundStart == windowStart && roundEnd == windowEnd) {
+                return;
+            }
+            long overlapStart = Math.max(roundStart, windowStart);
+            long overlapEnd = Math.min(roundEnd, windowEnd);
+            if (overlapStart > overlapEnd) {
+                windowMap.clear();
+                apply(roundStart, roundEnd, 1L);
+            } else {
+                apply(windowStart, overlapStart - 1, -1L);
+                apply(overlapEnd + 1, windowEnd, -1L);
+                apply(roundStart, overlapStart - 1, 1L);
+                apply(overlapEnd + 1, roundEnd, 1L);
+            }
+            windowStart = roundStart;
+            windowEnd = roundEnd;
+        }
+
+        private void apply(long from, long to, long sign) {
+            if (from > to) {
+                return;
+            }
+            for (Map<ByteArrayWrapper, Long> countMap : roundMap.subMap(from, true, to, true).values()) {
+                for (Map.Entry<ByteArrayWrapper, Long> entry : countMap.entrySet()) {
+                    merge(windowMap, entry.getKey(), sign * entry.getValue());
+                }
+            }
+        }
+
+        private static void merge(Map<ByteArrayWrapper, Long> map, ByteArrayWrapper key, long delta) {
+            Long value = map.merge(key, delta, Long::sum);
+            if (value != null && value == 0L) {
+                map.remove(key);
+            }
+        }
+    }
+}
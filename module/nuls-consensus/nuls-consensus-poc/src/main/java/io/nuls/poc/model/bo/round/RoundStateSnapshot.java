@@ -0,0 +1,417 @@
+/*
+ * *
+ *  * MIT License
+ *  *
+ *  * Copyright (c) 2017-2019 nuls.io
+ *  *
+ *  * Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  * of this software and associated documentation files (the "Software"), to deal
+ *  * in the Software without restriction, including without limitation the rights
+ *  * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  * copies of the Software, and to permit persons to whom the Software is
+ *  * furnished to do so, subject to the following conditions:
+ *  *
+ *  * The above copyright notice and this permission notice shall be included in all
+ *  * copies or substantial portions of the Software.
+ *  *
+ *  * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  * SOFTWARE.
+ *
+ */
+package io.nuls.poc.model.bo.round;
+
+import io.nuls.base.data.BlockExtendsData;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.core.exception.NulsException;
+import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.poc.constant.ConsensusConstant;
+import io.nuls.poc.model.bo.Chain;
+import io.nuls.poc.model.bo.tx.txdata.Agent;
+import io.nuls.poc.model.bo.tx.txdata.Deposit;
+import io.nuls.poc.model.po.PunishLogPo;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 某个高度的共识状态索引, 轮次计算所需的数据一次遍历建好:
+ * 有效节点列表、按节点分组的委托、信誉值窗口内各地址的出块数与黄牌数.
+ * 计算一个轮次从 O(节点数 × 委托数) 降为 O(成员数), 同一高度的重复计算直接复用.
+ * 节点、委托缓存未变化时由上一个索引增量推导, 只重算两个高度之间有创建或注销的节点与委托
+ * <p>
+ * Consensus state index at a given height. Everything round computation needs is built in one pass:
+ * the alive agents, deposits grouped by agent hash, and the block and yellow punish counts per address
+ * inside the credit window. Building a round becomes O(members) and is reused for the same height.
+ * While the agent and deposit caches are unchanged the index is derived from the previous one, recomputing only
+ * the agents and deposits created or removed between the two heights.
+ */
+public class RoundStateSnapshot {
+
+    private final long height;
+    private final NulsHash hash;
+    private final int[] versions;
+
+    private final AgentIndex agentIndex;
+    private final DepositIndex depositIndex;
+
+    private final List<Agent> aliveAgentList;
+    private final Map<NulsHash, List<Deposit>> depositMap;
+    private final Map<ByteArrayWrapper, Long> blockCountMap;
+    private final Map<ByteArrayWrapper, Long> yellowPunishCountMap;
+
+    /**
+     * 有效节点的模板副本, 轮次成员由模板clone得到, 不再每轮序列化再反序列化
+     */
+    private final Map<Agent, Agent> templateMap;
+
+    private RoundStateSnapshot(long height, NulsHash hash, int[] versions, AgentIndex agentIndex, DepositIndex depositIndex,
+                               List<Agent> aliveAgentList, Map<NulsHash, List<Deposit>> depositMap,
+                               Map<ByteArrayWrapper, Long> blockCountMap, Map<ByteArrayWrapper, Long> yellowPunishCountMap,
+                               Map<Agent, Agent> templateMap) {
+        this.height = height;
+        this.hash = hash;
+        this.versions = versions;
+        this.agentIndex = agentIndex;
+        this.depositIndex = depositIndex;
+        this.aliveAgentList = aliveAgentList;
+        this.depositMap = depositMap;
+        this.blockCountMap = blockCountMap;
+        this.yellowPunishCountMap = yellowPunishCountMap;
+        this.templateMap = templateMap;
+    }
+
+    public static RoundStateSnapshot build(Chain chain, BlockHeader startBlockHeader) {
+        return build(chain, startBlockHeader, null);
+    }
+
+    /**
+     * 以上一轮次的起始区块为准建立索引, 结果与RoundManager原有的逐个节点扫描完全一致
+     * Build the index at the first block of the previous round, with results identical to the former per-agent scans
+     *
+     * @param chain            chain info
+     * @param startBlockHeader 上一轮次的起始区块/Initial blocks of the last round
+     * @param previous         最近一次建立的索引, 可以为null/the latest index built, may be null
+     * @return RoundStateSnapshot
+     */
+    public static RoundStateSnapshot build(Chain chain, BlockHeader startBlockHeader, RoundStateSnapshot previous) {
+        long startBlockHeight = startBlockHeader.getHeight();
+        /*
+        有效节点, 与原来一样倒序遍历; 节点缓存未变化且两个高度之间没有节点创建或注销时沿用上一个索引的列表
+        Alive agents, iterated backwards as before; reused from the previous index when nothing changed in between
+        */
+        List<Agent> agentList = chain.getAgentList();
+        AgentIndex agentIndex;
+        List<Agent> aliveAgentList;
+        Map<Agent, Agent> templateMap;
+        if (previous != null && previous.agentIndex.matches(agentList)) {
+            agentIndex = previous.agentIndex;
+            templateMap = previous.templateMap;
+            if (agentIndex.changedBetween(previous.height, startBlockHeight)) {
+                aliveAgentList = agentIndex.aliveAt(startBlockHeight);
+            } else {
+                aliveAgentList = previous.aliveAgentList;
+            }
+        } else {
+            agentIndex = new AgentIndex(agentList);
+            aliveAgentList = agentIndex.aliveAt(startBlockHeight);
+            templateMap = Collections.synchronizedMap(new IdentityHashMap<>());
+            if (previous != null) {
+                for (Agent agent : aliveAgentList) {
+                    Agent template = previous.templateMap.get(agent);
+                    if (template != null) {
+                        templateMap.put(agent, template);
+                    }
+                }
+            }
+        }
+        /*
+        按节点分组的委托, 每组内保持倒序; 委托缓存未变化时只重算两个高度之间有委托创建或退出的节点
+        Deposits grouped by agent hash, each group keeps the backward order; while the deposit cache is unchanged
+        only the agents with deposits created or cancelled between the two heights are regrouped
+        */
+        List<Deposit> depositList = chain.getDepositList();
+        DepositIndex depositIndex;
+        Map<NulsHash, List<Deposit>> depositMap;
+        if (previous != null && previous.depositIndex.matches(depositList)) {
+            depositIndex = previous.depositIndex;
+            depositMap = new HashMap<>(previous.depositMap);
+            for (NulsHash agentHash : depositIndex.changedBetween(previous.height, startBlockHeight)) {
+                List<Deposit> aliveList = depositIndex.aliveAt(agentHash, startBlockHeight);
+                if (aliveList.isEmpty()) {
+                    depositMap.remove(agentHash);
+                } else {
+                    depositMap.put(agentHash, aliveList);
+                }
+            }
+        } else {
+            depositIndex = new DepositIndex(depositList);
+            depositMap = depositIndex.aliveAt(startBlockHeight);
+        }
+        /*
+        信誉值计算窗口
+        Credit value window
+        */
+        BlockExtendsData roundData = startBlockHeader.getExtendsData();
+        long roundStart = roundData.getRoundIndex() - ConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT;
+        if (roundStart < 0) {
+            roundStart = 0;
+        }
+        long roundEnd = roundData.getRoundIndex() - 1;
+
+        CreditWindow creditWindow = chain.getCreditWindow();
+        Map<ByteArrayWrapper, Long> blockCountMap = creditWindow.getBlockCounts(chain, roundStart, roundEnd);
+        if (blockCountMap == null) {
+            blockCountMap = scanBlockCounts(chain, roundStart, roundEnd);
+        }
+        Map<ByteArrayWrapper, Long> yellowPunishCountMap = creditWindow.getYellowPunishCounts(chain, roundStart, roundEnd);
+        if (yellowPunishCountMap == null) {
+            yellowPunishCountMap = scanYellowPunishCounts(chain, roundStart, roundEnd);
+        }
+        return new RoundStateSnapshot(startBlockHeight, startBlockHeader.getHash(), versionsOf(chain), agentIndex, depositIndex,
+                aliveAgentList, depositMap, blockCountMap, yellowPunishCountMap, templateMap);
+    }
+
+    /**
+     * 缓存未按轮次排列时逐个扫描, 与原有逻辑一致
+     */
+    private static Map<ByteArrayWrapper, Long> scanBlockCounts(Chain chain, long roundStart, long roundEnd) {
+        int chainId = chain.getConfig().getChainId();
+        Map<ByteArrayWrapper, Long> blockCountMap = new HashMap<>();
+        List<BlockHeader> blockHeaderList = chain.getBlockHeaderList();
+        for (int i = blockHeaderList.size() - 1; i >= 0; i--) {
+            BlockHeader blockHeader = blockHeaderList.get(i);
+            long roundIndex = blockHeader.getExtendsData().getRoundIndex();
+            if (roundIndex > roundEnd) {
+                continue;
+            }
+            if (roundIndex < roundStart) {
+                break;
+            }
+            blockCountMap.merge(new ByteArrayWrapper(blockHeader.getPackingAddress(chainId)), 1L, Long::sum);
+        }
+        return blockCountMap;
+    }
+
+    private static Map<ByteArrayWrapper, Long> scanYellowPunishCounts(Chain chain, long roundStart, long roundEnd) {
+        Map<ByteArrayWrapper, Long> yellowPunishCountMap = new HashMap<>();
+        List<PunishLogPo> punishList = chain.getYellowPunishList();
+        for (int i = punishList.size() - 1; i >= 0; i--) {
+            PunishLogPo punish = punishList.get(i);
+            if (punish.getRoundIndex() > roundEnd) {
+                continue;
+            }
+            if (punish.getRoundIndex() < roundStart) {
+                break;
+            }
+            yellowPunishCountMap.merge(new ByteArrayWrapper(punish.getAddress()), 1L, Long::sum);
+        }
+        return yellowPunishCountMap;
+    }
+
+    /**
+     * 链上缓存数据的版本, 任何一个变化都会使索引失效
+     */
+    static int[] versionsOf(Chain chain) {
+        return new int[]{
+                versionOf(chain.getAgentList()),
+                versionOf(chain.getDepositList()),
+                versionOf(chain.getYellowPunishList()),
+                versionOf(chain.getBlockHeaderList())
+        };
+    }
+
+    private static int versionOf(List<?> list) {
+        //非版本列表无法判断是否修改, 此时索引不复用
+        return CreditWindow.versionOf(list);
+    }
+
+    /**
+     * 索引是否仍对应该区块与链上当前的缓存数据
+     * Whether the index still matches the block and the current caches of the chain
+     */
+    public boolean isValid(Chain chain, BlockHeader startBlockHeader) {
+        if (height != startBlockHeader.getHeight() || !hash.equals(startBlockHeader.getHash())) {
+            return false;
+        }
+        int[] current = versionsOf(chain);
+        for (int v : current) {
+            if (v < 0) {
+                return false;
+            }
+        }
+        return Arrays.equals(versions, current);
+    }
+
+    public List<Agent> getAliveAgentList() {
+        return aliveAgentList;
+    }
+
+    /**
+     * 节点的有效委托列表, 返回新列表, 调用方可以自由修改
+     *
+     * @param agentHash 节点ID/agent hash
+     * @return List<Deposit>
+     */
+    public List<Deposit> getDepositList(NulsHash agentHash) {
+        List<Deposit> list = depositMap.get(agentHash);
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
+    }
+
+    /**
+     * 信誉值窗口内打包地址的出块数
+     */
+    public long getBlockCount(byte[] packingAddress) {
+        return blockCountMap.getOrDefault(new ByteArrayWrapper(packingAddress), 0L);
+    }
+
+    /**
+     * 信誉值窗口内地址的黄牌数, 最多CREDIT_MAGIC_NUM
+     * 每一轮的惩罚都有可能包含上一轮次的惩罚记录, 100轮最多可能有101个惩罚记录, 在这里处理下
+     * Each round of punishment may contain a record of the round before, so 100 rounds may hold 101 records, capped here
+     */
+    public long getYellowPunishCount(byte[] address) {
+        return Math.min(yellowPunishCountMap.getOrDefault(new ByteArrayWrapper(address), 0L), ConsensusConstant.CREDIT_MAGIC_NUM);
+    }
+
+    /**
+     * 轮次成员使用的节点副本, 与原来的parse(serialize())结果相同: 只含序列化字段与交易hash
+     * Copy of an alive agent for a round member, equal to the former parse(serialize()) copy:
+     * only the serialized fields and the transaction hash are set
+     *
+     * @param agent 有效节点/alive agent
+     * @return Agent
+     */
+    public Agent copyAgent(Agent agent) throws NulsException, IOException, CloneNotSupportedException {
+        Agent template = templateMap.get(agent);
+        if (template == null) {
+            template = new Agent();
+            template.parse(agent.serialize(), 0);
+            template.setTxHash(agent.getTxHash());
+            templateMap.put(agent, template);
+        }
+        return template.clone();
+    }
+
+    public long getHeight() {
+        return height;
+    }
+
+    private static boolean isAlive(long blockHeight, long delHeight, long height) {
+        if (delHeight != -1L && delHeight <= height) {
+            return false;
+        }
+        return blockHeight <= height && blockHeight >= 0L;
+    }
+
+    /**
+     * 节点缓存某个版本上的创建、注销高度
+     */
+    private static class AgentIndex {
+        private final List<Agent> list;
+        private final int version;
+        private final TreeSet<Long> eventHeights = new TreeSet<>();
+
+        AgentIndex(List<Agent> list) {
+            this.list = list;
+            this.version = versionOf(list);
+            for (Agent agent : list) {
+                eventHeights.add(agent.getBlockHeight());
+                eventHeights.add(agent.getDelHeight());
+            }
+        }
+
+        boolean matches(List<Agent> current) {
+            return current == list && version >= 0 && versionOf(current) == version;
+        }
+
+        /**
+         * 两个高度之间是否有节点创建或注销
+         */
+        boolean changedBetween(long fromHeight, long toHeight) {
+            if (fromHeight == toHeight) {
+                return false;
+            }
+            return !eventHeights.subSet(Math.min(fromHeight, toHeight), false, Math.max(fromHeight, toHeight), true).isEmpty();
+        }
+
+        List<Agent> aliveAt(long height) {
+            List<Agent> aliveAgentList = new ArrayList<>();
+            for (int i = list.size() - 1; i >= 0; i--) {
+                Agent agent = list.get(i);
+                if (isAlive(agent.getBlockHeight(), agent.getDelHeight(), height)) {
+                    aliveAgentList.add(agent);
+                }
+            }
+            return aliveAgentList;
+        }
+    }
+
+    /**
+     * 委托缓存某个版本上按节点分组的全部委托, 以及各高度上有委托创建或退出的节点
+     */
+    private static class DepositIndex {
+        private final List<Deposit> list;
+        private final int version;
+        private final Map<NulsHash, List<Deposit>> agentDepositMap = new HashMap<>();
+        private final TreeMap<Long, Set<NulsHash>> eventMap = new TreeMap<>();
+
+        DepositIndex(List<Deposit> list) {
+            this.list = list;
+            this.version = versionOf(list);
+            for (int i = list.size() - 1; i >= 0; i--) {
+                Deposit deposit = list.get(i);
+                agentDepositMap.computeIfAbsent(deposit.getAgentHash(), k -> new ArrayList<>()).add(deposit);
+                eventMap.computeIfAbsent(deposit.getBlockHeight(), k -> new HashSet<>()).add(deposit.getAgentHash());
+                eventMap.computeIfAbsent(deposit.getDelHeight(), k -> new HashSet<>()).add(deposit.getAgentHash());
+            }
+        }
+
+        boolean matches(List<Deposit> current) {
+            return current == list && version >= 0 && versionOf(current) == version;
+        }
+
+        /**
+         * 两个高度之间有委托创建或退出的节点
+         */
+        Set<NulsHash> changedBetween(long fromHeight, long toHeight) {
+            Set<NulsHash> agentHashSet = new HashSet<>();
+            if (fromHeight == toHeight) {
+                return agentHashSet;
+            }
+            for (Set<NulsHash> set : eventMap.subMap(Math.min(fromHeight, toHeight), false, Math.max(fromHeight, toHeight), true).values()) {
+                agentHashSet.addAll(set);
+            }
+            return agentHashSet;
+        }
+
+        List<Deposit> aliveAt(NulsHash agentHash, long height) {
+            List<Deposit> aliveList = new ArrayList<>();
+            List<Deposit> agentDepositList = agentDepositMap.get(agentHash);
+            if (agentDepositList != null) {
+                for (Deposit deposit : agentDepositList) {
+                    if (isAlive(deposit.getBlockHeight(), deposit.getDelHeight(), height)) {
+                        aliveList.add(deposit);
+                    }
+                }
+            }
+            return aliveList;
+        }
+
+        Map<NulsHash, List<Deposit>> aliveAt(long height) {
+            Map<NulsHash, List<Deposit>> depositMap = new HashMap<>(agentDepositMap.size() * 2);
+            for (NulsHash agentHash : agentDepositMap.keySet()) {
+                List<Deposit> aliveList = aliveAt(agentHash, height);
+                if (!aliveList.isEmpty()) {
+                    depositMap.put(agentHash, aliveList);
+                }
+            }
+            return depositMap;
+        }
+    }
+}
@@ -44,6 +44,7 @@ public class BlockCmd extends BaseCmd {
     @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链id")
     @Parameter(parameterName = "download", requestType = @TypeDescriptor(value = int.class), parameterDes = "区块状态")
     @Parameter(parameterName = "block", parameterType = "String", parameterDes = "区块信息")
+    @Parameter(parameterName = "preVerified", requestType = @TypeDescriptor(value = boolean.class), parameterDes = "梅克尔哈希与区块头签名已由区块模块预验证, 可选", canNull = true)
     @ResponseData(name = "返回值", description = "返回一个Map", responseType = @TypeDescriptor(value = Map.class, mapKeys = {
             @Key(name = "value",valueType = Boolean.class, description = "验证结果")
     }))
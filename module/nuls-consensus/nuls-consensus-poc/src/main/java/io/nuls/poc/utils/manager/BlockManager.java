@@ -9,6 +9,8 @@ import io.nuls.poc.model.bo.Chain;
 import io.nuls.poc.rpc.call.CallMethodUtils;
 import io.nuls.poc.utils.compare.BlockHeaderComparator;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -42,15 +44,19 @@ public class BlockManager {
         BlockExtendsData newestExtendsData = newestHeader.getExtendsData();
         BlockExtendsData receiveExtendsData = blockHeader.getExtendsData();
         long receiveRoundIndex = receiveExtendsData.getRoundIndex();
+        int headerMark = chain.getCreditWindow().headerMark(chain);
+        List<BlockHeader> removedList = new ArrayList<>();
         if(chain.getBlockHeaderList().size() >0){
             BlockExtendsData lastExtendsData = chain.getBlockHeaderList().get(0).getExtendsData();
             long lastRoundIndex = lastExtendsData.getRoundIndex();
             if (receiveRoundIndex > newestExtendsData.getRoundIndex() && (receiveRoundIndex - ConsensusConstant.INIT_BLOCK_HEADER_COUNT > lastRoundIndex)) {
                 Iterator<BlockHeader> iterator = chain.getBlockHeaderList().iterator();
                 while (iterator.hasNext()) {
-                    lastExtendsData = iterator.next().getExtendsData();
+                    BlockHeader header = iterator.next();
+                    lastExtendsData = header.getExtendsData();
                     if (lastExtendsData.getRoundIndex() == lastRoundIndex) {
                         iterator.remove();
+                        removedList.add(header);
                     } else if (lastExtendsData.getRoundIndex() > lastRoundIndex) {
                         break;
                     }
@@ -60,6 +66,7 @@ public class BlockManager {
             }
         }
         chain.getBlockHeaderList().add(blockHeader);
+        chain.getCreditWindow().headersChanged(chain, headerMark, Collections.singletonList(blockHeader), removedList);
         chain.setNewestHeader(blockHeader);
         chain.getLogger().info("区块保存，高度为：" + blockHeader.getHeight() + " , txCount: " + blockHeader.getTxCount() + ",本地最新区块高度为：" + chain.getNewestHeader().getHeight() + ", 轮次:" + receiveExtendsData.getRoundIndex());
         //清除已经缓存了的比本节点轮次大的轮次信息
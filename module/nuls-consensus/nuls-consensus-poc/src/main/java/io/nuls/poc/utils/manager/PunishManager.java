@@ -100,6 +100,8 @@ public class PunishManager {
     public void clear(Chain chain) {
         BlockHeader blockHeader = chain.getNewestHeader();
         BlockExtendsData roundData = blockHeader.getExtendsData();
+        int punishMark = chain.getCreditWindow().punishMark(chain);
+        List<PunishLogPo> removedList = new ArrayList<>();
         Iterator <PunishLogPo> iterator = chain.getYellowPunishList().iterator();
         long minRound = roundData.getRoundIndex() - ConsensusConstant.INIT_PUNISH_OF_ROUND_COUNT;
         while (iterator.hasNext()){
@@ -108,7 +110,9 @@ public class PunishManager {
                 break;
             }
             iterator.remove();
+            removedList.add(punishLogPo);
         }
+        chain.getCreditWindow().punishesChanged(chain, punishMark, Collections.emptyList(), removedList);
     }
 
     /**
@@ -776,7 +780,9 @@ public class PunishManager {
                 savedList.add(po);
             }
         }
+        int punishMark = chain.getCreditWindow().punishMark(chain);
         chain.getYellowPunishList().addAll(savedList);
+        chain.getCreditWindow().punishesChanged(chain, punishMark, savedList, Collections.emptyList());
         return true;
     }
 
@@ -808,7 +814,9 @@ public class PunishManager {
             }
             deleteIndex++;
         }
+        int punishMark = chain.getCreditWindow().punishMark(chain);
         chain.getYellowPunishList().removeAll(deletedList);
+        chain.getCreditWindow().punishesChanged(chain, punishMark, Collections.emptyList(), deletedList);
         return true;
     }
 
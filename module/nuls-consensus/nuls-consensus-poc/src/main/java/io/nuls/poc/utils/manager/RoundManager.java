@@ -3,7 +3,6 @@ package io.nuls.poc.utils.manager;
 import io.nuls.base.basic.AddressTool;
 import io.nuls.base.data.BlockExtendsData;
 import io.nuls.base.data.BlockHeader;
-import io.nuls.base.data.NulsHash;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.Log;
@@ -14,11 +13,10 @@ import io.nuls.poc.constant.ConsensusConstant;
 import io.nuls.poc.model.bo.Chain;
 import io.nuls.poc.model.bo.round.MeetingMember;
 import io.nuls.poc.model.bo.round.MeetingRound;
+import io.nuls.poc.model.bo.round.RoundStateSnapshot;
 import io.nuls.poc.model.bo.tx.txdata.Agent;
 import io.nuls.poc.model.bo.tx.txdata.Deposit;
-import io.nuls.poc.model.po.PunishLogPo;
 import io.nuls.poc.rpc.call.CallMethodUtils;
-import io.nuls.poc.utils.enumeration.PunishType;
 
 import java.io.IOException;
 import java.math.BigInteger;
@@ -476,14 +474,14 @@ public class RoundManager {
                 memberList.add(member);
             }
         }
-        List<Agent> agentList = getAliveAgentList(chain, startBlockHeader.getHeight());
+        RoundStateSnapshot roundState = getRoundState(chain, startBlockHeader);
+        List<Agent> agentList = roundState.getAliveAgentList();
         for (Agent agent : agentList) {
-            Agent realAgent = new Agent();
+            Agent realAgent;
             try {
-                realAgent.parse(agent.serialize(), 0);
-                realAgent.setTxHash(agent.getTxHash());
-            } catch (IOException io) {
-                Log.error(io);
+                realAgent = roundState.copyAgent(agent);
+            } catch (IOException | CloneNotSupportedException e) {
+                Log.error(e);
                 return;
             }
             MeetingMember member = new MeetingMember();
@@ -492,7 +490,7 @@ public class RoundManager {
             获取节点委托信息，用于计算节点总的委托金额
             Get the node delegation information for calculating the total amount of the node delegation
             */
-            List<Deposit> cdList = getDepositListByAgentId(chain, realAgent.getTxHash(), startBlockHeader.getHeight());
+            List<Deposit> cdList = roundState.getDepositList(realAgent.getTxHash());
             BigInteger totalDeposit = BigInteger.ZERO;
             for (Deposit dtx : cdList) {
                 totalDeposit = totalDeposit.add(dtx.getDeposit());
@@ -508,7 +506,7 @@ public class RoundManager {
             */
             boolean isItIn = realAgent.getTotalDeposit().compareTo(chain.getConfig().getCommissionMin()) >= 0 ? true : false;
             if (isItIn) {
-                realAgent.setCreditVal(calcCreditVal(chain, member, startBlockHeader));
+                realAgent.setCreditVal(calcCreditVal(roundState, member));
                 memberList.add(member);
             }
         }
@@ -516,79 +514,48 @@ public class RoundManager {
     }
 
     /**
-     * 获取节点的委托信息
-     * Obtaining delegation information of nodes
+     * 获取上一轮次起始区块处的共识状态索引, 链上缓存数据未变化时复用
+     * Get the consensus state index at the first block of the previous round, reused while the chain caches are unchanged
      *
      * @param chain            chain info
-     * @param agentHash        节点ID/agent hash
-     * @param startBlockHeight 上一轮次的起始区块高度/Initial blocks of the last round
-     * @return List<Deposit>
-     */
-    private List<Deposit> getDepositListByAgentId(Chain chain, NulsHash agentHash, long startBlockHeight) {
-        List<Deposit> depositList = chain.getDepositList();
-        List<Deposit> resultList = new ArrayList<>();
-        for (int i = depositList.size() - 1; i >= 0; i--) {
-            Deposit deposit = depositList.get(i);
-            if (deposit.getDelHeight() != -1L && deposit.getDelHeight() <= startBlockHeight) {
-                continue;
-            }
-            if (deposit.getBlockHeight() > startBlockHeight || deposit.getBlockHeight() < 0L) {
-                continue;
-            }
-            if (!deposit.getAgentHash().equals(agentHash)) {
-                continue;
-            }
-            resultList.add(deposit);
-        }
-        return resultList;
-    }
-
-    /**
-     * 获取网络中有效的节点列表
-     * Getting a list of valid nodes in the network
-     *
-     * @param chain            chain info
-     * @param startBlockHeight 上一轮次的起始区块高度/Initial blocks of the last round
-     * @return List<Agent>
+     * @param startBlockHeader 上一轮次的起始区块/Initial blocks of the last round
+     * @return RoundStateSnapshot
      */
-    private List<Agent> getAliveAgentList(Chain chain, long startBlockHeight) {
-        List<Agent> agentList = chain.getAgentList();
-        List<Agent> resultList = new ArrayList<>();
-        for (int i = agentList.size() - 1; i >= 0; i--) {
-            Agent agent = agentList.get(i);
-            if (agent.getDelHeight() != -1L && agent.getDelHeight() <= startBlockHeight) {
-                continue;
-            }
-            if (agent.getBlockHeight() > startBlockHeight || agent.getBlockHeight() < 0L) {
-                continue;
+    private RoundStateSnapshot getRoundState(Chain chain, BlockHeader startBlockHeader) {
+        Map<Long, RoundStateSnapshot> cache = chain.getRoundStateCache();
+        synchronized (cache) {
+            RoundStateSnapshot roundState = cache.get(startBlockHeader.getHeight());
+            if (roundState != null && roundState.isValid(chain, startBlockHeader)) {
+                return roundState;
+            }
+            //以最近建立的索引为基础增量推导
+            RoundStateSnapshot previous = null;
+            for (RoundStateSnapshot cached : cache.values()) {
+                if (previous == null || cached.getHeight() > previous.getHeight()) {
+                    previous = cached;
+                }
             }
-            resultList.add(agent);
+            roundState = RoundStateSnapshot.build(chain, startBlockHeader, previous);
+            cache.put(startBlockHeader.getHeight(), roundState);
+            return roundState;
         }
-        return resultList;
     }
 
-
     /**
      * 计算节点的信誉值
      * Calculating the Node's Credit Value
      *
-     * @param chain       chain info
-     * @param member      打包成员对象/packing info
-     * @param blockHeader 区块头/block header
+     * @param roundState 共识状态索引/consensus state index
+     * @param member     打包成员对象/packing info
      * @return double
      */
-    private double calcCreditVal(Chain chain, MeetingMember member, BlockHeader blockHeader) throws NulsException {
-        BlockExtendsData roundData = blockHeader.getExtendsData();
-        long roundStart = roundData.getRoundIndex() - ConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT;
-        if (roundStart < 0) {
-            roundStart = 0;
-        }
+    private double calcCreditVal(RoundStateSnapshot roundState, MeetingMember member) {
         /*
         信誉值计算是通过限定轮次内节点出块数与黄牌数计算出的
         Credit value is calculated by limiting the number of blocks and yellow cards of nodes in rounds.
         */
-        long blockCount = getBlockCountByAddress(chain, member.getAgent().getPackingAddress(), roundStart, roundData.getRoundIndex() - 1);
-        long sumRoundVal = getPunishCountByAddress(chain, member.getAgent().getAgentAddress(), roundStart, roundData.getRoundIndex() - 1, PunishType.YELLOW.getCode());
+        long blockCount = roundState.getBlockCount(member.getAgent().getPackingAddress());
+        long sumRoundVal = roundState.getYellowPunishCount(member.getAgent().getAgentAddress());
         double ability = DoubleUtils.div(blockCount, ConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT);
         /*double penalty = DoubleUtils.div(DoubleUtils.mul(ConsensusConstant.CREDIT_MAGIC_NUM, sumRoundVal),
                 DoubleUtils.mul(ConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT, ConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT));*/
@@ -597,52 +564,6 @@ public class RoundManager {
         return DoubleUtils.round(DoubleUtils.sub(ability, penalty), 4);
     }
 
-    /**
-     * 获取指定地址获得的红黄牌惩罚数量
-     * Get the number of red and yellow card penalties for the specified address
-     *
-     * @param chain      chain info
-     * @param address    地址/address
-     * @param roundStart 起始轮次/round start index
-     * @param roundEnd   结束轮次/round end index
-     * @param code       红黄牌标识/Red and yellow logo
-     * @return long
-     */
-    private long getPunishCountByAddress(Chain chain, byte[] address, long roundStart, long roundEnd, int code) throws NulsException {
-        long count = 0;
-        List<PunishLogPo> punishList = chain.getYellowPunishList();
-        if (code == PunishType.RED.getCode()) {
-            punishList = chain.getRedPunishList();
-        }
-        for (int i = punishList.size() - 1; i >= 0; i--) {
-            if (count >= ConsensusConstant.CREDIT_MAGIC_NUM) {
-                break;
-            }
-            PunishLogPo punish = punishList.get(i);
-
-            if (punish.getRoundIndex() > roundEnd) {
-                continue;
-            }
-            if (punish.getRoundIndex() < roundStart) {
-                break;
-            }
-            if (Arrays.equals(punish.getAddress(), address)) {
-                count++;
-            }
-        }
-        /*
-        每一轮的惩罚都有可能包含上一轮次的惩罚记录，即计算从a到a+99轮的惩罚记录时，a轮的惩罚中可能是惩罚某个地址在a-1轮未出块，导致100轮最多可能有101个惩罚记录，在这里处理下
-        Each round of punishment is likely to contain a rounds punishment record, calculated from a to a + 99 rounds of punishment record,
-        a round of punishment is likely to be punished in an address in a - 1 round not out of the blocks,
-        lead to round up to 100 May be 101 punishment record, treatment here
-        */
-        if (count > ConsensusConstant.CREDIT_MAGIC_NUM) {
-            return ConsensusConstant.CREDIT_MAGIC_NUM;
-        }
-        return count;
-    }
-
-
     /**
      * 获取指定轮次前一轮打包的第一个区块
      * Gets the first block packaged in the previous round of the specified round
@@ -702,35 +623,6 @@ public class RoundManager {
         return getRound(chain,extendsData,false);
     }
 
-    /**
-     * 获取地址出块数量
-     * Get the number of address blocks
-     *
-     * @param chain          chain info
-     * @param packingAddress 出块地址
-     * @param roundStart     起始轮次
-     * @param roundEnd       结束轮次
-     */
-    private long getBlockCountByAddress(Chain chain, byte[] packingAddress, long roundStart, long roundEnd) {
-        long count = 0;
-        List<BlockHeader> blockHeaderList = chain.getBlockHeaderList();
-        for (int i = blockHeaderList.size() - 1; i >= 0; i--) {
-            BlockHeader blockHeader = blockHeaderList.get(i);
-            BlockExtendsData roundData = blockHeader.getExtendsData();
-            if (roundData.getRoundIndex() > roundEnd) {
-                continue;
-            }
-            if (roundData.getRoundIndex() < roundStart) {
-                break;
-            }
-            if (Arrays.equals(blockHeader.getPackingAddress(chain.getConfig().getChainId()), packingAddress)) {
-                count++;
-            }
-        }
-        return count;
-    }
-
-
     /**
      * 查询两轮次之间新增的共识节点和注销的共识节点
      * New consensus nodes and unregistered consensus nodes between queries
@@ -57,15 +57,24 @@ public class BlockValidator {
      * @param block      block info
      */
     public void validate(boolean isDownload, Chain chain, Block block) throws NulsException, IOException {
+        validate(isDownload, chain, block, false);
+    }
+
+    /**
+     * 区块验证, preVerified为true时梅克尔哈希与区块头签名已由区块模块在同步时预验证通过, 不再重复验证
+     */
+    public void validate(boolean isDownload, Chain chain, Block block, boolean preVerified) throws NulsException, IOException {
         BlockHeader blockHeader = block.getHeader();
-        //验证梅克尔哈希]
-        if (!blockHeader.getMerkleHash().equals(NulsHash.calcMerkleHash(block.getTxHashList()))) {
-            throw new NulsException(ConsensusErrorCode.MERKEL_HASH_ERROR);
-        }
-        //区块头签名验证
-        if (blockHeader.getBlockSignature().verifySignature(blockHeader.getHash()).isFailed()) {
-            chain.getLogger().error("Block Header Verification Error!");
-            throw new NulsException(ConsensusErrorCode.SIGNATURE_ERROR);
+        if (!preVerified) {
+            //验证梅克尔哈希]
+            if (!blockHeader.getMerkleHash().equals(NulsHash.calcMerkleHash(block.getTxHashList()))) {
+                throw new NulsException(ConsensusErrorCode.MERKEL_HASH_ERROR);
+            }
+            //区块头签名验证
+            if (blockHeader.getBlockSignature().verifySignature(blockHeader.getHash()).isFailed()) {
+                chain.getLogger().error("Block Header Verification Error!");
+                throw new NulsException(ConsensusErrorCode.SIGNATURE_ERROR);
+            }
         }
         RoundValidResult roundValidResult;
         String blockHeaderHash = blockHeader.getHash().toHex();
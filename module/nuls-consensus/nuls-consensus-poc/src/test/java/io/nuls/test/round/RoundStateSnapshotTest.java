@@ -0,0 +1,315 @@
+package io.nuls.test.round;
+
+import io.nuls.base.data.BlockExtendsData;
+import io.nuls.base.data.BlockHeader;
+import io.nuls.base.data.NulsHash;
+import io.nuls.poc.constant.ConsensusConstant;
+import io.nuls.poc.model.bo.Chain;
+import io.nuls.poc.model.bo.config.ConfigBean;
+import io.nuls.poc.model.bo.round.RoundStateSnapshot;
+import io.nuls.poc.model.bo.tx.txdata.Agent;
+import io.nuls.poc.model.bo.tx.txdata.Deposit;
+import io.nuls.poc.model.po.PunishLogPo;
+import io.nuls.poc.utils.enumeration.PunishType;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * 共识状态索引(含增量推导)与原有逐个节点扫描结果一致性测试, main方法为轮次构建耗时对比
+ */
+public class RoundStateSnapshotTest {
+
+    private static final int CHAIN_ID = 1;
+
+    @Test
+    public void sameAsScan() throws Exception {
+        Random random = new Random(7);
+        Chain chain = createChain(random, 200, 5000, 300);
+        List<BlockHeader> headers = chain.getBlockHeaderList();
+        for (int i = 0; i < 20; i++) {
+            BlockHeader startHeader = headers.get(random.nextInt(headers.size()));
+            assertSameAsScan(chain, startHeader, RoundStateSnapshot.build(chain, startHeader));
+        }
+    }
+
+    @Test
+    public void invalidatedByChange() throws Exception {
+        Random random = new Random(11);
+        Chain chain = createChain(random, 20, 100, 50);
+        BlockHeader startHeader = chain.getBlockHeaderList().get(chain.getBlockHeaderList().size() - 1);
+        RoundStateSnapshot snapshot = RoundStateSnapshot.build(chain, startHeader);
+        assertTrue(snapshot.isValid(chain, startHeader));
+        Deposit deposit = chain.getDepositList().get(0);
+        chain.getDepositList().set(0, deposit);
+        assertFalse(snapshot.isValid(chain, startHeader));
+        snapshot = RoundStateSnapshot.build(chain, startHeader);
+        chain.getYellowPunishList().remove(chain.getYellowPunishList().size() - 1);
+        assertFalse(snapshot.isValid(chain, startHeader));
+    }
+
+    @Test
+    public void incrementalSameAsScan() throws Exception {
+        Random random = new Random(13);
+        Chain chain = createChain(random, 200, 5000, 300);
+        List<BlockHeader> headers = chain.getBlockHeaderList();
+        List<PunishLogPo> punishes = chain.getYellowPunishList();
+        /*
+        从第150轮开始逐轮推导, 期间像BlockManager、PunishManager一样增删缓存并通知信誉值窗口
+        */
+        List<BlockHeader> pending = new ArrayList<>(headers.subList(1500, headers.size()));
+        int headerMark = chain.getCreditWindow().headerMark(chain);
+        List<BlockHeader> removed = new ArrayList<>(headers.subList(1500, headers.size()));
+        headers.subList(1500, headers.size()).clear();
+        chain.getCreditWindow().headersChanged(chain, headerMark, Collections.emptyList(), removed);
+        RoundStateSnapshot previous = null;
+        for (BlockHeader header : pending) {
+            headerMark = chain.getCreditWindow().headerMark(chain);
+            List<BlockHeader> prunedList = new ArrayList<>();
+            if (header.getExtendsData().getPackingIndexOfRound() == 1) {
+                //轮次切换时删除最早一轮
+                long minRound = headers.get(0).getExtendsData().getRoundIndex();
+                Iterator<BlockHeader> iterator = headers.iterator();
+                while (iterator.hasNext()) {
+                    BlockHeader h = iterator.next();
+                    if (h.getExtendsData().getRoundIndex() != minRound) {
+                        break;
+                    }
+                    iterator.remove();
+                    prunedList.add(h);
+                }
+            }
+            headers.add(header);
+            chain.getCreditWindow().headersChanged(chain, headerMark, Collections.singletonList(header), prunedList);
+            if (random.nextInt(20) == 0) {
+                int punishMark = chain.getCreditWindow().punishMark(chain);
+                PunishLogPo po = new PunishLogPo();
+                po.setRoundIndex(header.getExtendsData().getRoundIndex());
+                po.setHeight(header.getHeight());
+                po.setType(PunishType.YELLOW.getCode());
+                po.setAddress(chain.getAgentList().get(random.nextInt(10)).getAgentAddress());
+                punishes.add(po);
+                chain.getCreditWindow().punishesChanged(chain, punishMark, Collections.singletonList(po), Collections.emptyList());
+            }
+            if (header.getExtendsData().getPackingIndexOfRound() != 1) {
+                continue;
+            }
+            RoundStateSnapshot snapshot = RoundStateSnapshot.build(chain, header, previous);
+            assertSameAsScan(chain, header, snapshot);
+            previous = snapshot;
+        }
+    }
+
+    @Test
+    public void copyAgentSameAsParse() throws Exception {
+        Random random = new Random(17);
+        Chain chain = createChain(random, 20, 100, 50);
+        BlockHeader startHeader = chain.getBlockHeaderList().get(chain.getBlockHeaderList().size() - 1);
+        RoundStateSnapshot snapshot = RoundStateSnapshot.build(chain, startHeader);
+        for (Agent agent : snapshot.getAliveAgentList()) {
+            Agent parsed = new Agent();
+            parsed.parse(agent.serialize(), 0);
+            parsed.setTxHash(agent.getTxHash());
+            Agent first = snapshot.copyAgent(agent);
+            first.setCreditVal(0.5);
+            first.setTotalDeposit(BigInteger.ONE);
+            Agent copy = snapshot.copyAgent(agent);
+            assertNotSame(first, copy);
+            assertArrayEquals(parsed.serialize(), copy.serialize());
+            assertEquals(parsed.getTxHash(), copy.getTxHash());
+            assertEquals(parsed.getCreditVal(), copy.getCreditVal(), 0);
+            assertEquals(parsed.getTotalDeposit(), copy.getTotalDeposit());
+            assertEquals(parsed.getBlockHeight(), copy.getBlockHeight());
+        }
+    }
+
+    private static void assertSameAsScan(Chain chain, BlockHeader startHeader, RoundStateSnapshot snapshot) {
+        long height = startHeader.getHeight();
+        List<Agent> aliveAgents = scanAliveAgents(chain, height);
+        assertEquals(aliveAgents, snapshot.getAliveAgentList());
+        long roundIndex = startHeader.getExtendsData().getRoundIndex();
+        long roundStart = Math.max(0, roundIndex - ConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT);
+        for (Agent agent : aliveAgents) {
+            assertEquals(scanDeposits(chain, agent.getTxHash(), height), snapshot.getDepositList(agent.getTxHash()));
+            assertEquals(scanBlockCount(chain, agent.getPackingAddress(), roundStart, roundIndex - 1), snapshot.getBlockCount(agent.getPackingAddress()));
+            assertEquals(scanPunishCount(chain, agent.getAgentAddress(), roundStart, roundIndex - 1), snapshot.getYellowPunishCount(agent.getAgentAddress()));
+        }
+    }
+
+    /**
+     * 轮次构建耗时对比: 原有 O(节点数 × 委托数) 扫描与一次建索引
+     */
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(1);
+        Chain chain = createChain(random, 2000, 100000, 300);
+        BlockHeader startHeader = chain.getBlockHeaderList().get(chain.getBlockHeaderList().size() - 1);
+        long height = startHeader.getHeight();
+        long roundIndex = startHeader.getExtendsData().getRoundIndex();
+        long roundStart = Math.max(0, roundIndex - ConsensusConstant.RANGE_OF_CAPACITY_COEFFICIENT);
+        RoundStateSnapshot previous = null;
+        for (int round = 0; round < 3; round++) {
+            long begin = System.nanoTime();
+            long sum = 0;
+            for (Agent agent : scanAliveAgents(chain, height)) {
+                sum += scanDeposits(chain, agent.getTxHash(), height).size();
+                sum += scanBlockCount(chain, agent.getPackingAddress(), roundStart, roundIndex - 1);
+                sum += scanPunishCount(chain, agent.getAgentAddress(), roundStart, roundIndex - 1);
+            }
+            long scanMillis = (System.nanoTime() - begin) / 1000000;
+            begin = System.nanoTime();
+            long indexSum = 0;
+            RoundStateSnapshot snapshot = RoundStateSnapshot.build(chain, startHeader, previous);
+            previous = snapshot;
+            for (Agent agent : snapshot.getAliveAgentList()) {
+                indexSum += snapshot.getDepositList(agent.getTxHash()).size();
+                indexSum += snapshot.getBlockCount(agent.getPackingAddress());
+                indexSum += snapshot.getYellowPunishCount(agent.getAgentAddress());
+            }
+            long indexMillis = (System.nanoTime() - begin) / 1000000;
+            System.out.println("scan: " + scanMillis + "ms, index: " + indexMillis + "ms, same result: " + (sum == indexSum));
+        }
+    }
+
+    private static Chain createChain(Random random, int agentCount, int depositCount, int roundCount) throws Exception {
+        Chain chain = new Chain();
+        ConfigBean config = new ConfigBean();
+        config.setChainId(CHAIN_ID);
+        chain.setConfig(config);
+        List<Agent> agents = new ArrayList<>();
+        for (int i = 0; i < agentCount; i++) {
+            Agent agent = new Agent();
+            agent.setTxHash(randomHash(random));
+            agent.setAgentAddress(randomAddress(random));
+            agent.setPackingAddress(randomAddress(random));
+            agent.setBlockHeight(random.nextInt(roundCount * 10));
+            agent.setDelHeight(random.nextInt(10) == 0 ? random.nextInt(roundCount * 10) : -1L);
+            agents.add(agent);
+        }
+        chain.setAgentList(agents);
+        List<Deposit> deposits = new ArrayList<>();
+        for (int i = 0; i < depositCount; i++) {
+            Deposit deposit = new Deposit();
+            deposit.setTxHash(randomHash(random));
+            deposit.setAgentHash(agents.get(random.nextInt(agentCount)).getTxHash());
+            deposit.setDeposit(BigInteger.valueOf(random.nextInt(100000)));
+            deposit.setBlockHeight(random.nextInt(roundCount * 10));
+            deposit.setDelHeight(random.nextInt(5) == 0 ? random.nextInt(roundCount * 10) : -1L);
+            deposits.add(deposit);
+        }
+        chain.setDepositList(deposits);
+        List<BlockHeader> headers = new ArrayList<>();
+        List<PunishLogPo> punishes = new ArrayList<>();
+        long height = 0;
+        for (long round = 1; round <= roundCount; round++) {
+            for (int index = 1; index <= 10; index++) {
+                BlockExtendsData extendsData = new BlockExtendsData();
+                extendsData.setRoundIndex(round);
+                extendsData.setPackingIndexOfRound(index);
+                extendsData.setConsensusMemberCount(10);
+                BlockHeader header = new BlockHeader();
+                header.setHeight(height++);
+                header.setHash(randomHash(random));
+                header.setExtend(extendsData.serialize());
+                header.setPackingAddress(agents.get(random.nextInt(agentCount)).getPackingAddress());
+                headers.add(header);
+            }
+            PunishLogPo po = new PunishLogPo();
+            po.setRoundIndex(round);
+            po.setType(PunishType.YELLOW.getCode());
+            po.setAddress(agents.get(random.nextInt(Math.min(agentCount, 10))).getAgentAddress());
+            punishes.add(po);
+        }
+        chain.setBlockHeaderList(headers);
+        chain.setYellowPunishList(punishes);
+        return chain;
+    }
+
+    private static NulsHash randomHash(Random random) {
+        byte[] bytes = new byte[NulsHash.HASH_LENGTH];
+        random.nextBytes(bytes);
+        return new NulsHash(bytes);
+    }
+
+    private static byte[] randomAddress(Random random) {
+        byte[] bytes = new byte[23];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static List<Agent> scanAliveAgents(Chain chain, long height) {
+        List<Agent> agentList = chain.getAgentList();
+        List<Agent> resultList = new ArrayList<>();
+        for (int i = agentList.size() - 1; i >= 0; i--) {
+            Agent agent = agentList.get(i);
+            if (agent.getDelHeight() != -1L && agent.getDelHeight() <= height) {
+                continue;
+            }
+            if (agent.getBlockHeight() > height || agent.getBlockHeight() < 0L) {
+                continue;
+            }
+            resultList.add(agent);
+        }
+        return resultList;
+    }
+
+    private static List<Deposit> scanDeposits(Chain chain, NulsHash agentHash, long height) {
+        List<Deposit> depositList = chain.getDepositList();
+        List<Deposit> resultList = new ArrayList<>();
+        for (int i = depositList.size() - 1; i >= 0; i--) {
+            Deposit deposit = depositList.get(i);
+            if (deposit.getDelHeight() != -1L && deposit.getDelHeight() <= height) {
+                continue;
+            }
+            if (deposit.getBlockHeight() > height || deposit.getBlockHeight() < 0L) {
+                continue;
+            }
+            if (deposit.getAgentHash().equals(agentHash)) {
+                resultList.add(deposit);
+            }
+        }
+        return resultList;
+    }
+
+    private static long scanBlockCount(Chain chain, byte[] packingAddress, long roundStart, long roundEnd) {
+        long count = 0;
+        List<BlockHeader> blockHeaderList = chain.getBlockHeaderList();
+        for (int i = blockHeaderList.size() - 1; i >= 0; i--) {
+            BlockHeader blockHeader = blockHeaderList.get(i);
+            long roundIndex = blockHeader.getExtendsData().getRoundIndex();
+            if (roundIndex > roundEnd) {
+                continue;
+            }
+            if (roundIndex < roundStart) {
+                break;
+            }
+            if (Arrays.equals(blockHeader.getPackingAddress(CHAIN_ID), packingAddress)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long scanPunishCount(Chain chain, byte[] address, long roundStart, long roundEnd) {
+        long count = 0;
+        List<PunishLogPo> punishList = chain.getYellowPunishList();
+        for (int i = punishList.size() - 1; i >= 0; i--) {
+            if (count >= ConsensusConstant.CREDIT_MAGIC_NUM) {
+                break;
+            }
+            PunishLogPo punish = punishList.get(i);
+            if (punish.getRoundIndex() > roundEnd) {
+                continue;
+            }
+            if (punish.getRoundIndex() < roundStart) {
+                break;
+            }
+            if (Arrays.equals(punish.getAddress(), address)) {
+                count++;
+            }
+        }
+        return Math.min(count, ConsensusConstant.CREDIT_MAGIC_NUM);
+    }
+}
@@ -12,7 +12,6 @@ import io.nuls.core.constant.TxStatusEnum;
 import io.nuls.core.constant.TxType;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
-import io.nuls.core.crypto.ECKey;
 import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.exception.NulsException;
 import io.nuls.crosschain.base.constant.CommandConstant;
@@ -94,7 +93,7 @@ public class MessageUtil {
                 convertCtx = convertCtxService.get(hash, handleChainId);
             }
             //验证签名是否正确，如果是跨链转账交易，这签名对应的主网协议签名
-            if (!ECKey.verify(convertCtx.getHash().getBytes(), p2PHKSignature.getSignData().getSignBytes(), p2PHKSignature.getPublicKey())) {
+            if (!SignatureUtil.validateSignture(convertCtx.getHash().getBytes(), p2PHKSignature)) {
                 chain.getLogger().info("签名验证错误，hash:{},签名:{}\n\n", hashHex, signHex);
                 return;
             }
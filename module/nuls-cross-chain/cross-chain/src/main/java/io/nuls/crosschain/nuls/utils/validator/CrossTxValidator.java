@@ -7,7 +7,6 @@ import io.nuls.base.signture.P2PHKSignature;
 import io.nuls.base.signture.SignatureUtil;
 import io.nuls.base.signture.TransactionSignature;
 import io.nuls.core.constant.TxType;
-import io.nuls.core.crypto.ECKey;
 import io.nuls.core.model.ByteUtils;
 import io.nuls.core.model.StringUtils;
 import io.nuls.crosschain.base.constant.CommandConstant;
@@ -93,7 +92,7 @@ public class CrossTxValidator {
                 boolean verifyResult = false;
                 byte[] txHashByte = tx.getHash().getBytes();
                 for (P2PHKSignature signature : transactionSignature.getP2PHKSignatures()){
-                    if (!ECKey.verify(txHashByte, signature.getSignData().getSignBytes(), signature.getPublicKey())) {
+                    if (!SignatureUtil.validateSignture(txHashByte, signature)) {
                         chain.getLogger().error("Signature verification failed");
                         throw new NulsException(new Exception("Transaction signature error !"));
                     }
@@ -0,0 +1,178 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.ledger.cache;
+
+import io.nuls.ledger.model.AccountStateKey;
+import io.nuls.ledger.model.po.AccountState;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 已确认账户状态缓存, 容量有限, 按LRU淘汰, 未命中时从数据库读取并写入缓存
+ * 按key的hash分段加锁, 读取数据库也在分段锁内完成, 保证区块提交写入的新状态不会被并发读取到的旧状态覆盖
+ * 缓存中的对象不允许修改, 调用方需要自行复制
+ * <p>
+ * Bounded cache of confirmed account states with LRU eviction, reading through to the database on a miss.
+ * Segments are locked by key hash and the database read happens inside the segment lock,
+ * so a stale state read concurrently can never overwrite the new state written by a block commit.
+ * Cached objects must not be modified, callers copy them
+ */
+public class AccountStateCache {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public AccountStateCache(int maxSize) {
+        int segmentSize = Math.max(1, maxSize / SEGMENT_COUNT);
+        segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * 获取账户状态, 未命中时通过loader从数据库读取, 数据库中不存在时返回null且不缓存
+     * Get the account state, on a miss the loader reads it from the database; returns null and caches nothing if it does not exist
+     */
+    public AccountState get(AccountStateKey key, Function<AccountStateKey, AccountState> loader) {
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            AccountState accountState = segment.get(key);
+            if (null != accountState) {
+                hitCount.increment();
+                return accountState;
+            }
+            missCount.increment();
+            if (null == loader) {
+                return null;
+            }
+            accountState = loader.apply(key);
+            if (null != accountState) {
+                loadCount.increment();
+                segment.put(key, accountState);
+            }
+            return accountState;
+        }
+    }
+
+    public void put(AccountStateKey key, AccountState accountState) {
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            segment.put(key, accountState);
+        }
+    }
+
+    public void putAll(Map<AccountStateKey, AccountState> accountStates) {
+        for (Map.Entry<AccountStateKey, AccountState> entry : accountStates.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public void invalidate(AccountStateKey key) {
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public double getHitRate() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0D : (double) hits / total;
+    }
+
+    private Segment segmentOf(AccountStateKey key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENT_COUNT - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size() + ",hit=" + getHitCount() + ",miss=" + getMissCount() + ",load=" + getLoadCount()
+                + ",eviction=" + getEvictionCount() + ",hitRate=" + String.format("%.4f", getHitRate());
+    }
+
+    private class Segment extends LinkedHashMap<AccountStateKey, AccountState> {
+        private final int maxSize;
+
+        Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<AccountStateKey, AccountState> eldest) {
+            if (size() > maxSize) {
+                evictionCount.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
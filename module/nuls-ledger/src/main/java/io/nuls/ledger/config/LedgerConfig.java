@@ -23,6 +23,36 @@ public class LedgerConfig implements ModuleConfig {
     private int assetRegDestroyAmount = 200;
     private int decimals = 8;
     private String  symbol;
+    /**
+     * 每条链缓存的已确认账户状态数量
+     * Number of confirmed account states cached per chain
+     */
+    private int accountStateCacheSize = 100000;
+    /**
+     * 数据库共享块缓存大小(MB), 0表示不使用块缓存
+     * Shared RocksDB block cache size in MB, 0 disables the block cache
+     */
+    private int dbBlockCacheSize = 256;
+    /**
+     * 数据库写缓冲上限(MB), 计入共享块缓存
+     * Memtable limit in MB, charged to the shared block cache
+     */
+    private int dbWriteBufferSize = 128;
+    /**
+     * 是否开启RocksDB自身的统计(有一定开销)
+     * Enable RocksDB native statistics
+     */
+    private boolean dbNativeStatistics = false;
+    /**
+     * 数据库慢操作阈值(毫秒)
+     * Storage operations slower than this are sampled
+     */
+    private long dbSlowMillis = 100;
+    /**
+     * 数据库统计写入日志的间隔(秒), 0表示不输出
+     * Interval in seconds of dumping the storage metrics to the log, 0 disables it
+     */
+    private int dbStatsDumpInterval = 0;
 
     public String getBlackHolePublicKey() {
         return blackHolePublicKey;
@@ -117,4 +147,52 @@ public class LedgerConfig implements ModuleConfig {
     public void setSymbol(String symbol) {
         this.symbol = symbol;
     }
+
+    public int getAccountStateCacheSize() {
+        return accountStateCacheSize;
+    }
+
+    public void setAccountStateCacheSize(int accountStateCacheSize) {
+        this.accountStateCacheSize = accountStateCacheSize;
+    }
+
+    public int getDbBlockCacheSize() {
+        return dbBlockCacheSize;
+    }
+
+    public void setDbBlockCacheSize(int dbBlockCacheSize) {
+        this.dbBlockCacheSize = dbBlockCacheSize;
+    }
+
+    public int getDbWriteBufferSize() {
+        return dbWriteBufferSize;
+    }
+
+    public void setDbWriteBufferSize(int dbWriteBufferSize) {
+        this.dbWriteBufferSize = dbWriteBufferSize;
+    }
+
+    public boolean isDbNativeStatistics() {
+        return dbNativeStatistics;
+    }
+
+    public void setDbNativeStatistics(boolean dbNativeStatistics) {
+        this.dbNativeStatistics = dbNativeStatistics;
+    }
+
+    public long getDbSlowMillis() {
+        return dbSlowMillis;
+    }
+
+    public void setDbSlowMillis(long dbSlowMillis) {
+        this.dbSlowMillis = dbSlowMillis;
+    }
+
+    public int getDbStatsDumpInterval() {
+        return dbStatsDumpInterval;
+    }
+
+    public void setDbStatsDumpInterval(int dbStatsDumpInterval) {
+        this.dbStatsDumpInterval = dbStatsDumpInterval;
+    }
 }
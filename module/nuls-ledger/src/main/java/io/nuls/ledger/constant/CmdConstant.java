@@ -119,6 +119,11 @@ public interface CmdConstant {
      */
     String CMD_VERIFY_COINDATA_BATCH_PACKAGED = "verifyCoinDataBatchPackaged";
 
+    /**
+     * 区块打包整体校验(二进制交易集合, 返回结果位图)
+     */
+    String CMD_VERIFY_COINDATA_BATCH_PACKAGED_BINARY = "verifyCoinDataBatchPackagedBinary";
+
     /**
      * 单笔交易校验
      */
@@ -141,6 +146,10 @@ public interface CmdConstant {
      * 获取资产信息
      */
     String CMD_GET_ASSETS_BY_ID = "getAssetsById";
+    /**
+     * 数据库各表读写统计及慢操作
+     */
+    String CMD_GET_STORAGE_STATS = "getStorageStats";
 
 
 }
@@ -77,6 +77,11 @@ public class LedgerConstant {
      * 缓存同步统计数据的区块信息
      */
     public static final int CACHE_NONCE_INFO_BLOCK = 100;
+    /**
+     * 区块交易数达到该值时按互不冲突的分组并行校验coinData
+     * Blocks with at least this many txs have their coinData validated in parallel by conflict-free groups
+     */
+    public static final int BLOCK_VALIDATE_PARALLEL_MIN_TXS = 1000;
 
     /**
      * 缓存的账户初始化nonce
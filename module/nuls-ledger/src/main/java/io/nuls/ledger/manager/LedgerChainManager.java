@@ -28,16 +28,20 @@ import io.nuls.base.protocol.ProtocolLoader;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.core.ioc.SpringLiteContext;
+import io.nuls.core.rockdb.model.TableProfile;
 import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.rpc.model.ModuleE;
 import io.nuls.ledger.config.LedgerConfig;
+import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.model.LedgerChain;
 import io.nuls.ledger.service.AssetRegMngService;
 import io.nuls.ledger.service.BlockDataService;
+import io.nuls.ledger.storage.DataBaseArea;
 import io.nuls.ledger.storage.Repository;
 import io.nuls.ledger.storage.impl.LgBlockSyncRepositoryImpl;
 import io.nuls.ledger.storage.impl.RepositoryImpl;
 import io.nuls.ledger.utils.LoggerUtil;
+import io.nuls.ledger.validator.CoinDataValidator;
 
 import java.io.File;
 import java.util.Map;
@@ -58,6 +62,8 @@ public class LedgerChainManager {
     AssetRegMngService assetRegMngService;
     @Autowired
     LedgerConfig ledgerConfig;
+    @Autowired
+    CoinDataValidator coinDataValidator;
     private Map<Integer, LedgerChain> chainMap = new ConcurrentHashMap<>();
 
     /**
@@ -96,7 +102,10 @@ public class LedgerChainManager {
      * @param chainId 链ID/chain id
      */
     public void stopChain(int chainId) {
-
+        chainMap.remove(chainId);
+        if (chainMap.isEmpty()) {
+            coinDataValidator.shutdown();
+        }
     }
 
     /**
@@ -113,9 +122,19 @@ public class LedgerChainManager {
      */
     private void initRocksDb() {
         try {
+            RocksDBService.configure(ledgerConfig.getDbBlockCacheSize() * 1024L * 1024, ledgerConfig.getDbWriteBufferSize() * 1024L * 1024);
+            RocksDBService.configureStats(true, ledgerConfig.isDbNativeStatistics(), ledgerConfig.getDbSlowMillis());
+            //账户状态、nonce、交易hash为随机点查, 区块数据按高度追加
+            RocksDBService.setTableProfile(DataBaseArea.TB_LEDGER_ACCOUNT + LedgerConstant.DOWN_LINE, TableProfile.POINT_LOOKUP);
+            RocksDBService.setTableProfile(DataBaseArea.TB_LEDGER_NONCES, TableProfile.POINT_LOOKUP);
+            RocksDBService.setTableProfile(DataBaseArea.TB_LEDGER_HASH, TableProfile.POINT_LOOKUP);
+            RocksDBService.setTableProfile(DataBaseArea.TB_LEDGER_ACCOUNT_BLOCK_SNAPSHOT, TableProfile.SEQUENTIAL);
+            RocksDBService.setTableProfile(DataBaseArea.TB_SYNC_BLOCK, TableProfile.SEQUENTIAL);
+            RocksDBService.setTableProfile(DataBaseArea.TB_LEDGER_BLOCK_HEIGHT, TableProfile.SMALL_HOT);
             RocksDBService.init(ledgerConfig.getDataPath() + File.separator + ModuleE.LG.name);
             Repository initDB = SpringLiteContext.getBean(RepositoryImpl.class);
             initDB.initTableName();
+            RocksDBService.startStatsDump(ledgerConfig.getDbStatsDumpInterval());
         } catch (Exception e) {
             LoggerUtil.COMMON_LOG.error(e);
         }
@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.ledger.model;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.ledger.utils.LedgerUtil;
+
+import java.util.Arrays;
+
+/**
+ * 账户资产的二进制缓存key: 地址字节 + 资产链id与资产id合并成的long
+ * 替代 address-assetChainId-assetId 字符串, 减少拼接字符串产生的垃圾和长字符串的hash计算
+ * <p>
+ * Compact binary cache key of an account asset: the address bytes plus the asset chain id and asset id packed into a long.
+ * Replaces the address-assetChainId-assetId strings, avoiding the garbage of string concatenation and hashing long strings
+ */
+public final class AccountStateKey {
+
+    private final byte[] address;
+    private final long asset;
+    private final int hash;
+
+    public AccountStateKey(byte[] address, int assetChainId, int assetId) {
+        this.address = address;
+        this.asset = ((long) assetChainId << 32) | (assetId & 0xFFFFFFFFL);
+        this.hash = 31 * Arrays.hashCode(address) + Long.hashCode(asset);
+    }
+
+    /**
+     * @param address 不含前缀的地址字符串 / address string without prefix (see LedgerUtil.getRealAddressStr)
+     */
+    public static AccountStateKey of(String address, int assetChainId, int assetId) {
+        return new AccountStateKey(AddressTool.getAddressByRealAddr(address), assetChainId, assetId);
+    }
+
+    public byte[] getAddress() {
+        return address;
+    }
+
+    public int getAssetChainId() {
+        return (int) (asset >>> 32);
+    }
+
+    public int getAssetId() {
+        return (int) asset;
+    }
+
+    /**
+     * 对应的数据库key
+     * The matching rocksdb key
+     */
+    public byte[] toDbKey() {
+        return LedgerUtil.getKey(LedgerUtil.getRealAddressStr(address), getAssetChainId(), getAssetId());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AccountStateKey)) {
+            return false;
+        }
+        AccountStateKey that = (AccountStateKey) o;
+        return hash == that.hash && asset == that.asset && Arrays.equals(address, that.address);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return LedgerUtil.getKeyStr(LedgerUtil.getRealAddressStr(address), getAssetChainId(), getAssetId());
+    }
+}
@@ -27,6 +27,7 @@ package io.nuls.ledger.rpc.cmd;
 
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.rockdb.service.RocksDBService;
 import io.nuls.core.rpc.model.*;
 import io.nuls.core.rpc.model.message.Response;
 import io.nuls.ledger.constant.CmdConstant;
@@ -81,4 +82,19 @@ public class ChainAssetCmd extends BaseLedgerCmd {
         rtMap.put("assets", rtAssetList);
         return success(rtMap);
     }
+
+    /**
+     * 账本数据库各表读写统计、RocksDB内部状态和最近的慢操作
+     *
+     * @param params
+     * @return
+     */
+    @CmdAnnotation(cmd = CmdConstant.CMD_GET_STORAGE_STATS, version = 1.0,
+            description = "账本数据库各表读写统计及慢操作")
+    @ResponseData(name = "返回值", description = "返回一个Map对象, tables为各表的读写次数、字节数、耗时直方图及RocksDB属性, engine为RocksDB内部计数, slowOps为最近的慢操作",
+            responseType = @TypeDescriptor(value = Map.class)
+    )
+    public Response getStorageStats(Map params) {
+        return success(RocksDBService.getStats());
+    }
 }
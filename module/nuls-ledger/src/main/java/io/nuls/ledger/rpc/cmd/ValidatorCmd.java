@@ -26,6 +26,7 @@
 package io.nuls.ledger.rpc.cmd;
 
 import io.nuls.base.RPCUtil;
+import io.nuls.base.basic.TransactionBatchCodec;
 import io.nuls.base.data.Transaction;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
@@ -42,8 +43,11 @@ import io.nuls.ledger.validator.CoinDataValidator;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by wangkun23 on 2018/11/22.
@@ -60,6 +64,17 @@ public class ValidatorCmd extends BaseLedgerCmd {
     @Autowired
     Repository repository;
 
+    /**
+     * 流水线批次最长等待前序批次完成的时间(毫秒)
+     */
+    private static final long BATCH_SEQ_WAIT_TIMEOUT = 10000L;
+
+    /**
+     * 各链打包批次的校验顺序, 批量校验开始时重置
+     * key:chainId, value:批次顺序
+     */
+    private final Map<Integer, BatchTurn> chainsBatchTurnMap = new ConcurrentHashMap<>();
+
     /**
      * validate coin entity
      * 进行nonce-hash校验，进行可用余额校验
@@ -129,6 +144,143 @@ public class ValidatorCmd extends BaseLedgerCmd {
         }
     }
 
+    /**
+     * 打包交易校验(二进制)
+     * 交易以一个长度前缀的二进制块传输, 结果以每笔交易2位的位图返回(0成功,1孤儿,2失败)
+     * 带batchSeq时按序号顺序校验, 调用方可以在前一批次校验时发送下一批次
+     * <p>
+     * Packaged transactions validation (binary)
+     * Transactions are sent as one length-prefixed blob, results are returned as a bitmap of 2 bits per tx (0 success, 1 orphan, 2 fail)
+     * With batchSeq, batches are validated in sequence order, so the caller can send the next batch while the previous one is being validated
+     *
+     * @param params
+     * @return
+     */
+    @CmdAnnotation(cmd = CmdConstant.CMD_VERIFY_COINDATA_BATCH_PACKAGED_BINARY, version = 1.0,
+            description = "打包交易校验(二进制)")
+    @Parameters(value = {
+            @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterValidRange = "[1-65535]", parameterDes = "运行的链Id,取值区间[1-65535]"),
+            @Parameter(parameterName = "txs", requestType = @TypeDescriptor(value = byte[].class), parameterDes = "交易集合二进制块"),
+            @Parameter(parameterName = "batchSeq", requestType = @TypeDescriptor(value = long.class), parameterDes = "批次序号,批量校验开始后从0递增,可选")
+    })
+    @ResponseData(name = "返回值", description = "返回一个Map对象",
+            responseType = @TypeDescriptor(value = Map.class, mapKeys = {
+                    @Key(name = "count", valueType = Integer.class, description = "交易数"),
+                    @Key(name = "results", valueType = byte[].class, description = "校验结果位图,每笔交易2位")
+            })
+    )
+    public Response verifyCoinDataBatchPackagedBinary(Map params) {
+        Integer chainId = (Integer) params.get("chainId");
+        Object batchSeqObj = params.get("batchSeq");
+        long batchSeq = batchSeqObj == null ? -1L : ((Number) batchSeqObj).longValue();
+        try {
+            if (!chainHanlder(chainId)) {
+                return failed(LedgerErrorCode.CHAIN_INIT_FAIL);
+            }
+            //先解析, 与前一批次的校验并行
+            List<Transaction> txList;
+            try {
+                txList = TransactionBatchCodec.decodeTxs(RPCUtil.decodeParam(params.get("txs")));
+            } catch (NulsException e) {
+                LoggerUtil.logger(chainId).error("verifyCoinDataBatchPackagedBinary parse error", e);
+                return failed(LedgerErrorCode.TX_IS_WRONG);
+            }
+            if (batchSeq >= 0 && !awaitBatchTurn(chainId, batchSeq)) {
+                LoggerUtil.logger(chainId).error("verifyCoinDataBatchPackagedBinary wait batch timeout, batchSeq={}", batchSeq);
+                return failed(LedgerErrorCode.REQUEST_TIME_OUT);
+            }
+            long packagingHeight = repository.getBlockHeight(chainId) + 1;
+            byte[] results = TransactionBatchCodec.newResults(txList.size());
+            int failCount = 0;
+            for (int i = 0; i < txList.size(); i++) {
+                Transaction tx = txList.get(i);
+                tx.setBlockHeight(packagingHeight);
+                ValidateResult validateResult = coinDataValidator.bathValidatePerTx(chainId, tx);
+                if (validateResult.isSuccess()) {
+                    TransactionBatchCodec.setResult(results, i, TransactionBatchCodec.RESULT_SUCCESS);
+                } else if (validateResult.isOrphan()) {
+                    TransactionBatchCodec.setResult(results, i, TransactionBatchCodec.RESULT_ORPHAN);
+                } else {
+                    TransactionBatchCodec.setResult(results, i, TransactionBatchCodec.RESULT_FAIL);
+                    failCount++;
+                }
+            }
+            if (failCount > 0) {
+                LoggerUtil.logger(chainId).debug("verifyCoinDataBatchPackagedBinary failed txs size={}", failCount);
+            }
+            Map<String, Object> rtMap = new HashMap<>(2);
+            rtMap.put("count", txList.size());
+            rtMap.put("results", results);
+            return success(rtMap);
+        } catch (Exception e) {
+            LoggerUtil.logger(chainId).error("verifyCoinDataBatchPackagedBinary exception ={}", e);
+            return failed(LedgerErrorCode.SYS_UNKOWN_EXCEPTION);
+        } finally {
+            //任何返回路径都要结束该序号, 否则后续批次都会等待超时
+            if (batchSeq >= 0) {
+                finishBatchTurn(chainId, batchSeq);
+            }
+        }
+    }
+
+    /**
+     * 等待轮到指定序号的批次
+     */
+    private boolean awaitBatchTurn(int chainId, long batchSeq) throws InterruptedException {
+        BatchTurn turn = chainsBatchTurnMap.computeIfAbsent(chainId, k -> new BatchTurn());
+        long deadline = System.currentTimeMillis() + BATCH_SEQ_WAIT_TIMEOUT;
+        synchronized (turn) {
+            while (turn.nextSeq != batchSeq) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return false;
+                }
+                turn.wait(wait);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 批次结束, 无论成功失败。提前结束(链未初始化、解析失败、等待超时)的批次先记下, 轮到它时直接跳过
+     */
+    private void finishBatchTurn(int chainId, long batchSeq) {
+        BatchTurn turn = chainsBatchTurnMap.computeIfAbsent(chainId, k -> new BatchTurn());
+        synchronized (turn) {
+            if (batchSeq < turn.nextSeq) {
+                return;
+            }
+            turn.finishedSeqs.add(batchSeq);
+            while (turn.finishedSeqs.remove(turn.nextSeq)) {
+                turn.nextSeq++;
+            }
+            turn.notifyAll();
+        }
+    }
+
+    private void resetBatchTurn(int chainId) {
+        BatchTurn turn = chainsBatchTurnMap.computeIfAbsent(chainId, k -> new BatchTurn());
+        synchronized (turn) {
+            turn.nextSeq = 0;
+            turn.finishedSeqs.clear();
+            turn.notifyAll();
+        }
+    }
+
+    /**
+     * 打包批次的校验顺序
+     */
+    private static class BatchTurn {
+        /**
+         * 下一个待校验的批次序号
+         */
+        private long nextSeq;
+        /**
+         * 已结束但还没轮到的批次序号
+         */
+        private final Set<Long> finishedSeqs = new HashSet<>();
+    }
+
     /**
      * validate coin entity
      * 进行nonce-hash校验，进行单笔交易的未确认校验
@@ -250,6 +402,7 @@ public class ValidatorCmd extends BaseLedgerCmd {
         try {
             LoggerUtil.logger(chainId).debug("chainId={} batchValidateBegin", chainId);
             coinDataValidator.beginBatchPerTxValidate(chainId);
+            resetBatchTurn(chainId);
         } finally {
         }
         Map<String, Object> rtData = new HashMap<>(1);
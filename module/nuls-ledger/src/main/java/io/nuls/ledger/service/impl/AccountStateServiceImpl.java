@@ -30,6 +30,7 @@ import io.nuls.core.core.annotation.Component;
 import io.nuls.core.rpc.util.NulsDateUtils;
 import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.manager.LedgerChainManager;
+import io.nuls.ledger.model.AccountStateKey;
 import io.nuls.ledger.model.po.AccountState;
 import io.nuls.ledger.model.po.AccountStateUnconfirmed;
 import io.nuls.ledger.model.po.TxUnconfirmed;
@@ -69,12 +70,13 @@ public class AccountStateServiceImpl implements AccountStateService {
     public void rollAccountState(int chainId, List<AccountStateSnapshot> preAccountStates) throws Exception {
         //获取当前数据库值
         Map<byte[], byte[]> accountStates = new HashMap<>(preAccountStates.size());
-        Map<String, AccountState> accountStatesMem = new HashMap<>(preAccountStates.size());
+        Map<AccountStateKey, AccountState> accountStatesMem = new HashMap<>(preAccountStates.size());
         for (AccountStateSnapshot accountStateSnapshot : preAccountStates) {
             String assetKey = LedgerUtil.getKeyStr(accountStateSnapshot.getAddress(),
                     accountStateSnapshot.getAssetChainId(), accountStateSnapshot.getAssetId());
             accountStates.put(assetKey.getBytes(LedgerConstant.DEFAULT_ENCODING), accountStateSnapshot.getAccountState().serialize());
-            accountStatesMem.put(assetKey, accountStateSnapshot.getAccountState());
+            accountStatesMem.put(AccountStateKey.of(accountStateSnapshot.getAddress(), accountStateSnapshot.getAssetChainId(),
+                    accountStateSnapshot.getAssetId()), accountStateSnapshot.getAccountState());
             //获取当前数据库值
             Map<String, TxUnconfirmed> unconfirmedNonces = new HashMap<>(64);
             AccountStateUnconfirmed accountStateUnconfirmed = new AccountStateUnconfirmed();
@@ -112,13 +114,8 @@ public class AccountStateServiceImpl implements AccountStateService {
      */
     @Override
     public AccountState getAccountState(String address, int addressChainId, int assetChainId, int assetId) {
-        //尝试缓存获取
-        AccountState accountState = repository.getAccountStateByMemory(addressChainId, LedgerUtil.getKeyStr(address, assetChainId, assetId));
-        if (null != accountState) {
-            return accountState;
-        }
-        byte[] key = LedgerUtil.getKey(address, assetChainId, assetId);
-        accountState = repository.getAccountState(addressChainId, key);
+        //缓存获取, 未命中时读取数据库
+        AccountState accountState = repository.getAccountStateCached(addressChainId, AccountStateKey.of(address, assetChainId, assetId));
         if (null == accountState) {
             accountState = new AccountState(LedgerConstant.getInitNonceByte());
         }
@@ -134,16 +131,11 @@ public class AccountStateServiceImpl implements AccountStateService {
      */
     @Override
     public AccountState getAccountStateReCal(String address, int addressChainId, int assetChainId, int assetId) {
-        //尝试缓存获取
-        AccountState accountState = repository.getAccountStateByMemory(addressChainId, LedgerUtil.getKeyStr(address, assetChainId, assetId));
+        //缓存获取, 未命中时读取数据库
+        AccountState accountState = repository.getAccountStateCached(addressChainId, AccountStateKey.of(address, assetChainId, assetId));
         if (null == accountState) {
-            //账户处理锁
-            byte[] key = LedgerUtil.getKey(address, assetChainId, assetId);
-            accountState = repository.getAccountState(addressChainId, key);
-            if (null == accountState) {
-                accountState = new AccountState(LedgerConstant.getInitNonceByte());
-                return accountState;
-            }
+            accountState = new AccountState(LedgerConstant.getInitNonceByte());
+            return accountState;
         }
         //解冻时间高度锁
         if (accountState.timeAllow()) {
@@ -36,6 +36,7 @@ import io.nuls.core.model.FormatValidUtils;
 import io.nuls.ledger.config.LedgerConfig;
 import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.constant.LedgerErrorCode;
+import io.nuls.ledger.model.AccountStateKey;
 import io.nuls.ledger.model.po.AccountState;
 import io.nuls.ledger.model.po.LedgerAsset;
 import io.nuls.ledger.model.tx.txdata.TxLedgerAsset;
@@ -203,19 +204,19 @@ public class AssetRegMngServiceImpl implements AssetRegMngService {
     public void rollBackTxAssets(int chainId, List<LedgerAsset> ledgerAssets) throws Exception {
         List<byte[]> list = new ArrayList<>();
         List<byte[]> delKeys = new ArrayList<>();
-        Map<String, AccountState> delMap = new ConcurrentHashMap<>();
+        List<AccountStateKey> delMemKeys = new ArrayList<>();
         for (LedgerAsset ledgerAsset : ledgerAssets) {
             byte[] hash = HexUtil.decode(ledgerAsset.getTxHash());
             list.add(hash);
             int assetId = assetRegMngRepository.getLedgerAssetIdByHash(chainId, hash);
             String address = LedgerUtil.getRealAddressStr(ledgerAsset.getAssetOwnerAddress());
             String key = LedgerUtil.getKeyStr(address, chainId, assetId);
-            delMap.put(key, new AccountState());
+            delMemKeys.add(AccountStateKey.of(address, chainId, assetId));
             delKeys.add(key.getBytes(LedgerConstant.DEFAULT_ENCODING));
         }
-        repository.clearAccountStateMem(chainId, delMap);
         assetRegMngRepository.batchRollBackLedgerAssetReg(chainId, list);
         assetRegMngRepository.batchDelAccountState(chainId, delKeys);
+        repository.clearAccountStateMem(chainId, delMemKeys);
         //回滚资产后，进行缓存数据重置
         initDBAssetsIdMap();
     }
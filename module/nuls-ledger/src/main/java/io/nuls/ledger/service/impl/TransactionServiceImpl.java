@@ -32,6 +32,7 @@ import io.nuls.core.rpc.util.NulsDateUtils;
 import io.nuls.ledger.constant.LedgerConstant;
 import io.nuls.ledger.constant.LedgerErrorCode;
 import io.nuls.ledger.model.AccountBalance;
+import io.nuls.ledger.model.AccountStateKey;
 import io.nuls.ledger.model.Uncfd2CfdKey;
 import io.nuls.ledger.model.ValidateResult;
 import io.nuls.ledger.model.po.AccountState;
@@ -245,7 +246,7 @@ public class TransactionServiceImpl implements TransactionService {
             int accountMapSize = txList.size() * 3;
             //批量交易按交易进行账户的金额处理，再按区块为原子性进行提交,updateAccounts用于账户计算缓存，最后统一处理
             Map<String, AccountBalance> updateAccounts = new HashMap<>(accountMapSize);
-            Map<String, AccountState> updateMemAccounts = new HashMap<>(accountMapSize);
+            Map<AccountStateKey, AccountState> updateMemAccounts = new HashMap<>(accountMapSize);
             //整体区块备份
             BlockSnapshotAccounts blockSnapshotAccounts = new BlockSnapshotAccounts();
             Map<byte[], byte[]> accountStatesMap = new HashMap<>(accountMapSize);
@@ -264,7 +265,9 @@ public class TransactionServiceImpl implements TransactionService {
                     freezeStateService.recalculateFreeze(addressChainId, entry.getValue().getNowAccountState());
                     entry.getValue().getNowAccountState().setLatestUnFreezeTime(NulsDateUtils.getCurrentTimeSeconds());
                     accountStatesMap.put(entry.getKey().getBytes(LedgerConstant.DEFAULT_ENCODING), entry.getValue().getNowAccountState().serialize());
-                    updateMemAccounts.put(entry.getKey(), entry.getValue().getNowAccountState());
+                    AccountStateSnapshot preAccountState = entry.getValue().getPreAccountState();
+                    updateMemAccounts.put(AccountStateKey.of(preAccountState.getAddress(), preAccountState.getAssetChainId(), preAccountState.getAssetId()),
+                            entry.getValue().getNowAccountState());
                 }
             } catch (Exception e) {
                 logger(addressChainId).error("confirmBlockProcess blockSnapshotAccounts addAccountState error!");
@@ -292,6 +295,9 @@ public class TransactionServiceImpl implements TransactionService {
                 if (blockHeight > LedgerConstant.CACHE_ACCOUNT_BLOCK) {
                     repository.delBlockSnapshot(addressChainId, (blockHeight - LedgerConstant.CACHE_ACCOUNT_BLOCK));
                 }
+                if (blockHeight % LedgerConstant.CACHE_ACCOUNT_BLOCK == 0) {
+                    logger(addressChainId).info("accountStateCache:{}", repository.getAccountStateCache(addressChainId));
+                }
             } catch (Exception e) {
                 //需要回滚数据
                 cleanBlockCommitTempDatas();
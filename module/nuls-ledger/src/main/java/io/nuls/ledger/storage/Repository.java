@@ -26,10 +26,13 @@
 package io.nuls.ledger.storage;
 
 import io.nuls.core.exception.NulsException;
+import io.nuls.ledger.cache.AccountStateCache;
+import io.nuls.ledger.model.AccountStateKey;
 import io.nuls.ledger.model.ChainHeight;
 import io.nuls.ledger.model.po.AccountState;
 import io.nuls.ledger.model.po.BlockSnapshotAccounts;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -52,13 +55,23 @@ public interface Repository {
     AccountState getAccountState(int chainId, byte[] key);
 
     /**
-     * 内存获取账户余额对象
+     * 从缓存获取账户余额对象(副本), 未命中时读取数据库并放入缓存, 账户不存在返回null
+     * Get a copy of the account state from the cache, reading through to the database on a miss; null if the account does not exist
      *
      * @param chainId
      * @param key
      * @return
      */
-    AccountState getAccountStateByMemory(int chainId, String key);
+    AccountState getAccountStateCached(int chainId, AccountStateKey key);
+
+    /**
+     * 获取链的账户状态缓存, 用于统计命中率等指标
+     * Get the account state cache of the chain, for hit rate and other metrics
+     *
+     * @param chainId
+     * @return
+     */
+    AccountStateCache getAccountStateCache(int chainId);
 
     /**
      * 批量更新账号账本信息
@@ -68,8 +81,16 @@ public interface Repository {
      * @param accountStateMap
      * @throws Exception
      */
-    void batchUpdateAccountState(int addressChainId, Map<byte[], byte[]> accountStateMap,Map<String, AccountState> accountStateMemMap) throws Exception;
-    void clearAccountStateMem(int addressChainId, Map<String, AccountState> accountStateMemMap) throws Exception;
+    void batchUpdateAccountState(int addressChainId, Map<byte[], byte[]> accountStateMap, Map<AccountStateKey, AccountState> accountStateMemMap) throws Exception;
+
+    /**
+     * 使缓存中的账户状态失效, 需在数据库删除之后调用
+     * Invalidate cached account states, call it after they are deleted from the database
+     *
+     * @param addressChainId
+     * @param keys
+     */
+    void clearAccountStateMem(int addressChainId, Collection<AccountStateKey> keys);
 
     /**
      * 删除区块快照
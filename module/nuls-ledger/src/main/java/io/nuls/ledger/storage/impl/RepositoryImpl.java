@@ -27,12 +27,16 @@ package io.nuls.ledger.storage.impl;
 
 import io.nuls.base.basic.NulsByteBuffer;
 import io.nuls.core.basic.InitializingBean;
+import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.Log;
 import io.nuls.core.model.ByteUtils;
 import io.nuls.core.rockdb.model.Entry;
 import io.nuls.core.rockdb.service.RocksDBService;
+import io.nuls.ledger.cache.AccountStateCache;
+import io.nuls.ledger.config.LedgerConfig;
+import io.nuls.ledger.model.AccountStateKey;
 import io.nuls.ledger.model.ChainHeight;
 import io.nuls.ledger.model.po.AccountState;
 import io.nuls.ledger.model.po.BlockSnapshotAccounts;
@@ -40,6 +44,7 @@ import io.nuls.ledger.storage.DataBaseArea;
 import io.nuls.ledger.storage.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -54,34 +59,37 @@ import static io.nuls.ledger.utils.LoggerUtil.logger;
 @Component
 public class RepositoryImpl implements Repository, InitializingBean {
     /**
-     * key1=chainId,  Map1=确认账户状态， key2= addr+assetkey  value=AccountState
+     * key=chainId, value=已确认账户状态缓存
      */
-    Map<String, Map<String, AccountState>> memChainsAccounts = new ConcurrentHashMap<>(16);
+    private final Map<Integer, AccountStateCache> chainsAccountStateCache = new ConcurrentHashMap<>(16);
+
+    @Autowired
+    private LedgerConfig ledgerConfig;
 
     public RepositoryImpl() {
 
     }
 
     @Override
-    public void batchUpdateAccountState(int addressChainId, Map<byte[], byte[]> accountStateMap, Map<String, AccountState> accountStateMemMap) throws Exception {
-        if (null == memChainsAccounts.get(String.valueOf(addressChainId))) {
-            memChainsAccounts.put(String.valueOf(addressChainId), new ConcurrentHashMap<>(1024));
-        }
-        if (null != accountStateMemMap) {
-            memChainsAccounts.get(String.valueOf(addressChainId)).putAll(accountStateMemMap);
-        }
+    public AccountStateCache getAccountStateCache(int chainId) {
+        return chainsAccountStateCache.computeIfAbsent(chainId, k -> new AccountStateCache(ledgerConfig.getAccountStateCacheSize()));
+    }
+
+    @Override
+    public void batchUpdateAccountState(int addressChainId, Map<byte[], byte[]> accountStateMap, Map<AccountStateKey, AccountState> accountStateMemMap) throws Exception {
         //update account
         RocksDBService.batchPut(getLedgerAccountTableName(addressChainId), accountStateMap);
-
+        //先写库再更新缓存, 缓存未命中的读取不会用旧数据覆盖新数据
+        if (null != accountStateMemMap) {
+            getAccountStateCache(addressChainId).putAll(accountStateMemMap);
+        }
     }
 
     @Override
-    public void clearAccountStateMem(int addressChainId, Map<String, AccountState> accountStateMemMap) throws Exception {
-        if (null == memChainsAccounts.get(String.valueOf(addressChainId))) {
-            memChainsAccounts.put(String.valueOf(addressChainId), new ConcurrentHashMap<>(1024));
-        }
-        if (null != accountStateMemMap) {
-            memChainsAccounts.get(String.valueOf(addressChainId)).putAll(accountStateMemMap);
+    public void clearAccountStateMem(int addressChainId, Collection<AccountStateKey> keys) {
+        AccountStateCache cache = getAccountStateCache(addressChainId);
+        for (AccountStateKey key : keys) {
+            cache.invalidate(key);
         }
     }
 
@@ -135,22 +143,19 @@ public class RepositoryImpl implements Repository, InitializingBean {
     }
 
     @Override
-    public AccountState getAccountStateByMemory(int chainId, String key) {
-        //缓存有值,则直接获取
-        if (null != memChainsAccounts.get(String.valueOf(chainId))) {
-            AccountState accountStateMem = memChainsAccounts.get(String.valueOf(chainId)).get(key);
-            if (null != accountStateMem) {
-                AccountState accountState = new AccountState();
-                System.arraycopy(accountStateMem.getNonce(), 0, accountState.getNonce(), 0, accountStateMem.getNonce().length);
-                accountState.setTotalFromAmount(accountStateMem.getTotalFromAmount());
-                accountState.setTotalToAmount(accountStateMem.getTotalToAmount());
-                accountState.setLatestUnFreezeTime(accountStateMem.getLatestUnFreezeTime());
-                accountState.getFreezeHeightStates().addAll(accountStateMem.getFreezeHeightStates());
-                accountState.getFreezeLockTimeStates().addAll(accountStateMem.getFreezeLockTimeStates());
-                return accountState;
-            }
+    public AccountState getAccountStateCached(int chainId, AccountStateKey key) {
+        AccountState accountStateMem = getAccountStateCache(chainId).get(key, k -> getAccountState(chainId, k.toDbKey()));
+        if (null == accountStateMem) {
+            return null;
         }
-        return null;
+        AccountState accountState = new AccountState();
+        System.arraycopy(accountStateMem.getNonce(), 0, accountState.getNonce(), 0, accountStateMem.getNonce().length);
+        accountState.setTotalFromAmount(accountStateMem.getTotalFromAmount());
+        accountState.setTotalToAmount(accountStateMem.getTotalToAmount());
+        accountState.setLatestUnFreezeTime(accountStateMem.getLatestUnFreezeTime());
+        accountState.getFreezeHeightStates().addAll(accountStateMem.getFreezeHeightStates());
+        accountState.getFreezeLockTimeStates().addAll(accountStateMem.getFreezeLockTimeStates());
+        return accountState;
     }
 
     @Override
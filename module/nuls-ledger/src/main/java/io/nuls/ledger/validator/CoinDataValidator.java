@@ -30,6 +30,7 @@ import io.nuls.base.data.CoinData;
 import io.nuls.base.data.CoinFrom;
 import io.nuls.base.data.CoinTo;
 import io.nuls.base.data.Transaction;
+import io.nuls.core.basic.InitializingBean;
 import io.nuls.core.constant.TxType;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
@@ -55,6 +56,12 @@ import io.nuls.ledger.utils.LoggerUtil;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.nuls.ledger.utils.LoggerUtil.logger;
 
@@ -66,7 +73,7 @@ import static io.nuls.ledger.utils.LoggerUtil.logger;
  * @author lanjinsheng
  */
 @Component
-public class CoinDataValidator {
+public class CoinDataValidator implements InitializingBean {
     /**
      * key String:chainId
      * value:Map<key是交易hash  value是欲提交交易>
@@ -94,7 +101,21 @@ public class CoinDataValidator {
      * value map :key是账号资产 value是时间锁定信息
      */
     private Map<String, Map<String, List<FreezeHeightState>>> chainsLockedHeightMap = new ConcurrentHashMap<String, Map<String, List<FreezeHeightState>>>();
-
+    /**
+     * 区块交易分组并行校验的线程池, 模块内只创建一次(afterPropertiesSet), 最后一条链停止时关闭, 关闭后退回串行校验
+     * <p>
+     * 分组任务并发调用的组件均不共享可变状态:
+     * accountStateService.getAccountStateReCal 返回的是缓存(分段加锁)中账户状态的副本, freezeStateService.recalculateFreeze
+     * 只修改该副本的锁定列表, 其余只读取区块高度(RocksDB)与协议版本;
+     * transactionService.hadTxExist 只读 ConcurrentHashMap 与数据库;
+     * txLockedProcessor.processCoinData 无成员状态, 只操作各任务自己的 lockedTimeMap/lockedHeightMap;
+     * 其余校验状态(nonce、余额、已解锁nonce)均为各任务内部的局部集合
+     * <p>
+     * Pool for validating the conflict-free tx groups of a block in parallel, created once and shut down with the last chain.
+     * The services called from the tasks work on copies or on per-task collections and only read shared state
+     * through thread-safe caches and the database
+     */
+    private volatile ForkJoinPool blockValidatePool;
 
     @Autowired
     private AccountStateService accountStateService;
@@ -108,6 +129,30 @@ public class CoinDataValidator {
     @Autowired
     private TxLockedProcessor txLockedProcessor;
 
+    @Override
+    public void afterPropertiesSet() {
+        if (null == blockValidatePool) {
+            blockValidatePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("ledger-block-validate-" + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        }
+    }
+
+    /**
+     * 关闭区块并行校验线程池, 之后的区块校验退回串行
+     * Shut down the parallel block validation pool, later blocks are validated serially
+     */
+    public void shutdown() {
+        ForkJoinPool pool = blockValidatePool;
+        blockValidatePool = null;
+        if (null != pool) {
+            pool.shutdown();
+        }
+    }
+
     public Map<String, String> getBatchValidateTxMap(int addressChainId) {
         return chainsBatchValidateTxMap.get(String.valueOf(addressChainId));
     }
@@ -204,6 +249,23 @@ public class CoinDataValidator {
             LoggerUtil.logger(chainId).error("addressChainId ={},blockHeight={},ledgerBlockHeight={}", chainId, height, currentDbHeight);
             return false;
         }
+        ForkJoinPool pool = blockValidatePool;
+        if (txs.size() < LedgerConstant.BLOCK_VALIDATE_PARALLEL_MIN_TXS || null == pool || pool.getParallelism() < 2) {
+            return serialBlockValidate(chainId, height, txs);
+        }
+        try {
+            return parallelBlockValidate(pool, chainId, height, txs);
+        } catch (RejectedExecutionException e) {
+            //校验期间线程池已关闭
+            return serialBlockValidate(chainId, height, txs);
+        }
+    }
+
+    /**
+     * 逐笔串行校验整个区块的交易
+     * Validate the txs of the block one by one
+     */
+    private boolean serialBlockValidate(int chainId, long height, List<Transaction> txs) {
         Set<String> batchValidateTxSet = new HashSet<>(txs.size());
         Map<String, List<TempAccountNonce>> accountValidateTxMap = new HashMap<>(1024);
         Map<String, AccountState> accountStateMap = new HashMap<>(1024);
@@ -221,6 +283,101 @@ public class CoinDataValidator {
             }
         }
         //遍历余额判断
+        return isBalanceEnough(chainId, accountStateMap);
+    }
+
+    /**
+     * 按交易涉及的账户资产(及解锁的nonce)将区块交易划分为互不冲突的分组, 分组之间没有共享的校验状态,
+     * 每组按区块内顺序校验, 结果与逐笔串行校验一致; 失败时以区块内最靠前的失败交易为准
+     * <p>
+     * Partition the txs into conflict-free groups by the account assets (and unlocked nonces) they touch.
+     * Groups share no validation state, so validating each group in block order gives the same result as the serial path;
+     * on failure the earliest failed tx of the block is reported
+     */
+    private boolean parallelBlockValidate(ForkJoinPool pool, int chainId, long height, List<Transaction> txs) {
+        int size = txs.size();
+        String[] txHashes = new String[size];
+        CoinData[] coinDatas = new CoinData[size];
+        Set<String> txHashSet = new HashSet<>(size);
+        int[] parents = new int[size];
+        Map<String, Integer> keyOwnerMap = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            Transaction tx = txs.get(i);
+            tx.setBlockHeight(height);
+            txHashes[i] = tx.getHash().toHex();
+            //同一区块内交易hash重复, 串行校验同样会失败
+            if (!txHashSet.add(txHashes[i])) {
+                logger(chainId).error("{} tx exist!", txHashes[i]);
+                return false;
+            }
+            parents[i] = i;
+            coinDatas[i] = CoinDataUtil.parseCoinData(tx.getCoinData());
+            if (null == coinDatas[i]) {
+                continue;
+            }
+            for (CoinFrom coinFrom : coinDatas[i].getFrom()) {
+                unionKey(parents, keyOwnerMap, i, LedgerUtil.getKeyStr(LedgerUtil.getRealAddressStr(coinFrom.getAddress()), coinFrom.getAssetsChainId(), coinFrom.getAssetsId()));
+                if (coinFrom.getLocked() != 0) {
+                    //解锁nonce的重复校验是跨账户的
+                    unionKey(parents, keyOwnerMap, i, LedgerConstant.COLON + LedgerUtil.getNonceEncode(coinFrom.getNonce()));
+                }
+            }
+            for (CoinTo coinTo : coinDatas[i].getTo()) {
+                unionKey(parents, keyOwnerMap, i, LedgerUtil.getKeyStr(LedgerUtil.getRealAddressStr(coinTo.getAddress()), coinTo.getAssetsChainId(), coinTo.getAssetsId()));
+            }
+        }
+        List<List<Integer>> buckets = partitionGroups(parents, pool.getParallelism());
+        AtomicInteger firstFailIndex = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicBoolean balanceNotEnough = new AtomicBoolean(false);
+        ValidateResult[] failResults = new ValidateResult[size];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(buckets.size());
+        for (List<Integer> txIndexes : buckets) {
+            tasks.add(pool.submit(() -> bucketBlockValidate(chainId, txs, txHashes, coinDatas, txIndexes,
+                    firstFailIndex, failResults, balanceNotEnough)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        int failIndex = firstFailIndex.get();
+        if (failIndex != Integer.MAX_VALUE) {
+            ValidateResult validateResult = failResults[failIndex];
+            LoggerUtil.logger(chainId).error("code={},msg={}", validateResult.getValidateCode(), validateResult.getValidateDesc());
+            return false;
+        }
+        return !balanceNotEnough.get();
+    }
+
+    /**
+     * 按区块内顺序校验分配到同一任务的交易(可能属于多个分组), 区块内更靠前的交易已失败时提前结束
+     * Validate the txs assigned to one task (possibly from several groups) in block order,
+     * stops early once an earlier tx of the block has failed
+     */
+    private void bucketBlockValidate(int chainId, List<Transaction> txs, String[] txHashes, CoinData[] coinDatas, List<Integer> txIndexes,
+                                     AtomicInteger firstFailIndex, ValidateResult[] failResults, AtomicBoolean balanceNotEnough) {
+        Set<String> batchValidateTxSet = new HashSet<>(txIndexes.size());
+        Map<String, List<TempAccountNonce>> accountValidateTxMap = new HashMap<>(1024);
+        Map<String, AccountState> accountStateMap = new HashMap<>(1024);
+        Map<String, Object> lockedCancelNonceMap = new HashMap<>(32);
+        Map<String, List<FreezeLockTimeState>> lockedTimeMap = new HashMap<>(32);
+        Map<String, List<FreezeHeightState>> lockedHeightMap = new HashMap<>(32);
+        for (int txIndex : txIndexes) {
+            if (txIndex > firstFailIndex.get()) {
+                return;
+            }
+            ValidateResult validateResult = blockTxsValidate(chainId, txs.get(txIndex), txHashes[txIndex], coinDatas[txIndex], batchValidateTxSet,
+                    accountValidateTxMap, accountStateMap, lockedCancelNonceMap, lockedTimeMap, lockedHeightMap);
+            if (!validateResult.isSuccess()) {
+                failResults[txIndex] = validateResult;
+                firstFailIndex.accumulateAndGet(txIndex, Math::min);
+                return;
+            }
+        }
+        if (!isBalanceEnough(chainId, accountStateMap)) {
+            balanceNotEnough.set(true);
+        }
+    }
+
+    private boolean isBalanceEnough(int chainId, Map<String, AccountState> accountStateMap) {
         for (Map.Entry<String, AccountState> entry : accountStateMap.entrySet()) {
             //缓存数据
             if (BigIntegerUtils.isLessThan(entry.getValue().getAvailableAmount(), BigInteger.ZERO)) {
@@ -230,7 +387,72 @@ public class CoinDataValidator {
             }
         }
         return true;
+    }
+
+    /**
+     * 并查集合并涉及同一个key的交易, 根节点始终是分组内最靠前的交易
+     * Union the txs touching the same key, the root is always the earliest tx of the group
+     */
+    private static void unionKey(int[] parents, Map<String, Integer> keyOwnerMap, int txIndex, String key) {
+        Integer owner = keyOwnerMap.putIfAbsent(key, txIndex);
+        if (null == owner) {
+            return;
+        }
+        int root1 = findRoot(parents, owner);
+        int root2 = findRoot(parents, txIndex);
+        if (root1 != root2) {
+            parents[Math.max(root1, root2)] = Math.min(root1, root2);
+        }
+    }
 
+    private static int findRoot(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+
+    /**
+     * 将分组按交易数均衡分配到不超过taskCount个任务中, 每个任务内的交易保持区块内顺序
+     * Spread the groups over at most taskCount tasks balanced by tx count, keeping block order inside each task
+     */
+    private static List<List<Integer>> partitionGroups(int[] parents, int taskCount) {
+        int size = parents.length;
+        int[] groupSizes = new int[size];
+        for (int i = 0; i < size; i++) {
+            groupSizes[findRoot(parents, i)]++;
+        }
+        Integer[] roots = new Integer[size];
+        int rootCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (groupSizes[i] > 0) {
+                roots[rootCount++] = i;
+            }
+        }
+        //大的分组先分配, 交易数相同时按区块内顺序, 保证分配结果确定
+        Arrays.sort(roots, 0, rootCount, (a, b) -> groupSizes[a] != groupSizes[b] ? groupSizes[b] - groupSizes[a] : a - b);
+        int bucketCount = Math.min(taskCount, rootCount);
+        long[] bucketLoads = new long[bucketCount];
+        int[] rootBuckets = new int[size];
+        for (int i = 0; i < rootCount; i++) {
+            int bucket = 0;
+            for (int j = 1; j < bucketCount; j++) {
+                if (bucketLoads[j] < bucketLoads[bucket]) {
+                    bucket = j;
+                }
+            }
+            bucketLoads[bucket] += groupSizes[roots[i]];
+            rootBuckets[roots[i]] = bucket;
+        }
+        List<List<Integer>> buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (int i = 0; i < size; i++) {
+            buckets.get(rootBuckets[findRoot(parents, i)]).add(i);
+        }
+        return buckets;
     }
 
 
@@ -648,9 +870,16 @@ public class CoinDataValidator {
     public ValidateResult blockTxsValidate(int chainId, Transaction tx, Set<String> batchValidateTxSet, Map<String, List<TempAccountNonce>> accountValidateTxMap,
                                            Map<String, AccountState> accountStateMap, Map<String, Object> lockedCancelNonceMap, Map<String, List<FreezeLockTimeState>> lockedTimeMap,
                                            Map<String, List<FreezeHeightState>> lockedHeightMap) {
+        return blockTxsValidate(chainId, tx, tx.getHash().toHex(), CoinDataUtil.parseCoinData(tx.getCoinData()), batchValidateTxSet,
+                accountValidateTxMap, accountStateMap, lockedCancelNonceMap, lockedTimeMap, lockedHeightMap);
+    }
+
+    private ValidateResult blockTxsValidate(int chainId, Transaction tx, String txHash, CoinData coinData, Set<String> batchValidateTxSet,
+                                            Map<String, List<TempAccountNonce>> accountValidateTxMap, Map<String, AccountState> accountStateMap,
+                                            Map<String, Object> lockedCancelNonceMap, Map<String, List<FreezeLockTimeState>> lockedTimeMap,
+                                            Map<String, List<FreezeHeightState>> lockedHeightMap) {
         //先校验，再逐笔放入缓存
         //交易的 hash值如果已存在，返回false，交易的from coin nonce 如果不连续，则存在双花。
-        String txHash = tx.getHash().toHex();
         if (batchValidateTxSet.contains(txHash)) {
             logger(chainId).error("{} tx exist!", txHash);
             return ValidateResult.getResult(LedgerErrorCode.TX_EXIST, new String[]{"--", txHash});
@@ -663,7 +892,6 @@ public class CoinDataValidator {
         } catch (Exception e) {
             LoggerUtil.logger(chainId).error(e);
         }
-        CoinData coinData = CoinDataUtil.parseCoinData(tx.getCoinData());
         if (null == coinData) {
             //例如黄牌交易，直接返回
             batchValidateTxSet.add(txHash);
@@ -0,0 +1,83 @@
+package io.nuls.ledger.cache;
+
+import io.nuls.ledger.constant.LedgerConstant;
+import io.nuls.ledger.model.AccountStateKey;
+import io.nuls.ledger.model.po.AccountState;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AccountStateCacheTest {
+
+    @Test
+    public void keyEquality() {
+        byte[] address = address(1);
+        AccountStateKey key = new AccountStateKey(address, 2, 1);
+        assertEquals(key, new AccountStateKey(address.clone(), 2, 1));
+        assertEquals(key.hashCode(), new AccountStateKey(address.clone(), 2, 1).hashCode());
+        assertNotEquals(key, new AccountStateKey(address, 1, 2));
+        assertNotEquals(key, new AccountStateKey(address, 2, 2));
+        assertEquals(2, key.getAssetChainId());
+        assertEquals(1, key.getAssetId());
+    }
+
+    @Test
+    public void readThrough() {
+        AccountStateCache cache = new AccountStateCache(1600);
+        AtomicInteger loads = new AtomicInteger();
+        AccountStateKey key = new AccountStateKey(address(1), 2, 1);
+        AccountStateKey absentKey = new AccountStateKey(address(2), 2, 1);
+        for (int i = 0; i < 3; i++) {
+            AccountState accountState = cache.get(key, k -> {
+                loads.incrementAndGet();
+                return accountState(100);
+            });
+            assertEquals(BigInteger.valueOf(100), accountState.getTotalToAmount());
+            //数据库中不存在的账户不缓存
+            assertNull(cache.get(absentKey, k -> null));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getLoadCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(1, cache.size());
+
+        cache.put(key, accountState(200));
+        assertEquals(BigInteger.valueOf(200), cache.get(key, null).getTotalToAmount());
+        cache.invalidate(key);
+        assertNull(cache.get(key, null));
+    }
+
+    @Test
+    public void lruEviction() {
+        //16个分段, 每段容量1
+        AccountStateCache cache = new AccountStateCache(16);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(new AccountStateKey(address(i), 2, 1), accountState(i));
+        }
+        assertTrue(cache.size() <= 16);
+        assertEquals(1000 - cache.size(), cache.getEvictionCount());
+        //最近写入的一定还在缓存中
+        assertNotNull(cache.get(new AccountStateKey(address(999), 2, 1), null));
+    }
+
+    private static byte[] address(int i) {
+        byte[] address = new byte[23];
+        address[0] = 2;
+        address[2] = 1;
+        address[19] = (byte) (i >> 24);
+        address[20] = (byte) (i >> 16);
+        address[21] = (byte) (i >> 8);
+        address[22] = (byte) i;
+        return address;
+    }
+
+    private static AccountState accountState(long amount) {
+        AccountState accountState = new AccountState(LedgerConstant.getInitNonceByte());
+        accountState.setTotalToAmount(BigInteger.valueOf(amount));
+        return accountState;
+    }
+}
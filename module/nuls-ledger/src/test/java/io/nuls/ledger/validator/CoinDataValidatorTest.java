@@ -0,0 +1,209 @@
+package io.nuls.ledger.validator;
+
+import io.nuls.base.basic.AddressTool;
+import io.nuls.base.data.CoinData;
+import io.nuls.base.data.CoinFrom;
+import io.nuls.base.data.CoinTo;
+import io.nuls.base.data.Transaction;
+import io.nuls.core.constant.TxType;
+import io.nuls.ledger.constant.LedgerConstant;
+import io.nuls.ledger.model.po.AccountState;
+import io.nuls.ledger.service.AccountStateService;
+import io.nuls.ledger.service.TransactionService;
+import io.nuls.ledger.storage.Repository;
+import io.nuls.ledger.utils.LedgerUtil;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * 区块交易分组并行校验与逐笔串行校验的结果对比及性能对比
+ * Compare the results and throughput of the grouped parallel block validation and the serial one
+ */
+public class CoinDataValidatorTest {
+    private static final int CHAIN_ID = 2;
+    private static final int ASSET_ID = 1;
+    private static final long HEIGHT = 100L;
+    private static final BigInteger AMOUNT = BigInteger.valueOf(100000000L);
+
+    @Test
+    public void validBlock() throws Exception {
+        CoinDataValidator validator = validator(AMOUNT.multiply(BigInteger.valueOf(100)));
+        List<Transaction> txs = block(2000, 5, false, 1);
+        assertSame(validator, txs, true);
+    }
+
+    @Test
+    public void sharedRecipientBlock() throws Exception {
+        CoinDataValidator validator = validator(AMOUNT.multiply(BigInteger.valueOf(100)));
+        List<Transaction> txs = block(500, 4, true, 2);
+        assertSame(validator, txs, true);
+    }
+
+    @Test
+    public void brokenNonceBlock() throws Exception {
+        CoinDataValidator validator = validator(AMOUNT.multiply(BigInteger.valueOf(100)));
+        List<Transaction> txs = block(2000, 5, false, 3);
+        //打乱同一账户的两笔交易顺序, nonce不再连续
+        Transaction tx = txs.get(5003);
+        txs.set(5003, txs.get(5003 + 2000));
+        txs.set(5003 + 2000, tx);
+        assertSame(validator, txs, false);
+    }
+
+    @Test
+    public void balanceNotEnoughBlock() throws Exception {
+        CoinDataValidator validator = validator(AMOUNT.multiply(BigInteger.valueOf(4)));
+        List<Transaction> txs = block(2000, 5, false, 4);
+        assertSame(validator, txs, false);
+    }
+
+    @Test
+    public void duplicateTxBlock() throws Exception {
+        CoinDataValidator validator = validator(AMOUNT.multiply(BigInteger.valueOf(100)));
+        List<Transaction> txs = block(2000, 5, false, 5);
+        txs.add(txs.get(1234));
+        assertSame(validator, txs, false);
+    }
+
+    /**
+     * 线程池关闭后区块校验退回串行, 结果不变
+     * After the pool is shut down blocks are validated serially with the same result
+     */
+    @Test
+    public void shutdownFallsBackToSerial() throws Exception {
+        CoinDataValidator validator = validator(AMOUNT.multiply(BigInteger.valueOf(100)));
+        List<Transaction> txs = block(2000, 5, false, 6);
+        assertTrue(validator.blockValidate(CHAIN_ID, HEIGHT, txs));
+        validator.shutdown();
+        assertTrue(validator.blockValidate(CHAIN_ID, HEIGHT, txs));
+        validator.shutdown();
+    }
+
+    private static void assertSame(CoinDataValidator validator, List<Transaction> txs, boolean expected) throws Exception {
+        try {
+            assertEquals(expected, invoke(validator, "serialBlockValidate", txs));
+            assertEquals(expected, invoke(validator, "parallelBlockValidate", txs));
+        } finally {
+            validator.shutdown();
+        }
+    }
+
+    /**
+     * 10000笔交易的区块, 对比串行与并行校验耗时
+     * Blocks of 10000 txs, compare the time of serial and parallel validation
+     */
+    public static void main(String[] args) throws Exception {
+        CoinDataValidator validator = validator(AMOUNT.multiply(BigInteger.valueOf(100)));
+        List<Transaction> independent = block(2500, 4, false, 11);
+        List<Transaction> shared = block(2500, 4, true, 12);
+        for (int round = 0; round < 5; round++) {
+            bench(validator, "independent senders", independent);
+            bench(validator, "shared recipient", shared);
+            System.out.println("*****************************************************");
+        }
+    }
+
+    private static void bench(CoinDataValidator validator, String name, List<Transaction> txs) throws Exception {
+        long time = System.nanoTime();
+        boolean serial = invoke(validator, "serialBlockValidate", txs);
+        long serialUse = System.nanoTime() - time;
+        time = System.nanoTime();
+        boolean parallel = invoke(validator, "parallelBlockValidate", txs);
+        long parallelUse = System.nanoTime() - time;
+        System.out.println(name + "\tserial " + (serialUse / 1000) + " us (" + serial + "), parallel "
+                + (parallelUse / 1000) + " us (" + parallel + ")");
+    }
+
+    private static boolean invoke(CoinDataValidator validator, String methodName, List<Transaction> txs) throws Exception {
+        if ("parallelBlockValidate".equals(methodName)) {
+            Field poolField = CoinDataValidator.class.getDeclaredField("blockValidatePool");
+            poolField.setAccessible(true);
+            Method method = CoinDataValidator.class.getDeclaredMethod(methodName, ForkJoinPool.class, int.class, long.class, List.class);
+            method.setAccessible(true);
+            return (boolean) method.invoke(validator, poolField.get(validator), CHAIN_ID, HEIGHT, txs);
+        }
+        Method method = CoinDataValidator.class.getDeclaredMethod(methodName, int.class, long.class, List.class);
+        method.setAccessible(true);
+        return (boolean) method.invoke(validator, CHAIN_ID, HEIGHT, txs);
+    }
+
+    /**
+     * 每个发送账户按nonce顺序发出txPerSender笔转账, 区块内按轮次交错排列
+     * Every sender sends txPerSender transfers in nonce order, interleaved by round in the block
+     *
+     * @param sharedRecipient 所有交易转给同一个账户, 全部交易落入同一分组 / all txs pay one account, so they form a single group
+     */
+    private static List<Transaction> block(int senders, int txPerSender, boolean sharedRecipient, long seed) throws Exception {
+        Random random = new Random(seed);
+        byte[][] senderAddresses = new byte[senders][];
+        byte[][] nonces = new byte[senders][];
+        for (int i = 0; i < senders; i++) {
+            senderAddresses[i] = address(random);
+            nonces[i] = LedgerConstant.getInitNonceByte();
+        }
+        byte[] recipient = address(random);
+        List<Transaction> txs = new ArrayList<>(senders * txPerSender);
+        for (int round = 0; round < txPerSender; round++) {
+            for (int i = 0; i < senders; i++) {
+                CoinData coinData = new CoinData();
+                coinData.addFrom(new CoinFrom(senderAddresses[i], CHAIN_ID, ASSET_ID, AMOUNT, nonces[i], (byte) 0));
+                coinData.addTo(new CoinTo(sharedRecipient ? recipient : address(random), CHAIN_ID, ASSET_ID, AMOUNT));
+                Transaction tx = new Transaction(TxType.TRANSFER);
+                tx.setTime(1574000000L + round);
+                tx.setCoinData(coinData.serialize());
+                nonces[i] = LedgerUtil.getNonceByTx(tx);
+                txs.add(tx);
+            }
+        }
+        return txs;
+    }
+
+    private static byte[] address(Random random) {
+        byte[] publicKey = new byte[33];
+        random.nextBytes(publicKey);
+        return AddressTool.getAddress(publicKey, CHAIN_ID);
+    }
+
+    private static CoinDataValidator validator(BigInteger balance) throws Exception {
+        CoinDataValidator validator = new CoinDataValidator();
+        setField(validator, "accountStateService", stub(AccountStateService.class, "getAccountStateReCal", args -> {
+            AccountState accountState = new AccountState(LedgerConstant.getInitNonceByte());
+            accountState.setTotalToAmount(balance);
+            return accountState;
+        }));
+        setField(validator, "transactionService", stub(TransactionService.class, "hadTxExist", args -> false));
+        setField(validator, "repository", stub(Repository.class, "getBlockHeight", args -> HEIGHT - 1));
+        validator.afterPropertiesSet();
+        return validator;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, String methodName, StubMethod stubMethod) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals(methodName)) {
+                return stubMethod.invoke(args);
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private interface StubMethod {
+        Object invoke(Object[] args);
+    }
+}
@@ -24,7 +24,6 @@
  */
 package io.nuls.network.manager.handler.message;
 
-import io.nuls.base.RPCUtil;
 import io.nuls.core.constant.BaseConstant;
 import io.nuls.core.rpc.info.Constants;
 import io.nuls.core.rpc.model.CmdPriority;
@@ -44,6 +43,7 @@ import io.nuls.network.model.message.base.MessageHeader;
 import io.nuls.network.utils.LoggerUtil;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -90,28 +90,31 @@ public class OtherModuleMessageHandler extends BaseMessageHandler {
         paramMap.put("nodeId", node.getId());
         String cmd = header.getCommandStr();
         paramMap.put("cmd", cmd);
-        String messageBody = RPCUtil.encode(payLoadBody);
-        paramMap.put("messageBody", messageBody);
+        /*
+        消息体以原始字节放入参数，只编码一次并由所有订阅模块共享，支持二进制帧的模块不再做hex编码
+        The message body is put into params as raw bytes, encoded once and shared by all subscribed modules,
+        modules supporting binary frames no longer receive it hex encoded
+         */
+        paramMap.put("messageBody", payLoadBody);
         Map<String, CmdPriority> protocolRoles = MessageHandlerFactory.getInstance().getProtocolRoleHandlerMap(cmd);
         if (protocolRoles == null || protocolRoles.isEmpty()) {
             LoggerUtil.logger(chainId).error("unknown mssages. cmd={},handler may be unRegistered to network.", cmd);
             return NetworkEventResult.getResultSuccess();
         }
-        for (Map.Entry<String,CmdPriority> entry : protocolRoles.entrySet()) {
-            try {
-                Request request = MessageUtil.newRequest(BaseConstant.MSG_PROCESS, paramMap, Constants.BOOLEAN_FALSE, Constants.ZERO, Constants.ZERO);
-                if ("0".equals(ResponseMessageProcessor.requestOnly(entry.getKey(), request))) {
-                    if (nodeGroup.getCacheMsgQueue().size() > NetworkConstant.MAX_CACHE_MSG_QUEUE) {
-                        LoggerUtil.COMMON_LOG.error("chainId = {},cmd={},CacheMsgQueue size={}.RPC fail,drop msg", chainId, cmd, nodeGroup.getCacheMsgQueue().size());
-                    } else {
-                        LoggerUtil.COMMON_LOG.error("chainId = {},cmd={},RPC fail,add to cache", chainId, cmd);
-                        RpcCacheMessage peerMessage = new RpcCacheMessage(node.getId(), cmd, messageBody);
-                        nodeGroup.getCacheMsgQueue().addLast(peerMessage);
-                    }
+        try {
+            Request request = MessageUtil.newRequest(BaseConstant.MSG_PROCESS, paramMap, Constants.BOOLEAN_FALSE, Constants.ZERO, Constants.ZERO);
+            List<String> failRoles = ResponseMessageProcessor.requestOnly(protocolRoles.keySet(), request);
+            if (!failRoles.isEmpty()) {
+                if (nodeGroup.getCacheMsgQueue().size() > NetworkConstant.MAX_CACHE_MSG_QUEUE) {
+                    LoggerUtil.COMMON_LOG.error("chainId = {},cmd={},CacheMsgQueue size={}.RPC fail,drop msg", chainId, cmd, nodeGroup.getCacheMsgQueue().size());
+                } else {
+                    LoggerUtil.COMMON_LOG.error("chainId = {},cmd={},roles={},RPC fail,add to cache", chainId, cmd, failRoles);
+                    RpcCacheMessage peerMessage = new RpcCacheMessage(node.getId(), cmd, payLoadBody);
+                    nodeGroup.getCacheMsgQueue().addLast(peerMessage);
                 }
-            } catch (Exception e) {
-                LoggerUtil.logger(chainId).error("{}", e.getMessage());
             }
+        } catch (Exception e) {
+            LoggerUtil.logger(chainId).error("{}", e.getMessage());
         }
 //        MessageTestUtil.recievedMessage(cmd);
         return NetworkEventResult.getResultSuccess();
@@ -65,7 +65,7 @@ public class ApiContext {
 
     public static String VERSION = "1.0";
 
-    public static int protocolVersion = 1;
+    public static volatile int protocolVersion = 1;
 
     public static int maxAliveConnect;
 
@@ -75,6 +75,10 @@ public class ApiContext {
 
     public static int connectTimeOut;
 
+    public static int syncReadAhead;
+
+    public static int syncThreads;
+
     public static boolean isRunSmartContract;
 
     public static boolean isRunCrossChain;
@@ -142,6 +142,8 @@ public class PublicServiceBootstrap extends RpcModule {
         ApiContext.maxAliveConnect = apiConfig.getMaxAliveConnect();
         ApiContext.connectTimeOut = apiConfig.getConnectTimeOut();
         ApiContext.socketTimeout = apiConfig.getSocketTimeout();
+        ApiContext.syncReadAhead = apiConfig.getSyncReadAhead();
+        ApiContext.syncThreads = apiConfig.getSyncThreads();
 
         ApiContext.blackHolePublicKey = Hex.decode(apiConfig.getBlackHolePublicKey());
         if (apiConfig.getDeveloperNodeAddress() != null) {
@@ -17,8 +17,10 @@ import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.Log;
 import io.nuls.core.model.StringUtils;
 import io.nuls.core.rpc.info.Constants;
+import io.nuls.core.rpc.invoke.BaseInvoke;
 import io.nuls.core.rpc.model.ModuleE;
 import io.nuls.core.rpc.model.message.Response;
+import io.nuls.core.rpc.netty.processor.ResponseMessageProcessor;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -68,6 +70,27 @@ public class WalletRpcHandler {
         return Result.getFailed(ApiErrorCode.DATA_PARSE_ERROR);
     }
 
+    /**
+     * 订阅最新主链高度, 区块模块每保存一个区块回调一次
+     * Subscribe to the latest height of master chain, called back once for every saved block
+     *
+     * @param chainId 链ID
+     * @param invoke  回调
+     * @return 是否订阅成功
+     */
+    public static boolean subscribeLatestHeight(int chainId, BaseInvoke invoke) {
+        Map<String, Object> params = new HashMap<>(ApiConstant.INIT_CAPACITY_8);
+        params.put(Constants.VERSION_KEY_STR, ApiContext.VERSION);
+        params.put(Constants.CHAIN_ID, chainId);
+        try {
+            String messageId = ResponseMessageProcessor.requestAndInvoke(ModuleE.BL.abbr, CommandConstant.LATEST_HEIGHT, params, "0", "1", invoke);
+            return messageId != null;
+        } catch (Exception e) {
+            Log.error(e);
+            return false;
+        }
+    }
+
     public static Result<Map<String, Object>> getBlockGlobalInfo(int chainId) {
         Map<String, Object> params = new HashMap<>(ApiConstant.INIT_CAPACITY_8);
         params.put(Constants.VERSION_KEY_STR, ApiContext.VERSION);
@@ -33,6 +33,8 @@ public interface CommandConstant {
     String GET_BLOCK_BY_HEIGHT = "getBlockByHeight";
     //根据区块hash获取区块
     String GET_BLOCK_BY_HASH = "getBlockByHash";
+    //最新主链高度, 可按高度变化订阅
+    String LATEST_HEIGHT = "latestHeight";
 
     String INFO = "info";
     //获取账户余额
@@ -72,6 +72,16 @@ public class ApiConfig implements ModuleConfig {
 
     private String blackHolePublicKey;
 
+    /**
+     * 同步区块时预取、解析的区块数, 0表示逐块同步
+     */
+    private int syncReadAhead;
+
+    /**
+     * 预取、解析区块的线程数
+     */
+    private int syncThreads;
+
     public String getEncoding() {
         return encoding;
     }
@@ -279,4 +289,20 @@ public class ApiConfig implements ModuleConfig {
     public void setSocketTimeout(int socketTimeout) {
         this.socketTimeout = socketTimeout;
     }
+
+    public int getSyncReadAhead() {
+        return syncReadAhead;
+    }
+
+    public void setSyncReadAhead(int syncReadAhead) {
+        this.syncReadAhead = syncReadAhead;
+    }
+
+    public int getSyncThreads() {
+        return syncThreads;
+    }
+
+    public void setSyncThreads(int syncThreads) {
+        this.syncThreads = syncThreads;
+    }
 }
@@ -0,0 +1,41 @@
+package io.nuls.api.rpc.callback;
+
+import io.nuls.api.constant.CommandConstant;
+import io.nuls.api.task.BlockReadAhead;
+import io.nuls.api.utils.LoggerUtil;
+import io.nuls.core.rpc.invoke.BaseInvoke;
+import io.nuls.core.rpc.model.message.Response;
+
+import java.util.Map;
+
+/**
+ * 接收区块模块推送的最新主链高度
+ * Receive the latest height of master chain pushed by the block module
+ */
+public class LatestHeightInvoke extends BaseInvoke {
+
+    private final BlockReadAhead readAhead;
+
+    public LatestHeightInvoke(BlockReadAhead readAhead) {
+        this.readAhead = readAhead;
+    }
+
+    @Override
+    public void callBack(Response response) {
+        try {
+            Map data = (Map) response.getResponseData();
+            if (data == null) {
+                return;
+            }
+            Object value = data.get(CommandConstant.LATEST_HEIGHT);
+            if (value instanceof Map) {
+                value = ((Map) value).get("value");
+            }
+            if (value != null) {
+                readAhead.newHeight(Long.parseLong(value.toString()));
+            }
+        } catch (Exception e) {
+            LoggerUtil.commonLog.error(e);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package io.nuls.api.task;
+
+import io.nuls.api.ApiContext;
+import io.nuls.api.analysis.WalletRpcHandler;
+import io.nuls.api.model.po.BlockInfo;
+import io.nuls.api.rpc.callback.LatestHeightInvoke;
+import io.nuls.api.utils.LoggerUtil;
+import io.nuls.core.basic.Result;
+import io.nuls.core.thread.ThreadUtils;
+import io.nuls.core.thread.commom.NulsThreadFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 区块预取
+ * 由工作线程提前拉取、解析后面的若干个区块, 同步线程按高度顺序取用并写库;
+ * 追上最新高度后, 等待区块模块推送新的高度, 而不是固定休眠
+ * <p>
+ * Read-ahead for block sync. Worker threads fetch and parse the next blocks, the sync thread takes them in height order
+ * and remains the only writer. Near the tip it waits for the height pushed by the block module instead of sleeping.
+ */
+public class BlockReadAhead {
+
+    private final int chainId;
+
+    /**
+     * 最多预取的区块数
+     */
+    private final int depth;
+
+    private final int threads;
+
+    /**
+     * 预取线程池, 第一次预取时创建, 同步任务结束时关闭
+     */
+    private ExecutorService executor;
+
+    /**
+     * 已提交的预取任务, 只在同步线程中访问
+     */
+    private final Map<Long, Future<Fetched>> futures = new HashMap<>();
+
+    /**
+     * 同步线程下一个要取的高度
+     */
+    private long height = -1;
+
+    /**
+     * 下一个要提交预取的高度
+     */
+    private long submitHeight;
+
+    private final Object heightLock = new Object();
+
+    /**
+     * 区块模块推送的最新高度
+     */
+    private volatile long latestHeight;
+
+    private long notifyCount;
+
+    private boolean subscribed;
+
+    public BlockReadAhead(int chainId, int depth, int threads) {
+        this.chainId = chainId;
+        this.depth = depth;
+        this.threads = threads;
+    }
+
+    /**
+     * 订阅最新高度, 订阅失败时下次同步再试
+     */
+    public void subscribe() {
+        if (!subscribed) {
+            subscribed = WalletRpcHandler.subscribeLatestHeight(chainId, new LatestHeightInvoke(this));
+        }
+    }
+
+    /**
+     * 取指定高度的区块, 与WalletRpcHandler.getBlockInfo的返回一致
+     * 高度与上次取的不连续时(启动、回滚、写库失败), 丢弃已预取的区块重新开始
+     *
+     * @param height 区块高度
+     * @return 区块
+     */
+    public Result<BlockInfo> take(long height) throws InterruptedException {
+        if (height != this.height) {
+            reset(height);
+        }
+        fill();
+        Future<Fetched> future = futures.remove(height);
+        Fetched fetched;
+        try {
+            fetched = future.get();
+        } catch (ExecutionException e) {
+            LoggerUtil.commonLog.error(e.getCause());
+            fetched = fetch(height);
+        }
+        Result<BlockInfo> result = fetched.result;
+        if (result.isFailed() || result.getData() == null) {
+            //后面的区块也还没有, 下次从这个高度重新预取
+            reset(height);
+            return result;
+        }
+        if (fetched.version != ApiContext.protocolVersion) {
+            //解析时的协议版本与写入前一个区块后的不一致, 按当前版本重新解析
+            result = getBlockInfo(height);
+        }
+        this.height = height + 1;
+        return result;
+    }
+
+    /**
+     * 等待区块模块推送不低于指定高度的新高度
+     *
+     * @param height  区块高度
+     * @param timeout 最长等待时间(毫秒)
+     * @return 超时前收到推送返回true
+     */
+    public boolean awaitHeight(long height, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (heightLock) {
+            long count = notifyCount;
+            while (notifyCount == count || latestHeight < height) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                heightLock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 收到区块模块推送的最新高度
+     *
+     * @param latestHeight 最新主链高度
+     */
+    public void newHeight(long latestHeight) {
+        synchronized (heightLock) {
+            this.latestHeight = latestHeight;
+            notifyCount++;
+            heightLock.notifyAll();
+        }
+    }
+
+    /**
+     * 同步任务结束时调用: 丢弃已预取的区块并关闭预取线程池, 下次同步时重新创建
+     */
+    public void stop() {
+        reset(-1);
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void reset(long height) {
+        for (Future<Fetched> future : futures.values()) {
+            future.cancel(false);
+        }
+        futures.clear();
+        this.height = height;
+        this.submitHeight = height;
+    }
+
+    /**
+     * 提交预取任务, 不超过节点已有的高度, 当前要取的高度总是提交
+     */
+    private void fill() {
+        long limit = Math.max(height, Math.max(latestHeight, ApiContext.localHeight));
+        long end = Math.min(height + depth - 1, limit);
+        if (executor == null) {
+            executor = ThreadUtils.createThreadPool(threads, 0, new NulsThreadFactory("api-sync-read-ahead"));
+        }
+        while (submitHeight <= end) {
+            long h = submitHeight++;
+            futures.put(h, executor.submit(() -> fetch(h)));
+        }
+    }
+
+    private Fetched fetch(long height) {
+        int version = ApiContext.protocolVersion;
+        Result<BlockInfo> result = getBlockInfo(height);
+        if (version != ApiContext.protocolVersion) {
+            //解析期间协议版本有变化
+            version = -1;
+        }
+        return new Fetched(result, version);
+    }
+
+    /**
+     * 从区块模块获取并解析区块
+     */
+    protected Result<BlockInfo> getBlockInfo(long height) {
+        return WalletRpcHandler.getBlockInfo(chainId, height);
+    }
+
+    private static class Fetched {
+
+        private final Result<BlockInfo> result;
+
+        /**
+         * 解析时的协议版本
+         */
+        private final int version;
+
+        Fetched(Result<BlockInfo> result, int version) {
+            this.result = result;
+            this.version = version;
+        }
+    }
+}
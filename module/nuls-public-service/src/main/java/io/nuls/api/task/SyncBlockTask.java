@@ -20,10 +20,18 @@ public class SyncBlockTask implements Runnable {
 
     private RollbackService rollbackService;
 
+    /**
+     * 区块预取, 未配置syncReadAhead时为null, 逐块同步
+     */
+    private BlockReadAhead readAhead;
+
     public SyncBlockTask(int chainId) {
         this.chainId = chainId;
         syncService = SpringLiteContext.getBean(SyncService.class);
         rollbackService = SpringLiteContext.getBean(RollbackService.class);
+        if (ApiContext.syncReadAhead > 0) {
+            readAhead = new BlockReadAhead(chainId, ApiContext.syncReadAhead, Math.max(1, ApiContext.syncThreads));
+        }
     }
 
     @Override
@@ -44,14 +52,23 @@ public class SyncBlockTask implements Runnable {
             Log.error(e);
             return;
         }
+        if (readAhead != null) {
+            readAhead.subscribe();
+        }
 
         boolean running = true;
-        while (running) {
-            try {
-                running = syncBlock();
-            } catch (Exception e) {
-                Log.error(e);
-                running = false;
+        try {
+            while (running) {
+                try {
+                    running = syncBlock();
+                } catch (Exception e) {
+                    Log.error(e);
+                    running = false;
+                }
+            }
+        } finally {
+            if (readAhead != null) {
+                readAhead.stop();
             }
         }
     }
@@ -85,12 +102,21 @@ public class SyncBlockTask implements Runnable {
         if (localBestBlockHeader != null) {
             nextHeight = localBestBlockHeader.getHeight() + 1;
         }
-        Result<BlockInfo> result = WalletRpcHandler.getBlockInfo(chainId, nextHeight);
+        Result<BlockInfo> result;
+        if (readAhead != null) {
+            result = readAhead.take(nextHeight);
+        } else {
+            result = WalletRpcHandler.getBlockInfo(chainId, nextHeight);
+        }
         if (result.isFailed()) {
             return false;
         }
         BlockInfo newBlock = result.getData();
         if (null == newBlock) {
+            if (readAhead != null) {
+                //已追上最新高度, 收到新区块推送后继续同步
+                return readAhead.awaitHeight(nextHeight, 5000L);
+            }
             Thread.sleep(5000L);
             return false;
         }
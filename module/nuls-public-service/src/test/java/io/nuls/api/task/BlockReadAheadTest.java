@@ -0,0 +1,204 @@
+package io.nuls.api.task;
+
+import io.nuls.api.ApiContext;
+import io.nuls.api.model.po.BlockHeaderInfo;
+import io.nuls.api.model.po.BlockInfo;
+import io.nuls.core.basic.Result;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 区块预取: 用桩代替区块模块, 按高度记录拉取次数
+ */
+public class BlockReadAheadTest {
+
+    private static final int DEPTH = 4;
+
+    private int protocolVersion;
+
+    private long localHeight;
+
+    private StubReadAhead readAhead;
+
+    @Before
+    public void setUp() {
+        protocolVersion = ApiContext.protocolVersion;
+        localHeight = ApiContext.localHeight;
+        ApiContext.localHeight = 0;
+        readAhead = new StubReadAhead(100);
+        readAhead.newHeight(100);
+    }
+
+    @After
+    public void tearDown() {
+        readAhead.stop();
+        ApiContext.protocolVersion = protocolVersion;
+        ApiContext.localHeight = localHeight;
+    }
+
+    @Test
+    public void takeInOrder() throws Exception {
+        for (long height = 10; height < 20; height++) {
+            assertEquals(height, readAhead.take(height).getData().getHeader().getHeight());
+        }
+        for (long height = 10; height < 20; height++) {
+            assertEquals(1, readAhead.fetchCount(height));
+        }
+    }
+
+    /**
+     * 高度不连续(回滚)时丢弃已预取的区块, 从新的高度重新预取
+     */
+    @Test
+    public void resetOnDiscontinuity() throws Exception {
+        assertEquals(10, readAhead.take(10).getData().getHeader().getHeight());
+        assertEquals(11, readAhead.take(11).getData().getHeader().getHeight());
+        assertEquals(8, readAhead.take(8).getData().getHeader().getHeight());
+        assertEquals(9, readAhead.take(9).getData().getHeader().getHeight());
+        //回滚后重新拉取10
+        assertEquals(10, readAhead.take(10).getData().getHeader().getHeight());
+        readAhead.awaitFetched(10, 2);
+        assertEquals(2, readAhead.fetchCount(10));
+    }
+
+    /**
+     * 预取之后协议版本有变化, 按当前版本重新解析
+     */
+    @Test
+    public void reparseOnProtocolVersionChange() throws Exception {
+        readAhead.take(10);
+        readAhead.awaitFetched(11, 1);
+        ApiContext.protocolVersion = protocolVersion + 1;
+        assertEquals(11, readAhead.take(11).getData().getHeader().getHeight());
+        assertEquals(2, readAhead.fetchCount(11));
+    }
+
+    /**
+     * 预取任务异常时, 同步线程重新拉取
+     */
+    @Test
+    public void refetchOnExecutionException() throws Exception {
+        readAhead.failOnce(12);
+        readAhead.take(10);
+        readAhead.take(11);
+        assertEquals(12, readAhead.take(12).getData().getHeader().getHeight());
+        assertEquals(2, readAhead.fetchCount(12));
+    }
+
+    /**
+     * 超过区块模块的最新高度时返回空区块, 之后从该高度重新预取
+     */
+    @Test
+    public void beyondTip() throws Exception {
+        readAhead.take(100);
+        Result<BlockInfo> result = readAhead.take(101);
+        assertFalse(result.isFailed());
+        assertNull(result.getData());
+        readAhead.tip = 101;
+        assertEquals(101, readAhead.take(101).getData().getHeader().getHeight());
+    }
+
+    /**
+     * 同步任务结束时关闭线程池, 下次同步重新创建并从头预取
+     */
+    @Test
+    public void stopAndRestart() throws Exception {
+        readAhead.take(10);
+        readAhead.stop();
+        assertEquals(11, readAhead.take(11).getData().getHeader().getHeight());
+        readAhead.awaitFetched(11, 1);
+    }
+
+    /**
+     * 只有推送的高度不低于等待的高度时才返回true, 否则等到超时
+     */
+    @Test
+    public void awaitHeight() throws Exception {
+        assertFalse(readAhead.awaitHeight(101, 50L));
+        Thread pusher = push(100);
+        assertFalse(readAhead.awaitHeight(101, 300L));
+        pusher.join();
+        pusher = push(101);
+        assertTrue(readAhead.awaitHeight(101, 5000L));
+        pusher.join();
+    }
+
+    /**
+     * 稍后在另一个线程推送最新高度
+     */
+    private Thread push(long height) {
+        Thread pusher = new Thread(() -> {
+            try {
+                Thread.sleep(100L);
+                readAhead.newHeight(height);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        pusher.start();
+        return pusher;
+    }
+
+    private static class StubReadAhead extends BlockReadAhead {
+
+        private volatile long tip;
+
+        private final Map<Long, AtomicInteger> fetched = new ConcurrentHashMap<>();
+
+        private final Map<Long, Boolean> failOnce = new ConcurrentHashMap<>();
+
+        StubReadAhead(long tip) {
+            super(1, DEPTH, 2);
+            this.tip = tip;
+        }
+
+        @Override
+        protected Result<BlockInfo> getBlockInfo(long height) {
+            AtomicInteger count = fetched.computeIfAbsent(height, h -> new AtomicInteger());
+            synchronized (count) {
+                count.incrementAndGet();
+                count.notifyAll();
+            }
+            if (failOnce.remove(height) != null) {
+                throw new RuntimeException("fetch failed");
+            }
+            if (height > tip) {
+                return new Result<>(true, null);
+            }
+            BlockHeaderInfo header = new BlockHeaderInfo();
+            header.setHeight(height);
+            BlockInfo blockInfo = new BlockInfo();
+            blockInfo.setHeader(header);
+            return new Result<>(true, blockInfo);
+        }
+
+        void failOnce(long height) {
+            failOnce.put(height, Boolean.TRUE);
+        }
+
+        int fetchCount(long height) {
+            AtomicInteger count = fetched.get(height);
+            return count == null ? 0 : count.get();
+        }
+
+        void awaitFetched(long height, int times) throws InterruptedException {
+            AtomicInteger count = fetched.computeIfAbsent(height, h -> new AtomicInteger());
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+            synchronized (count) {
+                while (count.get() < times) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    assertTrue("height " + height + " fetched " + count.get() + " times", remaining > 0);
+                    count.wait(remaining);
+                }
+            }
+        }
+    }
+}
@@ -30,10 +30,11 @@ import io.nuls.contract.model.po.ContractTokenTransferInfoPo;
 import io.nuls.contract.storage.ContractTokenTransferStorageService;
 import io.nuls.core.basic.Result;
 import io.nuls.core.core.annotation.Component;
-import io.nuls.core.rockdb.model.Entry;
+import io.nuls.core.rockdb.service.DBCursor;
 import io.nuls.core.rockdb.service.RocksDBService;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static io.nuls.contract.constant.ContractDBConstant.DB_NAME_CONTRACT_NRC20_TOKEN_TRANSFER;
@@ -63,66 +64,35 @@ public class ContractTokenTransferStorageServiceImpl implements ContractTokenTra
 
     @Override
     public List<ContractTokenTransferInfoPo> getTokenTransferInfoListByAddress(int chainId, byte[] address) {
-        List<ContractTokenTransferInfoPo> infoPoList = new ArrayList<>();
-        List<Entry<byte[], byte[]>> entryList = RocksDBService.entryList(baseArea + chainId);
-        if (entryList == null || entryList.isEmpty()) {
-            return infoPoList;
-        }
-
-        ContractTokenTransferInfoPo tokenTransferInfoPo;
-        for (Entry<byte[], byte[]> entry : entryList) {
-            if (isAddressEquals(entry.getKey(), address)) {
-                tokenTransferInfoPo = getModel(entry.getValue(), ContractTokenTransferInfoPo.class);
-                infoPoList.add(tokenTransferInfoPo);
-            }
-        }
-        return infoPoList;
-    }
-
-    private boolean isAddressEquals(byte[] key, byte[] address) {
-        int length = Address.ADDRESS_LENGTH;
-        for (int i = 0; i < length; i++) {
-            if (key[i] != address[i]) {
-                return false;
-            }
-        }
-        return true;
+        return getTokenTransferInfoListByPrefix(chainId, Arrays.copyOf(address, Address.ADDRESS_LENGTH));
     }
 
     @Override
     public List<ContractTokenTransferInfoPo> getTokenTransferInfoListByAddress(int chainId, byte[] address, byte[] txHash) {
+        byte[] prefix = Arrays.copyOf(address, Address.ADDRESS_LENGTH + txHash.length);
+        System.arraycopy(txHash, 0, prefix, Address.ADDRESS_LENGTH, txHash.length);
+        return getTokenTransferInfoListByPrefix(chainId, prefix);
+    }
+
+    /**
+     * 键以地址、交易hash开头, 按前缀遍历, 不再读取整张表
+     */
+    private List<ContractTokenTransferInfoPo> getTokenTransferInfoListByPrefix(int chainId, byte[] prefix) {
         List<ContractTokenTransferInfoPo> infoPoList = new ArrayList<>();
-        List<Entry<byte[], byte[]>> entryList = RocksDBService.entryList(baseArea + chainId);
-        if (entryList == null || entryList.isEmpty()) {
+        DBCursor cursor = RocksDBService.scanPrefix(baseArea + chainId, prefix);
+        if (cursor == null) {
             return infoPoList;
         }
-
-        ContractTokenTransferInfoPo tokenTransferInfoPo;
-        for (Entry<byte[], byte[]> entry : entryList) {
-            if (isAddressAndHashEquals(entry.getKey(), address, txHash)) {
-                tokenTransferInfoPo = getModel(entry.getValue(), ContractTokenTransferInfoPo.class);
-                infoPoList.add(tokenTransferInfoPo);
+        try {
+            while (cursor.hasNext()) {
+                infoPoList.add(getModel(cursor.next().getValue(), ContractTokenTransferInfoPo.class));
             }
+        } finally {
+            cursor.close();
         }
         return infoPoList;
     }
 
-    private boolean isAddressAndHashEquals(byte[] key, byte[] address, byte[] txHash) {
-        int length = Address.ADDRESS_LENGTH + txHash.length;
-        for (int i = 0, k = 0; i < length; i++) {
-            if (i < Address.ADDRESS_LENGTH) {
-                if (key[i] != address[i]) {
-                    return false;
-                }
-            } else {
-                if (key[i] != txHash[k++]) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
     @Override
     public Result deleteTokenTransferInfo(int chainId, byte[] infoKey) throws Exception {
         boolean result = RocksDBService.delete(baseArea + chainId, infoKey);
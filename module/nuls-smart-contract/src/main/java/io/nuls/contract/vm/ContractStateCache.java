@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.ethereum.db.ByteArrayWrapper;
+import org.ethereum.vm.DataWord;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合约状态的解码缓存, 按(合约地址, 存储key)存放存储值及其解码结果, 跨调用、跨区块复用.
+ * 读取时仍从Repository取存储值, 只有存储值与缓存一致时才复用解码结果, 因此区块内其他交易修改过的状态不会被误用.
+ * 缓存中的对象不会交给Heap直接修改, Heap取用时复制一份.
+ * <p>
+ * Decoded contract state keyed by (contract address, storage key). An entry is reused only while the stored value
+ * is unchanged, and callers take a copy before mutating it.
+ */
+public class ContractStateCache {
+
+    private static final long MAX_WEIGHT = 64L * 1024 * 1024;
+
+    /**
+     * 每个条目除存储值外的估算开销
+     */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private static final Cache<Key, Entry> CACHE;
+
+    static {
+        CACHE = CacheBuilder.newBuilder()
+                .maximumWeight(MAX_WEIGHT)
+                .weigher((Key key, Entry entry) -> entry.weight)
+                .expireAfterAccess(10 * 60, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 取存储值对应的解码结果
+     *
+     * @param address 合约地址
+     * @param key     存储key
+     * @param value   当前存储值
+     * @return 存储值与缓存一致时返回解码结果, 否则返回null
+     */
+    public static Object get(byte[] address, DataWord key, DataWord value) {
+        Entry entry = CACHE.getIfPresent(new Key(address, key));
+        if (entry == null || !entry.value.equals(value)) {
+            return null;
+        }
+        return entry.decoded;
+    }
+
+    /**
+     * 缓存存储值的解码结果, 放入后不能再修改decoded
+     *
+     * @param address 合约地址
+     * @param key     存储key
+     * @param value   存储值
+     * @param length  存储值的字节数
+     * @param decoded 解码结果
+     */
+    public static void put(byte[] address, DataWord key, DataWord value, int length, Object decoded) {
+        CACHE.put(new Key(address, key), new Entry(value, decoded, length * 2 + ENTRY_OVERHEAD));
+    }
+
+    public static void clear() {
+        CACHE.invalidateAll();
+    }
+
+    private static class Key {
+
+        private final ByteArrayWrapper address;
+
+        private final DataWord key;
+
+        private final int hashCode;
+
+        Key(byte[] address, DataWord key) {
+            this.address = new ByteArrayWrapper(address);
+            this.key = key;
+            this.hashCode = 31 * this.address.hashCode() + key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key that = (Key) o;
+            return address.equals(that.address) && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+    }
+
+    private static class Entry {
+
+        private final DataWord value;
+
+        private final Object decoded;
+
+        private final int weight;
+
+        Entry(DataWord value, Object decoded, int weight) {
+            this.value = value;
+            this.decoded = decoded;
+            this.weight = weight;
+        }
+
+    }
+
+}
@@ -24,6 +24,7 @@
  */
 package io.nuls.contract.vm;
 
+import io.nuls.contract.vm.code.DecodedMethod;
 import io.nuls.contract.vm.code.MethodCode;
 import io.nuls.contract.vm.code.VariableType;
 import io.nuls.contract.vm.instructions.references.Athrow;
@@ -49,8 +50,15 @@ public class Frame {
 
     public final Result result;
 
+    private final DecodedMethod decodedMethod;
+
     private AbstractInsnNode currentInsnNode;
 
+    /**
+     * currentInsnNode在预解码指令中的下标
+     */
+    private int currentIndex;
+
     private OpCode currentOpCode;
 
     public boolean addGas = true;
@@ -65,32 +73,50 @@ public class Frame {
         this.operandStack = new OperandStack(this.maxStack);
         this.localVariables = new LocalVariables(this.maxLocals, args);
         this.result = new Result(this.methodCode.returnVariableType);
+        this.decodedMethod = this.methodCode.getDecodedMethod();
         this.currentInsnNode = this.methodCode.instructions.getFirst();
+        this.currentIndex = 0;
     }
 
     public void step() {
         if (this.currentInsnNode != null) {
-            this.currentInsnNode = this.currentInsnNode.getNext();
+            this.currentIndex++;
+            this.currentInsnNode = this.currentIndex < this.decodedMethod.size() ? this.decodedMethod.getInsnNode(this.currentIndex) : null;
         }
     }
 
     public void jump() {
-        this.currentInsnNode = jumpInsnNode().label;
+        jump(jumpInsnNode().label);
     }
 
     public void jump(LabelNode label) {
+        this.currentIndex = this.decodedMethod.indexOf(label);
         this.currentInsnNode = label;
     }
 
     public OpCode currentOpCode() {
         if (this.currentInsnNode != null) {
-            this.currentOpCode = OpCode.valueOf(this.currentInsnNode.getOpcode());
+            this.currentOpCode = this.decodedMethod.getOpCode(this.currentIndex);
         } else {
             this.currentOpCode = null;
         }
         return this.currentOpCode;
     }
 
+    /**
+     * 当前指令预先计算的gas, 与运行时栈上的值有关时为VM.DYNAMIC_GAS_COST
+     */
+    public int currentGasCost() {
+        return this.decodedMethod.getGasCost(this.currentIndex);
+    }
+
+    /**
+     * 当前是否为标签、行号等伪指令
+     */
+    public boolean isPseudoInsn() {
+        return this.decodedMethod.isPseudo(this.currentIndex);
+    }
+
     public int getLine(LabelNode labelNode) {
         AbstractInsnNode abstractInsnNode = labelNode;
         while (!(abstractInsnNode instanceof LineNumberNode)) {
@@ -28,7 +28,7 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import io.nuls.contract.util.Log;
 import io.nuls.contract.vm.code.ClassCode;
-import io.nuls.contract.vm.code.FieldCode;
+import io.nuls.contract.vm.code.FieldLayout;
 import io.nuls.contract.vm.code.MethodCode;
 import io.nuls.contract.vm.code.VariableType;
 import io.nuls.contract.vm.natives.io.nuls.contract.sdk.NativeAddress;
@@ -113,7 +113,9 @@ public class Heap {
 
     public ObjectRef newObject(String ref, ClassCode classCode) {
         ObjectRef objectRef = newObjectRef(ref, classCode.variableType.getDesc());
-        initFields(classCode, objectRef);
+        ObjectFields fields = new ObjectFields(loadFieldLayout(classCode));
+        fields.markDirty();
+        objects.put(objectRef, fields);
         return objectRef;
     }
 
@@ -177,13 +179,31 @@ public class Heap {
             return null;
         }
         String key = JsonUtils.encode(objectRef, classNames);
-        DataWord dataWord = this.repository.getStorageValue(this.address, new DataWord(key));
+        DataWord storageKey = new DataWord(key);
+        DataWord dataWord = this.repository.getStorageValue(this.address, storageKey);
         if (dataWord == null) {
             return null;
         }
-        byte[] value = dataWord.getNoLeadZeroesData();
-        Map<String, Object> map = (Map<String, Object>) JsonUtils.decode(new String(value), classNames);
-        return map;
+        Map<String, Object> map = (Map<String, Object>) ContractStateCache.get(this.address, storageKey, dataWord);
+        if (map == null) {
+            byte[] value = dataWord.getNoLeadZeroesData();
+            map = (Map<String, Object>) JsonUtils.decode(new String(value), classNames);
+            if (map == null) {
+                return null;
+            }
+            ContractStateCache.put(this.address, storageKey, dataWord, value.length, map);
+        }
+        if (!objectRef.isArray()) {
+            FieldLayout fieldLayout = loadedFieldLayout(objectRef.getVariableType().getType());
+            if (fieldLayout != null) {
+                // 非数组对象的字段值都是不可变对象, 放入新的槽位即可
+                ObjectFields fields = ObjectFields.of(fieldLayout, map);
+                if (fields != null) {
+                    return fields;
+                }
+            }
+        }
+        return CloneUtils.clone(map);
     }
 
     public Object getField(ObjectRef objectRef, String fieldName) {
@@ -191,8 +211,11 @@ public class Heap {
     }
 
     public void putField(ObjectRef objectRef, String fieldName, Object value) {
-        putFields(objectRef).put(fieldName, value);
-        change(objectRef);
+        Map<String, Object> fields = putFields(objectRef);
+        fields.put(fieldName, value);
+        if (!(fields instanceof ObjectFields) || ((ObjectFields) fields).markDirty()) {
+            change(objectRef);
+        }
     }
 
     public Object getStatic(String className, String fieldName) {
@@ -288,17 +311,25 @@ public class Heap {
         if (this.repository == null) {
             return null;
         }
-        DataWord dataWord = this.repository.getStorageValue(this.address, new DataWord(arrayKey));
+        DataWord storageKey = new DataWord(arrayKey);
+        DataWord dataWord = this.repository.getStorageValue(this.address, storageKey);
         if (dataWord == null) {
             return null;
         }
-        byte[] value = dataWord.getNoLeadZeroesData();
-        Class clazz = arrayRef.getVariableType().getPrimitiveTypeClass();
-        if (!arrayRef.getVariableType().getComponentType().isPrimitive()) {
-            clazz = ObjectRef.class;
+        Object object = ContractStateCache.get(this.address, storageKey, dataWord);
+        if (object == null) {
+            byte[] value = dataWord.getNoLeadZeroesData();
+            Class clazz = arrayRef.getVariableType().getPrimitiveTypeClass();
+            if (!arrayRef.getVariableType().getComponentType().isPrimitive()) {
+                clazz = ObjectRef.class;
+            }
+            object = JsonUtils.decodeArray(new String(value), clazz, classNames);
+            if (object == null) {
+                return null;
+            }
+            ContractStateCache.put(this.address, storageKey, dataWord, value.length, object);
         }
-        Object object = JsonUtils.decodeArray(new String(value), clazz, classNames);
-        return object;
+        return CloneUtils.cloneObject(object);
     }
 
     public Object getArray(ObjectRef arrayRef, int index) {
@@ -696,16 +727,43 @@ public class Heap {
         }
     }
 
-    private void initFields(ClassCode classCode, ObjectRef objectRef) {
+    /**
+     * 类实例的字段布局, 与原来逐个初始化字段一样依次加载父类
+     */
+    private FieldLayout loadFieldLayout(ClassCode classCode) {
+        FieldLayout parent = null;
         if (StringUtils.isNotBlank(classCode.superName)) {
             ClassCode superClassCode = this.vm.methodArea.loadClass(classCode.superName);
-            initFields(superClassCode, objectRef);
+            parent = loadFieldLayout(superClassCode);
         }
-        for (FieldCode fieldCode : classCode.fields.values()) {
-            if (!fieldCode.isStatic) {
-                putField(objectRef, fieldCode.name, fieldCode.variableType.getDefaultValue());
+        return fieldLayout(classCode, parent);
+    }
+
+    /**
+     * 已加载类的字段布局, 不触发类加载, 有未加载的父类时返回null
+     */
+    private FieldLayout loadedFieldLayout(String className) {
+        ClassCode classCode = this.vm.methodArea.getLoadedClass(className);
+        if (classCode == null) {
+            return null;
+        }
+        FieldLayout parent = null;
+        if (StringUtils.isNotBlank(classCode.superName)) {
+            parent = loadedFieldLayout(classCode.superName);
+            if (parent == null) {
+                return null;
             }
         }
+        return fieldLayout(classCode, parent);
+    }
+
+    private static FieldLayout fieldLayout(ClassCode classCode, FieldLayout parent) {
+        FieldLayout fieldLayout = classCode.getFieldLayout();
+        if (fieldLayout == null || fieldLayout.getParent() != parent) {
+            fieldLayout = new FieldLayout(parent, classCode);
+            classCode.setFieldLayout(fieldLayout);
+        }
+        return fieldLayout;
     }
 
     private void checkArray(Object array, int index) {
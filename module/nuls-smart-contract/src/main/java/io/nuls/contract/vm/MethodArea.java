@@ -120,6 +120,17 @@ public class MethodArea {
         return classCode;
     }
 
+    /**
+     * 已加载的类, 不触发加载与类初始化
+     */
+    public ClassCode getLoadedClass(String className) {
+        ClassCode classCode = INIT_CLASS_CODES.get(className);
+        if (classCode != null) {
+            return classCode;
+        }
+        return this.classCodes.get(className);
+    }
+
     public void loadClassCodes(Map<String, ClassCode> classCodes) {
         if (classCodes != null) {
             this.loadClassCodes.putAll(classCodes);
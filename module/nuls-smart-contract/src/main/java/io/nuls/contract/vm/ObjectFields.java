@@ -0,0 +1,234 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm;
+
+import io.nuls.contract.vm.code.FieldLayout;
+import io.nuls.contract.vm.util.CloneUtils;
+
+import java.util.*;
+
+/**
+ * 类实例的字段, 按FieldLayout的固定槽位存放, 迭代顺序与原来的LinkedHashMap一致(布局字段在前, 其他字段按写入顺序在后),
+ * 因此序列化到合约状态的内容不变. 布局字段不能删除
+ */
+public class ObjectFields extends AbstractMap<String, Object> {
+
+    private final FieldLayout layout;
+
+    private final Object[] values;
+
+    private LinkedHashMap<String, Object> extraFields;
+
+    /**
+     * 是否已记录到Heap的changes中, 重复写入时不再查找changes
+     */
+    private boolean dirty;
+
+    public ObjectFields(FieldLayout layout) {
+        this(layout, layout.newValues());
+    }
+
+    private ObjectFields(FieldLayout layout, Object[] values) {
+        this.layout = layout;
+        this.values = values;
+    }
+
+    /**
+     * 从合约状态解码出的字段按布局存放, 字段顺序与布局不一致时返回null, 调用方继续使用原来的Map
+     */
+    public static ObjectFields of(FieldLayout layout, Map<String, Object> fields) {
+        if (fields.size() < layout.size()) {
+            return null;
+        }
+        ObjectFields objectFields = new ObjectFields(layout, new Object[layout.size()]);
+        int i = 0;
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
+            if (i < layout.size()) {
+                if (!layout.getName(i).equals(entry.getKey())) {
+                    return null;
+                }
+                objectFields.values[i++] = entry.getValue();
+            } else {
+                objectFields.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return objectFields;
+    }
+
+    public ObjectFields copy() {
+        ObjectFields objectFields = new ObjectFields(layout, new Object[values.length]);
+        for (int i = 0; i < values.length; i++) {
+            objectFields.values[i] = CloneUtils.cloneObject(values[i]);
+        }
+        if (extraFields != null) {
+            objectFields.extraFields = new LinkedHashMap<>();
+            CloneUtils.clone(extraFields, objectFields.extraFields);
+        }
+        return objectFields;
+    }
+
+    /**
+     * 标记为已修改
+     *
+     * @return 之前是否未修改
+     */
+    public boolean markDirty() {
+        if (dirty) {
+            return false;
+        }
+        dirty = true;
+        return true;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = layout.getSlot(key);
+        if (slot >= 0) {
+            return values[slot];
+        }
+        return extraFields == null ? null : extraFields.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return layout.getSlot(key) >= 0 || (extraFields != null && extraFields.containsKey(key));
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = layout.getSlot(key);
+        if (slot >= 0) {
+            Object old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+        if (extraFields == null) {
+            extraFields = new LinkedHashMap<>();
+        }
+        return extraFields.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        if (layout.getSlot(key) >= 0) {
+            throw new UnsupportedOperationException("can't remove field " + key);
+        }
+        return extraFields == null ? null : extraFields.remove(key);
+    }
+
+    @Override
+    public int size() {
+        return values.length + (extraFields == null ? 0 : extraFields.size());
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return ObjectFields.this.size();
+            }
+        };
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private int slot;
+
+        private Iterator<Entry<String, Object>> extraIterator;
+
+        @Override
+        public boolean hasNext() {
+            if (slot < values.length) {
+                return true;
+            }
+            return extraFields != null && extraIterator().hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next() {
+            if (slot < values.length) {
+                return new SlotEntry(slot++);
+            }
+            if (extraFields == null) {
+                throw new NoSuchElementException();
+            }
+            return extraIterator().next();
+        }
+
+        private Iterator<Entry<String, Object>> extraIterator() {
+            if (extraIterator == null) {
+                extraIterator = extraFields.entrySet().iterator();
+            }
+            return extraIterator;
+        }
+    }
+
+    private class SlotEntry implements Entry<String, Object> {
+
+        private final int slot;
+
+        SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return layout.getName(slot);
+        }
+
+        @Override
+        public Object getValue() {
+            return values[slot];
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            Object old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+    }
+
+}
@@ -57,6 +57,8 @@ import io.nuls.contract.vm.program.impl.ProgramInvoke;
 import io.nuls.core.crypto.HexUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.ethereum.core.Repository;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
 import org.objectweb.asm.tree.LookupSwitchInsnNode;
 import org.objectweb.asm.tree.MultiANewArrayInsnNode;
 import org.objectweb.asm.tree.TableSwitchInsnNode;
@@ -81,6 +83,11 @@ public class VM {
 
     public static final int MAX_GAS = 1000_0000;
 
+    /**
+     * gas与运行时栈上的值有关, 不能预先计算
+     */
+    public static final int DYNAMIC_GAS_COST = -1;
+
     public final VMStack vmStack;
 
     public final Heap heap;
@@ -321,6 +328,14 @@ public class VM {
             final Frame frame = this.vmStack.lastElement();
             //Log.runMethod(frame.methodCode);
             while (frame.getCurrentInsnNode() != null && !frame.result.isEnded()) {
+                if (frame.isPseudoInsn()) {
+                    //标签、行号等伪指令不改变状态, 不需要检查栈帧变化
+                    frame.step();
+                    if (isEnd()) {
+                        return;
+                    }
+                    continue;
+                }
                 step(frame);
                 frame.step();
                 if (isEnd()) {
@@ -373,7 +388,10 @@ public class VM {
         }
 
         if (frame.addGas) {
-            int gasCost = gasCost(frame, opCode);
+            int gasCost = frame.currentGasCost();
+            if (gasCost == DYNAMIC_GAS_COST) {
+                gasCost = gasCost(frame, opCode);
+            }
             addGasUsed(gasCost);
         }
 
@@ -873,6 +891,47 @@ public class VM {
     }
 
     public int gasCost(Frame frame, OpCode opCode) {
+        int gasCost = staticGasCost(opCode, frame.getCurrentInsnNode());
+        if (gasCost != DYNAMIC_GAS_COST) {
+            return gasCost;
+        }
+        switch (opCode) {
+            case NEWARRAY:
+            case ANEWARRAY:
+                int count = frame.operandStack.popInt();
+                gasCost = Math.max(count, 1) * GasCost.NEWARRAY;
+                frame.operandStack.pushInt(count);
+                break;
+            case MULTIANEWARRAY:
+                MultiANewArrayInsnNode multiANewArrayInsnNode = frame.multiANewArrayInsnNode();
+                int size = 1;
+                int[] dimensions = new int[multiANewArrayInsnNode.dims];
+                for (int i = multiANewArrayInsnNode.dims - 1; i >= 0; i--) {
+                    int length = frame.operandStack.popInt();
+                    if (length > 0) {
+                        size *= length;
+                    }
+                    dimensions[i] = length;
+                }
+                for (int dimension : dimensions) {
+                    frame.operandStack.pushInt(dimension);
+                }
+                gasCost = size * GasCost.MULTIANEWARRAY;
+                break;
+            default:
+                break;
+        }
+        return gasCost;
+    }
+
+    /**
+     * 只与指令本身有关的gas, 在预解码时计算; 与运行时栈上的值有关的指令返回DYNAMIC_GAS_COST
+     *
+     * @param opCode   操作码
+     * @param insnNode 指令
+     * @return gas
+     */
+    public static int staticGasCost(OpCode opCode, AbstractInsnNode insnNode) {
         int gasCost = 1;
         switch (opCode) {
             case NOP:
@@ -897,7 +956,7 @@ public class VM {
                 gasCost = GasCost.CONSTANT;
                 break;
             case LDC:
-                Object value = frame.ldcInsnNode().cst;
+                Object value = ((LdcInsnNode) insnNode).cst;
                 if (value instanceof Number) {
                     gasCost = GasCost.LDC;
                 } else {
@@ -1032,11 +1091,11 @@ public class VM {
                 gasCost = GasCost.CONTROL;
                 break;
             case TABLESWITCH:
-                TableSwitchInsnNode table = frame.tableSwitchInsnNode();
+                TableSwitchInsnNode table = (TableSwitchInsnNode) insnNode;
                 gasCost = Math.max(table.max - table.min, 1) * GasCost.TABLESWITCH;
                 break;
             case LOOKUPSWITCH:
-                LookupSwitchInsnNode lookup = frame.lookupSwitchInsnNode();
+                LookupSwitchInsnNode lookup = (LookupSwitchInsnNode) insnNode;
                 gasCost = Math.max(lookup.keys.size(), 1) * GasCost.LOOKUPSWITCH;
                 break;
             case IRETURN:
@@ -1061,9 +1120,7 @@ public class VM {
                 break;
             case NEWARRAY:
             case ANEWARRAY:
-                int count = frame.operandStack.popInt();
-                gasCost = Math.max(count, 1) * GasCost.NEWARRAY;
-                frame.operandStack.pushInt(count);
+                gasCost = DYNAMIC_GAS_COST;
                 break;
             case ARRAYLENGTH:
             case ATHROW:
@@ -1074,20 +1131,7 @@ public class VM {
                 gasCost = GasCost.REFERENCE;
                 break;
             case MULTIANEWARRAY:
-                MultiANewArrayInsnNode multiANewArrayInsnNode = frame.multiANewArrayInsnNode();
-                int size = 1;
-                int[] dimensions = new int[multiANewArrayInsnNode.dims];
-                for (int i = multiANewArrayInsnNode.dims - 1; i >= 0; i--) {
-                    int length = frame.operandStack.popInt();
-                    if (length > 0) {
-                        size *= length;
-                    }
-                    dimensions[i] = length;
-                }
-                for (int dimension : dimensions) {
-                    frame.operandStack.pushInt(dimension);
-                }
-                gasCost = size * GasCost.MULTIANEWARRAY;
+                gasCost = DYNAMIC_GAS_COST;
                 break;
             case IFNULL:
             case IFNONNULL:
@@ -179,6 +179,8 @@ public class ClassCode {
 
     public final String simpleName;
 
+    private volatile FieldLayout fieldLayout;
+
     public ClassCode(ClassNode classNode) {
         version = classNode.version;
         access = classNode.access;
@@ -250,6 +252,14 @@ public class ClassCode {
         }
     }
 
+    public FieldLayout getFieldLayout() {
+        return fieldLayout;
+    }
+
+    public void setFieldLayout(FieldLayout fieldLayout) {
+        this.fieldLayout = fieldLayout;
+    }
+
     public boolean isSyntheticField(String fieldName) {
         FieldCode fieldCode = fields.get(fieldName);
         return fieldCode != null && fieldCode.isSynthetic;
@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.code;
+
+import io.nuls.contract.vm.OpCode;
+import io.nuls.contract.vm.VM;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.LabelNode;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 方法指令的预解码结果, 按指令下标存放操作码、静态gas与跳转标签的下标, 解释执行时不再逐条判断.
+ * 随MethodCode缓存, 合约代码按hash缓存ClassCode, 因此同一份合约代码只解码一次
+ */
+public class DecodedMethod {
+
+    private final AbstractInsnNode[] insnNodes;
+
+    private final OpCode[] opCodes;
+
+    /**
+     * 指令的gas, 与运行时栈上的值有关的指令为VM.DYNAMIC_GAS_COST
+     */
+    private final int[] gasCosts;
+
+    /**
+     * 标签、行号、栈帧等伪指令
+     */
+    private final boolean[] pseudos;
+
+    private final Map<LabelNode, Integer> labelIndexes = new IdentityHashMap<>();
+
+    public DecodedMethod(InsnList instructions) {
+        this.insnNodes = instructions.toArray();
+        int size = insnNodes.length;
+        this.opCodes = new OpCode[size];
+        this.gasCosts = new int[size];
+        this.pseudos = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            AbstractInsnNode insnNode = insnNodes[i];
+            OpCode opCode = OpCode.valueOf(insnNode.getOpcode());
+            opCodes[i] = opCode;
+            pseudos[i] = insnNode.getOpcode() < 0;
+            if (opCode != null) {
+                gasCosts[i] = VM.staticGasCost(opCode, insnNode);
+            }
+            if (insnNode instanceof LabelNode) {
+                labelIndexes.put((LabelNode) insnNode, i);
+            }
+        }
+    }
+
+    public int size() {
+        return insnNodes.length;
+    }
+
+    public AbstractInsnNode getInsnNode(int index) {
+        return insnNodes[index];
+    }
+
+    public OpCode getOpCode(int index) {
+        return opCodes[index];
+    }
+
+    public int getGasCost(int index) {
+        return gasCosts[index];
+    }
+
+    public boolean isPseudo(int index) {
+        return pseudos[index];
+    }
+
+    public int indexOf(LabelNode labelNode) {
+        Integer index = labelIndexes.get(labelNode);
+        if (index == null) {
+            throw new IllegalArgumentException("label not in method");
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm.code;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static io.nuls.contract.vm.util.Utils.hashMapInitialCapacity;
+
+/**
+ * 类实例字段的固定槽位布局, 父类字段在前, 与Heap逐个初始化字段的顺序一致
+ */
+public class FieldLayout {
+
+    private final FieldLayout parent;
+
+    private final String[] names;
+
+    private final Object[] defaultValues;
+
+    private final Map<String, Integer> slots;
+
+    public FieldLayout(FieldLayout parent, ClassCode classCode) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        if (parent != null) {
+            for (int i = 0; i < parent.names.length; i++) {
+                fields.put(parent.names[i], parent.defaultValues[i]);
+            }
+        }
+        for (FieldCode fieldCode : classCode.fields.values()) {
+            if (!fieldCode.isStatic) {
+                fields.put(fieldCode.name, fieldCode.variableType.getDefaultValue());
+            }
+        }
+        this.parent = parent;
+        this.names = new String[fields.size()];
+        this.defaultValues = new Object[fields.size()];
+        this.slots = new HashMap<>(hashMapInitialCapacity(fields.size()));
+        int i = 0;
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
+            names[i] = entry.getKey();
+            defaultValues[i] = entry.getValue();
+            slots.put(entry.getKey(), i);
+            i++;
+        }
+    }
+
+    public FieldLayout getParent() {
+        return parent;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int slot) {
+        return names[slot];
+    }
+
+    public int getSlot(Object name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    public Object[] newValues() {
+        return defaultValues.clone();
+    }
+
+}
@@ -216,6 +216,8 @@ public class MethodCode {
 
     public final String normalDesc;
 
+    private volatile DecodedMethod decodedMethod;
+
     public MethodCode(ClassCode classCode, MethodNode methodNode) {
         access = methodNode.access;
         name = methodNode.name;
@@ -313,6 +315,23 @@ public class MethodCode {
 //        }
     }
 
+    /**
+     * 预解码的指令, 第一次执行时生成
+     */
+    public DecodedMethod getDecodedMethod() {
+        DecodedMethod decodedMethod = this.decodedMethod;
+        if (decodedMethod == null) {
+            synchronized (this) {
+                decodedMethod = this.decodedMethod;
+                if (decodedMethod == null) {
+                    decodedMethod = new DecodedMethod(instructions);
+                    this.decodedMethod = decodedMethod;
+                }
+            }
+        }
+        return decodedMethod;
+    }
+
     public boolean hasViewAnnotation() {
         return hasAnnotation(VIEW_ANNOTATION_DESC);
     }
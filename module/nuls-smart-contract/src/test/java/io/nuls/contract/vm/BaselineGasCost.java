@@ -0,0 +1,265 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm;
+
+import org.objectweb.asm.tree.*;
+
+/**
+ * 预解码之前VM.gasCost的副本, 作为差分测试的基准, 不随VM修改.
+ * 原来从栈帧读取的指令和栈上的数组长度改为由调用方传入
+ */
+class BaselineGasCost {
+
+    /**
+     * @param insnNode 指令
+     * @param lengths  数组指令执行时栈上的数组长度, 按入栈顺序
+     * @return gas, 伪指令不执行, 为0
+     */
+    static int gasCost(AbstractInsnNode insnNode, int... lengths) {
+        OpCode opCode = OpCode.valueOf(insnNode.getOpcode());
+        if (opCode == null) {
+            return 0;
+        }
+        int gasCost = 1;
+        switch (opCode) {
+            case NOP:
+                break;
+            case ACONST_NULL:
+            case ICONST_M1:
+            case ICONST_0:
+            case ICONST_1:
+            case ICONST_2:
+            case ICONST_3:
+            case ICONST_4:
+            case ICONST_5:
+            case LCONST_0:
+            case LCONST_1:
+            case FCONST_0:
+            case FCONST_1:
+            case FCONST_2:
+            case DCONST_0:
+            case DCONST_1:
+            case BIPUSH:
+            case SIPUSH:
+                gasCost = GasCost.CONSTANT;
+                break;
+            case LDC:
+                Object value = ((LdcInsnNode) insnNode).cst;
+                if (value instanceof Number) {
+                    gasCost = GasCost.LDC;
+                } else {
+                    gasCost = Math.max(value.toString().length(), 1) * GasCost.LDC;
+                }
+                break;
+            case ILOAD:
+            case LLOAD:
+            case FLOAD:
+            case DLOAD:
+            case ALOAD:
+                gasCost = GasCost.LOAD;
+                break;
+            case IALOAD:
+            case LALOAD:
+            case FALOAD:
+            case DALOAD:
+            case AALOAD:
+            case BALOAD:
+            case CALOAD:
+            case SALOAD:
+                gasCost = GasCost.ARRAYLOAD;
+                break;
+            case ISTORE:
+            case LSTORE:
+            case FSTORE:
+            case DSTORE:
+            case ASTORE:
+                gasCost = GasCost.STORE;
+                break;
+            case IASTORE:
+            case LASTORE:
+            case FASTORE:
+            case DASTORE:
+            case AASTORE:
+            case BASTORE:
+            case CASTORE:
+            case SASTORE:
+                gasCost = GasCost.ARRAYSTORE;
+                break;
+            case POP:
+            case POP2:
+            case DUP:
+            case DUP_X1:
+            case DUP_X2:
+            case DUP2:
+            case DUP2_X1:
+            case DUP2_X2:
+            case SWAP:
+                gasCost = GasCost.STACK;
+                break;
+            case IADD:
+            case LADD:
+            case FADD:
+            case DADD:
+            case ISUB:
+            case LSUB:
+            case FSUB:
+            case DSUB:
+            case IMUL:
+            case LMUL:
+            case FMUL:
+            case DMUL:
+            case IDIV:
+            case LDIV:
+            case FDIV:
+            case DDIV:
+            case IREM:
+            case LREM:
+            case FREM:
+            case DREM:
+            case INEG:
+            case LNEG:
+            case FNEG:
+            case DNEG:
+            case ISHL:
+            case LSHL:
+            case ISHR:
+            case LSHR:
+            case IUSHR:
+            case LUSHR:
+            case IAND:
+            case LAND:
+            case IOR:
+            case LOR:
+            case IXOR:
+            case LXOR:
+            case IINC:
+                gasCost = GasCost.MATH;
+                break;
+            case I2L:
+            case I2F:
+            case I2D:
+            case L2I:
+            case L2F:
+            case L2D:
+            case F2I:
+            case F2L:
+            case F2D:
+            case D2I:
+            case D2L:
+            case D2F:
+            case I2B:
+            case I2C:
+            case I2S:
+                gasCost = GasCost.CONVERSION;
+                break;
+            case LCMP:
+            case FCMPL:
+            case FCMPG:
+            case DCMPL:
+            case DCMPG:
+            case IFEQ:
+            case IFNE:
+            case IFLT:
+            case IFGE:
+            case IFGT:
+            case IFLE:
+            case IF_ICMPEQ:
+            case IF_ICMPNE:
+            case IF_ICMPLT:
+            case IF_ICMPGE:
+            case IF_ICMPGT:
+            case IF_ICMPLE:
+            case IF_ACMPEQ:
+            case IF_ACMPNE:
+                gasCost = GasCost.COMPARISON;
+                break;
+            case GOTO:
+            case JSR:
+            case RET:
+                gasCost = GasCost.CONTROL;
+                break;
+            case TABLESWITCH:
+                TableSwitchInsnNode table = (TableSwitchInsnNode) insnNode;
+                gasCost = Math.max(table.max - table.min, 1) * GasCost.TABLESWITCH;
+                break;
+            case LOOKUPSWITCH:
+                LookupSwitchInsnNode lookup = (LookupSwitchInsnNode) insnNode;
+                gasCost = Math.max(lookup.keys.size(), 1) * GasCost.LOOKUPSWITCH;
+                break;
+            case IRETURN:
+            case LRETURN:
+            case FRETURN:
+            case DRETURN:
+            case ARETURN:
+            case RETURN:
+                gasCost = GasCost.CONTROL;
+                break;
+            case GETSTATIC:
+            case PUTSTATIC:
+            case GETFIELD:
+            case PUTFIELD:
+            case INVOKEVIRTUAL:
+            case INVOKESPECIAL:
+            case INVOKESTATIC:
+            case INVOKEINTERFACE:
+            case INVOKEDYNAMIC:
+            case NEW:
+                gasCost = GasCost.REFERENCE;
+                break;
+            case NEWARRAY:
+            case ANEWARRAY:
+                int count = lengths[0];
+                gasCost = Math.max(count, 1) * GasCost.NEWARRAY;
+                break;
+            case ARRAYLENGTH:
+            case ATHROW:
+            case CHECKCAST:
+            case INSTANCEOF:
+            case MONITORENTER:
+            case MONITOREXIT:
+                gasCost = GasCost.REFERENCE;
+                break;
+            case MULTIANEWARRAY:
+                MultiANewArrayInsnNode multiANewArrayInsnNode = (MultiANewArrayInsnNode) insnNode;
+                int size = 1;
+                for (int i = multiANewArrayInsnNode.dims - 1; i >= 0; i--) {
+                    int length = lengths[i];
+                    if (length > 0) {
+                        size *= length;
+                    }
+                }
+                gasCost = size * GasCost.MULTIANEWARRAY;
+                break;
+            case IFNULL:
+            case IFNONNULL:
+                gasCost = GasCost.EXTENDED;
+                break;
+            default:
+                break;
+        }
+        return gasCost;
+    }
+
+}
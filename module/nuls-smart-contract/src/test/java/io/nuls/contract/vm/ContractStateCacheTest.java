@@ -0,0 +1,58 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm;
+
+import org.ethereum.vm.DataWord;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 只有存储值不变时才复用解码结果
+ */
+public class ContractStateCacheTest {
+
+    @Test
+    public void reuseOnlySameValue() {
+        byte[] address = new byte[]{1, 2, 3};
+        DataWord key = new DataWord("key");
+        DataWord value = new DataWord("{\"count\":\"I_1\"}");
+        Map<String, Object> decoded = new LinkedHashMap<>();
+        decoded.put("count", 1);
+        ContractStateCache.put(address, key, value, 15, decoded);
+
+        assertSame(decoded, ContractStateCache.get(new byte[]{1, 2, 3}, new DataWord("key"), new DataWord("{\"count\":\"I_1\"}")));
+        assertNull(ContractStateCache.get(address, key, new DataWord("{\"count\":\"I_2\"}")));
+        assertNull(ContractStateCache.get(new byte[]{1, 2, 4}, key, value));
+        assertNull(ContractStateCache.get(address, new DataWord("other"), value));
+
+        ContractStateCache.clear();
+        assertNull(ContractStateCache.get(address, key, value));
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm;
+
+import io.nuls.contract.vm.code.ClassCode;
+import io.nuls.contract.vm.code.ClassCodeLoader;
+import io.nuls.contract.vm.code.DecodedMethod;
+import io.nuls.contract.vm.code.MethodCode;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 预解码结果与逐条遍历指令链表得到的指令、操作码、跳转标签一致; gas与基准解释方式的对比见GasDifferentialTest
+ */
+public class DecodedMethodTest {
+
+    @Test
+    public void sameAsInsnList() throws Exception {
+        File dir = new File(DecodedMethodTest.class.getResource("/").getPath());
+        File[] jars = dir.listFiles((d, name) -> name.endsWith(".jar"));
+        assertNotNull(jars);
+        assertTrue(jars.length > 0);
+        int methods = 0;
+        for (File jar : jars) {
+            byte[] bytes;
+            try (InputStream in = new FileInputStream(jar)) {
+                bytes = IOUtils.toByteArray(in);
+            }
+            Map<String, ClassCode> classCodes = ClassCodeLoader.loadJarCache(bytes);
+            for (ClassCode classCode : classCodes.values()) {
+                for (MethodCode methodCode : classCode.methods) {
+                    check(methodCode);
+                    methods++;
+                }
+            }
+        }
+        assertTrue(methods > 0);
+    }
+
+    private void check(MethodCode methodCode) {
+        DecodedMethod decoded = methodCode.getDecodedMethod();
+        assertSame(decoded, methodCode.getDecodedMethod());
+        assertEquals(methodCode.instructions.size(), decoded.size());
+        int index = 0;
+        for (AbstractInsnNode insnNode = methodCode.instructions.getFirst(); insnNode != null; insnNode = insnNode.getNext()) {
+            assertSame(insnNode, decoded.getInsnNode(index));
+            OpCode opCode = OpCode.valueOf(insnNode.getOpcode());
+            assertEquals(opCode, decoded.getOpCode(index));
+            assertEquals(insnNode.getOpcode() < 0, decoded.isPseudo(index));
+            if (opCode == OpCode.NEWARRAY || opCode == OpCode.ANEWARRAY || opCode == OpCode.MULTIANEWARRAY) {
+                assertEquals(VM.DYNAMIC_GAS_COST, decoded.getGasCost(index));
+            } else if (opCode != null) {
+                assertTrue(decoded.getGasCost(index) >= 0);
+            }
+            if (insnNode instanceof JumpInsnNode) {
+                JumpInsnNode jumpInsnNode = (JumpInsnNode) insnNode;
+                assertSame(jumpInsnNode.label, decoded.getInsnNode(decoded.indexOf(jumpInsnNode.label)));
+            }
+            index++;
+        }
+    }
+
+}
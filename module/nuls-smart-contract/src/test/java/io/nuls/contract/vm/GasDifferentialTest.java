@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm;
+
+import io.nuls.contract.vm.code.ClassCode;
+import io.nuls.contract.vm.code.ClassCodeLoader;
+import io.nuls.contract.vm.code.MethodCode;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.MultiANewArrayInsnNode;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 差分测试: 测试合约中的每个方法, 逐条遍历指令链表按BaselineGasCost累计基准gas,
+ * 与预解码方式(栈帧按下标取预先计算的gas, 动态指令由VM.gasCost计算)累计到VM的gasUsed必须一致
+ */
+public class GasDifferentialTest {
+
+    /**
+     * 数组指令执行时栈上的数组长度, 覆盖0、1(gas按1计)和较大长度
+     */
+    private static final int[] ARRAY_LENGTHS = {0, 1, 7, 300};
+
+    @Test
+    public void sameGasAsBaseline() throws Exception {
+        File dir = new File(GasDifferentialTest.class.getResource("/").getPath());
+        File[] jars = dir.listFiles((d, name) -> name.endsWith(".jar"));
+        assertNotNull(jars);
+        assertTrue(jars.length > 0);
+        int methods = 0;
+        for (File jar : jars) {
+            byte[] bytes;
+            try (InputStream in = new FileInputStream(jar)) {
+                bytes = IOUtils.toByteArray(in);
+            }
+            Map<String, ClassCode> classCodes = ClassCodeLoader.loadJarCache(bytes);
+            for (ClassCode classCode : classCodes.values()) {
+                for (MethodCode methodCode : classCode.methods) {
+                    for (int length : ARRAY_LENGTHS) {
+                        check(methodCode, length);
+                    }
+                    methods++;
+                }
+            }
+        }
+        assertTrue(methods > 0);
+    }
+
+    private void check(MethodCode methodCode, int length) {
+        VM vm = new VM();
+        Frame frame = new Frame(vm, methodCode, null);
+        long baseline = 0;
+        for (AbstractInsnNode insnNode = methodCode.instructions.getFirst(); insnNode != null; insnNode = insnNode.getNext()) {
+            assertSame(insnNode, frame.getCurrentInsnNode());
+            int[] lengths = lengths(insnNode, length);
+            baseline += BaselineGasCost.gasCost(insnNode, lengths);
+            OpCode opCode = frame.currentOpCode();
+            if (!frame.isPseudoInsn() && opCode != null) {
+                int gasCost = frame.currentGasCost();
+                if (gasCost == VM.DYNAMIC_GAS_COST) {
+                    for (int l : lengths) {
+                        frame.operandStack.pushInt(l);
+                    }
+                    gasCost = vm.gasCost(frame, opCode);
+                    for (int l : lengths) {
+                        frame.operandStack.popInt();
+                    }
+                }
+                vm.addGasUsed(gasCost);
+            }
+            frame.step();
+        }
+        assertEquals(methodCode.fullName + " array length " + length,
+                baseline, vm.getGasUsed());
+    }
+
+    /**
+     * 数组指令需要的栈上长度, 多维数组每一维取相同长度
+     */
+    private static int[] lengths(AbstractInsnNode insnNode, int length) {
+        OpCode opCode = OpCode.valueOf(insnNode.getOpcode());
+        if (opCode == OpCode.NEWARRAY || opCode == OpCode.ANEWARRAY) {
+            return new int[]{length};
+        }
+        if (opCode == OpCode.MULTIANEWARRAY) {
+            int[] lengths = new int[((MultiANewArrayInsnNode) insnNode).dims];
+            Arrays.fill(lengths, length);
+            return lengths;
+        }
+        return new int[0];
+    }
+
+}
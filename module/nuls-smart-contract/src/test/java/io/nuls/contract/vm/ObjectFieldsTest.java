@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2017-2019 nuls.io
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package io.nuls.contract.vm;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.HashBiMap;
+import io.nuls.contract.vm.code.ClassCode;
+import io.nuls.contract.vm.code.FieldLayout;
+import io.nuls.contract.vm.util.CloneUtils;
+import io.nuls.contract.vm.util.JsonUtils;
+import org.junit.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按槽位存放的字段与原来的LinkedHashMap序列化结果一致
+ */
+public class ObjectFieldsTest {
+
+    private final BiMap<String, String> classNames = HashBiMap.create();
+
+    @Test
+    public void sameEncodingAsMap() {
+        FieldLayout layout = layout();
+        ObjectFields fields = new ObjectFields(layout);
+        Map<String, Object> map = initFields();
+        assertEquals(JsonUtils.encode(map, classNames), JsonUtils.encode(fields, classNames));
+
+        put(fields, map, "count", 7);
+        put(fields, map, "total", 123456789012L);
+        put(fields, map, "name", null);
+        put(fields, map, "extra1", 1.5D);
+        put(fields, map, "flag", true);
+        put(fields, map, "extra0", 'c');
+        put(fields, map, "extra1", 2.5D);
+        assertEquals(map.size(), fields.size());
+        assertEquals(map, fields);
+        assertEquals(JsonUtils.encode(map, classNames), JsonUtils.encode(fields, classNames));
+    }
+
+    @Test
+    public void decodeAndCopy() {
+        FieldLayout layout = layout();
+        Map<String, Object> map = initFields();
+        map.put("count", 3);
+        map.put("extra", (short) 2);
+        String encoded = JsonUtils.encode(map, classNames);
+        ObjectFields fields = ObjectFields.of(layout, (Map<String, Object>) JsonUtils.decode(encoded, classNames));
+        assertNotNull(fields);
+        assertEquals(encoded, JsonUtils.encode(fields, classNames));
+
+        Map<String, Object> copy = CloneUtils.clone(fields);
+        assertTrue(copy instanceof ObjectFields);
+        copy.put("count", 4);
+        assertEquals(3, fields.get("count"));
+        assertEquals(encoded, JsonUtils.encode(fields, classNames));
+
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("count", 3);
+        reordered.putAll(map);
+        reordered.remove("flag");
+        reordered.put("flag", false);
+        assertNull(ObjectFields.of(layout, reordered));
+    }
+
+    @Test
+    public void dirtyOnce() {
+        ObjectFields fields = new ObjectFields(layout());
+        assertTrue(fields.markDirty());
+        assertFalse(fields.markDirty());
+        assertTrue(((ObjectFields) CloneUtils.clone(fields)).markDirty());
+    }
+
+    private void put(ObjectFields fields, Map<String, Object> map, String key, Object value) {
+        assertEquals(map.put(key, value), fields.put(key, value));
+    }
+
+    /**
+     * 原来Heap.initFields的结果: 父类字段在前, 子类同名字段不改变位置
+     */
+    private Map<String, Object> initFields() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", null);
+        map.put("count", 0);
+        map.put("total", 0L);
+        map.put("flag", false);
+        return map;
+    }
+
+    private FieldLayout layout() {
+        ClassNode parentNode = new ClassNode();
+        parentNode.name = "test/Parent";
+        parentNode.fields.add(new FieldNode(Opcodes.ACC_PRIVATE, "name", "Ljava/lang/String;", null, null));
+        parentNode.fields.add(new FieldNode(Opcodes.ACC_PRIVATE, "count", "I", null, null));
+        parentNode.fields.add(new FieldNode(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC, "INSTANCE", "Ltest/Parent;", null, null));
+        ClassNode childNode = new ClassNode();
+        childNode.name = "test/Child";
+        childNode.superName = parentNode.name;
+        childNode.fields.add(new FieldNode(Opcodes.ACC_PRIVATE, "total", "J", null, null));
+        childNode.fields.add(new FieldNode(Opcodes.ACC_PRIVATE, "count", "I", null, null));
+        childNode.fields.add(new FieldNode(Opcodes.ACC_PRIVATE, "flag", "Z", null, null));
+        FieldLayout parent = new FieldLayout(null, new ClassCode(parentNode));
+        return new FieldLayout(parent, new ClassCode(childNode));
+    }
+
+}
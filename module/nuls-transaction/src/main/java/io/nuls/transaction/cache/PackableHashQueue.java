@@ -0,0 +1,189 @@
+package io.nuls.transaction.cache;
+
+import io.nuls.core.model.ByteArrayWrapper;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 待打包交易hash队列，按手续费率(每KB)从高到低排序，手续费率相同时按加入顺序
+ * 放回队首的交易在同等手续费率中最先取出
+ * Queue of packable transaction hashes, ordered by fee rate (per KB) from high to low, in insertion order for equal rates
+ * Transactions put back to the head are taken out first among those with the same fee rate
+ */
+public class PackableHashQueue {
+
+    private static final Comparator<Node> ORDER = (o1, o2) -> {
+        int rs = Long.compare(o2.feeRate, o1.feeRate);
+        return rs != 0 ? rs : Long.compare(o1.seq, o2.seq);
+    };
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final TreeSet<Node> queue = new TreeSet<>(ORDER);
+
+    private final Map<ByteArrayWrapper, Node> index = new HashMap<>();
+
+    /**
+     * 队首序号递减，队尾序号递增
+     */
+    private long headSeq = 0;
+    private long tailSeq = 0;
+
+    /**
+     * 加入队首，已存在则移到队首
+     * Add to the head, move it to the head if it already exists
+     */
+    public boolean offerFirst(ByteArrayWrapper hash, long feeRate) {
+        lock.lock();
+        try {
+            Node old = index.get(hash);
+            if (old != null) {
+                queue.remove(old);
+            }
+            link(new Node(hash, feeRate, --headSeq));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 加入队尾，已存在则保持原位置
+     * Add to the tail, keep its position if it already exists
+     */
+    public boolean offer(ByteArrayWrapper hash, long feeRate) {
+        lock.lock();
+        try {
+            if (!index.containsKey(hash)) {
+                link(new Node(hash, feeRate, ++tailSeq));
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void link(Node node) {
+        queue.add(node);
+        index.put(node.hash, node);
+        notEmpty.signal();
+    }
+
+    /**
+     * 取出优先级最高的交易hash，队列为空返回null
+     * Take the hash with the highest priority, null if empty
+     */
+    public ByteArrayWrapper poll() {
+        lock.lock();
+        try {
+            return unlink(queue.pollFirst());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出优先级最高的交易hash，队列为空时最多等待timeout
+     * Take the hash with the highest priority, waiting at most timeout when empty
+     */
+    public ByteArrayWrapper poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return unlink(queue.pollFirst());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出优先级最低的交易hash
+     * Take the hash with the lowest priority
+     */
+    public ByteArrayWrapper pollLast() {
+        lock.lock();
+        try {
+            return unlink(queue.pollLast());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ByteArrayWrapper unlink(Node node) {
+        if (node == null) {
+            return null;
+        }
+        index.remove(node.hash);
+        return node.hash;
+    }
+
+    /**
+     * 从队列中移除指定交易hash
+     * Remove the hash from the queue
+     *
+     * @return 队列中存在该hash / Whether the hash was in the queue
+     */
+    public boolean remove(ByteArrayWrapper hash) {
+        lock.lock();
+        try {
+            Node node = index.remove(hash);
+            return node != null && queue.remove(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(ByteArrayWrapper hash) {
+        lock.lock();
+        try {
+            return index.containsKey(hash);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            queue.clear();
+            index.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Node {
+        private final ByteArrayWrapper hash;
+        private final long feeRate;
+        private final long seq;
+
+        Node(ByteArrayWrapper hash, long feeRate, long seq) {
+            this.hash = hash;
+            this.feeRate = feeRate;
+            this.seq = seq;
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package io.nuls.transaction.cache;
 
+import io.nuls.base.data.CoinFrom;
 import io.nuls.base.data.Transaction;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
+import io.nuls.core.exception.NulsException;
 import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.transaction.constant.TxConstant;
 import io.nuls.transaction.model.bo.Chain;
 import io.nuls.transaction.storage.UnconfirmedTxStorageService;
+import io.nuls.transaction.utils.TxUtil;
 
+import java.math.BigInteger;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 交易已完成交易管理模块的校验(打包的时候从这里取)
  * Waiting for a packaged transaction pool
+ * <p>
+ * 按手续费率从高到低取出交易, 同一账户的交易保证前序交易(nonce)先于后续交易取出
+ * Transactions are taken out by fee rate from high to low, the predecessor (nonce) of the same account is always taken first
  *
  * @author: Charlie
  * @date: 2018/11/13
@@ -20,12 +29,25 @@ import java.util.Map;
 @Component
 public class PackablePool {
 
+    /**
+     * 分段锁数量, 必须是2的幂
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
     @Autowired
     private UnconfirmedTxStorageService unconfirmedTxStorageService;
 
+    public PackablePool() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
     /**
-     * 将交易加入到待打包队列最前端，打包时最先取出
-     * Add the transaction to the front of the queue to be packed, and take it out first when it is packed
+     * 将交易加入到待打包队列中同等手续费率的最前端，打包时最先取出
+     * Add the transaction to the front of those with the same fee rate in the queue to be packed, and take it out first when it is packed
      *
      * @param chain
      * @param tx
@@ -33,14 +55,11 @@ public class PackablePool {
      */
     public boolean offerFirst(Chain chain, Transaction tx) {
         ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
-        synchronized (hash) {
-            if (chain.getPackableHashQueue().offerFirst(hash)) {
-                chain.getPackableTxMap().put(hash, tx);
-                return true;
-            }
+        long feeRate = feeRate(chain, tx);
+        synchronized (lockOf(hash)) {
+            putTx(chain, hash, tx);
+            return chain.getPackableHashQueue().offerFirst(hash, feeRate);
         }
-        chain.getLogger().error("PackableHashQueue offerFirst false");
-        return false;
     }
 
     /**
@@ -51,13 +70,10 @@ public class PackablePool {
      */
     public boolean offerFirstOnlyHash(Chain chain, Transaction tx) {
         ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
-        synchronized (hash) {
-            if (chain.getPackableHashQueue().offerFirst(hash)) {
-                return true;
-            }
+        long feeRate = feeRate(chain, tx);
+        synchronized (lockOf(hash)) {
+            return chain.getPackableHashQueue().offerFirst(hash, feeRate);
         }
-        chain.getLogger().error("PackableHashQueue offerFirst false");
-        return false;
     }
 
     /**
@@ -70,14 +86,11 @@ public class PackablePool {
      */
     public boolean add(Chain chain, Transaction tx) {
         ByteArrayWrapper hash = new ByteArrayWrapper(tx.getHash().getBytes());
-        synchronized (hash) {
-            if (chain.getPackableHashQueue().offer(hash)) {
-                chain.getPackableTxMap().put(hash, tx);
-                return true;
-            }
+        long feeRate = feeRate(chain, tx);
+        synchronized (lockOf(hash)) {
+            putTx(chain, hash, tx);
+            return chain.getPackableHashQueue().offer(hash, feeRate);
         }
-        chain.getLogger().error("PackableHashQueue add false");
-        return false;
     }
 
     /**
@@ -100,21 +113,161 @@ public class PackablePool {
             if (null == hash) {
                 return null;
             }
-            synchronized (hash) {
-                Transaction tx = chain.getPackableTxMap().get(hash);
-                if (null != tx) {
-                    return tx;
-                } else {
-                    unconfirmedTxStorageService.removeTx(chain.getChainId(), hash.getBytes());
-                }
+            Transaction tx = getTx(chain, hash);
+            if (null != tx) {
+                return predecessorFirst(chain, hash, tx);
+            }
+        }
+    }
+
+    /**
+     * 从待打包队列获取一笔交易,队列为空时最多等待timeout毫秒,有新交易加入时立即返回
+     * Gets a transaction from the queue to be packaged, waits at most timeout milliseconds when the queue is empty,
+     * returns as soon as a new transaction is added
+     *
+     * @param chain
+     * @param timeout 毫秒 / milliseconds
+     * @return
+     */
+    public Transaction poll(Chain chain, long timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (true) {
+            ByteArrayWrapper hash = chain.getPackableHashQueue().poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (null == hash) {
+                return null;
+            }
+            Transaction tx = getTx(chain, hash);
+            if (null != tx) {
+                return predecessorFirst(chain, hash, tx);
+            }
+        }
+    }
+
+    /**
+     * 如果交易的前序交易(CoinFrom中的nonce对应的交易)仍在待打包队列中, 则将当前交易放回, 改为取出前序交易, 逐层向前查找
+     * 打包时只会取到前序交易已确认或已被取出的交易, 不会因手续费率排序导致同账户交易乱序
+     * <p>
+     * If the predecessor of the transaction (the tx referenced by the nonce in CoinFrom) is still in the queue,
+     * put the transaction back and take the predecessor instead, searching backwards level by level.
+     * Only transactions whose predecessors are confirmed or already taken are returned,
+     * so fee rate ordering never reorders transactions of the same account
+     * <p>
+     * 最多向前查找PACKAGE_NONCE_PREDECESSOR_MAX_DEPTH层, 超过该层数时返回的交易前序仍在队列中,
+     * 由账本验证为孤儿交易, 打包结束后放回待打包队列, 在前序交易打包之后再取出
+     * At most PACKAGE_NONCE_PREDECESSOR_MAX_DEPTH levels are searched. Beyond that the returned transaction still has
+     * its predecessor in the queue; the ledger reports it as an orphan and it goes back to the queue after packing,
+     * to be taken again once the predecessor is packed
+     */
+    private Transaction predecessorFirst(Chain chain, ByteArrayWrapper hash, Transaction tx) {
+        for (int depth = 0; depth < TxConstant.PACKAGE_NONCE_PREDECESSOR_MAX_DEPTH; depth++) {
+            ByteArrayWrapper preHash = takePredecessor(chain, hash, tx);
+            if (null == preHash) {
+                return tx;
+            }
+            Transaction preTx = getTx(chain, preHash);
+            if (null == preTx) {
+                continue;
+            }
+            chain.getPackableHashQueue().offerFirst(hash, feeRate(chain, tx));
+            hash = preHash;
+            tx = preTx;
+        }
+        return tx;
+    }
+
+    /**
+     * 从待打包队列中移除并返回交易的前序交易hash, 前序交易不在队列中时返回null
+     */
+    private ByteArrayWrapper takePredecessor(Chain chain, ByteArrayWrapper hash, Transaction tx) {
+        if (null == tx.getCoinData()) {
+            return null;
+        }
+        List<CoinFrom> froms;
+        try {
+            froms = tx.getCoinDataInstance().getFrom();
+        } catch (NulsException e) {
+            return null;
+        }
+        Map<ByteArrayWrapper, ByteArrayWrapper> nonceMap = chain.getPackableNonceMap();
+        for (CoinFrom from : froms) {
+            if (null == from.getNonce()) {
+                continue;
+            }
+            ByteArrayWrapper preHash = nonceMap.get(new ByteArrayWrapper(from.getNonce()));
+            if (null != preHash && !preHash.equals(hash) && chain.getPackableHashQueue().remove(preHash)) {
+                return preHash;
             }
         }
+        return null;
+    }
+
+    /**
+     * 从待打包map中获取交易, map中不存在说明已被确认或失效, 清理未确认交易存储
+     */
+    private Transaction getTx(Chain chain, ByteArrayWrapper hash) {
+        synchronized (lockOf(hash)) {
+            Transaction tx = chain.getPackableTxMap().get(hash);
+            if (null == tx) {
+                chain.getPackableNonceMap().remove(nonceKey(hash), hash);
+                unconfirmedTxStorageService.removeTx(chain.getChainId(), hash.getBytes());
+            }
+            return tx;
+        }
+    }
+
+    private void putTx(Chain chain, ByteArrayWrapper hash, Transaction tx) {
+        chain.getPackableTxMap().put(hash, tx);
+        chain.getPackableNonceMap().put(nonceKey(hash), hash);
+    }
 
+    private void removeTx(Chain chain, ByteArrayWrapper hash) {
+        synchronized (lockOf(hash)) {
+            chain.getPackableTxMap().remove(hash);
+            chain.getPackableNonceMap().remove(nonceKey(hash), hash);
+        }
+    }
+
+    /**
+     * 按交易hash分段加锁, 保证同一笔交易在待打包队列和map中的状态变更是原子的, 不同交易之间互不阻塞
+     * Striped lock by tx hash, state changes of the same tx in the queue and the map are atomic,
+     * different txs do not block each other
+     */
+    private Object lockOf(ByteArrayWrapper hash) {
+        int h = hash.hashCode();
+        return locks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * 交易作为前序交易时被引用的nonce, 即交易hash的后8位
+     */
+    private static ByteArrayWrapper nonceKey(ByteArrayWrapper hash) {
+        return new ByteArrayWrapper(TxUtil.getNonce(hash.getBytes()));
+    }
+
+    /**
+     * 计算交易的手续费率(每KB), 只计算本链默认资产的手续费
+     * Calculate the fee rate (per KB) of the transaction, only the fee of the default asset of this chain
+     */
+    private long feeRate(Chain chain, Transaction tx) {
+        if (null == tx.getCoinData()) {
+            return 0L;
+        }
+        try {
+            BigInteger fee = tx.getCoinDataInstance().getFeeByAsset(chain.getConfig().getChainId(), chain.getConfig().getAssetId());
+            int size = tx.size();
+            if (fee.signum() <= 0 || size <= 0) {
+                return 0L;
+            }
+            BigInteger rate = fee.multiply(BigInteger.valueOf(1024L)).divide(BigInteger.valueOf(size));
+            return rate.bitLength() < Long.SIZE ? rate.longValue() : Long.MAX_VALUE;
+        } catch (NulsException e) {
+            return 0L;
+        }
     }
 
     /**
-     * 获取并移除此双端队列的最后一个元素；如果此双端队列为空，则返回 null
-     * Gets and removes the last element of the other double-ended queue; If this double-ended queue is empty, null is returned
+     * 获取并移除待打包队列中优先级最低的元素；如果队列为空，则返回 null
+     * Gets and removes the element with the lowest priority of the queue; If the queue is empty, null is returned
      *
      * 协议升级时需要重新处理未打包的交易
      * When the agreement is upgraded, unpackaged transactions need to be reprocessed
@@ -128,29 +281,21 @@ public class PackablePool {
             if (null == hash) {
                 return null;
             }
-            synchronized (hash) {
-                Transaction tx = chain.getPackableTxMap().get(hash);
-                if (null != tx) {
-                    return tx;
-                } else {
-                    unconfirmedTxStorageService.removeTx(chain.getChainId(), hash.getBytes());
-                }
+            Transaction tx = getTx(chain, hash);
+            if (null != tx) {
+                return tx;
             }
         }
     }
 
     public void clearConfirmedTxs(Chain chain, List<byte[]> txHashs) {
-        Map<ByteArrayWrapper, Transaction> map = chain.getPackableTxMap();
         for (byte[] hash : txHashs) {
-            ByteArrayWrapper wrapper = new ByteArrayWrapper(hash);
-            map.remove(wrapper);
+            removeTx(chain, new ByteArrayWrapper(hash));
         }
     }
 
     public void removeInvalidTxFromMap(Chain chain, Transaction tx) {
-        Map<ByteArrayWrapper, Transaction> map = chain.getPackableTxMap();
-        ByteArrayWrapper wrapper = new ByteArrayWrapper(tx.getHash().getBytes());
-        map.remove(wrapper);
+        removeTx(chain, new ByteArrayWrapper(tx.getHash().getBytes()));
     }
 
     /**
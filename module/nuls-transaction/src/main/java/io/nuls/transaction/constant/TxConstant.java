@@ -76,6 +76,15 @@ public interface TxConstant {
      */
     long PACKAGE_MODULE_VALIDATOR_RESERVE_TIME = 2000L;//1500L;
 
+    /** (毫秒) 打包时待打包队列为空,单次等待新交易的最长时间,有新交易时立即唤醒 */
+    long PACKAGE_TX_WAIT_TIMEOUT = 50L;
+    /** (毫秒) 打包时账本正在提交或回滚,等待其完成的最长时间 */
+    long PACKAGE_STATE_WAIT_TIMEOUT = 30L;
+    /** 打包验证账本时,同时发送给账本的最大批次数(流水线深度) */
+    int PACKAGE_VERIFY_LEDGER_PIPELINE_DEPTH = 2;
+    /** 打包取交易时,向前查找同账户未打包前序交易的最大层数 */
+    int PACKAGE_NONCE_PREDECESSOR_MAX_DEPTH = 16;
+
 
     long TIMEOUT = 600 * 1000L;
 }
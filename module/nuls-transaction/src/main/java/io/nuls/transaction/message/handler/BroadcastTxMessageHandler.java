@@ -46,11 +46,10 @@ public class BroadcastTxMessageHandler implements MessageProcessor {
                 return;
             }
             Transaction transaction = message.getTx();
-            String hash = transaction.getHash().toHex();
             //交易缓存中是否已存在该交易hash
-            boolean rs = TxDuplicateRemoval.insertAndCheck(hash);
+            boolean rs = TxDuplicateRemoval.insertAndCheck(transaction.getHash().getBytes());
             //记录向本节点发送完整交易的其他网络节点，转发hash时排除掉
-            TxDuplicateRemoval.putExcludeNode(hash, nodeId);
+            TxDuplicateRemoval.putExcludeNode(transaction.getHash().toHex(), nodeId);
             if (!rs) {
                 //该完整交易已经收到过
                 return;
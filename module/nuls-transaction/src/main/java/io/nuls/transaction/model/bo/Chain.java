@@ -5,6 +5,7 @@ import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.Transaction;
 import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.transaction.cache.PackableHashQueue;
 import io.nuls.transaction.constant.TxConstant;
 import io.nuls.transaction.model.bo.config.ConfigBean;
 import io.nuls.transaction.model.po.TransactionNetPO;
@@ -12,10 +13,12 @@ import io.nuls.transaction.model.po.TransactionNetPO;
 import java.util.*;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -55,15 +58,28 @@ public class Chain {
     private Map<Integer, TxRegister> txRegisterMap;
 
     /**
-     * 可打包交易hash集合, 交易已完成交易管理模块的校验(打包的时候从这里取)
+     * 可打包交易hash集合, 交易已完成交易管理模块的校验(打包的时候从这里取), 按手续费率排序
      */
-    private BlockingDeque<ByteArrayWrapper> packableHashQueue;
+    @JsonIgnore
+    private PackableHashQueue packableHashQueue;
 
     /**
      * 可打包交易hash对应的交易map
      */
     private Map<ByteArrayWrapper, Transaction> packableTxMap;
 
+    /**
+     * 可打包交易的nonce(交易hash后8位)对应的交易hash, 用于查找同账户的前序交易
+     * Nonce (last 8 bytes of tx hash) of packable txs to tx hash, used to find the predecessor of the same account
+     */
+    @JsonIgnore
+    private Map<ByteArrayWrapper, ByteArrayWrapper> packableNonceMap;
+
+
+    /**
+     * 打包时发送给账本批量验证的批次序号, 每次开始批量验证时重置
+     */
+    private AtomicLong ledgerBatchSeq;
 
     /**
      * 未进行验证的交易队列
@@ -109,6 +125,15 @@ public class Chain {
      */
     private AtomicBoolean packableState;
 
+    /**
+     * 账本提交或回滚完成时,唤醒等待的打包线程
+     * Wake up the waiting packing thread when the ledger commit or rollback is finished
+     */
+    @JsonIgnore
+    private final Lock packableStateLock = new ReentrantLock();
+    @JsonIgnore
+    private final Condition packableStateRestored = packableStateLock.newCondition();
+
     /**
      * 执行协议升级的处理
      */
@@ -122,8 +147,10 @@ public class Chain {
         this.packableState = new AtomicBoolean(true);
         this.processTxStatus = new AtomicBoolean(false);
         this.txRegisterMap = new ConcurrentHashMap<>(TxConstant.INIT_CAPACITY_32);
-        this.packableHashQueue = new LinkedBlockingDeque<>();
+        this.packableHashQueue = new PackableHashQueue();
         this.packableTxMap = new ConcurrentHashMap<>();
+        this.packableNonceMap = new ConcurrentHashMap<>();
+        this.ledgerBatchSeq = new AtomicLong(0);
         this.contractTxFail = false;
         this.txPackageOrphanMap = new HashMap<>();
         this.orphanList = new LinkedList<>();
@@ -169,11 +196,11 @@ public class Chain {
         this.txRegisterMap = txRegisterMap;
     }
 
-    public BlockingDeque<ByteArrayWrapper> getPackableHashQueue() {
+    public PackableHashQueue getPackableHashQueue() {
         return packableHashQueue;
     }
 
-    public void setPackableHashQueue(BlockingDeque<ByteArrayWrapper> packableHashQueue) {
+    public void setPackableHashQueue(PackableHashQueue packableHashQueue) {
         this.packableHashQueue = packableHashQueue;
     }
 
@@ -185,6 +212,22 @@ public class Chain {
         this.packableTxMap = packableTxMap;
     }
 
+    public AtomicLong getLedgerBatchSeq() {
+        return ledgerBatchSeq;
+    }
+
+    public void setLedgerBatchSeq(AtomicLong ledgerBatchSeq) {
+        this.ledgerBatchSeq = ledgerBatchSeq;
+    }
+
+    public Map<ByteArrayWrapper, ByteArrayWrapper> getPackableNonceMap() {
+        return packableNonceMap;
+    }
+
+    public void setPackableNonceMap(Map<ByteArrayWrapper, ByteArrayWrapper> packableNonceMap) {
+        this.packableNonceMap = packableNonceMap;
+    }
+
     public long getBestBlockHeight() {
         return bestBlockHeight;
     }
@@ -253,6 +296,41 @@ public class Chain {
         return packableState;
     }
 
+    /**
+     * 更新可打包状态,恢复为可打包时唤醒等待的打包线程
+     * Update the packable state, and wake up the waiting packing thread when it is restored
+     */
+    public void updatePackableState(boolean state) {
+        packableStateLock.lock();
+        try {
+            packableState.set(state);
+            if (state) {
+                packableStateRestored.signalAll();
+            }
+        } finally {
+            packableStateLock.unlock();
+        }
+    }
+
+    /**
+     * 等待可打包状态恢复,超时返回当前状态
+     * Wait for the packable state to be restored, return the current state on timeout
+     *
+     * @param timeout 毫秒 / milliseconds
+     */
+    public boolean awaitPackableState(long timeout) throws InterruptedException {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+        packableStateLock.lock();
+        try {
+            while (!packableState.get() && nanos > 0L) {
+                nanos = packableStateRestored.awaitNanos(nanos);
+            }
+            return packableState.get();
+        } finally {
+            packableStateLock.unlock();
+        }
+    }
+
     public AtomicInteger getOrphanListDataSize() {
         return orphanListDataSize;
     }
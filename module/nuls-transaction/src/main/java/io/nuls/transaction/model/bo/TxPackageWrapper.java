@@ -24,8 +24,11 @@
 
 package io.nuls.transaction.model.bo;
 
+import io.nuls.base.RPCUtil;
 import io.nuls.base.data.Transaction;
 
+import java.io.IOException;
+
 /**
  * 交易模块打包区块交易时对交易临时封装
  * @author: Charlie
@@ -39,6 +42,11 @@ public class TxPackageWrapper {
 
     private String txHex;
 
+    /**
+     * 序列化后的交易, 用于二进制传输
+     */
+    private byte[] txBytes;
+
     public TxPackageWrapper(Transaction tx, int index) {
         this.tx = tx;
         this.index = index;
@@ -50,6 +58,12 @@ public class TxPackageWrapper {
         this.txHex = txHex;
     }
 
+    public TxPackageWrapper(Transaction tx, int index, byte[] txBytes) {
+        this.tx = tx;
+        this.index = index;
+        this.txBytes = txBytes;
+    }
+
     public int compareTo(int index) {
         if (this.index > index) {
             return -1;
@@ -76,9 +90,23 @@ public class TxPackageWrapper {
     }
 
     public String getTxHex() {
+        if (null == txHex && null != txBytes) {
+            txHex = RPCUtil.encode(txBytes);
+        }
         return txHex;
     }
 
+    public byte[] getTxBytes() throws IOException {
+        if (null == txBytes) {
+            txBytes = tx.serialize();
+        }
+        return txBytes;
+    }
+
+    public void setTxBytes(byte[] txBytes) {
+        this.txBytes = txBytes;
+    }
+
     public void setTxHex(String txHex) {
         this.txHex = txHex;
     }
@@ -2,12 +2,14 @@ package io.nuls.transaction.rpc.call;
 
 import io.nuls.base.RPCUtil;
 import io.nuls.base.basic.AddressTool;
+import io.nuls.base.basic.TransactionBatchCodec;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.model.BigIntegerUtils;
 import io.nuls.core.rpc.info.Constants;
 import io.nuls.core.rpc.model.ModuleE;
 import io.nuls.core.rpc.model.message.MessageUtil;
 import io.nuls.core.rpc.model.message.Request;
+import io.nuls.core.rpc.model.message.Response;
 import io.nuls.core.rpc.netty.processor.ResponseMessageProcessor;
 import io.nuls.transaction.constant.TxConstant;
 import io.nuls.transaction.constant.TxErrorCode;
@@ -17,10 +19,8 @@ import io.nuls.transaction.model.po.TransactionNetPO;
 
 import java.io.IOException;
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 调用其他模块跟交易相关的接口
@@ -30,6 +30,8 @@ import java.util.Map;
  */
 public class LedgerCall {
 
+    private static final String VERIFY_COINDATA_BATCH_PACKAGED_BINARY = "verifyCoinDataBatchPackagedBinary";
+
 
     /**
      * 验证单个交易的CoinData(外部使用)
@@ -160,6 +162,130 @@ public class LedgerCall {
         }
     }
 
+    /**
+     * 打包验证交易coinData(批量, 二进制)
+     * 交易按批次拼接为二进制块发送, 流水线方式: 账本校验前一批次时, 下一批次已在传输和解析。
+     * 打包主循环直接使用submitBatchPackagedBinary/collectBatchPackagedBinary做同样的重叠, 本方法用于一次校验整个列表
+     * (合约交易处理后整体重新校验)
+     * Packaged coinData verification (batch, binary)
+     * Transactions are sent in batches as binary blobs and pipelined: the next batch is transferred and parsed
+     * while the ledger is verifying the previous one.
+     * The main packing loop overlaps its batches itself through submitBatchPackagedBinary/collectBatchPackagedBinary,
+     * this method verifies a whole list at once (the re-verification of the packing list after contract execution)
+     *
+     * @param chain
+     * @param txBytesList 已序列化的交易
+     * @return 校验结果位图, 与txBytesList顺序一致, 见TransactionBatchCodec
+     */
+    public static byte[] verifyCoinDataBatchPackagedBinary(Chain chain, List<byte[]> txBytesList) throws NulsException {
+        int total = txBytesList.size();
+        byte[] results = TransactionBatchCodec.newResults(total);
+        int batchSize = TxConstant.PACKAGE_TX_VERIFY_COINDATA_NUMBER_OF_TIMES_TO_PROCESS;
+        Deque<CompletableFuture<Response>> inFlight = new ArrayDeque<>();
+        Deque<Integer> inFlightStart = new ArrayDeque<>();
+        try {
+            for (int start = 0; start < total; start += batchSize) {
+                if (inFlight.size() >= TxConstant.PACKAGE_VERIFY_LEDGER_PIPELINE_DEPTH) {
+                    collectBatchResults(chain, inFlight.poll(), inFlightStart.poll(), results);
+                }
+                inFlight.add(submitBatchPackagedBinary(chain, txBytesList.subList(start, Math.min(start + batchSize, total))));
+                inFlightStart.add(start);
+            }
+            while (!inFlight.isEmpty()) {
+                collectBatchResults(chain, inFlight.poll(), inFlightStart.poll(), results);
+            }
+            return results;
+        } catch (NulsException e) {
+            awaitBatches(inFlight);
+            throw e;
+        } catch (Exception e) {
+            chain.getLogger().error(e);
+            awaitBatches(inFlight);
+            throw new NulsException(TxErrorCode.RPC_REQUEST_FAILD);
+        }
+    }
+
+    /**
+     * 异步发送一个批次给账本校验(二进制), 批次序号按发送顺序递增, 账本按序号依次处理
+     * Send one batch to the ledger asynchronously (binary); the batch sequence follows the send order
+     * and the ledger applies batches in that order
+     *
+     * @param chain
+     * @param txBytesList 已序列化的交易, 不超过PACKAGE_TX_VERIFY_COINDATA_NUMBER_OF_TIMES_TO_PROCESS
+     * @return 账本响应, 由collectBatchPackagedBinary取出结果
+     */
+    public static CompletableFuture<Response> submitBatchPackagedBinary(Chain chain, List<byte[]> txBytesList) throws NulsException {
+        Map<String, Object> params = new HashMap<>(TxConstant.INIT_CAPACITY_8);
+        params.put(Constants.VERSION_KEY_STR, TxConstant.RPC_VERSION);
+        params.put(Constants.CHAIN_ID, chain.getChainId());
+        try {
+            params.put("txs", TransactionBatchCodec.encodeTxs(txBytesList));
+            params.put("batchSeq", chain.getLedgerBatchSeq().getAndIncrement());
+            return ResponseMessageProcessor.requestAsync(ModuleE.LG.abbr, VERIFY_COINDATA_BATCH_PACKAGED_BINARY, params, Constants.TIMEOUT_TIMEMILLIS);
+        } catch (Exception e) {
+            chain.getLogger().error(e);
+            throw new NulsException(TxErrorCode.RPC_REQUEST_FAILD);
+        }
+    }
+
+    /**
+     * 等待submitBatchPackagedBinary发出的批次返回, 取出校验结果位图
+     * Wait for a batch sent by submitBatchPackagedBinary and return its result bitmap
+     *
+     * @param chain
+     * @param future 账本响应
+     * @param count  该批次交易数
+     * @return 校验结果位图, 与批次内交易顺序一致, 见TransactionBatchCodec
+     */
+    public static byte[] collectBatchPackagedBinary(Chain chain, CompletableFuture<Response> future, int count) throws NulsException {
+        byte[] results = TransactionBatchCodec.newResults(count);
+        try {
+            collectBatchResults(chain, future, 0, results);
+            return results;
+        } catch (NulsException e) {
+            throw e;
+        } catch (Exception e) {
+            chain.getLogger().error(e);
+            throw new NulsException(TxErrorCode.RPC_REQUEST_FAILD);
+        }
+    }
+
+    /**
+     * 等待已发出的批次全部返回, 忽略结果。
+     * 账本按序号处理已收到的批次, 不管调用方是否还在等待; 中途出错时必须等这些批次处理完,
+     * 再把交易还回待打包队列, 否则账本会在交易回到队列之后才把它们记入本次打包
+     * Wait for every batch already sent and ignore the results.
+     * The ledger applies each batch it received in sequence whether or not the caller still waits for it,
+     * so after a failure the batches have to finish before their transactions go back to the packable queue
+     *
+     * @param inFlight 已发出的批次
+     */
+    public static void awaitBatches(Collection<CompletableFuture<Response>> inFlight) {
+        for (CompletableFuture<Response> future : inFlight) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                //超时或失败的批次账本不会再处理, 无需等待
+            }
+        }
+        inFlight.clear();
+    }
+
+    private static void collectBatchResults(Chain chain, CompletableFuture<Response> future, int start, byte[] results) throws Exception {
+        Response response = future.get();
+        if (!response.isSuccess()) {
+            chain.getLogger().error("Call interface [{}] error, ErrorCode is {}, ResponseComment:{}",
+                    VERIFY_COINDATA_BATCH_PACKAGED_BINARY, response.getResponseErrorCode(), response.getResponseComment());
+            throw new NulsException(TxErrorCode.RPC_REQUEST_FAILD);
+        }
+        Map data = (Map) ((Map) response.getResponseData()).get(VERIFY_COINDATA_BATCH_PACKAGED_BINARY);
+        int count = (Integer) data.get("count");
+        byte[] batchResults = RPCUtil.decodeParam(data.get("results"));
+        for (int i = 0; i < count; i++) {
+            TransactionBatchCodec.setResult(results, start + i, TransactionBatchCodec.getResult(batchResults, i));
+        }
+    }
+
     /**
      * 验证区块中的交易CoinData
      * @param chain
@@ -258,6 +384,8 @@ public class LedgerCall {
             params.put(Constants.VERSION_KEY_STR, TxConstant.RPC_VERSION);
             params.put(Constants.CHAIN_ID, chain.getChainId());
             HashMap result = (HashMap) TransactionCall.requestAndResponse(ModuleE.LG.abbr, "batchValidateBegin", params);
+            //账本已重置批次序号
+            chain.getLedgerBatchSeq().set(0);
             Boolean value = (Boolean) result.get("value");
             if (null == value) {
                 chain.getLogger().error("call batchValidateBegin response value is null, error:{}",
@@ -9,6 +9,7 @@ import io.nuls.base.data.Transaction;
 import io.nuls.base.protocol.TxRegisterDetail;
 import io.nuls.base.signture.MultiSignTxSignature;
 import io.nuls.base.signture.P2PHKSignature;
+import io.nuls.base.signture.SignatureUtil;
 import io.nuls.base.signture.TransactionSignature;
 import io.nuls.core.core.annotation.Autowired;
 import io.nuls.core.core.annotation.Component;
@@ -669,6 +670,43 @@ public class TransactionCmd extends BaseCmd {
 
     }
 
+    /**
+     * 区块模块同步时在保存前一个区块的同时提交后续区块的交易, 预先批量验证签名并存入已验证签名缓存,
+     * 该区块的tx_batchVerify不再重复验证; 只填充缓存, 不返回验证结果
+     */
+    @CmdAnnotation(cmd = TxCmd.TX_PRE_VERIFY_SIGN, version = 1.0, description = "预先验证区块交易签名/Pre-verify the signatures of block transactions")
+    @Parameters(value = {
+            @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链id"),
+            @Parameter(parameterName = "txList", requestType = @TypeDescriptor(value = List.class, collectionElement = String.class), parameterDes = "待验证交易序列化数据字符串集合")
+    })
+    @ResponseData(description = "无特定返回值, 没有错误即已完成")
+    public Response preVerifySign(Map params) {
+        Chain chain = null;
+        try {
+            ObjectUtils.canNotEmpty(params.get("chainId"), TxErrorCode.PARAMETER_ERROR.getMsg());
+            ObjectUtils.canNotEmpty(params.get("txList"), TxErrorCode.PARAMETER_ERROR.getMsg());
+            chain = chainManager.getChain((Integer) params.get("chainId"));
+            if (null == chain) {
+                throw new NulsException(TxErrorCode.CHAIN_NOT_FOUND);
+            }
+            List<String> txStrList = (List<String>) params.get("txList");
+            List<Transaction> txList = new ArrayList<>(txStrList.size());
+            for (String txStr : txStrList) {
+                txList.add(TxUtil.getInstanceRpcStr(txStr, Transaction.class));
+            }
+            SignatureUtil.batchVerifySignatures(txList);
+            Map<String, Object> resultMap = new HashMap<>(TxConstant.INIT_CAPACITY_2);
+            resultMap.put("value", true);
+            return success(resultMap);
+        } catch (NulsException e) {
+            errorLogProcess(chain, e);
+            return failed(e.getErrorCode());
+        } catch (Exception e) {
+            errorLogProcess(chain, e);
+            return failed(TxErrorCode.SYS_UNKOWN_EXCEPTION);
+        }
+    }
+
     @CmdAnnotation(cmd = TxCmd.TX_CS_STATE, version = 1.0, description = "设置节点打包状态(由共识模块设置)/Set the node packaging state")
     @Parameters(value = {
             @Parameter(parameterName = "chainId", requestType = @TypeDescriptor(value = int.class), parameterDes = "链id"),
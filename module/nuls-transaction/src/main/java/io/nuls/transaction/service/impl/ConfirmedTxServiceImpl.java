@@ -5,6 +5,7 @@ import io.nuls.base.data.BlockHeader;
 import io.nuls.base.data.NulsHash;
 import io.nuls.base.data.Transaction;
 import io.nuls.base.protocol.ProtocolGroupManager;
+import io.nuls.base.signture.VerifiedSignatureCache;
 import io.nuls.core.constant.BaseConstant;
 import io.nuls.core.constant.TxStatusEnum;
 import io.nuls.core.constant.TxType;
@@ -175,6 +176,11 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
         unconfirmedTxStorageService.removeTxList(chainId, txHashs);
         //从待打包map中删除
         packablePool.clearConfirmedTxs(chain, txHashs);
+        //已确认交易不会再验证签名, 从已验证签名缓存中清除
+        for (byte[] txHash : txHashs) {
+            VerifiedSignatureCache.evict(txHash);
+        }
+        logger.debug("[保存区块] {}", VerifiedSignatureCache.stats());
         logger.debug("[保存区块] 合计执行时间:{} - 高度:{}, - 交易数量:{}" + TxUtil.nextLine(),
                 NulsDateUtils.getCurrentTimeMillis() - start, blockHeader.getHeight(), txList.size());
         return true;
@@ -221,7 +227,7 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
 
     private boolean commitLedger(Chain chain, List<String> txList, long blockHeight) {
         try {
-            chain.getPackableState().set(false);
+            chain.updatePackableState(false);
             boolean rs = LedgerCall.commitTxsLedger(chain, txList, blockHeight);
             if(!rs){
                 chain.getLogger().error("save block tx failed! commitLedger");
@@ -232,7 +238,7 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
             chain.getLogger().error(e);
             return false;
         }finally {
-            chain.getPackableState().set(true);
+            chain.updatePackableState(true);
         }
     }
 
@@ -271,7 +277,7 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
             return true;
         }
         try {
-            chain.getPackableState().set(false);
+            chain.updatePackableState(false);
             boolean rs =  LedgerCall.rollbackTxsLedger(chain, txList, blockHeight);
             if(!rs){
                 chain.getLogger().error("rollback block tx failed! rollbackLedger");
@@ -281,7 +287,7 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
             chain.getLogger().error(e);
             return false;
         }finally {
-            chain.getPackableState().set(true);
+            chain.updatePackableState(true);
         }
     }
 
@@ -367,6 +373,8 @@ public class ConfirmedTxServiceImpl implements ConfirmedTxService {
         }
         for (int i = txList.size() - 1; i >= 0; i--) {
             Transaction tx = txList.get(i);
+            //回滚的交易重新放回待打包时需要重新验证签名
+            VerifiedSignatureCache.evict(tx.getHash().getBytes());
             if(!TxManager.isSystemTx(chain, tx)) {
                 unconfirmedTxStorageService.putTx(chain.getChainId(), tx);
                 //不是系统交易,并且节点是打包节点,待打包队列没到最大值则重新放回待打包队列的最前端
@@ -27,6 +27,7 @@ package io.nuls.transaction.service.impl;
 import io.nuls.base.RPCUtil;
 import io.nuls.base.basic.AddressTool;
 import io.nuls.base.basic.NulsByteBuffer;
+import io.nuls.base.basic.TransactionBatchCodec;
 import io.nuls.base.basic.TransactionFeeCalculator;
 import io.nuls.base.data.*;
 import io.nuls.base.protocol.ProtocolGroupManager;
@@ -43,10 +44,10 @@ import io.nuls.core.crypto.HexUtil;
 import io.nuls.core.exception.NulsException;
 import io.nuls.core.log.logback.NulsLogger;
 import io.nuls.core.model.BigIntegerUtils;
-import io.nuls.core.model.ByteArrayWrapper;
 import io.nuls.core.parse.JSONUtils;
 import io.nuls.core.parse.SerializeUtils;
 import io.nuls.core.rpc.model.ModuleE;
+import io.nuls.core.rpc.model.message.Response;
 import io.nuls.core.rpc.util.NulsDateUtils;
 import io.nuls.core.thread.ThreadUtils;
 import io.nuls.core.thread.commom.NulsThreadFactory;
@@ -73,6 +74,7 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -198,7 +200,7 @@ public class TxServiceImpl implements TxService {
                 throw new NulsException(TxErrorCode.TX_BROADCAST_FAIL);
             }
             //加入去重过滤集合,防止其他节点转发回来再次处理该交易
-            TxDuplicateRemoval.insertAndCheck(hash.toHex());
+            TxDuplicateRemoval.insertAndCheck(hash.getBytes());
 
         } catch (IOException e) {
             throw new NulsException(TxErrorCode.DESERIALIZE_ERROR);
@@ -593,6 +595,8 @@ public class TxServiceImpl implements TxService {
         List<TxPackageWrapper> packingTxList = new ArrayList<>();
         //记录账本的孤儿交易,返回给共识的时候给过滤出去,因为在因高度变化而导致重新打包的时候,需要还原到待打包队列
         Set<TxPackageWrapper> orphanTxSet = new HashSet<>();
+        //跨批次累计的打包状态, 以及已发给账本还未取回结果的批次
+        PackingState state = new PackingState();
         NulsLogger nulsLogger = chain.getLogger();
         try {
             //本次打包高度
@@ -612,15 +616,14 @@ public class TxServiceImpl implements TxService {
             Map<String, List<String>> moduleVerifyMap = new HashMap<>(TxConstant.INIT_CAPACITY_8);
 
             long packingTime = endtimestamp - startTime;
-            //统计总等待时间
-            int allSleepTime = 0;
+            //统计总等待时间(待打包队列为空时阻塞等待新交易的时间)
+            long allSleepTime = 0;
             //循环获取交易使用时间
             long whileTime;
             //验证账本总时间
             long totalLedgerTime = 0;
             //模块统一验证使用总时间
             long batchModuleTime;
-            long totalSize = 0L;
             //获取交易时计算区块总size大小临时值
             long totalSizeTemp = 0L;
             int maxCount = TxConstant.PACKAGE_TX_MAX_COUNT - TxConstant.PACKAGE_TX_VERIFY_COINDATA_NUMBER_OF_TIMES_TO_PROCESS;
@@ -628,26 +631,17 @@ public class TxServiceImpl implements TxService {
             //            long batchValidReserve = packagingReservationTime(chain, packingTime);
             long packageRpcReserveTime = chain.getConfig().getPackageRpcReserveTime();
 
-            //智能合约通知标识,出现的第一个智能合约交易并且调用验证器通过时,有则只第一次时通知.
-            boolean contractNotify = false;
-
             //向账本模块发送要批量验证coinData的标识
             LedgerCall.coinDataBatchNotify(chain);
             //取出的交易集合(需要发送给账本验证)
-            List<String> batchProcessList = new ArrayList<>();
+            List<byte[]> batchProcessList = new ArrayList<>();
             Set<String> duplicatesVerify = new HashSet<>();
             //取出的交易集合
             List<TxPackageWrapper> currentBatchPackableTxs = new ArrayList<>();
-            //本次打包包含跨链交易个数
-            int corssTxCount = 0;
             //一批次处理，包含跨链交易个数
             int batchCorssTxCount = 0;
-            //本次打包包含合约交易个数
-            int contractTxCount = 0;
             //一批次处理，包含合约交易个数
             int batchContractTxCount = 0;
-            //是否停止执行职能合约,如果位true,则取出的智能合约本次打包不再处理,需要还回待打包队列
-            boolean stopInvokeContract = false;
             for (int index = 0; ; index++) {
                 long currentTimeMillis = NulsDateUtils.getCurrentTimeMillis();
                 long currentReserve = endtimestamp - currentTimeMillis;
@@ -669,6 +663,7 @@ public class TxServiceImpl implements TxService {
                 if (chain.getProtocolUpgrade().get()) {
                     nulsLogger.info("Protocol Upgrade Package stop -chain:{} -best block height", chain.getChainId(), chain.getBestBlockHeight());
                     backTempPackablePool(chain, currentBatchPackableTxs);
+                    backPendingBatch(state, packingTxList);
                     //放回可打包交易和孤儿
                     putBackPackablePool(chain, packingTxList, orphanTxSet);
                     //直接打空块
@@ -678,6 +673,7 @@ public class TxServiceImpl implements TxService {
                 if (blockHeight < chain.getBestBlockHeight() + 1) {
                     nulsLogger.info("获取交易过程中最新区块高度已增长,把取出的交易以及孤儿放回到打包队列, 重新打包...");
                     backTempPackablePool(chain, currentBatchPackableTxs);
+                    backPendingBatch(state, packingTxList);
                     //放回可打包交易和孤儿
                     putBackPackablePool(chain, packingTxList, orphanTxSet);
                     return getPackableTxs(chain, endtimestamp, maxTxDataSize, blockTime, packingAddress, preStateRoot);
@@ -695,10 +691,15 @@ public class TxServiceImpl implements TxService {
                 Transaction tx = null;
                 boolean maxDataSize = false;
                 try {
-                    tx = packablePool.poll(chain);
+                    if (batchProcessListSize == 0) {
+                        //当前批次为空时阻塞等待新交易,有交易加入时立即唤醒
+                        long waitStart = NulsDateUtils.getCurrentTimeMillis();
+                        tx = packablePool.poll(chain, Math.min(TxConstant.PACKAGE_TX_WAIT_TIMEOUT, currentReserve - batchValidReserve));
+                        allSleepTime += NulsDateUtils.getCurrentTimeMillis() - waitStart;
+                    } else {
+                        tx = packablePool.poll(chain);
+                    }
                     if (tx == null && batchProcessListSize == 0) {
-                        Thread.sleep(10L);
-                        allSleepTime += 10;
                         continue;
                     } else if (tx == null && batchProcessListSize > 0) {
                         //达到处理该批次的条件
@@ -711,7 +712,7 @@ public class TxServiceImpl implements TxService {
                         long txSize = tx.size();
                         if ((totalSizeTemp + txSize) > maxTxDataSize) {
                             packablePool.offerFirstOnlyHash(chain, tx);
-                            nulsLogger.info("交易已达最大容量, 实际值: {}, totalSizeTemp:{}, 当前交易size：{} - 预定最大值maxTxDataSize:{}, txhash:{}", totalSize, totalSizeTemp, txSize, maxTxDataSize, tx.getHash().toHex());
+                            nulsLogger.info("交易已达最大容量, 实际值: {}, totalSizeTemp:{}, 当前交易size：{} - 预定最大值maxTxDataSize:{}, txhash:{}", state.totalSize, totalSizeTemp, txSize, maxTxDataSize, tx.getHash().toHex());
                             maxDataSize = true;
                             if (batchProcessListSize > 0) {
                                 //达到处理该批次的条件
@@ -723,7 +724,7 @@ public class TxServiceImpl implements TxService {
                             TxRegister txRegister = TxManager.getTxRegister(chain, tx.getType());
                             //限制跨链交易数量
                             if (txRegister.getModuleCode().equals(ModuleE.CC.abbr)) {
-                                if (corssTxCount + (++batchCorssTxCount) >= TxConstant.PACKAGE_CROSS_TX_MAX_COUNT) {
+                                if (state.corssTxCount + state.pendingCorssTxCount + (++batchCorssTxCount) >= TxConstant.PACKAGE_CROSS_TX_MAX_COUNT) {
                                     //限制单个区块包含的跨链交易总数，超过跨链交易最大个数，放回去, 然后停止获取交易
                                     packablePool.add(chain, tx);
                                     if (batchProcessListSize > 0) {
@@ -737,7 +738,7 @@ public class TxServiceImpl implements TxService {
                             //限制智能合约交易数量
                             boolean isContract = txRegister.getModuleCode().equals(ModuleE.SC.abbr);
                             if (isContract) {
-                                if (contractTxCount + (++batchContractTxCount) >= TxConstant.PACKAGE_CONTRACT_TX_MAX_COUNT) {
+                                if (state.contractTxCount + state.pendingContractTxCount + (++batchContractTxCount) >= TxConstant.PACKAGE_CONTRACT_TX_MAX_COUNT) {
                                     //限制单个区块包含的跨链交易总数，超过跨链交易最大个数，放回去, 然后停止获取交易
                                     packablePool.add(chain, tx);
                                     if (batchProcessListSize > 0) {
@@ -748,17 +749,17 @@ public class TxServiceImpl implements TxService {
                                     }
                                 }
                             }
-                            String txHex;
+                            byte[] txBytes;
                             try {
-                                txHex = RPCUtil.encode(tx.serialize());
+                                txBytes = tx.serialize();
                             } catch (Exception e) {
                                 nulsLogger.warn(e.getMessage(), e);
-                                nulsLogger.error("丢弃获取hex出错交易, txHash:{}, - type:{}, - time:{}", tx.getHash().toHex(), tx.getType(), tx.getTime());
+                                nulsLogger.error("丢弃序列化出错交易, txHash:{}, - type:{}, - time:{}", tx.getHash().toHex(), tx.getType(), tx.getTime());
                                 clearInvalidTx(chain, tx);
                                 continue;
                             }
-                            TxPackageWrapper txPackageWrapper = new TxPackageWrapper(tx, index, txHex);
-                            batchProcessList.add(txHex);
+                            TxPackageWrapper txPackageWrapper = new TxPackageWrapper(tx, index, txBytes);
+                            batchProcessList.add(txBytes);
                             currentBatchPackableTxs.add(txPackageWrapper);
                             if (batchProcessList.size() == TxConstant.PACKAGE_TX_VERIFY_COINDATA_NUMBER_OF_TIMES_TO_PROCESS) {
                                 //达到处理该批次的条件
@@ -769,89 +770,50 @@ public class TxServiceImpl implements TxService {
                         totalSizeTemp += txSize;
                     }
                     if (process) {
-                        long verifyLedgerStart = NulsDateUtils.getCurrentTimeMillis();
                         if (!chain.getPackableState().get()) {
                             nulsLogger.info("获取交易过程中保存或回滚区块触发账本提交或回滚, 重新打包...");
                             //放回可打包交易和孤儿
+                            backPendingBatch(state, packingTxList);
                             packingTxList.addAll(currentBatchPackableTxs);
                             putBackPackablePool(chain, packingTxList, orphanTxSet);
-                            Thread.sleep(30L);
+                            //等待账本提交或回滚完成后立即重新打包
+                            chain.awaitPackableState(TxConstant.PACKAGE_STATE_WAIT_TIMEOUT);
                             return getPackableTxs(chain, endtimestamp, maxTxDataSize, blockTime, packingAddress, preStateRoot);
                         }
-                        verifyLedger(chain, batchProcessList, currentBatchPackableTxs, orphanTxSet, false, false);
-                        totalLedgerTime += NulsDateUtils.getCurrentTimeMillis() - verifyLedgerStart;
-
-                        Iterator<TxPackageWrapper> it = currentBatchPackableTxs.iterator();
-                        while (it.hasNext()) {
-                            TxPackageWrapper txPackageWrapper = it.next();
-                            Transaction transaction = txPackageWrapper.getTx();
-                            TxRegister txRegister = TxManager.getTxRegister(chain, transaction.getType());
-                            String moduleCode = txRegister.getModuleCode();
-                            boolean isSmartContractTx = moduleCode.equals(ModuleE.SC.abbr);
-                            boolean isCrossTx = moduleCode.equals(ModuleE.CC.abbr);
-                            // add by pierre at 2019-11-02 跨链转账交易发送到智能合约模块进行解析，是否为合约资产跨链转账 需要协议升级 done
-                            if (ProtocolGroupManager.getCurrentVersion(chain.getChainId()) >= TxContext.UPDATE_VERSION_V250) {
-                                boolean isCrossTransferTx = TxType.CROSS_CHAIN == transaction.getType();
-                                if (!isSmartContractTx && txConfig.isCollectedSmartContractModule()) {
-                                    isSmartContractTx = isCrossTransferTx;
-                                }
-                            }
-                            // end code by pierre
-                            if (isSmartContractTx) {
-                                if (stopInvokeContract) {
-                                    //该标志true,表示不再处理智能合约交易,需要暂存交易,统一还回待打包队列
-                                    orphanTxSet.add(txPackageWrapper);
-                                    it.remove();
-                                    continue;
-                                }
-                                // 出现智能合约,且通知标识为false,则先调用通知
-                                if (!contractNotify) {
-                                    ContractCall.contractBatchBegin(chain, blockHeight, blockTime, packingAddress, preStateRoot, 0);
-                                    contractNotify = true;
-                                }
-                                try {
-                                    //调用执行智能合约,返回false.则不再处理智能合约
-                                    boolean invokeContractRs = ContractCall.invokeContract(chain, txPackageWrapper.getTxHex(), 0);
-                                    if (!invokeContractRs) {
-                                        //不再发invoke
-                                        stopInvokeContract = true;
-                                        orphanTxSet.add(txPackageWrapper);
-                                        it.remove();
-                                        continue;
-                                    }
-                                } catch (NulsException e) {
-                                    chain.getLogger().error(e);
-                                    clearInvalidTx(chain, transaction);
-                                    continue;
-                                }
-                            }
-                            totalSize += transaction.getSize();
-
-                            //计算跨链交易的数量
-                            if (isCrossTx) {
-                                corssTxCount++;
-                            }
-                            //计算合约交易的数量
-                            if (isSmartContractTx) {
-                                contractTxCount++;
-                            }
-                            //根据模块的统一验证器名，对所有交易进行分组，准备进行各模块的统一验证
-                            TxUtil.moduleGroups(moduleVerifyMap, txRegister, RPCUtil.encode(transaction.serialize()));
+                        //先发出当前批次, 账本校验它的同时取回并处理上一批次的结果
+                        long verifyLedgerStart = NulsDateUtils.getCurrentTimeMillis();
+                        CompletableFuture<Response> ledgerFuture = LedgerCall.submitBatchPackagedBinary(chain, batchProcessList);
+                        List<TxPackageWrapper> verifiedBatch = state.pendingTxs;
+                        CompletableFuture<Response> verifiedLedgerFuture = state.pendingLedger;
+                        state.pendingTxs = new ArrayList<>(currentBatchPackableTxs);
+                        state.pendingLedger = ledgerFuture;
+                        state.pendingCorssTxCount = batchCorssTxCount;
+                        state.pendingContractTxCount = batchContractTxCount;
+                        state.pendingSize = 0L;
+                        for (TxPackageWrapper txPackageWrapper : currentBatchPackableTxs) {
+                            state.pendingSize += txPackageWrapper.getTx().getSize();
                         }
-                        //更新到当前最新区块交易大小总值
-                        totalSizeTemp = totalSize;
-                        packingTxList.addAll(currentBatchPackableTxs);
 
                         //批次结束重置数据
                         batchProcessList.clear();
                         currentBatchPackableTxs.clear();
                         batchCorssTxCount = 0;
                         batchContractTxCount = 0;
+
+                        if (verifiedLedgerFuture != null) {
+                            byte[] results = LedgerCall.collectBatchPackagedBinary(chain, verifiedLedgerFuture, verifiedBatch.size());
+                            totalLedgerTime += NulsDateUtils.getCurrentTimeMillis() - verifyLedgerStart;
+                            processPackableBatch(chain, state, verifiedBatch, results, packingTxList, orphanTxSet, moduleVerifyMap,
+                                    blockHeight, blockTime, packingAddress, preStateRoot);
+                        }
+                        //更新到当前最新区块交易大小总值, 加上还在账本校验中的批次
+                        totalSizeTemp = state.totalSize + state.pendingSize;
                         if (maxDataSize) {
                             break;
                         }
                     }
                 } catch (Exception e) {
+                    batchProcessList.clear();
                     currentBatchPackableTxs.clear();
                     nulsLogger.error("打包交易异常, txHash:{}, - type:{}, - time:{}", tx.getHash().toHex(), tx.getType(), tx.getTime());
                     nulsLogger.error(e);
@@ -859,14 +821,25 @@ public class TxServiceImpl implements TxService {
                 }
 
             }
+            //取回最后一个批次的账本结果
+            if (state.pendingLedger != null) {
+                long verifyLedgerStart = NulsDateUtils.getCurrentTimeMillis();
+                List<TxPackageWrapper> verifiedBatch = state.pendingTxs;
+                byte[] results = LedgerCall.collectBatchPackagedBinary(chain, state.pendingLedger, verifiedBatch.size());
+                state.pendingTxs = new ArrayList<>();
+                state.pendingLedger = null;
+                totalLedgerTime += NulsDateUtils.getCurrentTimeMillis() - verifyLedgerStart;
+                processPackableBatch(chain, state, verifiedBatch, results, packingTxList, orphanTxSet, moduleVerifyMap,
+                        blockHeight, blockTime, packingAddress, preStateRoot);
+            }
             //循环获取交易使用时间
             whileTime = NulsDateUtils.getCurrentTimeMillis() - startTime;
             if (nulsLogger.isDebugEnabled()) {
-                nulsLogger.debug("-取出的交易 -count:{} - data size:{}", packingTxList.size(), totalSize);
+                nulsLogger.debug("-取出的交易 -count:{} - data size:{}", packingTxList.size(), state.totalSize);
             }
 
             boolean contractBefore = false;
-            if (contractNotify) {
+            if (state.contractNotify) {
                 contractBefore = ContractCall.contractBatchBeforeEnd(chain, blockHeight, 0);
             }
             //处理智能合约
@@ -875,14 +848,14 @@ public class TxServiceImpl implements TxService {
             long contractStart = NulsDateUtils.getCurrentTimeMillis();
             /** 智能合约 当通知标识为true, 则表明有智能合约被调用执行*/
             List<String> contractGenerateTxs = new ArrayList<>();
-            if (contractNotify && !chain.getContractTxFail()) {
+            if (state.contractNotify && !chain.getContractTxFail()) {
                 //处理智能合约执行结果
                 Map map = processContractResult(chain, packingTxList, orphanTxSet, contractGenerateTxs, blockHeight, contractBefore, stateRoot);
                 stateRoot = (String) map.get("stateRoot");
                 hasTxbackPackablePool = (boolean) map.get("hasTxbackPackablePool");
             }
             //如果合约invoke时有需要还回去的合约交易,或者合约执行结果有还回去的交易,都需要重新验证账本
-            if (stopInvokeContract || hasTxbackPackablePool) {
+            if (state.stopInvokeContract || hasTxbackPackablePool) {
                 //如果智能合约有退回或者验证不通过的交易 则需要再次账本验证
                 moduleVerifyMap = new HashMap<>(TxConstant.INIT_CAPACITY_16);
                 verifyAgain(chain, moduleVerifyMap, packingTxList, orphanTxSet, true);
@@ -957,6 +930,9 @@ public class TxServiceImpl implements TxService {
             TxPackage txPackage = new TxPackage(packableTxs, stateRoot, blockHeight);
 
             long totalTime = NulsDateUtils.getCurrentTimeMillis() - startTime;
+            long verifyTime = totalLedgerTime + batchModuleTime + contractTime;
+            nulsLogger.info("[打包时间占比] 打包可用时间:{}, 空闲等待:{}({}%), 验证:{}({}%)",
+                    packingTime, allSleepTime, percentOf(allSleepTime, packingTime), verifyTime, percentOf(verifyTime, packingTime));
             nulsLogger.info("[打包时间统计]  总执行时间:{}, 剩余时间:{}, 打包可用时间:{}, 获取交易(循环)总等待时间:{}, " +
                             "获取交易(循环)执行时间:{}, 获取交易(循环)验证账本总时间:{}, 模块统一验证执行时间:{}, " +
                             "合约执行时间:{},", totalTime, endtimestamp - NulsDateUtils.getCurrentTimeMillis(),
@@ -970,6 +946,7 @@ public class TxServiceImpl implements TxService {
         } catch (Exception e) {
             nulsLogger.error(e);
             //可打包交易,孤儿交易,全加回去
+            backPendingBatch(state, packingTxList);
             putBackPackablePool(chain, packingTxList, orphanTxSet);
             return new TxPackage(new ArrayList<>(), preStateRoot, chain.getBestBlockHeight() + 1);
         } finally {
@@ -977,79 +954,231 @@ public class TxServiceImpl implements TxService {
         }
     }
 
+    private static long percentOf(long part, long total) {
+        return total <= 0 ? 0 : part * 100 / total;
+    }
+
+    /**
+     * 打包时跨批次累计的状态。
+     * 主循环发出下一批次后才取回上一批次的账本结果, 所以计数里要算上还在账本校验中的批次
+     */
+    private static class PackingState {
+        /**
+         * 智能合约通知标识,出现的第一个智能合约交易并且调用验证器通过时,有则只第一次时通知.
+         */
+        boolean contractNotify;
+        /**
+         * 是否停止执行职能合约,如果位true,则取出的智能合约本次打包不再处理,需要还回待打包队列
+         */
+        boolean stopInvokeContract;
+        /**
+         * 已通过账本验证的交易总大小
+         */
+        long totalSize;
+        /**
+         * 本次打包包含跨链交易个数
+         */
+        int corssTxCount;
+        /**
+         * 本次打包包含合约交易个数
+         */
+        int contractTxCount;
+        /**
+         * 已发给账本还未取回结果的批次
+         */
+        List<TxPackageWrapper> pendingTxs = new ArrayList<>();
+        CompletableFuture<Response> pendingLedger;
+        int pendingCorssTxCount;
+        int pendingContractTxCount;
+        long pendingSize;
+    }
+
+    /**
+     * 中断打包时, 等账本处理完已发出的批次, 再把批次中的交易并入packingTxList一起还回待打包队列
+     */
+    private void backPendingBatch(PackingState state, List<TxPackageWrapper> packingTxList) {
+        if (state.pendingLedger == null) {
+            return;
+        }
+        LedgerCall.awaitBatches(Collections.singletonList(state.pendingLedger));
+        packingTxList.addAll(state.pendingTxs);
+        state.pendingTxs = new ArrayList<>();
+        state.pendingLedger = null;
+    }
+
+    /**
+     * 处理一个已取回账本结果的批次: 去除账本验证失败和孤儿交易, 执行智能合约, 按模块统一验证器分组后加入packingTxList
+     *
+     * @param chain
+     * @param state          打包状态
+     * @param verifiedBatch  批次交易
+     * @param results        账本校验结果位图, 见TransactionBatchCodec
+     * @param packingTxList
+     * @param orphanTxSet
+     * @param moduleVerifyMap
+     * @throws NulsException
+     */
+    private void processPackableBatch(Chain chain, PackingState state, List<TxPackageWrapper> verifiedBatch, byte[] results,
+                                      List<TxPackageWrapper> packingTxList, Set<TxPackageWrapper> orphanTxSet,
+                                      Map<String, List<String>> moduleVerifyMap, long blockHeight, long blockTime,
+                                      String packingAddress, String preStateRoot) throws NulsException {
+        processLedgerResults(chain, verifiedBatch, results, orphanTxSet, false, false);
+        Iterator<TxPackageWrapper> it = verifiedBatch.iterator();
+        while (it.hasNext()) {
+            TxPackageWrapper txPackageWrapper = it.next();
+            Transaction transaction = txPackageWrapper.getTx();
+            TxRegister txRegister = TxManager.getTxRegister(chain, transaction.getType());
+            String moduleCode = txRegister.getModuleCode();
+            boolean isSmartContractTx = moduleCode.equals(ModuleE.SC.abbr);
+            boolean isCrossTx = moduleCode.equals(ModuleE.CC.abbr);
+            // add by pierre at 2019-11-02 跨链转账交易发送到智能合约模块进行解析，是否为合约资产跨链转账 需要协议升级 done
+            if (ProtocolGroupManager.getCurrentVersion(chain.getChainId()) >= TxContext.UPDATE_VERSION_V250) {
+                boolean isCrossTransferTx = TxType.CROSS_CHAIN == transaction.getType();
+                if (!isSmartContractTx && txConfig.isCollectedSmartContractModule()) {
+                    isSmartContractTx = isCrossTransferTx;
+                }
+            }
+            // end code by pierre
+            if (isSmartContractTx) {
+                if (state.stopInvokeContract) {
+                    //该标志true,表示不再处理智能合约交易,需要暂存交易,统一还回待打包队列
+                    orphanTxSet.add(txPackageWrapper);
+                    it.remove();
+                    continue;
+                }
+                // 出现智能合约,且通知标识为false,则先调用通知
+                if (!state.contractNotify) {
+                    ContractCall.contractBatchBegin(chain, blockHeight, blockTime, packingAddress, preStateRoot, 0);
+                    state.contractNotify = true;
+                }
+                try {
+                    //调用执行智能合约,返回false.则不再处理智能合约
+                    boolean invokeContractRs = ContractCall.invokeContract(chain, txPackageWrapper.getTxHex(), 0);
+                    if (!invokeContractRs) {
+                        //不再发invoke
+                        state.stopInvokeContract = true;
+                        orphanTxSet.add(txPackageWrapper);
+                        it.remove();
+                        continue;
+                    }
+                } catch (NulsException e) {
+                    chain.getLogger().error(e);
+                    clearInvalidTx(chain, transaction);
+                    continue;
+                }
+            }
+            state.totalSize += transaction.getSize();
+
+            //计算跨链交易的数量
+            if (isCrossTx) {
+                state.corssTxCount++;
+            }
+            //计算合约交易的数量
+            if (isSmartContractTx) {
+                state.contractTxCount++;
+            }
+            //根据模块的统一验证器名，对所有交易进行分组，准备进行各模块的统一验证
+            TxUtil.moduleGroups(moduleVerifyMap, txRegister, txPackageWrapper.getTxHex());
+        }
+        packingTxList.addAll(verifiedBatch);
+    }
+
     /**
      * packing verify ledger
+     * 交易以二进制批量发送给账本, 按返回的结果位图与交易顺序对应处理
      *
      * @param chain
-     * @param batchProcessList
      * @param currentBatchPackableTxs
      * @param orphanTxSet
      * @param proccessContract        是否处理智能合约
      * @param orphanNoCount           (是否因为合约还回去而再次验证账本)孤儿交易还回去的时候 不计算还回去的次数
      * @throws NulsException
      */
-    private void verifyLedger(Chain chain, List<String> batchProcessList, List<TxPackageWrapper> currentBatchPackableTxs,
+    private void verifyLedger(Chain chain, List<TxPackageWrapper> currentBatchPackableTxs,
                               Set<TxPackageWrapper> orphanTxSet, boolean proccessContract, boolean orphanNoCount) throws NulsException {
+        List<byte[]> txBytesList = new ArrayList<>(currentBatchPackableTxs.size());
+        try {
+            for (TxPackageWrapper txPackageWrapper : currentBatchPackableTxs) {
+                txBytesList.add(txPackageWrapper.getTxBytes());
+            }
+        } catch (IOException e) {
+            throw new NulsException(TxErrorCode.SERIALIZE_ERROR);
+        }
         //开始处理
-        Map verifyCoinDataResult = LedgerCall.verifyCoinDataBatchPackaged(chain, batchProcessList);
-        List<String> failHashs = (List<String>) verifyCoinDataResult.get("fail");
-        List<String> orphanHashs = (List<String>) verifyCoinDataResult.get("orphan");
-        if (!failHashs.isEmpty() || !orphanHashs.isEmpty()) {
-            chain.getLogger().error("Package verify Ledger fail tx count:{}", failHashs.size());
-            chain.getLogger().error("Package verify Ledger orphan tx count:{}", orphanHashs.size());
+        byte[] results = LedgerCall.verifyCoinDataBatchPackagedBinary(chain, txBytesList);
+        processLedgerResults(chain, currentBatchPackableTxs, results, orphanTxSet, proccessContract, orphanNoCount);
+    }
+
+    /**
+     * 按账本返回的结果位图处理交易, 去除验证失败的交易, 孤儿交易放入孤儿池
+     *
+     * @param chain
+     * @param currentBatchPackableTxs
+     * @param results                 校验结果位图, 与交易顺序一致, 见TransactionBatchCodec
+     * @param orphanTxSet
+     * @param proccessContract        是否处理智能合约
+     * @param orphanNoCount           (是否因为合约还回去而再次验证账本)孤儿交易还回去的时候 不计算还回去的次数
+     */
+    private void processLedgerResults(Chain chain, List<TxPackageWrapper> currentBatchPackableTxs, byte[] results,
+                                      Set<TxPackageWrapper> orphanTxSet, boolean proccessContract, boolean orphanNoCount) {
+        int failCount = 0;
+        int orphanCount = 0;
+        for (int i = 0; i < currentBatchPackableTxs.size(); i++) {
+            int result = TransactionBatchCodec.getResult(results, i);
+            if (result == TransactionBatchCodec.RESULT_FAIL) {
+                failCount++;
+            } else if (result == TransactionBatchCodec.RESULT_ORPHAN) {
+                orphanCount++;
+            }
+        }
+        if (failCount > 0 || orphanCount > 0) {
+            chain.getLogger().error("Package verify Ledger fail tx count:{}", failCount);
+            chain.getLogger().error("Package verify Ledger orphan tx count:{}", orphanCount);
 
             Iterator<TxPackageWrapper> it = currentBatchPackableTxs.iterator();
             boolean backContract = false;
-            removeAndGo:
+            int index = 0;
             while (it.hasNext()) {
                 TxPackageWrapper txPackageWrapper = it.next();
                 Transaction transaction = txPackageWrapper.getTx();
+                int result = TransactionBatchCodec.getResult(results, index++);
                 //去除账本验证失败的交易
-                for (String hash : failHashs) {
-                    String hashStr = transaction.getHash().toHex();
-                    if (hash.equals(hashStr)) {
-                        if (!backContract && proccessContract && TxManager.isUnSystemSmartContract(chain, transaction.getType())) {
-                            //设置标志,如果是智能合约的非系统交易,未验证通过,则需要将所有非系统智能合约交易还回待打包队列.
-                            backContract = true;
-                        } else {
-                            clearInvalidTx(chain, transaction);
-                        }
-                        it.remove();
-                        continue removeAndGo;
+                if (result == TransactionBatchCodec.RESULT_FAIL) {
+                    if (!backContract && proccessContract && TxManager.isUnSystemSmartContract(chain, transaction.getType())) {
+                        //设置标志,如果是智能合约的非系统交易,未验证通过,则需要将所有非系统智能合约交易还回待打包队列.
+                        backContract = true;
+                    } else {
+                        clearInvalidTx(chain, transaction);
                     }
-                }
-                //去除孤儿交易, 同时把孤儿交易放入孤儿池
-                for (String hash : orphanHashs) {
-                    String hashStr = transaction.getHash().toHex();
-                    if (hash.equals(hashStr)) {
-                        if (!backContract && proccessContract && TxManager.isUnSystemSmartContract(chain, transaction.getType())) {
-                            //设置标志, 如果是智能合约的非系统交易,未验证通过,则需要将所有非系统智能合约交易还回待打包队列.
-                            backContract = true;
+                    it.remove();
+                } else if (result == TransactionBatchCodec.RESULT_ORPHAN) {
+                    //去除孤儿交易, 同时把孤儿交易放入孤儿池
+                    if (!backContract && proccessContract && TxManager.isUnSystemSmartContract(chain, transaction.getType())) {
+                        //设置标志, 如果是智能合约的非系统交易,未验证通过,则需要将所有非系统智能合约交易还回待打包队列.
+                        backContract = true;
+                    } else {
+                        //孤儿交易
+                        if (orphanNoCount) {
+                            //如果是因为合约还回去之后,验证账本为孤儿交易则不需要计数 直接还回
+                            orphanTxSet.add(txPackageWrapper);
                         } else {
-                            //孤儿交易
-                            if (orphanNoCount) {
-                                //如果是因为合约还回去之后,验证账本为孤儿交易则不需要计数 直接还回
-                                orphanTxSet.add(txPackageWrapper);
-                            } else {
-                                addOrphanTxSet(chain, orphanTxSet, txPackageWrapper);
-                            }
+                            addOrphanTxSet(chain, orphanTxSet, txPackageWrapper);
                         }
-                        it.remove();
-                        continue removeAndGo;
                     }
+                    it.remove();
                 }
             }
             //如果有智能合约的非系统交易未验证通过,则需要将所有非系统智能合约交易还回待打包队列.
             if (backContract && proccessContract) {
                 Iterator<TxPackageWrapper> its = currentBatchPackableTxs.iterator();
                 while (its.hasNext()) {
-                    TxPackageWrapper txPackageWrapper = it.next();
+                    TxPackageWrapper txPackageWrapper = its.next();
                     Transaction transaction = txPackageWrapper.getTx();
                     if (TxManager.isUnSystemSmartContract(chain, transaction.getType())) {
                         //如果是智能合约的非系统交易,未验证通过,则需要将所有非系统智能合约交易还回待打包队列.
                         packablePool.offerFirstOnlyHash(chain, transaction);
                         chain.setContractTxFail(true);
-                        it.remove();
+                        its.remove();
                     }
                 }
             }
@@ -1410,16 +1539,7 @@ public class TxServiceImpl implements TxService {
         chain.getLogger().debug("------ verifyAgain 打包再次批量校验通知 ------");
         //向账本模块发送要批量验证coinData的标识
         LedgerCall.coinDataBatchNotify(chain);
-        List<String> batchProcessList = new ArrayList<>();
-        for (TxPackageWrapper txPackageWrapper : packingTxList) {
-            /* 2019-12-31
-            if (TxManager.isSystemSmartContract(chain, txPackageWrapper.getTx().getType())) {
-                //智能合约系统交易不需要验证账本
-                continue;
-            }*/
-            batchProcessList.add(txPackageWrapper.getTxHex());
-        }
-        verifyLedger(chain, batchProcessList, packingTxList, orphanTxSet, true, orphanNoCount);
+        verifyLedger(chain, packingTxList, orphanTxSet, true, orphanNoCount);
 
         for (TxPackageWrapper txPackageWrapper : packingTxList) {
             Transaction tx = txPackageWrapper.getTx();
@@ -1550,6 +1670,14 @@ public class TxServiceImpl implements TxService {
         Set<String> set = new HashSet<>();
         set.addAll(unconfirmedList);
         unconfirmedList = null;
+        //不在未确认中的交易需要验证签名, 先批量并行验证, 逐笔基础验证时命中已验证签名缓存
+        List<Transaction> toVerifySignTxs = new ArrayList<>();
+        for (TxVerifyWrapper txVerifyWrapper : txList) {
+            if (!set.contains(txVerifyWrapper.getTx().getHash().toHex())) {
+                toVerifySignTxs.add(txVerifyWrapper.getTx());
+            }
+        }
+        SignatureUtil.batchVerifySignatures(toVerifySignTxs);
         long d = 0L;
         for (TxVerifyWrapper txVerifyWrapper : txList) {
             Transaction tx = txVerifyWrapper.getTx();
@@ -1801,10 +1929,7 @@ public class TxServiceImpl implements TxService {
     @Override
     public void clearInvalidTx(Chain chain, Transaction tx, boolean changeStatus) {
         unconfirmedTxStorageService.removeTx(chain.getChainId(), tx.getHash());
-        //从待打包队里存交易的map中移除
-        ByteArrayWrapper wrapper = new ByteArrayWrapper(tx.getHash().getBytes());
-        chain.getPackableTxMap().remove(wrapper);
-        //从待打包队列中存实际交易的的map中移除该笔交易
+        //从待打包队列中存实际交易的的map及nonce索引中移除该笔交易
         packablePool.removeInvalidTxFromMap(chain, tx);
         //判断如果交易已被确认就不用调用账本清理了!!
         TransactionConfirmedPO txConfirmed = confirmedTxService.getConfirmedTransaction(chain, tx.getHash());
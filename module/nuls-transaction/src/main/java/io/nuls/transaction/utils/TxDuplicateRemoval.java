@@ -36,9 +36,9 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class TxDuplicateRemoval {
 
-    private static HashSetDuplicateProcessor processorOfTx = new HashSetDuplicateProcessor(1000000);
+    private static TxHashDuplicateFilter processorOfTx = new TxHashDuplicateFilter(1000000);
 
-    public static boolean exist(String hash) {
+    public static boolean exist(byte[] hash) {
         return processorOfTx.contains(hash);
     }
 
@@ -47,7 +47,7 @@ public class TxDuplicateRemoval {
      * @param hash
      * @return
      */
-    public static boolean insertAndCheck(String hash) {
+    public static boolean insertAndCheck(byte[] hash) {
         return processorOfTx.insertAndCheck(hash);
     }
 
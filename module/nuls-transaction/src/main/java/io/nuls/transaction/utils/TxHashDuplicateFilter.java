@@ -0,0 +1,175 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2017-2019 nuls.io
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.nuls.transaction.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 交易hash去重过滤器, 无全局锁, 内存固定
+ * 以交易hash折叠成的long指纹为key, 存放在两代开放寻址表中(CAS写入, 线性探测), 当前代写满后清空上一代并轮换,
+ * 始终保留最近 maxSize/2 ~ maxSize 个交易hash
+ * <p>
+ * Lock-free, fixed memory duplicate filter for tx hashes
+ * Keys are long fingerprints folded from the tx hash, stored in two generations of open addressing tables
+ * (CAS insert, linear probing). When the current generation is full the previous one is cleared and rotated,
+ * so the latest maxSize/2 ~ maxSize hashes are always kept
+ */
+public class TxHashDuplicateFilter {
+
+    private static final long EMPTY = 0L;
+
+    /**
+     * 每一代可容纳的hash数量
+     */
+    private final int generationSize;
+
+    private volatile Generations generations;
+
+    public TxHashDuplicateFilter(int maxSize) {
+        this.generationSize = Math.max(1, maxSize / 2);
+        this.generations = new Generations(new Generation(generationSize), new Generation(generationSize));
+    }
+
+    /**
+     * 加入，返回false则表示已存在
+     * Insert, returns false if it already exists
+     */
+    public boolean insertAndCheck(byte[] hash) {
+        long fingerprint = fingerprint(hash);
+        Generations gens = this.generations;
+        if (gens.previous.contains(fingerprint)) {
+            return false;
+        }
+        Generation current = gens.current;
+        if (!current.insert(fingerprint)) {
+            return false;
+        }
+        if (current.count.incrementAndGet() == generationSize) {
+            rotate(gens);
+        }
+        return true;
+    }
+
+    public boolean contains(byte[] hash) {
+        long fingerprint = fingerprint(hash);
+        Generations gens = this.generations;
+        return gens.current.contains(fingerprint) || gens.previous.contains(fingerprint);
+    }
+
+    /**
+     * 只有使当前代计数恰好达到上限的线程执行轮换, 其他线程继续写入当前代(预留了一倍的空槽位)
+     * Only the thread whose insert makes the count reach the limit rotates,
+     * other threads keep inserting into the current generation (which has twice the slots)
+     */
+    private void rotate(Generations gens) {
+        Generation recycled = gens.previous;
+        recycled.clear();
+        this.generations = new Generations(recycled, gens.current);
+    }
+
+    /**
+     * 将hash按8字节分组异或折叠为long, 0保留为空槽位标记
+     * Fold the hash into a long by xor-ing every 8 bytes, 0 is reserved for empty slots
+     */
+    static long fingerprint(byte[] hash) {
+        long fingerprint = 0L;
+        for (int i = 0; i < hash.length; i++) {
+            fingerprint ^= (hash[i] & 0xFFL) << ((i & 7) << 3);
+        }
+        return fingerprint == EMPTY ? 1L : fingerprint;
+    }
+
+    private static class Generations {
+        private final Generation current;
+        private final Generation previous;
+
+        Generations(Generation current, Generation previous) {
+            this.current = current;
+            this.previous = previous;
+        }
+    }
+
+    private static class Generation {
+        private final AtomicLongArray slots;
+        private final int mask;
+        private final AtomicInteger count = new AtomicInteger();
+
+        Generation(int size) {
+            int capacity = Integer.highestOneBit(Math.max(2, size) - 1) << 2;
+            this.slots = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+        }
+
+        /**
+         * @return 写入成功返回true, 已存在返回false / true if inserted, false if it already exists
+         */
+        boolean insert(long fingerprint) {
+            int index = index(fingerprint);
+            for (int i = 0; i <= mask; i++) {
+                long value = slots.get(index);
+                if (value == EMPTY) {
+                    if (slots.compareAndSet(index, EMPTY, fingerprint)) {
+                        return true;
+                    }
+                    value = slots.get(index);
+                }
+                if (value == fingerprint) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            //表已满(只会在轮换过程中短暂出现), 视为新交易
+            return true;
+        }
+
+        boolean contains(long fingerprint) {
+            int index = index(fingerprint);
+            for (int i = 0; i <= mask; i++) {
+                long value = slots.get(index);
+                if (value == EMPTY) {
+                    return false;
+                }
+                if (value == fingerprint) {
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        }
+
+        void clear() {
+            for (int i = 0; i <= mask; i++) {
+                slots.lazySet(i, EMPTY);
+            }
+            count.set(0);
+        }
+
+        private int index(long fingerprint) {
+            long h = fingerprint * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.nuls.transaction.cache;
+
+import io.nuls.core.model.ByteArrayWrapper;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 待打包hash队列的排序: 手续费率从高到低, 同等手续费率按加入顺序, 放回队首的在同等手续费率中最先取出
+ * Ordering of the packable hash queue: fee rate from high to low, insertion order for equal rates,
+ * hashes put back to the head come first among those with the same rate
+ */
+public class PackableHashQueueTest {
+
+    @Test
+    public void feeRateOrder() {
+        PackableHashQueue queue = new PackableHashQueue();
+        queue.offer(hash(1), 10L);
+        queue.offer(hash(2), 30L);
+        queue.offer(hash(3), 20L);
+        assertEquals(hash(2), queue.poll());
+        assertEquals(hash(3), queue.poll());
+        assertEquals(hash(1), queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void equalFeeRateInInsertionOrder() {
+        PackableHashQueue queue = new PackableHashQueue();
+        queue.offer(hash(1), 10L);
+        queue.offer(hash(2), 10L);
+        queue.offer(hash(3), 10L);
+        //已存在则保持原位置
+        queue.offer(hash(1), 10L);
+        assertEquals(3, queue.size());
+        assertEquals(hash(1), queue.poll());
+        assertEquals(hash(2), queue.poll());
+        assertEquals(hash(3), queue.poll());
+    }
+
+    @Test
+    public void offerFirst() {
+        PackableHashQueue queue = new PackableHashQueue();
+        queue.offer(hash(1), 10L);
+        queue.offer(hash(2), 10L);
+        queue.offer(hash(3), 50L);
+        queue.offerFirst(hash(4), 10L);
+        //已存在则移到队首
+        queue.offerFirst(hash(2), 10L);
+        //放回队首也不会越过手续费率更高的交易
+        assertEquals(hash(3), queue.poll());
+        assertEquals(hash(2), queue.poll());
+        assertEquals(hash(4), queue.poll());
+        assertEquals(hash(1), queue.poll());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void removeAndPollLast() {
+        PackableHashQueue queue = new PackableHashQueue();
+        queue.offer(hash(1), 10L);
+        queue.offer(hash(2), 20L);
+        queue.offer(hash(3), 5L);
+        assertTrue(queue.remove(hash(2)));
+        assertFalse(queue.remove(hash(2)));
+        assertFalse(queue.contains(hash(2)));
+        assertEquals(hash(3), queue.pollLast());
+        assertEquals(1, queue.size());
+        assertTrue(queue.contains(hash(1)));
+    }
+
+    @Test
+    public void pollWaitsForOffer() throws Exception {
+        PackableHashQueue queue = new PackableHashQueue();
+        assertNull(queue.poll(10L, TimeUnit.MILLISECONDS));
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            queue.offer(hash(1), 10L);
+        });
+        producer.start();
+        assertEquals(hash(1), queue.poll(5L, TimeUnit.SECONDS));
+        producer.join();
+    }
+
+    private static ByteArrayWrapper hash(int i) {
+        byte[] bytes = new byte[32];
+        bytes[31] = (byte) i;
+        return new ByteArrayWrapper(bytes);
+    }
+}
@@ -0,0 +1,286 @@
+package io.nuls.transaction.cache;
+
+import io.nuls.base.data.*;
+import io.nuls.core.constant.TxType;
+import io.nuls.core.model.ByteArrayWrapper;
+import io.nuls.transaction.constant.TxConstant;
+import io.nuls.transaction.model.bo.Chain;
+import io.nuls.transaction.model.bo.config.ConfigBean;
+import io.nuls.transaction.storage.UnconfirmedTxStorageService;
+import io.nuls.transaction.utils.TxUtil;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 待打包池: 同账户交易前序优先, 以及并发压测(多个线程模拟NetTxProcessTask写入交易, 同时打包线程取出交易并放回部分交易)
+ * Packable pool: predecessors of the same account first, and a concurrency stress where several threads
+ * (like NetTxProcessTask) add txs while the packing thread polls txs and puts part of them back
+ */
+public class PackablePoolTest {
+
+    private static final int CHAIN_ID = 2;
+    private static final int ASSET_ID = 1;
+    private static final byte[] ADDRESS = new byte[23];
+
+    /**
+     * 后续交易手续费更高, 仍然先取出前序交易
+     */
+    @Test
+    public void predecessorBeforeHigherFeeSuccessor() throws Exception {
+        Chain chain = chain();
+        PackablePool pool = new PackablePool();
+        List<Transaction> nonceChain = nonceChain(4, 1);
+        Transaction other = tx(new byte[8], 2500L, 100);
+        //倒序加入, 手续费率最高的最后一笔先排在队首
+        for (int i = nonceChain.size() - 1; i >= 0; i--) {
+            pool.add(chain, nonceChain.get(i));
+        }
+        pool.add(chain, other);
+        for (Transaction tx : nonceChain) {
+            assertSame(tx, pool.poll(chain));
+        }
+        assertSame(other, pool.poll(chain));
+        assertNull(pool.poll(chain));
+    }
+
+    /**
+     * 同账户交易链超过PACKAGE_NONCE_PREDECESSOR_MAX_DEPTH层时, 只向前查找到该层数,
+     * 取出的交易前序仍在队列中, 由账本验证为孤儿后放回(见PackablePool.predecessorFirst)
+     */
+    @Test
+    public void chainDeeperThanMaxDepth() throws Exception {
+        Chain chain = chain();
+        PackablePool pool = new PackablePool();
+        int depth = TxConstant.PACKAGE_NONCE_PREDECESSOR_MAX_DEPTH;
+        List<Transaction> nonceChain = nonceChain(depth + 2, 1);
+        for (Transaction tx : nonceChain) {
+            pool.add(chain, tx);
+        }
+        //从手续费率最高的最后一笔向前查找depth层, 停在第二笔, 第一笔仍在队列中
+        assertSame(nonceChain.get(1), pool.poll(chain));
+        assertTrue(chain.getPackableHashQueue().contains(hashOf(nonceChain.get(0))));
+        assertEquals(nonceChain.size() - 1, chain.getPackableHashQueue().size());
+        //之后的交易前序都已取出, 按nonce顺序取出, 手续费率最低的第一笔最后取出
+        for (int i = 2; i < nonceChain.size(); i++) {
+            assertSame(nonceChain.get(i), pool.poll(chain));
+        }
+        assertSame(nonceChain.get(0), pool.poll(chain));
+        assertNull(pool.poll(chain));
+    }
+
+    /**
+     * 前序交易hash还在队列中, 但交易已被确认移出map: 清理前序交易的索引, 直接取出后续交易
+     */
+    @Test
+    public void missingPredecessorTx() throws Exception {
+        Chain chain = chain();
+        PackablePool pool = new PackablePool();
+        List<ByteArrayWrapper> removed = new ArrayList<>();
+        setField(pool, "unconfirmedTxStorageService", (UnconfirmedTxStorageService) Proxy.newProxyInstance(
+                UnconfirmedTxStorageService.class.getClassLoader(), new Class[]{UnconfirmedTxStorageService.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("removeTx") && args[1] instanceof byte[]) {
+                        removed.add(new ByteArrayWrapper((byte[]) args[1]));
+                        return true;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+        List<Transaction> nonceChain = nonceChain(2, 1);
+        Transaction predecessor = nonceChain.get(0);
+        Transaction successor = nonceChain.get(1);
+        pool.add(chain, predecessor);
+        pool.add(chain, successor);
+        chain.getPackableTxMap().remove(hashOf(predecessor));
+
+        assertSame(successor, pool.poll(chain));
+        assertEquals(0, chain.getPackableHashQueue().size());
+        assertFalse(chain.getPackableNonceMap().containsKey(new ByteArrayWrapper(TxUtil.getNonce(predecessor.getHash().getBytes()))));
+        assertEquals(1, removed.size());
+        assertEquals(hashOf(predecessor), removed.get(0));
+    }
+
+    @Test
+    public void concurrentAddAndPoll() throws Exception {
+        Result result = stress(new PackablePool(), 4, 20000);
+        assertEquals(4 * 20000, result.polled.size());
+        assertEquals(0, result.duplicate.get());
+    }
+
+    /**
+     * 对比分段锁与全局锁(在整个池上同步)的吞吐
+     * Compare the throughput of striped locks and a global lock (synchronized on the whole pool)
+     */
+    public static void main(String[] args) throws Exception {
+        int producers = 8;
+        int perProducer = 100000;
+        for (int round = 0; round < 3; round++) {
+            long time = System.nanoTime();
+            Result result = stress(new GlobalLockPackablePool(), producers, perProducer);
+            long use = System.nanoTime() - time;
+            System.out.println("global lock\t" + (use / 1000000) + " ms, " + (producers * perProducer * 1000000000L / use)
+                    + " tx/s, polled:" + result.polled.size() + ", duplicate:" + result.duplicate.get());
+
+            time = System.nanoTime();
+            result = stress(new PackablePool(), producers, perProducer);
+            use = System.nanoTime() - time;
+            System.out.println("striped lock\t" + (use / 1000000) + " ms, " + (producers * perProducer * 1000000000L / use)
+                    + " tx/s, polled:" + result.polled.size() + ", duplicate:" + result.duplicate.get());
+            System.out.println("*****************************************************");
+        }
+    }
+
+    private static Result stress(PackablePool pool, int producers, int perProducer) throws Exception {
+        Chain chain = new Chain();
+        int total = producers * perProducer;
+        Result result = new Result();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch produced = new CountDownLatch(producers);
+        for (int i = 0; i < producers; i++) {
+            List<Transaction> txs = txList(perProducer, i);
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (Transaction tx : txs) {
+                        pool.add(chain, tx);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    produced.countDown();
+                }
+            }).start();
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread packer = new Thread(() -> {
+            int count = 0;
+            try {
+                while (running.get()) {
+                    Transaction tx = pool.poll(chain, 10L);
+                    if (null == tx) {
+                        continue;
+                    }
+                    //每10笔放回1笔, 模拟打包时超出限制放回队列
+                    if (++count % 10 == 0) {
+                        pool.offerFirstOnlyHash(chain, tx);
+                        continue;
+                    }
+                    if (!result.polled.add(new ByteArrayWrapper(tx.getHash().getBytes()))) {
+                        result.duplicate.incrementAndGet();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        packer.start();
+        start.countDown();
+        produced.await();
+        while (result.polled.size() + result.duplicate.get() < total && packer.isAlive()) {
+            Thread.sleep(1L);
+        }
+        running.set(false);
+        packer.join();
+        return result;
+    }
+
+    private static List<Transaction> txList(int count, long seed) {
+        Random random = new Random(seed);
+        List<Transaction> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] hash = new byte[32];
+            random.nextBytes(hash);
+            Transaction tx = new Transaction();
+            tx.setHash(new NulsHash(hash));
+            list.add(tx);
+        }
+        return list;
+    }
+
+    private static Chain chain() {
+        Chain chain = new Chain();
+        ConfigBean config = new ConfigBean();
+        config.setChainId(CHAIN_ID);
+        config.setAssetId(ASSET_ID);
+        chain.setConfig(config);
+        return chain;
+    }
+
+    /**
+     * 同一账户按nonce相连的交易, 手续费逐笔升高
+     */
+    private static List<Transaction> nonceChain(int count, long seed) throws IOException {
+        List<Transaction> list = new ArrayList<>(count);
+        byte[] nonce = new byte[8];
+        for (int i = 0; i < count; i++) {
+            Transaction tx = tx(nonce, 1000L * (i + 1), seed * 1000 + i);
+            list.add(tx);
+            nonce = TxUtil.getNonce(tx.getHash().getBytes());
+        }
+        return list;
+    }
+
+    private static Transaction tx(byte[] nonce, long fee, long seed) throws IOException {
+        BigInteger amount = BigInteger.valueOf(100000000L);
+        CoinData coinData = new CoinData();
+        coinData.addFrom(new CoinFrom(ADDRESS, CHAIN_ID, ASSET_ID, amount.add(BigInteger.valueOf(fee)), nonce, (byte) 0));
+        coinData.addTo(new CoinTo(ADDRESS, CHAIN_ID, ASSET_ID, amount));
+        Transaction tx = new Transaction(TxType.TRANSFER);
+        tx.setTime(seed);
+        tx.setCoinData(coinData.serialize());
+        byte[] hash = new byte[32];
+        new Random(seed).nextBytes(hash);
+        tx.setHash(new NulsHash(hash));
+        return tx;
+    }
+
+    private static ByteArrayWrapper hashOf(Transaction tx) {
+        return new ByteArrayWrapper(tx.getHash().getBytes());
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = PackablePool.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static class Result {
+        private final Set<ByteArrayWrapper> polled = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger duplicate = new AtomicInteger();
+    }
+
+    private static class GlobalLockPackablePool extends PackablePool {
+        @Override
+        public synchronized boolean add(Chain chain, Transaction tx) {
+            return super.add(chain, tx);
+        }
+
+        @Override
+        public synchronized boolean offerFirstOnlyHash(Chain chain, Transaction tx) {
+            return super.offerFirstOnlyHash(chain, tx);
+        }
+
+        /**
+         * 持有全局锁时不能阻塞等待, 否则写入线程全部被阻塞
+         */
+        @Override
+        public Transaction poll(Chain chain, long timeout) {
+            synchronized (this) {
+                return super.poll(chain);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package io.nuls.transaction.utils;
+
+import io.nuls.core.crypto.HexUtil;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TxHashDuplicateFilterTest {
+
+    @Test
+    public void insertAndCheck() {
+        TxHashDuplicateFilter filter = new TxHashDuplicateFilter(1000);
+        byte[][] hashes = hashes(400, 1);
+        for (byte[] hash : hashes) {
+            assertTrue(filter.insertAndCheck(hash));
+        }
+        for (byte[] hash : hashes) {
+            assertFalse(filter.insertAndCheck(hash));
+            assertTrue(filter.contains(hash));
+        }
+    }
+
+    @Test
+    public void rotation() {
+        TxHashDuplicateFilter filter = new TxHashDuplicateFilter(1000);
+        byte[][] hashes = hashes(2000, 2);
+        for (byte[] hash : hashes) {
+            filter.insertAndCheck(hash);
+        }
+        //最近加入的一代始终保留, 最早的已被淘汰
+        for (int i = hashes.length - 500; i < hashes.length; i++) {
+            assertTrue(filter.contains(hashes[i]));
+        }
+        assertFalse(filter.contains(hashes[0]));
+    }
+
+    @Test
+    public void concurrentDuplicates() throws Exception {
+        TxHashDuplicateFilter filter = new TxHashDuplicateFilter(1000000);
+        byte[][] hashes = hashes(100000, 3);
+        int threads = 8;
+        AtomicInteger inserted = new AtomicInteger();
+        run(threads, () -> {
+            for (byte[] hash : hashes) {
+                if (filter.insertAndCheck(hash)) {
+                    inserted.incrementAndGet();
+                }
+            }
+        });
+        assertEquals(hashes.length, inserted.get());
+    }
+
+    /**
+     * 32个线程(与netty工作线程数相当)并发写入, 对比HashSetDuplicateProcessor(hex字符串+全局锁)与TxHashDuplicateFilter的吞吐
+     * 32 threads (about the number of netty worker threads) insert concurrently,
+     * compare the throughput of HashSetDuplicateProcessor (hex strings + global lock) and TxHashDuplicateFilter
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = 32;
+        int perThread = 200000;
+        int maxSize = 1000000;
+        byte[][][] data = new byte[threads][][];
+        for (int i = 0; i < threads; i++) {
+            data[i] = hashes(perThread, i);
+        }
+        for (int round = 0; round < 3; round++) {
+            HashSetDuplicateProcessor processor = new HashSetDuplicateProcessor(maxSize);
+            long time = System.nanoTime();
+            runEach(threads, i -> {
+                for (byte[] hash : data[i]) {
+                    processor.insertAndCheck(HexUtil.encode(hash));
+                }
+            });
+            long use = System.nanoTime() - time;
+            System.out.println("HashSetDuplicateProcessor\t" + (use / 1000000) + " ms, " + opsPerSecond(threads * perThread, use) + " ops/s");
+
+            TxHashDuplicateFilter filter = new TxHashDuplicateFilter(maxSize);
+            time = System.nanoTime();
+            runEach(threads, i -> {
+                for (byte[] hash : data[i]) {
+                    filter.insertAndCheck(hash);
+                }
+            });
+            use = System.nanoTime() - time;
+            System.out.println("TxHashDuplicateFilter\t\t" + (use / 1000000) + " ms, " + opsPerSecond(threads * perThread, use) + " ops/s");
+            System.out.println("*****************************************************");
+        }
+    }
+
+    private static long opsPerSecond(long ops, long nanos) {
+        return ops * 1000000000L / nanos;
+    }
+
+    private static byte[][] hashes(int count, long seed) {
+        Random random = new Random(seed);
+        byte[][] hashes = new byte[count][32];
+        for (byte[] hash : hashes) {
+            random.nextBytes(hash);
+        }
+        return hashes;
+    }
+
+    private static void run(int threads, Runnable task) throws InterruptedException {
+        runEach(threads, i -> task.run());
+    }
+
+    private static void runEach(int threads, IntTask task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            int index = i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    task.run(index);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        done.await();
+        executor.shutdown();
+    }
+
+    private interface IntTask {
+        void run(int index);
+    }
+}